@@ -0,0 +1,51 @@
+package com.shopcuathuy.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Analytics event ingestion pipeline configuration
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.analytics.ingestion")
+public class AnalyticsIngestionConfig {
+
+    private int bufferCapacity = 10000;
+    private int batchSize = 500;
+    private long flushIntervalMs = 1000;
+
+    /**
+     * What to do when the buffer is full: DROP the event, or BLOCK the
+     * caller for up to blockTimeoutMs before dropping it
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+    private long blockTimeoutMs = 50;
+
+    /**
+     * Above this fill ratio only sampleRate of the incoming events are kept,
+     * so a burst thins out the data instead of cutting it off
+     */
+    private double sampleThreshold = 0.8;
+    private double sampleRate = 0.1;
+
+    private Archive archive = new Archive();
+
+    @Data
+    public static class Archive {
+        private boolean enabled = true;
+        private long maxObjectBytes = 8 * 1024 * 1024;
+        private long maxObjectAgeMs = 300000;
+        private long checkIntervalMs = 30000;
+    }
+
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+}
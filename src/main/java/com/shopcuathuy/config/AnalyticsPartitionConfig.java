@@ -0,0 +1,78 @@
+package com.shopcuathuy.config;
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Monthly partitioning, archival and retention of the analytics tables
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.analytics.partitioning")
+public class AnalyticsPartitionConfig {
+
+    /**
+     * Only takes effect on MySQL; other databases keep plain tables
+     */
+    private boolean enabled = true;
+
+    /**
+     * Tables partitioned by month of created_at
+     */
+    private List<String> tables = new ArrayList<>(List.of("analytics_events", "product_views"));
+
+    /**
+     * Let the nightly maintenance rebuild tables that are not partitioned
+     * yet. Off by default: a rebuild copies the table under a lock, so
+     * existing tables are converted on purpose with
+     * POST /api/admin/analytics/partitions/convert. Startup never converts.
+     */
+    private boolean convertExisting = false;
+
+    /**
+     * Months of empty partitions kept ahead of the current one
+     */
+    private int premakeMonths = 3;
+
+    /**
+     * Months kept in the database, the current one included; older
+     * partitions are archived and dropped
+     */
+    private int retentionMonths = 13;
+
+    private String maintenanceCron = "0 30 2 * * *";
+
+    /**
+     * Only one node maintains partitions at a time
+     */
+    private String lockKey = "analytics:partitions:lock";
+    private Duration lockTtl = Duration.ofHours(6);
+
+    private Archive archive = new Archive();
+
+    @Data
+    public static class Archive {
+
+        /**
+         * When disabled, expired partitions are dropped without a copy
+         */
+        private boolean enabled = true;
+
+        private String folder = "analytics/partitions";
+
+        /**
+         * Rows per row group; each group stores its values column by column
+         */
+        private int rowGroupSize = 50000;
+
+        private long uploadPartSize = 16 * 1024 * 1024;
+    }
+}
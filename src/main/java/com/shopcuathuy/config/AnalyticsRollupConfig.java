@@ -0,0 +1,35 @@
+package com.shopcuathuy.config;
+
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Analytics rollup configuration
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.analytics.rollup")
+public class AnalyticsRollupConfig {
+
+    /**
+     * How long minute and hour buckets are kept; day buckets are kept forever
+     */
+    private Duration minuteRetention = Duration.ofDays(2);
+    private Duration hourRetention = Duration.ofDays(90);
+
+    private long compactionIntervalMs = 600000;
+    private int compactionBatchSize = 10000;
+
+    /**
+     * When the daily seller rollups in sales_analytics are refreshed, and for
+     * how many days back (late orders and cancellations change past days)
+     */
+    private String sellerRollupCron = "0 5 * * * *";
+    private int sellerRollupDays = 2;
+}
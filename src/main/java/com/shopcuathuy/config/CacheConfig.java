@@ -0,0 +1,51 @@
+package com.shopcuathuy.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Cache configuration: Caffeine L1 per node in front of a shared Redis L2
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Two-level cache manager
+     *
+     * Transaction-aware, so puts and evictions issued inside a transaction are
+     * applied only after it commits.
+     */
+    @Bean
+    public TwoLevelCacheManager cacheManager(TwoLevelCacheConfig twoLevelCacheConfig,
+                                             @Qualifier("objectRedisTemplate") RedisTemplate<String, Object> objectRedisTemplate,
+                                             MeterRegistry meterRegistry) {
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(
+                twoLevelCacheConfig, objectRedisTemplate, meterRegistry);
+        cacheManager.setTransactionAware(true);
+        return cacheManager;
+    }
+
+    /**
+     * Listener container for cross-node L1 invalidation messages
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.cache", name = "redis-enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoLevelCacheManager cacheManager,
+                                                                            TwoLevelCacheConfig twoLevelCacheConfig) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(twoLevelCacheConfig.getInvalidationChannel()));
+        return container;
+    }
+}
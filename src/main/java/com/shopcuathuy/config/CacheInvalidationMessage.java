@@ -0,0 +1,25 @@
+package com.shopcuathuy.config;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Message telling other nodes to drop a local cache entry, or the whole
+ * local cache when {@code key} is null
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationMessage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String origin;
+    private String cacheName;
+    private String key;
+}
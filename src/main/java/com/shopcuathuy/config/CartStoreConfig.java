@@ -0,0 +1,40 @@
+package com.shopcuathuy.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the Redis-backed cart store
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.cart")
+public class CartStoreConfig {
+
+    /**
+     * Keep active carts in Redis hashes and persist them write-behind;
+     * when false every cart operation goes to the carts table
+     */
+    private boolean redisEnabled = true;
+
+    private String keyPrefix = "cart:";
+
+    /**
+     * Idle time after which a user's cart leaves Redis; it is reloaded from
+     * the carts table on next use
+     */
+    private Duration ttl = Duration.ofDays(30);
+
+    /**
+     * Idle time after which a guest cart is dropped
+     */
+    private Duration guestTtl = Duration.ofDays(7);
+
+    private long persistIntervalMs = 5000;
+    private int persistBatchSize = 100;
+}
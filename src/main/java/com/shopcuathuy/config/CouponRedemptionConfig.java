@@ -0,0 +1,42 @@
+package com.shopcuathuy.config;
+
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Coupon redemption counter configuration
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.coupon.redemption")
+public class CouponRedemptionConfig {
+
+    /**
+     * Enforce usage limits with Redis counters; when false, or when Redis
+     * fails, redemptions take a conditional update on the coupons row
+     */
+    private boolean redisEnabled = true;
+
+    private String keyPrefix = "coupon:";
+
+    /**
+     * How long counters are kept after the coupon ends
+     */
+    private Duration keyGrace = Duration.ofDays(1);
+
+    private long persistIntervalMs = 1000;
+    private int persistBatchSize = 500;
+
+    /**
+     * Lease letting one node write queued redemptions at a time
+     */
+    private Duration lockTtl = Duration.ofSeconds(30);
+
+    private long reconcileIntervalMs = 60000;
+}
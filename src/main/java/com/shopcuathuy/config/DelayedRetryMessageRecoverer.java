@@ -0,0 +1,122 @@
+package com.shopcuathuy.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+/**
+ * Recovers failed listener messages without blocking the consumer.
+ *
+ * A failed message is republished to the retry delay queue of its next
+ * attempt. When the delay expires it is dead-lettered back to the queue it
+ * came from. A message that has used up its retries, or whose failure cannot
+ * be fixed by retrying, is moved to the parking-lot queue of its queue
+ * together with the error. A failed batch is recovered message by message, so
+ * each message is retried on its own. A batch listener may recover single
+ * messages of its batch itself and acknowledge the rest.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public class DelayedRetryMessageRecoverer implements MessageBatchRecoverer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DelayedRetryMessageRecoverer.class);
+
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+    public static final String EXCEPTION_HEADER = "x-exception-message";
+    public static final String EXCEPTION_TYPE_HEADER = "x-exception-type";
+    public static final String ORIGINAL_QUEUE_HEADER = "x-original-queue";
+
+    /**
+     * Set on the delivered message once it has been republished; the
+     * republished copy does not carry it
+     */
+    public static final String RECOVERED_HEADER = "x-recovered";
+
+    private static final int MAX_HEADER_LENGTH = 1000;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MessageListenerConfig config;
+    private final MeterRegistry meterRegistry;
+
+    public DelayedRetryMessageRecoverer(RabbitTemplate rabbitTemplate, MessageListenerConfig config,
+                                        MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void recover(List<Message> messages, Throwable cause) {
+        for (Message message : messages) {
+            recover(message, cause);
+        }
+    }
+
+    @Override
+    public void recover(Message message, Throwable cause) {
+        MessageProperties properties = message.getMessageProperties();
+        String queue = properties.getConsumerQueue();
+        Throwable failure = cause instanceof ListenerExecutionFailedException && cause.getCause() != null
+                ? cause.getCause() : cause;
+        int retries = retryCount(properties);
+
+        if (retries < config.specFor(queue).getMaxRetries() && isRetryable(failure)) {
+            properties.setHeader(RETRY_COUNT_HEADER, retries + 1);
+            rabbitTemplate.send(RabbitMQConfig.RETRY_DELAY_EXCHANGE, (retries + 1) + "." + queue, message);
+            properties.setHeader(RECOVERED_HEADER, true);
+            meterRegistry.counter("messaging.listener.retried", "queue", queue).increment();
+            logger.warn("Message on {} failed, retry {} scheduled: {}", queue, retries + 1, failure.getMessage());
+            return;
+        }
+
+        properties.setHeader(ORIGINAL_QUEUE_HEADER, queue);
+        properties.setHeader(EXCEPTION_TYPE_HEADER, failure.getClass().getName());
+        properties.setHeader(EXCEPTION_HEADER, truncate(failure.getMessage()));
+        rabbitTemplate.send(RabbitMQConfig.PARKING_LOT_EXCHANGE, queue, message);
+        properties.setHeader(RECOVERED_HEADER, true);
+        meterRegistry.counter("messaging.listener.parked", "queue", queue).increment();
+        logger.error("Message on {} parked after {} retries: {}", queue, retries, failure.getMessage(), failure);
+    }
+
+    /**
+     * Failures that will happen again however often the message is retried
+     */
+    private boolean isRetryable(Throwable failure) {
+        for (Throwable current = failure; current != null; current = current.getCause() != current ? current.getCause() : null) {
+            if (current instanceof MessageConversionException
+                    || current instanceof IllegalArgumentException
+                    || current instanceof ClassCastException
+                    || current instanceof NullPointerException) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether a delivered message has been handed to a retry or the parking lot
+     */
+    public static boolean isRecovered(Message message) {
+        return Boolean.TRUE.equals(message.getMessageProperties().getHeader(RECOVERED_HEADER));
+    }
+
+    private int retryCount(MessageProperties properties) {
+        Object count = properties.getHeader(RETRY_COUNT_HEADER);
+        return count instanceof Number number ? number.intValue() : 0;
+    }
+
+    private String truncate(String value) {
+        if (value == null) {
+            return null;
+        }
+        return value.length() > MAX_HEADER_LENGTH ? value.substring(0, MAX_HEADER_LENGTH) : value;
+    }
+}
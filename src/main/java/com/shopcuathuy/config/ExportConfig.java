@@ -0,0 +1,43 @@
+package com.shopcuathuy.config;
+
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Streaming data export configuration
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.export")
+public class ExportConfig {
+
+    /**
+     * JDBC fetch size telling MySQL Connector/J to stream rows one at a time
+     * instead of buffering the whole result set
+     */
+    public static final String STREAMING_FETCH_SIZE = "-2147483648";
+
+    /**
+     * Compress exports with gzip
+     */
+    private boolean gzip = true;
+
+    /**
+     * Size of each MinIO multipart part; this is the upload buffer held in memory per job
+     */
+    private long partSize = 5 * 1024 * 1024;
+
+    private int maxConcurrentJobs = 2;
+    private int queueCapacity = 20;
+
+    /**
+     * How long finished jobs stay queryable
+     */
+    private Duration jobRetention = Duration.ofHours(1);
+}
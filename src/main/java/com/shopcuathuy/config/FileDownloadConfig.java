@@ -0,0 +1,41 @@
+package com.shopcuathuy.config;
+
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * File download configuration
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.file.download")
+public class FileDownloadConfig {
+
+    /**
+     * Buffer used to copy an object to the response; the only per-download memory
+     */
+    private int bufferSize = 64 * 1024;
+
+    /**
+     * Browser cache lifetime of downloaded files; they are revalidated by ETag afterwards
+     */
+    private Duration cacheMaxAge = Duration.ofDays(1);
+
+    /**
+     * Cache lifetime of image variants, whose keys never get new content
+     */
+    private Duration immutableMaxAge = Duration.ofDays(365);
+
+    /**
+     * Redirect downloads to presigned MinIO URLs instead of streaming them through the application
+     */
+    private boolean redirect = false;
+
+    private Duration presignExpiry = Duration.ofMinutes(15);
+}
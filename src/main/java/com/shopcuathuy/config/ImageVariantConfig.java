@@ -0,0 +1,83 @@
+package com.shopcuathuy.config;
+
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Image derivative (resized variant) pipeline configuration
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.images")
+public class ImageVariantConfig {
+
+    /**
+     * Generate variants when an image is uploaded
+     */
+    private boolean enabled = true;
+
+    /**
+     * Worker threads; 0 uses one per available core
+     */
+    private int workerThreads = 0;
+    private int queueCapacity = 200;
+
+    /**
+     * Images with more pixels than this are not decoded
+     */
+    private long maxSourcePixels = 40_000_000L;
+
+    /**
+     * How long a request waits for a missing variant to be generated
+     */
+    private Duration onDemandTimeout = Duration.ofSeconds(10);
+
+    private double quality = 0.8;
+
+    /**
+     * Output formats, preferred first. WebP is written by the webp-imageio
+     * plugin; a format without an ImageIO writer is skipped.
+     */
+    private List<String> formats = List.of("webp", "jpg");
+
+    /**
+     * Bounding boxes by variant name; images are scaled to fit, keeping their
+     * aspect ratio, and never enlarged
+     */
+    private Map<String, Size> sizes = defaultSizes();
+
+    /**
+     * Get the number of worker threads
+     */
+    public int threads() {
+        return workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static Map<String, Size> defaultSizes() {
+        Map<String, Size> sizes = new LinkedHashMap<>();
+        sizes.put("thumb", new Size(150, 150));
+        sizes.put("small", new Size(320, 320));
+        sizes.put("medium", new Size(640, 640));
+        sizes.put("large", new Size(1280, 1280));
+        return sizes;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Size {
+        private int width;
+        private int height;
+    }
+}
@@ -0,0 +1,38 @@
+package com.shopcuathuy.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for caching verified JWTs and their principals
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.jwt.cache")
+public class JwtAuthCacheConfig {
+
+    /**
+     * When false every request verifies the token and loads the user from the database
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long a verified token is remembered; its own expiry still applies
+     */
+    private Duration tokenTtl = Duration.ofMinutes(10);
+    private long tokenMaximumSize = 50000;
+
+    /**
+     * How long a principal is reused before revocation is checked again
+     */
+    private Duration principalTtl = Duration.ofSeconds(60);
+    private long principalMaximumSize = 50000;
+
+    private String invalidationChannel = "auth:invalidation";
+    private String revokedKeyPrefix = "auth:revoked:";
+}
@@ -0,0 +1,37 @@
+package com.shopcuathuy.config;
+
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Refresh-ahead configuration for the ranked product listing caches
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.listing-cache")
+public class ListingCacheConfig {
+
+    /**
+     * Serve the previous value while one caller recomputes an invalidated entry
+     */
+    private boolean staleWhileRevalidate = true;
+
+    /**
+     * Age after which an entry is due for refresh; the cache TTL stays the hard limit
+     */
+    private Duration refreshAfter = Duration.ofMinutes(5);
+
+    /**
+     * Probabilistic early refresh weight; 0 disables early refresh, above 1 favours earlier refreshes
+     */
+    private double earlyRefreshBeta = 1.0;
+
+    private int refreshThreads = 2;
+    private int refreshQueueCapacity = 100;
+}
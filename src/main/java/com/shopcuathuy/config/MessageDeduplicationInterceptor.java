@@ -0,0 +1,155 @@
+package com.shopcuathuy.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * Listener advice dropping messages a queue has already handled.
+ *
+ * Outbox delivery is at least once: a batch whose confirm times out is sent
+ * again. Messages carry a message id, and the id is claimed in Redis per
+ * queue before the listener runs. A claimed id is dropped and acknowledged.
+ * The claim becomes permanent for the deduplication TTL once the listener
+ * returns, and is given up if it throws, so the delayed retry of a failed
+ * message is handled again. Messages without an id are always handled, as
+ * is every message while Redis is unavailable.
+ *
+ * Batch listeners get the batch without its duplicates. Messages a batch
+ * listener sent to a retry itself give up their claim like failed ones.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public class MessageDeduplicationInterceptor implements MethodInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageDeduplicationInterceptor.class);
+
+    private static final String KEY_PREFIX = "messaging:handled:";
+    private static final String PROCESSING = "processing";
+    private static final String DONE = "done";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final MessageListenerConfig config;
+    private final MeterRegistry meterRegistry;
+
+    public MessageDeduplicationInterceptor(RedisTemplate<String, String> redisTemplate,
+                                           MessageListenerConfig config,
+                                           MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!config.isDeduplicationEnabled()) {
+            return invocation.proceed();
+        }
+        Object[] arguments = invocation.getArguments();
+        int index = dataIndex(arguments);
+        if (index < 0) {
+            return invocation.proceed();
+        }
+
+        Map<String, Message> claimed = new LinkedHashMap<>();
+        if (arguments[index] instanceof Message message) {
+            if (!claim(message, claimed)) {
+                return null;
+            }
+        } else {
+            List<Message> fresh = new ArrayList<>();
+            for (Message message : (List<Message>) arguments[index]) {
+                if (claim(message, claimed)) {
+                    fresh.add(message);
+                }
+            }
+            if (fresh.isEmpty()) {
+                return null;
+            }
+            arguments[index] = fresh;
+        }
+
+        try {
+            Object result = invocation.proceed();
+            complete(claimed);
+            return result;
+        } catch (Throwable e) {
+            release(new ArrayList<>(claimed.keySet()));
+            throw e;
+        }
+    }
+
+    /**
+     * Claim the id of a message
+     *
+     * @return false if another delivery of the message has claimed it
+     */
+    private boolean claim(Message message, Map<String, Message> claimed) {
+        String messageId = message.getMessageProperties().getMessageId();
+        String queue = message.getMessageProperties().getConsumerQueue();
+        if (messageId == null) {
+            return true;
+        }
+        String key = KEY_PREFIX + queue + ":" + messageId;
+        try {
+            Boolean fresh = redisTemplate.opsForValue()
+                    .setIfAbsent(key, PROCESSING, config.getDeduplicationProcessingTtl());
+            if (Boolean.FALSE.equals(fresh)) {
+                meterRegistry.counter("messaging.listener.duplicates", "queue", String.valueOf(queue)).increment();
+                logger.debug("Dropping duplicate message {} on {}", messageId, queue);
+                return false;
+            }
+            claimed.put(key, message);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to check message {} for duplicates, handling it: {}", messageId, e.getMessage());
+        }
+        return true;
+    }
+
+    private void complete(Map<String, Message> claimed) {
+        List<String> recovered = new ArrayList<>();
+        for (Map.Entry<String, Message> claim : claimed.entrySet()) {
+            if (DelayedRetryMessageRecoverer.isRecovered(claim.getValue())) {
+                recovered.add(claim.getKey());
+                continue;
+            }
+            try {
+                redisTemplate.opsForValue().set(claim.getKey(), DONE, config.getDeduplicationTtl());
+            } catch (RuntimeException e) {
+                logger.warn("Failed to record handled message {}: {}", claim.getKey(), e.getMessage());
+            }
+        }
+        release(recovered);
+    }
+
+    private void release(List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.delete(keys);
+        } catch (RuntimeException e) {
+            // The claims expire after the processing TTL
+            logger.warn("Failed to release {} message claims: {}", keys.size(), e.getMessage());
+        }
+    }
+
+    private static int dataIndex(Object[] arguments) {
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] instanceof Message || arguments[i] instanceof List) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
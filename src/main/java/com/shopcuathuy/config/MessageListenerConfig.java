@@ -0,0 +1,110 @@
+package com.shopcuathuy.config;
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ listener container, retry and parking-lot configuration
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.messaging")
+public class MessageListenerConfig {
+
+    /**
+     * Run listeners on virtual threads; needs a Java 21 runtime
+     */
+    private boolean virtualThreads = false;
+
+    private int defaultConcurrency = 1;
+    private int defaultMaxConcurrency = 4;
+    private int defaultPrefetch = 10;
+    private int defaultMaxRetries = 4;
+
+    /**
+     * Batch listeners receive up to the batch size, or what arrived within the
+     * receive timeout. The batch size moves between the minimum and the
+     * maximum with the queue depth, checked every tune interval.
+     */
+    private int defaultBatchSize = 500;
+    private int defaultMinBatchSize = 20;
+    private Duration defaultBatchReceiveTimeout = Duration.ofMillis(200);
+    private long batchTuneIntervalMs = 5000;
+
+    /**
+     * Delay before each retry: the first delay, multiplied for every further
+     * retry, capped at the maximum. There is one delay queue per retry.
+     */
+    private Duration retryInitialInterval = Duration.ofSeconds(1);
+    private double retryMultiplier = 4.0;
+    private Duration retryMaxInterval = Duration.ofMinutes(5);
+    private int retryLevels = 4;
+
+    /**
+     * Each queue handles a message id once, remembered in Redis for the TTL.
+     * A message being handled holds its id for the processing TTL.
+     */
+    private boolean deduplicationEnabled = true;
+    private Duration deduplicationTtl = Duration.ofDays(1);
+    private Duration deduplicationProcessingTtl = Duration.ofMinutes(5);
+
+    /**
+     * Per-listener overrides, keyed by queue name
+     */
+    private Map<String, ListenerSpec> listeners = new HashMap<>();
+
+    /**
+     * Get the settings of a listener with defaults applied
+     */
+    public ListenerSpec specFor(String queueName) {
+        ListenerSpec spec = listeners.getOrDefault(queueName, new ListenerSpec());
+        ListenerSpec resolved = new ListenerSpec();
+        resolved.setConcurrency(spec.getConcurrency() != null ? spec.getConcurrency() : defaultConcurrency);
+        int maxConcurrency = spec.getMaxConcurrency() != null ? spec.getMaxConcurrency() : defaultMaxConcurrency;
+        resolved.setMaxConcurrency(Math.max(maxConcurrency, resolved.getConcurrency()));
+        resolved.setPrefetch(spec.getPrefetch() != null ? spec.getPrefetch() : defaultPrefetch);
+        int maxRetries = spec.getMaxRetries() != null ? spec.getMaxRetries() : defaultMaxRetries;
+        // Every retry needs its own delay queue
+        resolved.setMaxRetries(Math.min(Math.max(maxRetries, 0), retryLevels));
+        resolved.setBatchSize(Math.max(spec.getBatchSize() != null ? spec.getBatchSize() : defaultBatchSize, 1));
+        int minBatchSize = spec.getMinBatchSize() != null ? spec.getMinBatchSize() : defaultMinBatchSize;
+        resolved.setMinBatchSize(Math.min(Math.max(minBatchSize, 1), resolved.getBatchSize()));
+        resolved.setBatchReceiveTimeout(spec.getBatchReceiveTimeout() != null
+                ? spec.getBatchReceiveTimeout() : defaultBatchReceiveTimeout);
+        return resolved;
+    }
+
+    /**
+     * Delays of the retry delay queues, first retry first
+     */
+    public List<Duration> retryDelays() {
+        List<Duration> delays = new ArrayList<>(retryLevels);
+        double delayMs = retryInitialInterval.toMillis();
+        for (int level = 0; level < retryLevels; level++) {
+            delays.add(Duration.ofMillis(Math.min((long) delayMs, retryMaxInterval.toMillis())));
+            delayMs *= retryMultiplier;
+        }
+        return delays;
+    }
+
+    @Data
+    public static class ListenerSpec {
+        private Integer concurrency;
+        private Integer maxConcurrency;
+        private Integer prefetch;
+        private Integer maxRetries;
+        private Integer batchSize;
+        private Integer minBatchSize;
+        private Duration batchReceiveTimeout;
+    }
+}
@@ -0,0 +1,88 @@
+package com.shopcuathuy.config;
+
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Notification storage and unread counter configuration
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.notification")
+public class NotificationConfig {
+
+    /**
+     * Rows removed per delete statement, or id range width for the age cleanup; each batch commits on its own
+     */
+    private int deleteBatchSize = 1000;
+
+    private Unread unread = new Unread();
+
+    private Push push = new Push();
+
+    @Data
+    public static class Unread {
+
+        /**
+         * Serve unread counts from Redis; when false every read is a COUNT query
+         */
+        private boolean enabled = true;
+
+        private String keyPrefix = "notification:unread:";
+
+        /**
+         * How long an untouched counter is kept; it is counted again on next read
+         */
+        private Duration ttl = Duration.ofDays(7);
+
+        /**
+         * Counters older than the reconcile age are recounted, a batch per run
+         */
+        private long reconcileIntervalMs = 300000;
+        private int reconcileBatchSize = 500;
+        private Duration reconcileAge = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Push {
+
+        /**
+         * STOMP over WebSocket endpoint; clients subscribe to /user/queue/notifications
+         */
+        private String endpoint = "/ws/notifications";
+
+        /**
+         * Heartbeat sent and expected on idle connections, both transports
+         */
+        private long heartbeatMs = 25000;
+
+        /**
+         * A WebSocket client is disconnected when a send takes longer than the
+         * time limit or its unsent messages exceed the buffer limit
+         */
+        private Duration sendTimeLimit = Duration.ofSeconds(10);
+        private int sendBufferSizeLimit = 512 * 1024;
+
+        /**
+         * SSE connections are closed after the timeout and reconnect; a client
+         * whose queue of unsent events is full is disconnected
+         */
+        private Duration sseTimeout = Duration.ofMinutes(30);
+        private int sseQueueCapacity = 100;
+        private int maxSseSessionsPerUser = 5;
+
+        /**
+         * Threads writing to SSE connections and to WebSocket sessions
+         */
+        private int senderThreads = 4;
+        private int senderQueueCapacity = 10000;
+
+        private int prefetch = 250;
+    }
+}
@@ -0,0 +1,67 @@
+package com.shopcuathuy.config;
+
+
+import java.time.Duration;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Transactional outbox configuration
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxConfig {
+
+    /**
+     * When disabled, events are sent to RabbitMQ directly from the request thread
+     */
+    private boolean enabled = true;
+
+    private long pollIntervalMs = 500;
+    private int batchSize = 200;
+
+    /**
+     * Batches one relay run may send before yielding to the next run
+     */
+    private int maxBatchesPerRun = 10;
+
+    /**
+     * How long the relay waits for the broker to confirm a batch
+     */
+    private Duration confirmTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Exchanges whose events are published in commit order per aggregate id;
+     * events of other exchanges are published as soon as they are due
+     */
+    private List<String> orderedExchanges = List.of("order.exchange", "product.exchange");
+
+    /**
+     * Retry backoff doubles from the initial delay up to the maximum; after
+     * max attempts an event is parked as FAILED. Later events of its
+     * aggregate are then published without it.
+     */
+    private int maxAttempts = 10;
+    private Duration initialBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofMinutes(5);
+
+    /**
+     * Only one node relays at a time so batches are not sent twice; no node
+     * relays while the lease cannot be taken
+     */
+    private String lockKey = "outbox:relay:lock";
+    private Duration lockTtl = Duration.ofSeconds(30);
+
+    /**
+     * How long sent events are kept before they are deleted
+     */
+    private Duration retention = Duration.ofDays(3);
+    private long cleanupIntervalMs = 3600000;
+    private int cleanupBatchSize = 5000;
+}
@@ -0,0 +1,21 @@
+package com.shopcuathuy.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Product counter write-behind configuration
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.product-counters")
+public class ProductCounterConfig {
+
+    private long flushIntervalMs = 5000;
+    private int batchSize = 500;
+}
@@ -0,0 +1,37 @@
+package com.shopcuathuy.config;
+
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Product facet configuration
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.product-facets")
+public class ProductFacetConfig {
+
+    /**
+     * Upper bounds of the price histogram buckets, in ascending order
+     */
+    private List<BigDecimal> priceBoundaries = new ArrayList<>(List.of(
+            new BigDecimal("100000"), new BigDecimal("200000"), new BigDecimal("500000"),
+            new BigDecimal("1000000"), new BigDecimal("2000000"), new BigDecimal("5000000"),
+            new BigDecimal("10000000")));
+
+    private int maxBrandBuckets = 20;
+    private int maxCategoryBuckets = 20;
+
+    /**
+     * Most relevant search index hits the facets of a text search count
+     */
+    private int maxSearchHits = 10000;
+}
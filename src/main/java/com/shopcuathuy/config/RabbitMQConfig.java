@@ -1,14 +1,24 @@
 package com.shopcuathuy.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.redis.core.RedisTemplate;
 
 /**
  * RabbitMQ Configuration
@@ -31,6 +41,12 @@ public class RabbitMQConfig {
     public static final String PAYMENT_QUEUE = "payment.queue";
     public static final String SHIPPING_QUEUE = "shipping.queue";
 
+    /**
+     * Prefix of the per-node queues carrying notification events to push;
+     * each node declares its own exclusive, auto-delete queue
+     */
+    public static final String NOTIFICATION_PUSH_QUEUE_PREFIX = "notification.push.";
+
     // Exchange names
     public static final String ORDER_EXCHANGE = "order.exchange";
     public static final String PRODUCT_EXCHANGE = "product.exchange";
@@ -49,6 +65,19 @@ public class RabbitMQConfig {
     public static final String REVIEW_EXCHANGE = "review.exchange";
     public static final String CART_EXCHANGE = "cart.exchange";
 
+    // Failed listener messages: delayed retries, then the parking lot
+    public static final String RETRY_DELAY_EXCHANGE = "retry.delay.exchange";
+    public static final String RETRY_RETURN_EXCHANGE = "retry.return.exchange";
+    public static final String PARKING_LOT_EXCHANGE = "parking-lot.exchange";
+    public static final String PARKING_LOT_SUFFIX = ".parking-lot";
+
+    /**
+     * Queues consumed with retries and a parking lot
+     */
+    public static final List<String> LISTENER_QUEUES = List.of(
+            ORDER_QUEUE, PRODUCT_QUEUE, USER_QUEUE, NOTIFICATION_QUEUE, EMAIL_QUEUE,
+            SMS_QUEUE, ANALYTICS_QUEUE, INVENTORY_QUEUE, PAYMENT_QUEUE, SHIPPING_QUEUE);
+
     // Routing keys
     public static final String ORDER_CREATED_ROUTING_KEY = "order.created";
     public static final String ORDER_UPDATED_ROUTING_KEY = "order.updated";
@@ -111,17 +140,226 @@ public class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(messageConverter());
+        // Listeners key their side effects on the message id; outbox events already carry one
+        template.setBeforePublishPostProcessors(message -> {
+            if (message.getMessageProperties().getMessageId() == null) {
+                message.getMessageProperties().setMessageId(UUID.randomUUID().toString());
+            }
+            return message;
+        });
         return template;
     }
 
     /**
-     * RabbitListener container factory
+     * RabbitListener container factory for listeners without a factory of their own
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                               MessageListenerConfig listenerConfig) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter());
+        factory.setConcurrentConsumers(listenerConfig.getDefaultConcurrency());
+        factory.setMaxConcurrentConsumers(listenerConfig.getDefaultMaxConcurrency());
+        factory.setPrefetchCount(listenerConfig.getDefaultPrefetch());
+        return factory;
+    }
+
+    /**
+     * Recoverer moving failed messages to delayed retry or the parking lot
+     */
+    @Bean
+    public DelayedRetryMessageRecoverer delayedRetryMessageRecoverer(RabbitTemplate rabbitTemplate,
+                                                                     MessageListenerConfig listenerConfig,
+                                                                     MeterRegistry meterRegistry) {
+        return new DelayedRetryMessageRecoverer(rabbitTemplate, listenerConfig, meterRegistry);
+    }
+
+    /**
+     * Listener advice dropping messages a queue has already handled
+     */
+    @Bean
+    public MessageDeduplicationInterceptor messageDeduplicationInterceptor(
+            @Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+            MessageListenerConfig listenerConfig, MeterRegistry meterRegistry) {
+        return new MessageDeduplicationInterceptor(redisTemplate, listenerConfig, meterRegistry);
+    }
+
+    // Per-queue listener container factories
+    @Bean
+    public SimpleRabbitListenerContainerFactory orderListenerContainerFactory(ConnectionFactory connectionFactory,
+            MessageListenerConfig listenerConfig, DelayedRetryMessageRecoverer recoverer,
+            MessageDeduplicationInterceptor deduplicator) {
+        return listenerContainerFactory(connectionFactory, listenerConfig, recoverer, deduplicator, ORDER_QUEUE);
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory productListenerContainerFactory(ConnectionFactory connectionFactory,
+            MessageListenerConfig listenerConfig, DelayedRetryMessageRecoverer recoverer,
+            MessageDeduplicationInterceptor deduplicator) {
+        return listenerContainerFactory(connectionFactory, listenerConfig, recoverer, deduplicator, PRODUCT_QUEUE);
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory userListenerContainerFactory(ConnectionFactory connectionFactory,
+            MessageListenerConfig listenerConfig, DelayedRetryMessageRecoverer recoverer,
+            MessageDeduplicationInterceptor deduplicator) {
+        return listenerContainerFactory(connectionFactory, listenerConfig, recoverer, deduplicator, USER_QUEUE);
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory notificationListenerContainerFactory(ConnectionFactory connectionFactory,
+            MessageListenerConfig listenerConfig, DelayedRetryMessageRecoverer recoverer,
+            MessageDeduplicationInterceptor deduplicator) {
+        return listenerContainerFactory(connectionFactory, listenerConfig, recoverer, deduplicator, NOTIFICATION_QUEUE);
+    }
+
+    /**
+     * Push is best effort: a failed delivery is dropped, not retried, since
+     * clients reload their notifications when they reconnect
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory notificationPushListenerContainerFactory(ConnectionFactory connectionFactory,
+            NotificationConfig notificationConfig) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter());
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setPrefetchCount(notificationConfig.getPush().getPrefetch());
+        factory.setDefaultRequeueRejected(false);
+        factory.setTaskExecutor(new SimpleAsyncTaskExecutor(NOTIFICATION_PUSH_QUEUE_PREFIX));
+        return factory;
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory emailListenerContainerFactory(ConnectionFactory connectionFactory,
+            MessageListenerConfig listenerConfig, DelayedRetryMessageRecoverer recoverer,
+            MessageDeduplicationInterceptor deduplicator) {
+        return listenerContainerFactory(connectionFactory, listenerConfig, recoverer, deduplicator, EMAIL_QUEUE);
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory smsListenerContainerFactory(ConnectionFactory connectionFactory,
+            MessageListenerConfig listenerConfig, DelayedRetryMessageRecoverer recoverer,
+            MessageDeduplicationInterceptor deduplicator) {
+        return listenerContainerFactory(connectionFactory, listenerConfig, recoverer, deduplicator, SMS_QUEUE);
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory analyticsListenerContainerFactory(ConnectionFactory connectionFactory,
+            MessageListenerConfig listenerConfig, DelayedRetryMessageRecoverer recoverer,
+            MessageDeduplicationInterceptor deduplicator) {
+        return batchListenerContainerFactory(connectionFactory, listenerConfig, recoverer, deduplicator, ANALYTICS_QUEUE);
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory inventoryListenerContainerFactory(ConnectionFactory connectionFactory,
+            MessageListenerConfig listenerConfig, DelayedRetryMessageRecoverer recoverer,
+            MessageDeduplicationInterceptor deduplicator) {
+        return batchListenerContainerFactory(connectionFactory, listenerConfig, recoverer, deduplicator, INVENTORY_QUEUE);
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory paymentListenerContainerFactory(ConnectionFactory connectionFactory,
+            MessageListenerConfig listenerConfig, DelayedRetryMessageRecoverer recoverer,
+            MessageDeduplicationInterceptor deduplicator) {
+        return listenerContainerFactory(connectionFactory, listenerConfig, recoverer, deduplicator, PAYMENT_QUEUE);
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory shippingListenerContainerFactory(ConnectionFactory connectionFactory,
+            MessageListenerConfig listenerConfig, DelayedRetryMessageRecoverer recoverer,
+            MessageDeduplicationInterceptor deduplicator) {
+        return listenerContainerFactory(connectionFactory, listenerConfig, recoverer, deduplicator, SHIPPING_QUEUE);
+    }
+
+    /**
+     * Retry delay queues, the return route to each listener queue and the
+     * parking-lot queues.
+     *
+     * The listener queues keep their original arguments so existing
+     * deployments can redeclare them. Retries reach them through an extra
+     * binding instead. Delay queues are named by their delay, so changing
+     * the backoff creates new queues instead of clashing with the old ones.
      */
     @Bean
-    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory) {
+    public Declarables retryAndParkingLotDeclarables(MessageListenerConfig listenerConfig) {
+        List<Declarable> declarables = new ArrayList<>();
+        TopicExchange delayExchange = new TopicExchange(RETRY_DELAY_EXCHANGE);
+        TopicExchange returnExchange = new TopicExchange(RETRY_RETURN_EXCHANGE);
+        DirectExchange parkingLotExchange = new DirectExchange(PARKING_LOT_EXCHANGE);
+        declarables.add(delayExchange);
+        declarables.add(returnExchange);
+        declarables.add(parkingLotExchange);
+
+        List<Duration> delays = listenerConfig.retryDelays();
+        LinkedHashSet<String> delayQueues = new LinkedHashSet<>();
+        for (int level = 1; level <= delays.size(); level++) {
+            long delayMs = delays.get(level - 1).toMillis();
+            Queue delayQueue = QueueBuilder.durable("retry.delay." + delayMs + "ms")
+                    .ttl((int) delayMs)
+                    .deadLetterExchange(RETRY_RETURN_EXCHANGE)
+                    .build();
+            if (delayQueues.add(delayQueue.getName())) {
+                declarables.add(delayQueue);
+            }
+            // Routing keys are "<retry>.<queue>", kept when the message is dead-lettered
+            declarables.add(BindingBuilder.bind(delayQueue).to(delayExchange).with(level + ".#"));
+        }
+
+        for (String queueName : LISTENER_QUEUES) {
+            declarables.add(new Binding(queueName, Binding.DestinationType.QUEUE,
+                    RETRY_RETURN_EXCHANGE, "*." + queueName, null));
+            Queue parkingLot = QueueBuilder.durable(queueName + PARKING_LOT_SUFFIX).build();
+            declarables.add(parkingLot);
+            declarables.add(BindingBuilder.bind(parkingLot).to(parkingLotExchange).with(queueName));
+        }
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Listener factory delivering a list of messages per call, acknowledged together
+     */
+    private SimpleRabbitListenerContainerFactory batchListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                               MessageListenerConfig listenerConfig,
+                                                                               DelayedRetryMessageRecoverer recoverer,
+                                                                               MessageDeduplicationInterceptor deduplicator,
+                                                                               String queueName) {
+        MessageListenerConfig.ListenerSpec spec = listenerConfig.specFor(queueName);
+        SimpleRabbitListenerContainerFactory factory =
+                listenerContainerFactory(connectionFactory, listenerConfig, recoverer, deduplicator, queueName);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(spec.getBatchSize());
+        factory.setReceiveTimeout(spec.getBatchReceiveTimeout().toMillis());
+        // The prefetch must cover the largest batch the size tuning may choose
+        factory.setPrefetchCount(Math.max(spec.getPrefetch(), spec.getBatchSize()));
+        return factory;
+    }
+
+    private SimpleRabbitListenerContainerFactory listenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                          MessageListenerConfig listenerConfig,
+                                                                          DelayedRetryMessageRecoverer recoverer,
+                                                                          MessageDeduplicationInterceptor deduplicator,
+                                                                          String queueName) {
+        MessageListenerConfig.ListenerSpec spec = listenerConfig.specFor(queueName);
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(messageConverter());
+        factory.setConcurrentConsumers(spec.getConcurrency());
+        factory.setMaxConcurrentConsumers(spec.getMaxConcurrency());
+        factory.setPrefetchCount(spec.getPrefetch());
+        // One attempt in the consumer; retries wait in a delay queue instead of holding the consumer.
+        // Duplicates are dropped inside the retry advice, so a failed message gives up its claim first.
+        factory.setAdviceChain(RetryInterceptorBuilder.stateless()
+                .maxAttempts(1)
+                .recoverer(recoverer)
+                .build(), deduplicator);
+
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(queueName + "-");
+        executor.setVirtualThreads(listenerConfig.isVirtualThreads());
+        factory.setTaskExecutor(executor);
         return factory;
     }
 
@@ -201,6 +439,19 @@ public class RabbitMQConfig {
                 .with("notification.*");
     }
 
+    @Bean
+    public Queue notificationPushQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy(NOTIFICATION_PUSH_QUEUE_PREFIX));
+    }
+
+    @Bean
+    public Binding notificationPushBinding() {
+        return BindingBuilder
+                .bind(notificationPushQueue())
+                .to(notificationExchange())
+                .with(NOTIFICATION_CREATED_ROUTING_KEY);
+    }
+
     // Email Queue Configuration
     @Bean
     public Queue emailQueue() {
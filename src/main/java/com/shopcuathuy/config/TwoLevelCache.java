@@ -0,0 +1,239 @@
+package com.shopcuathuy.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+/**
+ * Cache backed by a node-local Caffeine cache (L1) in front of Redis (L2).
+ *
+ * Reads try L1, then L2, then the loader. Writes go to both tiers and ask the
+ * other nodes to drop their L1 copy of the key. Redis failures are logged and
+ * counted, and the cache keeps working from L1 alone.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    private static final int CLEAR_BATCH_SIZE = 500;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> localCache;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String redisKeyPrefix;
+    private final Duration ttl;
+    private final TwoLevelCacheManager cacheManager;
+
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Counter redisPuts;
+    private final Counter redisEvictions;
+    private final Counter redisErrors;
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<String, Object> localCache,
+                         RedisTemplate<String, Object> redisTemplate,
+                         String keyPrefix,
+                         Duration ttl,
+                         TwoLevelCacheManager cacheManager,
+                         MeterRegistry meterRegistry) {
+        super(true);
+        this.name = name;
+        this.localCache = localCache;
+        this.redisTemplate = redisTemplate;
+        this.redisKeyPrefix = keyPrefix + name + "::";
+        this.ttl = ttl;
+        this.cacheManager = cacheManager;
+
+        this.redisHits = Counter.builder("cache.gets")
+                .tags("cache", name, "tier", "redis", "result", "hit")
+                .register(meterRegistry);
+        this.redisMisses = Counter.builder("cache.gets")
+                .tags("cache", name, "tier", "redis", "result", "miss")
+                .register(meterRegistry);
+        this.redisPuts = Counter.builder("cache.puts")
+                .tags("cache", name, "tier", "redis")
+                .register(meterRegistry);
+        this.redisEvictions = Counter.builder("cache.evictions")
+                .tags("cache", name, "tier", "redis")
+                .register(meterRegistry);
+        this.redisErrors = Counter.builder("cache.redis.errors")
+                .tags("cache", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String cacheKey = toCacheKey(key);
+        Object value = localCache.getIfPresent(cacheKey);
+        if (value != null) {
+            return value;
+        }
+
+        value = getFromRedis(cacheKey);
+        if (value != null) {
+            localCache.put(cacheKey, value);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // Caffeine runs the mapping function once per key, so concurrent
+        // misses on this node share a single L2 read and load
+        Object value = localCache.get(toCacheKey(key), cacheKey -> {
+            Object stored = getFromRedis(cacheKey);
+            if (stored != null) {
+                return stored;
+            }
+            Object loaded;
+            try {
+                loaded = toStoreValue(valueLoader.call());
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            putToRedis(cacheKey, loaded);
+            return loaded;
+        });
+        return (T) fromStoreValue(value);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String cacheKey = toCacheKey(key);
+        Object storeValue = toStoreValue(value);
+        localCache.put(cacheKey, storeValue);
+        putToRedis(cacheKey, storeValue);
+        cacheManager.publishInvalidation(name, cacheKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = toCacheKey(key);
+        localCache.invalidate(cacheKey);
+        deleteFromRedis(cacheKey);
+        cacheManager.publishInvalidation(name, cacheKey);
+    }
+
+    @Override
+    public void clear() {
+        localCache.invalidateAll();
+        clearRedis();
+        cacheManager.publishInvalidation(name, null);
+    }
+
+    /**
+     * Drop a key from this node's L1 only
+     */
+    void evictLocal(String cacheKey) {
+        localCache.invalidate(cacheKey);
+    }
+
+    /**
+     * Drop all entries from this node's L1 only
+     */
+    void clearLocal() {
+        localCache.invalidateAll();
+    }
+
+    private Object getFromRedis(String cacheKey) {
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            Object value = redisTemplate.opsForValue().get(redisKeyPrefix + cacheKey);
+            (value != null ? redisHits : redisMisses).increment();
+            return value;
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            logger.warn("Failed to read cache {} key {} from Redis: {}", name, cacheKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private void putToRedis(String cacheKey, Object storeValue) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(redisKeyPrefix + cacheKey, storeValue, ttl);
+            redisPuts.increment();
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            logger.warn("Failed to write cache {} key {} to Redis: {}", name, cacheKey, e.getMessage());
+        }
+    }
+
+    private void deleteFromRedis(String cacheKey) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.delete(redisKeyPrefix + cacheKey))) {
+                redisEvictions.increment();
+            }
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            logger.warn("Failed to evict cache {} key {} from Redis: {}", name, cacheKey, e.getMessage());
+        }
+    }
+
+    private void clearRedis() {
+        if (redisTemplate == null) {
+            return;
+        }
+        // SCAN instead of KEYS so clearing one cache never blocks Redis
+        ScanOptions options = ScanOptions.scanOptions().match(redisKeyPrefix + "*").count(CLEAR_BATCH_SIZE).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            List<String> batch = new ArrayList<>(CLEAR_BATCH_SIZE);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == CLEAR_BATCH_SIZE) {
+                    deleteBatch(batch);
+                }
+            }
+            deleteBatch(batch);
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            logger.warn("Failed to clear cache {} in Redis: {}", name, e.getMessage());
+        }
+    }
+
+    private void deleteBatch(List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Long deleted = redisTemplate.delete(keys);
+        if (deleted != null) {
+            redisEvictions.increment(deleted);
+        }
+        keys.clear();
+    }
+
+    private String toCacheKey(Object key) {
+        return key instanceof String stringKey ? stringKey : String.valueOf(key);
+    }
+}
@@ -0,0 +1,55 @@
+package com.shopcuathuy.config;
+
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Two-level (Caffeine + Redis) cache configuration
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.cache")
+public class TwoLevelCacheConfig {
+
+    private boolean redisEnabled = true;
+    private String keyPrefix = "cache:";
+    private String invalidationChannel = "cache:invalidation";
+
+    private Duration defaultTtl = Duration.ofHours(1);
+    private Duration defaultLocalTtl = Duration.ofMinutes(5);
+    private long defaultMaximumSize = 1000;
+
+    /**
+     * Per-cache overrides, keyed by cache name
+     */
+    private Map<String, CacheSpec> caches = new HashMap<>();
+
+    /**
+     * Get the settings of a cache with defaults applied
+     */
+    public CacheSpec specFor(String cacheName) {
+        CacheSpec spec = caches.getOrDefault(cacheName, new CacheSpec());
+        CacheSpec resolved = new CacheSpec();
+        resolved.setTtl(spec.getTtl() != null ? spec.getTtl() : defaultTtl);
+        Duration localTtl = spec.getLocalTtl() != null ? spec.getLocalTtl() : defaultLocalTtl;
+        // The local copy must never outlive the shared one
+        resolved.setLocalTtl(localTtl.compareTo(resolved.getTtl()) > 0 ? resolved.getTtl() : localTtl);
+        resolved.setMaximumSize(spec.getMaximumSize() != null ? spec.getMaximumSize() : defaultMaximumSize);
+        return resolved;
+    }
+
+    @Data
+    public static class CacheSpec {
+        private Duration ttl;
+        private Duration localTtl;
+        private Long maximumSize;
+    }
+}
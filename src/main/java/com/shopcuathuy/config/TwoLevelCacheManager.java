@@ -0,0 +1,126 @@
+package com.shopcuathuy.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * Cache manager creating {@link TwoLevelCache}s and keeping the L1 tier of
+ * every node coherent through Redis pub/sub invalidation messages
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    private final TwoLevelCacheConfig config;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoLevelCache> twoLevelCaches = new ConcurrentHashMap<>();
+
+    private final Counter invalidationsSent;
+    private final Counter invalidationsReceived;
+
+    public TwoLevelCacheManager(TwoLevelCacheConfig config,
+                                RedisTemplate<String, Object> redisTemplate,
+                                MeterRegistry meterRegistry) {
+        this.config = config;
+        this.redisTemplate = config.isRedisEnabled() ? redisTemplate : null;
+        this.meterRegistry = meterRegistry;
+
+        this.invalidationsSent = Counter.builder("cache.invalidations")
+                .tag("direction", "sent")
+                .register(meterRegistry);
+        this.invalidationsReceived = Counter.builder("cache.invalidations")
+                .tag("direction", "received")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return config.getCaches().keySet().stream()
+                .map(this::createCache)
+                .toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    /**
+     * Tell the other nodes to drop a key, or a whole cache when the key is null
+     */
+    void publishInvalidation(String cacheName, String key) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(config.getInvalidationChannel(),
+                    new CacheInvalidationMessage(nodeId, cacheName, key));
+            invalidationsSent.increment();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to publish cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    /**
+     * Apply an invalidation message published by another node
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object payload;
+        try {
+            payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring unreadable cache invalidation message: {}", e.getMessage());
+            return;
+        }
+        if (!(payload instanceof CacheInvalidationMessage invalidation) || nodeId.equals(invalidation.getOrigin())) {
+            return;
+        }
+
+        TwoLevelCache cache = twoLevelCaches.get(invalidation.getCacheName());
+        if (cache == null) {
+            return;
+        }
+        invalidationsReceived.increment();
+        if (invalidation.getKey() == null) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(invalidation.getKey());
+        }
+    }
+
+    private TwoLevelCache createCache(String name) {
+        TwoLevelCacheConfig.CacheSpec spec = config.specFor(name);
+        com.github.benmanes.caffeine.cache.Cache<String, Object> localCache = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getLocalTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, name, Tags.of("tier", "local"));
+
+        TwoLevelCache cache = new TwoLevelCache(name, localCache, redisTemplate, config.getKeyPrefix(),
+                spec.getTtl(), this, meterRegistry);
+        twoLevelCaches.put(name, cache);
+        return cache;
+    }
+}
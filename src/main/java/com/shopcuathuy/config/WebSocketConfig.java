@@ -0,0 +1,189 @@
+package com.shopcuathuy.config;
+
+import com.shopcuathuy.entity.User;
+import com.shopcuathuy.repository.UserRepository;
+import com.shopcuathuy.service.NotificationPushService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+/**
+ * STOMP over WebSocket configuration for notification push
+ *
+ * Each node runs an in-memory broker for its own sessions; events reach
+ * every node through RabbitMQ. Sessions are named by user id, so pushes go
+ * to /user/{userId}/queue/notifications.
+ *
+ * The broker would let any client subscribe to any /queue destination,
+ * including the per-session queues user destinations resolve to, or send
+ * to them. Inbound frames are therefore checked: CONNECT needs an
+ * authenticated user, SUBSCRIBE is allowed only to the user's own
+ * notification queue, and SEND only to application destinations.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Configuration
+@EnableWebSocketMessageBroker
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    private static final String APPLICATION_PREFIX = "/app";
+    private static final String USER_PREFIX = "/user";
+
+    private static final Set<StompCommand> CONNECT_COMMANDS = Set.of(StompCommand.CONNECT, StompCommand.STOMP);
+
+    private final NotificationConfig.Push config;
+    private final UserRepository userRepository;
+    private final ThreadPoolTaskScheduler heartbeatScheduler;
+    private final Timer fanOut;
+
+    public WebSocketConfig(NotificationConfig notificationConfig, UserRepository userRepository,
+                           MeterRegistry meterRegistry) {
+        this.config = notificationConfig.getPush();
+        this.userRepository = userRepository;
+        this.fanOut = NotificationPushService.fanOutTimer(meterRegistry, "websocket");
+
+        // Not a bean, so @Scheduled jobs keep the default scheduler
+        this.heartbeatScheduler = new ThreadPoolTaskScheduler();
+        this.heartbeatScheduler.setPoolSize(1);
+        this.heartbeatScheduler.setThreadNamePrefix("ws-heartbeat-");
+        this.heartbeatScheduler.setDaemon(true);
+        this.heartbeatScheduler.initialize();
+    }
+
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint(config.getEndpoint())
+                .setHandshakeHandler(new UserIdHandshakeHandler())
+                .setAllowedOriginPatterns("*");
+    }
+
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        long heartbeat = config.getHeartbeatMs();
+        registry.enableSimpleBroker("/queue")
+                .setHeartbeatValue(new long[]{heartbeat, heartbeat})
+                .setTaskScheduler(heartbeatScheduler);
+        registry.setApplicationDestinationPrefixes(APPLICATION_PREFIX);
+        registry.setUserDestinationPrefix(USER_PREFIX);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new InboundFrameGuard());
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Slow clients are disconnected instead of buffering without bound
+        registration.setSendTimeLimit((int) config.getSendTimeLimit().toMillis());
+        registration.setSendBufferSizeLimit(config.getSendBufferSizeLimit());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(config.getSenderThreads())
+                .maxPoolSize(config.getSenderThreads())
+                .queueCapacity(config.getSenderQueueCapacity());
+        registration.interceptors(new DeliveryTimer());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatScheduler.shutdown();
+    }
+
+    /**
+     * Rejects the inbound frames a client may not send
+     */
+    private static class InboundFrameGuard implements ChannelInterceptor {
+
+        private static final String NOTIFICATIONS = USER_PREFIX + NotificationPushService.DESTINATION;
+
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+            if (accessor == null || accessor.getCommand() == null) {
+                return message;
+            }
+            StompCommand command = accessor.getCommand();
+            String destination = accessor.getDestination();
+            if (CONNECT_COMMANDS.contains(command) && accessor.getUser() == null) {
+                throw new MessageDeliveryException(message, "Authentication required");
+            }
+            if (command == StompCommand.SUBSCRIBE && !NOTIFICATIONS.equals(destination)) {
+                throw new MessageDeliveryException(message, "Subscribing to " + destination + " is not allowed");
+            }
+            if (command == StompCommand.SEND && (destination == null || !destination.startsWith(APPLICATION_PREFIX + "/"))) {
+                throw new MessageDeliveryException(message, "Sending to " + destination + " is not allowed");
+            }
+            return message;
+        }
+    }
+
+    /**
+     * Records the creation-to-delivery time of notifications once the
+     * outbound channel has handed them to the session
+     */
+    private class DeliveryTimer implements ExecutorChannelInterceptor {
+
+        @Override
+        public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+                                        Exception ex) {
+            if (ex != null) {
+                return;
+            }
+            String createdAt = SimpMessageHeaderAccessor.wrap(message)
+                    .getFirstNativeHeader(NotificationPushService.CREATED_AT_HEADER);
+            if (createdAt != null) {
+                fanOut.record(Duration.ofMillis(Math.max(System.currentTimeMillis() - Long.parseLong(createdAt), 0)));
+            }
+        }
+    }
+
+    /**
+     * Names each session by the id of the authenticated user rather than
+     * the email the token carries, matching the user id on notification events
+     */
+    private class UserIdHandshakeHandler extends DefaultHandshakeHandler {
+
+        @Override
+        protected Principal determineUser(ServerHttpRequest request, WebSocketHandler wsHandler,
+                                          Map<String, Object> attributes) {
+            Principal authenticated = request.getPrincipal();
+            if (authenticated == null) {
+                return null;
+            }
+            String userId = userRepository.findByEmail(authenticated.getName())
+                    .map(User::getId)
+                    .orElse(null);
+            return userId != null ? () -> userId : null;
+        }
+    }
+}
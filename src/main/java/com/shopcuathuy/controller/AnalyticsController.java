@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.shopcuathuy.dto.AnalyticsEventDTO;
 import com.shopcuathuy.dto.CreateAnalyticsEventDTO;
+import com.shopcuathuy.dto.ExportJobDTO;
 import com.shopcuathuy.service.AnalyticsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -143,12 +144,15 @@ public class AnalyticsController {
      * Export analytics data
      */
     @GetMapping("/export")
-    @Operation(summary = "Export analytics data", description = "Export analytics data to file (JSON/CSV)")
-    public ResponseEntity<String> exportAnalyticsData(
+    @Operation(summary = "Export analytics data", description = "Start a background export of analytics data (JSON/NDJSON/CSV)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Export started")
+    })
+    public ResponseEntity<ExportJobDTO> exportAnalyticsData(
             @Parameter(description = "Start date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @Parameter(description = "End date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @Parameter(description = "Export format") @RequestParam(defaultValue = "json") String format) {
-        String fileUrl = analyticsService.exportAnalyticsData(startDate, endDate, format);
-        return ResponseEntity.ok(fileUrl);
+        ExportJobDTO job = analyticsService.exportAnalyticsData(startDate, endDate, format);
+        return ResponseEntity.accepted().body(job);
     }
 }
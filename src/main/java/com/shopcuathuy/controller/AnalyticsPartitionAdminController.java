@@ -0,0 +1,63 @@
+package com.shopcuathuy.controller;
+
+import com.shopcuathuy.service.AnalyticsPartitionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST Controller for analytics partition maintenance
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@RestController
+@RequestMapping("/api/admin/analytics/partitions")
+@Tag(name = "Analytics Partition Administration", description = "APIs for maintaining the monthly analytics partitions")
+public class AnalyticsPartitionAdminController {
+
+    @Autowired
+    private AnalyticsPartitionService analyticsPartitionService;
+
+    /**
+     * Convert the analytics tables that are not partitioned yet
+     */
+    @PostMapping("/convert")
+    @Operation(summary = "Convert existing tables",
+            description = "Rebuild the unpartitioned analytics tables as monthly partitions in the background; "
+                    + "each table is copied under a lock, so run this during a maintenance window")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Conversion started")
+    })
+    public ResponseEntity<Map<String, Object>> convert() {
+        analyticsPartitionService.convertExisting();
+        return ResponseEntity.accepted().body(status());
+    }
+
+    /**
+     * Get conversion status
+     */
+    @GetMapping("/status")
+    @Operation(summary = "Get conversion status", description = "Check whether a partition conversion is running")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Status retrieved successfully")
+    })
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(status());
+    }
+
+    private Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("converting", analyticsPartitionService.isConverting());
+        return status;
+    }
+}
@@ -0,0 +1,89 @@
+package com.shopcuathuy.controller;
+
+import com.shopcuathuy.service.AnalyticsRollupService;
+import com.shopcuathuy.service.SalesAnalyticsRollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST Controller for analytics rollup administration
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@RestController
+@RequestMapping("/api/admin/analytics/rollups")
+@Tag(name = "Analytics Rollup Administration", description = "APIs for managing pre-aggregated analytics")
+public class AnalyticsRollupAdminController {
+
+    @Autowired
+    private AnalyticsRollupService analyticsRollupService;
+
+    @Autowired
+    private SalesAnalyticsRollupService salesAnalyticsRollupService;
+
+    /**
+     * Rebuild event rollups from the raw events
+     */
+    @PostMapping("/rebuild")
+    @Operation(summary = "Rebuild event rollups", description = "Recompute the event rollups of a date range from the raw events in the background")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Rebuild started"),
+        @ApiResponse(responseCode = "400", description = "Invalid date range")
+    })
+    public ResponseEntity<Map<String, Object>> rebuild(
+            @Parameter(description = "First day") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @Parameter(description = "Last day") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+        if (toDate.isBefore(fromDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+        analyticsRollupService.rebuild(fromDate, toDate);
+        return ResponseEntity.accepted().body(status());
+    }
+
+    /**
+     * Recompute the daily seller rollups for one day
+     */
+    @PostMapping("/sellers/refresh")
+    @Operation(summary = "Refresh seller rollups", description = "Recompute the daily seller analytics of one day")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Seller rollups refreshed")
+    })
+    public ResponseEntity<Void> refreshSellerRollups(
+            @Parameter(description = "Day") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        salesAnalyticsRollupService.refreshDay(date);
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Get rollup rebuild status
+     */
+    @GetMapping("/status")
+    @Operation(summary = "Get rollup status", description = "Check whether a rollup rebuild is running")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Status retrieved successfully")
+    })
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(status());
+    }
+
+    private Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("rebuilding", analyticsRollupService.isRebuilding());
+        return status;
+    }
+}
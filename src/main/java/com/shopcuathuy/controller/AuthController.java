@@ -17,7 +17,9 @@ import com.shopcuathuy.dto.LoginResponse;
 import com.shopcuathuy.dto.RegisterRequest;
 import com.shopcuathuy.dto.UserDTO;
 import com.shopcuathuy.entity.User;
+import com.shopcuathuy.security.JwtAuthenticationCache;
 import com.shopcuathuy.security.JwtTokenProvider;
+import com.shopcuathuy.service.CartService;
 import com.shopcuathuy.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -26,6 +28,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.util.HashMap;
 import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -33,6 +37,7 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 
@@ -47,15 +52,23 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "Authentication", description = "APIs for user authentication and registration")
 public class AuthController {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
+
     @Autowired
     private AuthenticationManager authenticationManager;
 
     @Autowired
     private JwtTokenProvider tokenProvider;
 
+    @Autowired
+    private JwtAuthenticationCache authenticationCache;
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private CartService cartService;
+
     /**
      * User login
      */
@@ -83,6 +96,16 @@ public class AuthController {
             // Update last login
             userService.updateUserLastLogin(user.getId());
 
+            if (loginRequest.getGuestCartId() != null && !loginRequest.getGuestCartId().isBlank()) {
+                try {
+                    cartService.mergeGuestCart(loginRequest.getGuestCartId(), user.getId());
+                } catch (RuntimeException e) {
+                    // The guest cart is kept and can still be merged through /api/cart/merge
+                    logger.warn("Failed to merge guest cart {} into the cart of user {}: {}",
+                            loginRequest.getGuestCartId(), user.getId(), e.getMessage());
+                }
+            }
+
             LoginResponse response = LoginResponse.builder()
                 .accessToken(jwt)
                 .refreshToken(refreshToken)
@@ -141,9 +164,12 @@ public class AuthController {
         try {
             String refreshToken = request.get("refreshToken");
             
-            if (tokenProvider.validateToken(refreshToken)) {
-                String username = tokenProvider.getUsernameFromToken(refreshToken);
-                String newAccessToken = tokenProvider.generateTokenFromUsername(username);
+            // Rejects revoked tokens and disabled accounts, not only bad signatures
+            UserDetails principal = refreshToken != null ? authenticationCache.authenticate(refreshToken) : null;
+            if (principal != null) {
+                String username = principal.getUsername();
+                UserDTO user = userService.getUserByEmail(username);
+                String newAccessToken = tokenProvider.generateTokenFromUsername(username, user.getRole(), user.getStatus());
                 String newRefreshToken = tokenProvider.generateRefreshToken(username);
 
                 Map<String, Object> response = new HashMap<>();
@@ -112,4 +112,47 @@ public class CartController {
         CartService.CartSummaryDTO summary = cartService.getCartSummary(userId);
         return ResponseEntity.ok(summary);
     }
+
+    /**
+     * Add item to a guest cart
+     */
+    @PostMapping("/guest/{guestId}/add")
+    @Operation(summary = "Add item to guest cart", description = "Add a product to the cart of a visitor who is not logged in")
+    public ResponseEntity<CartDTO> addToGuestCart(
+            @Parameter(description = "Guest cart ID") @PathVariable String guestId,
+            @Valid @RequestBody AddToCartDTO addToCartDTO) {
+        CartDTO cartItem = cartService.addToGuestCart(guestId, addToCartDTO);
+        return ResponseEntity.status(HttpStatus.CREATED).body(cartItem);
+    }
+
+    /**
+     * Get guest cart items
+     */
+    @GetMapping("/guest/{guestId}")
+    @Operation(summary = "Get guest cart", description = "Get all items in a guest cart")
+    public ResponseEntity<List<CartDTO>> getGuestCart(
+            @Parameter(description = "Guest cart ID") @PathVariable String guestId) {
+        return ResponseEntity.ok(cartService.getGuestCart(guestId));
+    }
+
+    /**
+     * Get guest cart summary
+     */
+    @GetMapping("/guest/{guestId}/summary")
+    @Operation(summary = "Get guest cart summary", description = "Get summary of a guest cart (total items and value)")
+    public ResponseEntity<CartService.CartSummaryDTO> getGuestCartSummary(
+            @Parameter(description = "Guest cart ID") @PathVariable String guestId) {
+        return ResponseEntity.ok(cartService.getGuestCartSummary(guestId));
+    }
+
+    /**
+     * Merge a guest cart into a user's cart
+     */
+    @PostMapping("/merge")
+    @Operation(summary = "Merge guest cart", description = "Move the items of a guest cart into a user's cart")
+    public ResponseEntity<List<CartDTO>> mergeGuestCart(
+            @Parameter(description = "Guest cart ID") @RequestParam String guestId,
+            @Parameter(description = "User ID") @RequestParam String userId) {
+        return ResponseEntity.ok(cartService.mergeGuestCart(guestId, userId));
+    }
 }
@@ -1,6 +1,7 @@
 package com.shopcuathuy.controller;
 import com.shopcuathuy.dto.CouponDTO;
 import com.shopcuathuy.dto.CreateCouponDTO;
+import com.shopcuathuy.dto.ExportJobDTO;
 import com.shopcuathuy.entity.Coupon;
 import com.shopcuathuy.entity.CouponUsage;
 import com.shopcuathuy.service.CouponService;
@@ -85,11 +86,13 @@ public class CouponController {
      * Get valid coupons for user
      */
     @GetMapping("/valid")
-    @Operation(summary = "Get valid coupons", description = "Get valid coupons for a user and order amount")
+    @Operation(summary = "Get valid coupons", description = "Get valid coupons for a user and order amount, optionally limited to the products of a cart")
     public ResponseEntity<List<CouponDTO>> getValidCoupons(
             @Parameter(description = "User ID") @RequestParam Long userId,
-            @Parameter(description = "Order amount") @RequestParam BigDecimal orderAmount) {
-        List<CouponDTO> coupons = couponService.getValidCoupons(userId, orderAmount);
+            @Parameter(description = "Order amount") @RequestParam BigDecimal orderAmount,
+            @Parameter(description = "Product IDs in the cart") @RequestParam(required = false) List<String> productIds,
+            @Parameter(description = "Category IDs of the cart products") @RequestParam(required = false) List<String> categoryIds) {
+        List<CouponDTO> coupons = couponService.getValidCoupons(userId, orderAmount, productIds, categoryIds);
         return ResponseEntity.ok(coupons);
     }
 
@@ -153,12 +156,12 @@ public class CouponController {
      * Export coupon data
      */
     @GetMapping("/export")
-    @Operation(summary = "Export coupon data", description = "Export coupon data to file (JSON/CSV)")
-    public ResponseEntity<String> exportCouponData(
+    @Operation(summary = "Export coupon data", description = "Start a background export of coupon data (JSON/NDJSON/CSV)")
+    public ResponseEntity<ExportJobDTO> exportCouponData(
             @Parameter(description = "Start date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @Parameter(description = "End date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @Parameter(description = "Export format") @RequestParam(defaultValue = "json") String format) {
-        String fileUrl = couponService.exportCouponData(startDate, endDate, format);
-        return ResponseEntity.ok(fileUrl);
+        ExportJobDTO job = couponService.exportCouponData(startDate, endDate, format);
+        return ResponseEntity.accepted().body(job);
     }
 }
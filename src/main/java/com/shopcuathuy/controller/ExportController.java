@@ -0,0 +1,49 @@
+package com.shopcuathuy.controller;
+
+import com.shopcuathuy.dto.ExportJobDTO;
+import com.shopcuathuy.exception.ResourceNotFoundException;
+import com.shopcuathuy.service.StreamingExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST Controller for background data export jobs
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@RestController
+@RequestMapping("/api/exports")
+@Tag(name = "Export", description = "APIs for tracking data export jobs")
+public class ExportController {
+
+    @Autowired
+    private StreamingExportService streamingExportService;
+
+    /**
+     * Get export job status
+     */
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Get export job", description = "Retrieve the progress of an export job and its file URL once completed")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Export job retrieved successfully"),
+        @ApiResponse(responseCode = "404", description = "Export job not found")
+    })
+    public ResponseEntity<ExportJobDTO> getJob(
+            @Parameter(description = "Export job ID") @PathVariable String jobId) {
+        ExportJobDTO job = streamingExportService.getJob(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Export job not found with id: " + jobId);
+        }
+        return ResponseEntity.ok(job);
+    }
+}
@@ -2,6 +2,7 @@ package com.shopcuathuy.controller;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -10,21 +11,38 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.shopcuathuy.config.FileDownloadConfig;
+import com.shopcuathuy.exception.ResourceNotFoundException;
 import com.shopcuathuy.service.FileStorageService;
 import com.shopcuathuy.service.FileStorageService.FileInfo;
+import com.shopcuathuy.service.ImageVariantService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import java.io.InputStream;
+import java.net.URI;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 
@@ -43,6 +61,12 @@ public class FileUploadController {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private FileDownloadConfig downloadConfig;
+
     /**
      * Upload single file
      */
@@ -66,6 +90,9 @@ public class FileUploadController {
             response.put("originalFilename", file.getOriginalFilename());
             response.put("size", file.getSize());
             response.put("contentType", file.getContentType());
+            if (imageVariantService.submit(objectName, file.getContentType())) {
+                response.put("variantUrls", imageVariantService.getVariantUrls(objectName));
+            }
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -104,6 +131,9 @@ public class FileUploadController {
                     fileInfo.put("originalFilename", file.getOriginalFilename());
                     fileInfo.put("size", file.getSize());
                     fileInfo.put("contentType", file.getContentType());
+                    if (imageVariantService.submit(objectName, file.getContentType())) {
+                        fileInfo.put("variantUrls", imageVariantService.getVariantUrls(objectName));
+                    }
                     
                     ((java.util.List<Map<String, Object>>) response.get("uploadedFiles")).add(fileInfo);
                 }
@@ -155,21 +185,127 @@ public class FileUploadController {
 
     /**
      * Download file
+     *
+     * Streams the object, or the requested byte range of it, through a fixed
+     * buffer. A request whose ETag or date still matches is answered with 304
+     * from the object's metadata alone.
      */
-    @GetMapping("/download/{objectName}")
-    @Operation(summary = "Download file", description = "Download a file from the storage system")
+    @GetMapping("/download/{*objectName}")
+    @Operation(summary = "Download file", description = "Download a file from the storage system, supporting byte ranges, conditional requests and presigned redirects")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "File downloaded successfully"),
-        @ApiResponse(responseCode = "404", description = "File not found")
+        @ApiResponse(responseCode = "206", description = "Byte range downloaded successfully"),
+        @ApiResponse(responseCode = "302", description = "Redirected to a presigned storage URL"),
+        @ApiResponse(responseCode = "304", description = "File not modified"),
+        @ApiResponse(responseCode = "404", description = "File not found"),
+        @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
     })
-    public ResponseEntity<InputStream> downloadFile(@PathVariable String objectName) {
+    public ResponseEntity<StreamingResponseBody> downloadFile(
+            @PathVariable String objectName,
+            @RequestParam(required = false) Boolean redirect,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            ServletWebRequest webRequest) {
+        // The catch-all path variable keeps the slashes of the object name, and its leading one
+        String name = objectName.startsWith("/") ? objectName.substring(1) : objectName;
+        if (redirect != null ? redirect : downloadConfig.isRedirect()) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(fileStorageService.getPresignedUrl(name, downloadConfig.getPresignExpiry())))
+                    .build();
+        }
+
+        Optional<FileInfo> found = fileStorageService.findFileInfo(name);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        FileInfo fileInfo = found.get();
+        String etag = fileInfo.getEtag() == null ? null : "\"" + fileInfo.getEtag().replace("\"", "") + "\"";
+        long lastModified = fileInfo.getLastModified() != null
+                ? fileInfo.getLastModified().toInstant().toEpochMilli() : -1;
+        CacheControl cacheControl = name.contains("/" + ImageVariantService.VARIANTS_FOLDER + "/")
+                ? CacheControl.maxAge(downloadConfig.getImmutableMaxAge()).cachePublic().immutable()
+                : CacheControl.maxAge(downloadConfig.getCacheMaxAge()).cachePublic();
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+
+        long size = fileInfo.getSize();
+        long start = 0;
+        long end = size - 1;
+        HttpStatus status = HttpStatus.OK;
+        List<HttpRange> ranges = range != null && rangeApplies(ifRange, etag, lastModified)
+                ? parseRanges(range) : List.of();
+        // Several ranges are answered with the whole file, which the spec allows
+        if (ranges.size() == 1) {
+            try {
+                start = ranges.get(0).getRangeStart(size);
+                end = ranges.get(0).getRangeEnd(size);
+                status = HttpStatus.PARTIAL_CONTENT;
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                        .build();
+            }
+        }
+
+        long offset = start;
+        long length = end - start + 1;
+        boolean head = webRequest.getHttpMethod() == HttpMethod.HEAD;
+        StreamingResponseBody body = out -> {
+            if (head || length <= 0) {
+                return;
+            }
+            try (InputStream in = fileStorageService.downloadFile(name, offset, length)) {
+                byte[] buffer = new byte[downloadConfig.getBufferSize()];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+                .contentType(fileInfo.getContentType() != null
+                        ? MediaType.parseMediaType(fileInfo.getContentType()) : MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Math.max(length, 0))
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .cacheControl(cacheControl);
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        if (lastModified >= 0) {
+            response.lastModified(lastModified);
+        }
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Get presigned download URL
+     */
+    @GetMapping("/presigned-url/{*objectName}")
+    @Operation(summary = "Get presigned download URL", description = "Get a temporary URL that downloads a file directly from storage")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Presigned URL created successfully"),
+        @ApiResponse(responseCode = "400", description = "Failed to create presigned URL")
+    })
+    public ResponseEntity<Map<String, Object>> getPresignedUrl(@PathVariable String objectName) {
+        String name = objectName.startsWith("/") ? objectName.substring(1) : objectName;
         try {
-            InputStream fileStream = fileStorageService.downloadFile(objectName);
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(fileStream);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("objectName", name);
+            response.put("url", fileStorageService.getPresignedUrl(name, downloadConfig.getPresignExpiry()));
+            response.put("expiresIn", downloadConfig.getPresignExpiry().toSeconds());
+            
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
-            return ResponseEntity.notFound().build();
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
     }
 
@@ -257,21 +393,23 @@ public class FileUploadController {
     }
 
     /**
-     * Generate thumbnail
+     * Generate thumbnail in one of the configured sizes
      */
     @PostMapping("/thumbnail/{objectName}")
-    @Operation(summary = "Generate thumbnail", description = "Generate a thumbnail for an image file")
+    @Operation(summary = "Generate thumbnail", description = "Generate a thumbnail for an image file in one of the configured sizes")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Thumbnail generated successfully"),
-        @ApiResponse(responseCode = "400", description = "Failed to generate thumbnail")
+        @ApiResponse(responseCode = "400", description = "Size not configured or image unreadable"),
+        @ApiResponse(responseCode = "404", description = "Image not found"),
+        @ApiResponse(responseCode = "503", description = "Thumbnail is still being generated")
     })
     public ResponseEntity<Map<String, Object>> generateThumbnail(
             @PathVariable String objectName,
             @RequestParam(defaultValue = "150") int width,
             @RequestParam(defaultValue = "150") int height) {
         try {
-            String thumbnailObjectName = fileStorageService.generateThumbnail(objectName, width, height);
-            String thumbnailUrl = fileStorageService.getThumbnailUrl(objectName);
+            String thumbnailObjectName = imageVariantService.generateThumbnail(objectName, width, height);
+            String thumbnailUrl = fileStorageService.getFileUrl(thumbnailObjectName);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -281,11 +419,55 @@ public class FileUploadController {
             response.put("height", height);
             
             return ResponseEntity.ok(response);
+        } catch (ResourceNotFoundException e) {
+            return thumbnailError(HttpStatus.NOT_FOUND, e);
+        } catch (IllegalStateException e) {
+            return thumbnailError(HttpStatus.SERVICE_UNAVAILABLE, e);
         } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            return thumbnailError(HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> thumbnailError(HttpStatus status, Exception e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("error", e.getMessage());
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+        if (status == HttpStatus.SERVICE_UNAVAILABLE) {
+            builder.header(HttpHeaders.RETRY_AFTER, "2");
+        }
+        return builder.body(response);
+    }
+
+    /**
+     * Get an image variant, generating it if it is missing
+     */
+    @GetMapping("/variant")
+    @Operation(summary = "Get image variant", description = "Get a resized variant of an uploaded image, generating it on demand if it does not exist yet")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Variant returned successfully"),
+        @ApiResponse(responseCode = "400", description = "Unknown size or unreadable image"),
+        @ApiResponse(responseCode = "404", description = "Image not found"),
+        @ApiResponse(responseCode = "503", description = "Variant is still being generated")
+    })
+    public ResponseEntity<InputStreamResource> getImageVariant(
+            @RequestParam String objectName,
+            @RequestParam(defaultValue = ImageVariantService.THUMBNAIL_SIZE) String size,
+            @RequestParam(required = false) String format) {
+        try {
+            String variantKey = imageVariantService.resolveVariant(objectName, size, format);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(
+                            imageVariantService.contentType(imageVariantService.supportedFormat(format))))
+                    // Keys are deterministic and a variant never changes once written
+                    .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                    .body(new InputStreamResource(fileStorageService.downloadFile(variantKey)));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "2").build();
         }
     }
 
@@ -325,7 +507,7 @@ public class FileUploadController {
     })
     public ResponseEntity<Map<String, Object>> getThumbnailUrl(@PathVariable String objectName) {
         try {
-            String thumbnailUrl = fileStorageService.getThumbnailUrl(objectName);
+            String thumbnailUrl = imageVariantService.getThumbnailUrl(objectName);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -340,4 +522,34 @@ public class FileUploadController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
     }
+
+    /**
+     * A Range header whose If-Range no longer matches the file is ignored
+     */
+    private boolean rangeApplies(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range needs a strong match
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return lastModified >= 0 && lastModified / 1000 == date / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * A malformed Range header is ignored and the whole file served
+     */
+    private List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
 }
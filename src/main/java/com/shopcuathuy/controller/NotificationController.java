@@ -12,21 +12,26 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 
 import com.shopcuathuy.dto.CreateNotificationDTO;
+import com.shopcuathuy.dto.CursorPageDTO;
 import com.shopcuathuy.dto.NotificationDTO;
 import com.shopcuathuy.entity.Notification;
+import com.shopcuathuy.service.NotificationPushService;
 import com.shopcuathuy.service.NotificationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.Valid;
+import java.security.Principal;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestMapping;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -157,9 +162,22 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationPushService notificationPushService;
 
-    public NotificationController(NotificationService notificationService) {
+    public NotificationController(NotificationService notificationService,
+                                  NotificationPushService notificationPushService) {
         this.notificationService = notificationService;
+        this.notificationPushService = notificationPushService;
+    }
+
+    /**
+     * Stream new notifications of the authenticated user
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream notifications",
+            description = "Server-sent events fallback for clients that cannot use the STOMP WebSocket endpoint")
+    public SseEmitter streamNotifications(Principal principal) {
+        return notificationPushService.subscribe(principal.getName());
     }
 
     /**
@@ -195,6 +213,19 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    /**
+     * Get user's notifications with cursor pagination
+     */
+    @GetMapping("/user/{userId}/cursor")
+    @Operation(summary = "Get user's notifications with cursor pagination", description = "Get notifications for a user newest first, one page per cursor without a total count")
+    public ResponseEntity<CursorPageDTO<NotificationDTO>> getUserNotificationsKeyset(
+            @Parameter(description = "User ID") @PathVariable String userId,
+            @Parameter(description = "Cursor from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "20") int size) {
+        CursorPageDTO<NotificationDTO> page = notificationService.getUserNotificationsKeyset(userId, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Get unread notifications
      */
@@ -218,6 +249,19 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    /**
+     * Get unread notifications with cursor pagination
+     */
+    @GetMapping("/user/{userId}/unread/cursor")
+    @Operation(summary = "Get unread notifications with cursor pagination", description = "Get unread notifications for a user newest first, one page per cursor without a total count")
+    public ResponseEntity<CursorPageDTO<NotificationDTO>> getUnreadNotificationsKeyset(
+            @Parameter(description = "User ID") @PathVariable String userId,
+            @Parameter(description = "Cursor from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "20") int size) {
+        CursorPageDTO<NotificationDTO> page = notificationService.getUnreadNotificationsKeyset(userId, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Get notifications by type
      */
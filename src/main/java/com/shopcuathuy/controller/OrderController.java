@@ -6,7 +6,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
 import com.shopcuathuy.dto.CreateOrderDTO;
+import com.shopcuathuy.dto.CursorPageDTO;
 import com.shopcuathuy.dto.OrderDTO;
+import com.shopcuathuy.dto.OrderSummaryDTO;
 import com.shopcuathuy.dto.UpdateOrderDTO;
 import com.shopcuathuy.entity.Order;
 import com.shopcuathuy.exception.DuplicateResourceException;
@@ -131,9 +133,9 @@ public class OrderController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Orders retrieved successfully")
     })
-    public ResponseEntity<List<OrderDTO>> getOrdersByUser(@PathVariable String userId) {
+    public ResponseEntity<List<OrderSummaryDTO>> getOrdersByUser(@PathVariable String userId) {
         try {
-            List<OrderDTO> orders = orderService.getOrdersByUser(userId);
+            List<OrderSummaryDTO> orders = orderService.getOrdersByUser(userId);
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get orders by user: " + e.getMessage(), e);
@@ -148,15 +150,31 @@ public class OrderController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Orders retrieved successfully")
     })
-    public ResponseEntity<Page<OrderDTO>> getOrdersByUser(@PathVariable String userId, Pageable pageable) {
+    public ResponseEntity<Page<OrderSummaryDTO>> getOrdersByUser(@PathVariable String userId, Pageable pageable) {
         try {
-            Page<OrderDTO> orders = orderService.getOrdersByUser(userId, pageable);
+            Page<OrderSummaryDTO> orders = orderService.getOrdersByUser(userId, pageable);
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get orders by user: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Get orders by user with cursor pagination
+     */
+    @GetMapping("/user/{userId}/cursor")
+    @Operation(summary = "Get orders by user with cursor pagination", description = "Retrieve orders by user ID newest first, one page per cursor without a total count")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Orders retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    })
+    public ResponseEntity<CursorPageDTO<OrderSummaryDTO>> getOrdersByUserKeyset(@PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPageDTO<OrderSummaryDTO> page = orderService.getOrdersByUserKeyset(userId, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Get orders by seller
      */
@@ -165,9 +183,9 @@ public class OrderController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Orders retrieved successfully")
     })
-    public ResponseEntity<List<OrderDTO>> getOrdersBySeller(@PathVariable String sellerId) {
+    public ResponseEntity<List<OrderSummaryDTO>> getOrdersBySeller(@PathVariable String sellerId) {
         try {
-            List<OrderDTO> orders = orderService.getOrdersBySeller(sellerId);
+            List<OrderSummaryDTO> orders = orderService.getOrdersBySeller(sellerId);
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get orders by seller: " + e.getMessage(), e);
@@ -182,15 +200,31 @@ public class OrderController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Orders retrieved successfully")
     })
-    public ResponseEntity<Page<OrderDTO>> getOrdersBySeller(@PathVariable String sellerId, Pageable pageable) {
+    public ResponseEntity<Page<OrderSummaryDTO>> getOrdersBySeller(@PathVariable String sellerId, Pageable pageable) {
         try {
-            Page<OrderDTO> orders = orderService.getOrdersBySeller(sellerId, pageable);
+            Page<OrderSummaryDTO> orders = orderService.getOrdersBySeller(sellerId, pageable);
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get orders by seller: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Get orders by seller with cursor pagination
+     */
+    @GetMapping("/seller/{sellerId}/cursor")
+    @Operation(summary = "Get orders by seller with cursor pagination", description = "Retrieve orders by seller ID newest first, one page per cursor without a total count")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Orders retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    })
+    public ResponseEntity<CursorPageDTO<OrderSummaryDTO>> getOrdersBySellerKeyset(@PathVariable String sellerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPageDTO<OrderSummaryDTO> page = orderService.getOrdersBySellerKeyset(sellerId, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Get orders by status
      */
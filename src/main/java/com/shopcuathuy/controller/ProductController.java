@@ -5,7 +5,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.web.bind.annotation.*;
 
 import com.shopcuathuy.dto.CreateProductDTO;
+import com.shopcuathuy.dto.CursorPageDTO;
+import com.shopcuathuy.dto.FacetedProductPageDTO;
 import com.shopcuathuy.dto.ProductDTO;
+import com.shopcuathuy.dto.ProductSummaryDTO;
+import com.shopcuathuy.dto.ProductSearchCriteria;
 import com.shopcuathuy.dto.UpdateProductDTO;
 import com.shopcuathuy.entity.Product;
 import com.shopcuathuy.exception.DuplicateResourceException;
@@ -113,9 +117,9 @@ public class ProductController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Products retrieved successfully")
     })
-    public ResponseEntity<Page<ProductDTO>> getAllProducts(Pageable pageable) {
+    public ResponseEntity<Page<ProductSummaryDTO>> getAllProducts(Pageable pageable) {
         try {
-            Page<ProductDTO> products = productService.getAllProducts(pageable);
+            Page<ProductSummaryDTO> products = productService.getAllProducts(pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get products: " + e.getMessage(), e);
@@ -130,9 +134,9 @@ public class ProductController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Products retrieved successfully")
     })
-    public ResponseEntity<List<ProductDTO>> getProductsBySeller(@PathVariable String sellerId) {
+    public ResponseEntity<List<ProductSummaryDTO>> getProductsBySeller(@PathVariable String sellerId) {
         try {
-            List<ProductDTO> products = productService.getProductsBySeller(sellerId);
+            List<ProductSummaryDTO> products = productService.getProductsBySeller(sellerId);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get products by seller: " + e.getMessage(), e);
@@ -147,9 +151,9 @@ public class ProductController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Products retrieved successfully")
     })
-    public ResponseEntity<Page<ProductDTO>> getProductsBySeller(@PathVariable String sellerId, Pageable pageable) {
+    public ResponseEntity<Page<ProductSummaryDTO>> getProductsBySeller(@PathVariable String sellerId, Pageable pageable) {
         try {
-            Page<ProductDTO> products = productService.getProductsBySeller(sellerId, pageable);
+            Page<ProductSummaryDTO> products = productService.getProductsBySeller(sellerId, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get products by seller: " + e.getMessage(), e);
@@ -164,9 +168,9 @@ public class ProductController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Products retrieved successfully")
     })
-    public ResponseEntity<List<ProductDTO>> getProductsByCategory(@PathVariable String categoryId) {
+    public ResponseEntity<List<ProductSummaryDTO>> getProductsByCategory(@PathVariable String categoryId) {
         try {
-            List<ProductDTO> products = productService.getProductsByCategory(categoryId);
+            List<ProductSummaryDTO> products = productService.getProductsByCategory(categoryId);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get products by category: " + e.getMessage(), e);
@@ -181,15 +185,46 @@ public class ProductController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Products retrieved successfully")
     })
-    public ResponseEntity<Page<ProductDTO>> getProductsByCategory(@PathVariable String categoryId, Pageable pageable) {
+    public ResponseEntity<Page<ProductSummaryDTO>> getProductsByCategory(@PathVariable String categoryId, Pageable pageable) {
         try {
-            Page<ProductDTO> products = productService.getProductsByCategory(categoryId, pageable);
+            Page<ProductSummaryDTO> products = productService.getProductsByCategory(categoryId, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get products by category: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Get products of a category and its subcategories with pagination
+     */
+    @GetMapping("/category/{categoryId}/tree")
+    @Operation(summary = "Get products in a category tree", description = "Retrieve products of a category and all categories below it with pagination support")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Products retrieved successfully"),
+        @ApiResponse(responseCode = "404", description = "Category not found")
+    })
+    public ResponseEntity<Page<ProductSummaryDTO>> getProductsInCategoryTree(@PathVariable String categoryId, Pageable pageable) {
+        Page<ProductSummaryDTO> products = productService.getProductsInCategoryTree(categoryId, pageable);
+        return ResponseEntity.ok(products);
+    }
+
+    /**
+     * Get products by category with cursor pagination
+     */
+    @GetMapping("/category/{categoryId}/cursor")
+    @Operation(summary = "Get products by category with cursor pagination", description = "Retrieve products by category ID and status newest first, one page per cursor without a total count")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Products retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    })
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> getProductsByCategoryKeyset(@PathVariable String categoryId,
+            @RequestParam(defaultValue = "ACTIVE") Product.ProductStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPageDTO<ProductSummaryDTO> page = productService.getProductsByCategoryKeyset(categoryId, status, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Get products by status
      */
@@ -322,6 +357,50 @@ public class ProductController {
         }
     }
 
+    /**
+     * Get products by criteria with facet counts
+     */
+    @GetMapping("/facets")
+    @Operation(summary = "Get products with facets", description = "Retrieve products filtered by multiple criteria together with brand, category, price, rating, free shipping and stock facet counts")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Products and facets retrieved successfully")
+    })
+    public ResponseEntity<FacetedProductPageDTO> getProductsWithFacets(
+            @RequestParam(required = false) String sellerId,
+            @RequestParam(required = false) String categoryId,
+            @RequestParam(required = false) Product.ProductStatus status,
+            @RequestParam(required = false) Boolean featured,
+            @RequestParam(required = false) Boolean freeShipping,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) BigDecimal minRating,
+            @RequestParam(required = false) Integer minStock,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) String search,
+            Pageable pageable) {
+        try {
+            ProductSearchCriteria criteria = ProductSearchCriteria.builder()
+                .sellerId(sellerId)
+                .categoryId(categoryId)
+                .status(status)
+                .featured(featured)
+                .freeShipping(freeShipping)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minRating(minRating)
+                .minStock(minStock)
+                .brand(brand)
+                .inStock(inStock)
+                .search(search)
+                .build();
+            FacetedProductPageDTO result = productService.getProductsWithFacets(criteria, pageable);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get products with facets: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Get top selling products
      */
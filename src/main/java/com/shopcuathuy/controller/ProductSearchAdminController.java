@@ -0,0 +1,66 @@
+package com.shopcuathuy.controller;
+
+import com.shopcuathuy.service.ProductSearchEngine;
+import com.shopcuathuy.service.ProductSearchIndexService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST Controller for product search index administration
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@RestController
+@RequestMapping("/api/admin/search/products")
+@Tag(name = "Product Search Administration", description = "APIs for managing the product search index")
+public class ProductSearchAdminController {
+
+    @Autowired
+    private ProductSearchIndexService productSearchIndexService;
+
+    @Autowired
+    private ProductSearchEngine productSearchEngine;
+
+    /**
+     * Rebuild the product search index
+     */
+    @PostMapping("/reindex")
+    @Operation(summary = "Reindex products", description = "Rebuild the product search index from the database in the background")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Reindex started")
+    })
+    public ResponseEntity<Map<String, Object>> reindex() {
+        productSearchIndexService.reindexAll();
+        return ResponseEntity.accepted().body(status());
+    }
+
+    /**
+     * Get product search index status
+     */
+    @GetMapping("/status")
+    @Operation(summary = "Get search index status", description = "Retrieve the number of indexed products and reindex state")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Status retrieved successfully")
+    })
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(status());
+    }
+
+    private Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("indexedProducts", productSearchEngine.count());
+        status.put("reindexing", productSearchIndexService.isReindexing());
+        return status;
+    }
+}
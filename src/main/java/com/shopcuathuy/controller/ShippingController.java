@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 
 import com.shopcuathuy.dto.CreateShippingDTO;
+import com.shopcuathuy.dto.ExportJobDTO;
 import com.shopcuathuy.dto.ShippingDTO;
 import com.shopcuathuy.entity.Shipping;
 import com.shopcuathuy.service.ShippingService;
@@ -303,12 +304,15 @@ public class ShippingController {
      * Export shipping data
      */
     @GetMapping("/export")
-    @Operation(summary = "Export shipping data", description = "Export shipping data to file (JSON/CSV)")
-    public ResponseEntity<String> exportShippingData(
+    @Operation(summary = "Export shipping data", description = "Start a background export of shipping data (JSON/NDJSON/CSV)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Export started")
+    })
+    public ResponseEntity<ExportJobDTO> exportShippingData(
             @Parameter(description = "Start date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @Parameter(description = "End date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @Parameter(description = "Export format") @RequestParam(defaultValue = "json") String format) {
-        String fileUrl = shippingService.exportShippingData(startDate, endDate, format);
-        return ResponseEntity.ok(fileUrl);
+        ExportJobDTO job = shippingService.exportShippingData(startDate, endDate, format);
+        return ResponseEntity.accepted().body(job);
     }
 }
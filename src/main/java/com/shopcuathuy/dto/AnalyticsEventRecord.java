@@ -0,0 +1,26 @@
+package com.shopcuathuy.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Analytics event as buffered by the ingestion pipeline, with plain id
+ * references instead of loaded entities
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public record AnalyticsEventRecord(
+        String eventName,
+        String eventType,
+        String userId,
+        String productId,
+        String orderId,
+        String eventData,
+        String sessionId,
+        String ipAddress,
+        String userAgent,
+        String referrer,
+        Double value,
+        String properties,
+        LocalDateTime createdAt) {
+}
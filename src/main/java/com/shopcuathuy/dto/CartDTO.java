@@ -16,11 +16,17 @@ import java.time.LocalDateTime;
 public class CartDTO {
 
     private Long id;
-    private Long userId;
-    private Long productId;
+
+    /**
+     * Identifies the item in update and remove requests: the row id, or the
+     * product and variant ids when the cart is kept in Redis
+     */
+    private String itemKey;
+    private String userId;
+    private String productId;
     private String productName;
     private String productImage;
-    private Long productVariantId;
+    private String productVariantId;
     private String variantName;
     private Integer quantity;
     private BigDecimal unitPrice;
@@ -33,8 +39,8 @@ public class CartDTO {
     // Constructors
     public CartDTO() {}
 
-    public CartDTO(Long id, Long userId, Long productId, String productName, String productImage, 
-                   Long productVariantId, String variantName, Integer quantity, BigDecimal unitPrice, 
+    public CartDTO(Long id, String userId, String productId, String productName, String productImage, 
+                   String productVariantId, String variantName, Integer quantity, BigDecimal unitPrice, 
                    BigDecimal totalPrice, String notes, Boolean isActive, LocalDateTime createdAt, 
                    LocalDateTime updatedAt) {
         this.id = id;
@@ -57,11 +63,14 @@ public class CartDTO {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
-    public Long getUserId() { return userId; }
-    public void setUserId(Long userId) { this.userId = userId; }
+    public String getItemKey() { return itemKey; }
+    public void setItemKey(String itemKey) { this.itemKey = itemKey; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
 
-    public Long getProductId() { return productId; }
-    public void setProductId(Long productId) { this.productId = productId; }
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
 
     public String getProductName() { return productName; }
     public void setProductName(String productName) { this.productName = productName; }
@@ -69,8 +78,8 @@ public class CartDTO {
     public String getProductImage() { return productImage; }
     public void setProductImage(String productImage) { this.productImage = productImage; }
 
-    public Long getProductVariantId() { return productVariantId; }
-    public void setProductVariantId(Long productVariantId) { this.productVariantId = productVariantId; }
+    public String getProductVariantId() { return productVariantId; }
+    public void setProductVariantId(String productVariantId) { this.productVariantId = productVariantId; }
 
     public String getVariantName() { return variantName; }
     public void setVariantName(String variantName) { this.variantName = variantName; }
@@ -0,0 +1,35 @@
+package com.shopcuathuy.dto;
+
+/**
+ * One line of a cart kept in Redis: a product, an optional variant and its quantity
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public record CartLine(String productId, String variantId, int quantity, String notes) {
+
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Hash field identifying the line within its cart
+     */
+    public static String key(String productId, String variantId) {
+        return productId + SEPARATOR + (variantId != null ? variantId : "");
+    }
+
+    public String key() {
+        return key(productId, variantId);
+    }
+
+    /**
+     * Rebuild a line from its hash field and values
+     */
+    public static CartLine of(String key, int quantity, String notes) {
+        int separator = key.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return new CartLine(key, null, quantity, notes);
+        }
+        String variantId = key.substring(separator + 1);
+        return new CartLine(key.substring(0, separator), variantId.isEmpty() ? null : variantId, quantity, notes);
+    }
+}
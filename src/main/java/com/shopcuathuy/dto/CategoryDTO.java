@@ -21,6 +21,7 @@ public class CategoryDTO {
     private String description;
     private String parentId;
     private Integer level;
+    private String path;
     private Integer sortOrder;
     private String icon;
     private String image;
@@ -51,6 +52,9 @@ public class CategoryDTO {
     public Integer getLevel() { return level; }
     public void setLevel(Integer level) { this.level = level; }
 
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
     public Integer getSortOrder() { return sortOrder; }
     public void setSortOrder(Integer sortOrder) { this.sortOrder = sortOrder; }
 
@@ -0,0 +1,22 @@
+package com.shopcuathuy.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Coupon redemption waiting to be written to coupon_usages
+ *
+ * The id keeps a redemption that is written twice to one row.
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public record CouponRedemption(
+        String id,
+        Long couponId,
+        String userId,
+        String orderId,
+        BigDecimal discountAmount,
+        BigDecimal orderAmount,
+        LocalDateTime usedAt) {
+}
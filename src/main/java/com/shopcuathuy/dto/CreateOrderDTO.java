@@ -5,11 +5,14 @@ import lombok.Builder;
 import lombok.Data;
 
 import com.shopcuathuy.entity.Order;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 
 /**
@@ -65,6 +68,9 @@ public class CreateOrderDTO {
     @Size(max = 1000, message = "Notes must not exceed 1000 characters")
     private String notes;
 
+    @Valid
+    private List<CreateOrderItemDTO> items = new ArrayList<>();
+
     // Getters and setters
     public String getUserId() { return userId; }
     public void setUserId(String userId) { this.userId = userId; }
@@ -113,4 +119,7 @@ public class CreateOrderDTO {
 
     public String getNotes() { return notes; }
     public void setNotes(String notes) { this.notes = notes; }
+
+    public List<CreateOrderItemDTO> getItems() { return items; }
+    public void setItems(List<CreateOrderItemDTO> items) { this.items = items; }
 }
@@ -0,0 +1,42 @@
+package com.shopcuathuy.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Data Transfer Object for an item in a new Order
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public class CreateOrderItemDTO {
+
+    @NotBlank(message = "Product ID is required")
+    private String productId;
+
+    private String productVariantId;
+
+    @NotNull(message = "Quantity is required")
+    @Positive(message = "Quantity must be greater than 0")
+    private Integer quantity;
+
+    // Constructors
+    public CreateOrderItemDTO() {}
+
+    public CreateOrderItemDTO(String productId, String productVariantId, Integer quantity) {
+        this.productId = productId;
+        this.productVariantId = productVariantId;
+        this.quantity = quantity;
+    }
+
+    // Getters and Setters
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+
+    public String getProductVariantId() { return productVariantId; }
+    public void setProductVariantId(String productVariantId) { this.productVariantId = productVariantId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
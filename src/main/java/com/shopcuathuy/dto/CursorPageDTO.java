@@ -0,0 +1,56 @@
+package com.shopcuathuy.dto;
+
+import java.util.List;
+import java.util.function.Function;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for one page of a keyset-paginated listing.
+ *
+ * There is no total count: a page only knows whether another one follows,
+ * and {@code nextCursor} is passed back to fetch it.
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    /**
+     * Clamp a requested page size to the allowed range
+     */
+    public static int limit(int requestedSize) {
+        return Math.min(Math.max(requestedSize, 1), MAX_SIZE);
+    }
+
+    /**
+     * Build a page from rows fetched with one extra row beyond the page size,
+     * which only tells whether a next page exists and is not returned
+     */
+    public static <E, T> CursorPageDTO<T> of(List<E> rows, int size,
+                                             Function<E, PageCursor> cursorOf,
+                                             Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+        return CursorPageDTO.<T>builder()
+                .content(pageRows.stream().map(mapper).toList())
+                .size(pageRows.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? cursorOf.apply(pageRows.get(pageRows.size() - 1)).encode() : null)
+                .build();
+    }
+}
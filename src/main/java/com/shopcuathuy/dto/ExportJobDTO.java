@@ -0,0 +1,41 @@
+package com.shopcuathuy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for the status of a data export job
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobDTO {
+
+    private String id;
+    private String name;
+    private String format;
+    private Status status;
+    private long rowsWritten;
+    private long bytesWritten;
+    private String objectName;
+    private String fileUrl;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+
+    /**
+     * Export job status enum
+     */
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,29 @@
+package com.shopcuathuy.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a single facet bucket
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetBucketDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String key;
+    private String label;
+    private BigDecimal from;
+    private BigDecimal to;
+    private long count;
+}
@@ -0,0 +1,23 @@
+package com.shopcuathuy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+/**
+ * Data Transfer Object for a product page with its facet counts
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedProductPageDTO {
+
+    private Page<ProductDTO> products;
+    private ProductFacetsDTO facets;
+}
@@ -0,0 +1,24 @@
+package com.shopcuathuy.dto;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cached listing value with the metadata needed for refresh-ahead
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListingCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Object value;
+    private long computedAt;
+    private long computeMillis;
+}
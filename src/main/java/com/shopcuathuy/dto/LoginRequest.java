@@ -25,4 +25,9 @@ public class LoginRequest {
 
     @NotBlank(message = "Password is required")
     private String password;
+
+    /**
+     * Guest cart to merge into the user's cart after login
+     */
+    private String guestCartId;
 }
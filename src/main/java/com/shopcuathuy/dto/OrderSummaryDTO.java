@@ -0,0 +1,24 @@
+package com.shopcuathuy.dto;
+
+import com.shopcuathuy.entity.Order;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order list row, selected column by column by the listing queries.
+ * {@link OrderDTO} remains the detail representation.
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public record OrderSummaryDTO(
+        String id,
+        String orderNumber,
+        String userId,
+        String sellerId,
+        BigDecimal totalAmount,
+        Order.OrderStatus status,
+        Order.PaymentStatus paymentStatus,
+        Order.PaymentMethod paymentMethod,
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,41 @@
+package com.shopcuathuy.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for product facet counts
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long total;
+
+    @Builder.Default
+    private List<FacetBucketDTO> brands = new ArrayList<>();
+
+    @Builder.Default
+    private List<FacetBucketDTO> categories = new ArrayList<>();
+
+    @Builder.Default
+    private List<FacetBucketDTO> priceRanges = new ArrayList<>();
+
+    @Builder.Default
+    private List<FacetBucketDTO> ratings = new ArrayList<>();
+
+    private long freeShipping;
+    private long inStock;
+}
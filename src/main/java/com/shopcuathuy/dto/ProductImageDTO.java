@@ -23,6 +23,7 @@ public class ProductImageDTO {
     private String productId;
     private String imageUrl;
     private String thumbnailUrl;
+    private String variants;
     private String altText;
     private String title;
     private Boolean isPrimary;
@@ -0,0 +1,104 @@
+package com.shopcuathuy.dto;
+
+import com.shopcuathuy.entity.Product;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Locale;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filter criteria for product browsing and faceted search
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchCriteria implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String sellerId;
+    private String categoryId;
+    private Product.ProductStatus status;
+    private Boolean featured;
+    private Boolean freeShipping;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private BigDecimal minRating;
+    private Integer minStock;
+    private String search;
+    private String brand;
+    private Boolean inStock;
+
+    /**
+     * Return a copy with blank text filters removed and text trimmed
+     */
+    public ProductSearchCriteria normalized() {
+        return ProductSearchCriteria.builder()
+                .sellerId(trimToNull(sellerId))
+                .categoryId(trimToNull(categoryId))
+                .status(status)
+                .featured(featured)
+                .freeShipping(freeShipping)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minRating(minRating)
+                .minStock(minStock)
+                .search(trimToNull(search))
+                .brand(trimToNull(brand))
+                .inStock(inStock)
+                .build();
+    }
+
+    /**
+     * Build a stable key for this filter set
+     *
+     * Equivalent filters (different whitespace or letter case in text,
+     * {@code 100} vs {@code 100.00} in amounts) produce the same signature.
+     */
+    public String signature() {
+        StringBuilder key = new StringBuilder();
+        append(key, "seller", trimToNull(sellerId));
+        append(key, "category", trimToNull(categoryId));
+        append(key, "status", status);
+        append(key, "featured", featured);
+        append(key, "freeShipping", freeShipping);
+        append(key, "minPrice", normalize(minPrice));
+        append(key, "maxPrice", normalize(maxPrice));
+        append(key, "minRating", normalize(minRating));
+        append(key, "minStock", minStock);
+        append(key, "search", lowerCase(search));
+        append(key, "brand", lowerCase(brand));
+        append(key, "inStock", inStock);
+        return key.toString();
+    }
+
+    private static void append(StringBuilder key, String name, Object value) {
+        if (value != null) {
+            key.append(name).append('=').append(value).append(';');
+        }
+    }
+
+    private static String normalize(BigDecimal value) {
+        return value == null ? null : value.stripTrailingZeros().toPlainString();
+    }
+
+    private static String lowerCase(String value) {
+        String trimmed = trimToNull(value);
+        return trimmed == null ? null : trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
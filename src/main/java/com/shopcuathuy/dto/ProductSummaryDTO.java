@@ -0,0 +1,33 @@
+package com.shopcuathuy.dto;
+
+import com.shopcuathuy.entity.Product;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Product listing card, selected column by column by the listing queries.
+ * {@link ProductDTO} remains the detail representation.
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public record ProductSummaryDTO(
+        String id,
+        String sellerId,
+        String categoryId,
+        String name,
+        String slug,
+        BigDecimal price,
+        BigDecimal originalPrice,
+        BigDecimal discountPercent,
+        Integer stockQuantity,
+        Product.ProductStatus status,
+        Boolean featured,
+        Boolean freeShipping,
+        BigDecimal rating,
+        Integer reviewCount,
+        Integer soldCount,
+        String brand,
+        String thumbnailUrl,
+        LocalDateTime createdAt) {
+}
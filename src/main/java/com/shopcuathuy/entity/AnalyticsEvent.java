@@ -16,7 +16,12 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
  * @version 1.0.0
  */
 @Entity
-@Table(name = "analytics_events")
+@Table(name = "analytics_events", indexes = {
+    @Index(name = "idx_analytics_event_created_at", columnList = "created_at"),
+    @Index(name = "idx_analytics_event_user_created", columnList = "user_id, created_at"),
+    @Index(name = "idx_analytics_event_product_created", columnList = "product_id, created_at"),
+    @Index(name = "idx_analytics_event_type_created", columnList = "event_type, created_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -24,6 +29,8 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @EntityListeners(AuditingEntityListener.class)
 public class AnalyticsEvent {
 
+    // Partitioned by month of created_at, see AnalyticsPartitionService;
+    // partitioned tables cannot hold foreign keys
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -39,15 +46,15 @@ public class AnalyticsEvent {
     private String eventType;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id")
+    @JoinColumn(name = "user_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private User user;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "product_id")
+    @JoinColumn(name = "product_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Product product;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "order_id")
+    @JoinColumn(name = "order_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Order order;
 
     @Size(max = 1000)
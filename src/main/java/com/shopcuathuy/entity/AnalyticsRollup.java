@@ -0,0 +1,73 @@
+package com.shopcuathuy.entity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * AnalyticsRollup entity holding pre-aggregated analytics event counts for
+ * one time bucket, event type and dimension value
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "analytics_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_analytics_rollup_bucket",
+            columnNames = {"granularity", "dimension", "bucket_start", "event_type", "dimension_key"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularity granularity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Dimension dimension;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    /**
+     * Product or user id, empty for the ALL dimension
+     */
+    @Column(name = "dimension_key", nullable = false, length = 36)
+    private String dimensionKey;
+
+    @Column(name = "event_count", nullable = false)
+    @Builder.Default
+    private Long eventCount = 0L;
+
+    @Column(name = "value_sum", nullable = false)
+    @Builder.Default
+    private Double valueSum = 0.0;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * Rollup bucket size
+     */
+    public enum Granularity {
+        MINUTE, HOUR, DAY
+    }
+
+    /**
+     * What a rollup row is counted by
+     */
+    public enum Dimension {
+        ALL, PRODUCT, USER
+    }
+}
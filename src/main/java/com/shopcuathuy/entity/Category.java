@@ -24,6 +24,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @Table(name = "categories", indexes = {
     @Index(name = "idx_category_slug", columnList = "slug"),
     @Index(name = "idx_category_parent_id", columnList = "parent_id"),
+    @Index(name = "idx_category_path", columnList = "path"),
     @Index(name = "idx_category_active", columnList = "active"),
     @Index(name = "idx_category_sort_order", columnList = "sort_order"),
     @Index(name = "idx_category_created_at", columnList = "created_at")
@@ -86,6 +87,13 @@ public class Category {
     @Builder.Default
     private Integer level = 1;
 
+    /**
+     * Materialized path: the ids from the root down to this category, as
+     * {@code /rootId/.../id/}, so a subtree is a prefix match
+     */
+    @Column(length = 512)
+    private String path;
+
     @Column(name = "meta_title", length = 255)
     @Size(max = 255, message = "Meta title must not exceed 255 characters")
     private String metaTitle;
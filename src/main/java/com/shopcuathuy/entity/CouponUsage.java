@@ -30,6 +30,12 @@ public class CouponUsage {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /**
+     * Id of the queued redemption the row was written from
+     */
+    @Column(name = "redemption_id", length = 36, unique = true)
+    private String redemptionId;
+
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "coupon_id", nullable = false)
@@ -18,7 +18,11 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
  * @version 1.0.0
  */
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    @Index(name = "idx_notification_user_created", columnList = "user_id, created_at, id"),
+    @Index(name = "idx_notification_user_read_created", columnList = "user_id, is_read, created_at, id"),
+    @Index(name = "idx_notification_created", columnList = "created_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
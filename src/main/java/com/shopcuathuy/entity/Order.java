@@ -27,8 +27,8 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
  */
 @Entity
 @Table(name = "orders", indexes = {
-    @Index(name = "idx_order_user_id", columnList = "user_id"),
-    @Index(name = "idx_order_seller_id", columnList = "seller_id"),
+    @Index(name = "idx_order_user_created", columnList = "user_id, created_at, id"),
+    @Index(name = "idx_order_seller_created", columnList = "seller_id, created_at, id"),
     @Index(name = "idx_order_status", columnList = "status"),
     @Index(name = "idx_order_payment_status", columnList = "payment_status"),
     @Index(name = "idx_order_created_at", columnList = "created_at"),
@@ -162,9 +162,12 @@ public class Order {
 
     /**
      * Order status enum
+     *
+     * ON_HOLD marks a paid order whose stock could not be confirmed; it
+     * waits for an admin to restock or refund it.
      */
     public enum OrderStatus {
-        PENDING, CONFIRMED, PROCESSING, SHIPPED, DELIVERED, CANCELLED, REFUNDED
+        PENDING, CONFIRMED, PROCESSING, SHIPPED, DELIVERED, CANCELLED, REFUNDED, ON_HOLD
     }
 
     /**
@@ -48,6 +48,9 @@ public class OrderItem {
     @NotBlank(message = "Product ID is required")
     private String productId;
 
+    @Column(name = "variant_id")
+    private String variantId;
+
     @Column(name = "product_name", nullable = false, length = 500)
     @NotBlank(message = "Product name is required")
     @Size(max = 500, message = "Product name must not exceed 500 characters")
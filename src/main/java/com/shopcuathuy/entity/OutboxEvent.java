@@ -0,0 +1,89 @@
+package com.shopcuathuy.entity;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * OutboxEvent entity holding a RabbitMQ message written in the same
+ * transaction as the change it describes, until the relay has published it
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_event_status_id", columnList = "status, id"),
+    @Index(name = "idx_outbox_event_status_sent_at", columnList = "status, sent_at"),
+    @Index(name = "idx_outbox_event_aggregate", columnList = "aggregate_type, aggregate_id, aggregate_sequence")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    /** Auto-increment; ids are taken on insert, so their order is not commit order */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Events of one aggregate are published in sequence order */
+    @Column(name = "aggregate_type", nullable = false, length = 64)
+    @NotBlank(message = "Aggregate type is required")
+    private String aggregateType;
+
+    @Column(name = "aggregate_id", length = 255)
+    private String aggregateId;
+
+    /** Position among the events of the aggregate, in commit order; null without an aggregate id */
+    @Column(name = "aggregate_sequence")
+    private Long aggregateSequence;
+
+    @Column(nullable = false, length = 100)
+    @NotBlank(message = "Exchange is required")
+    private String exchange;
+
+    @Column(name = "routing_key", nullable = false, length = 100)
+    @NotBlank(message = "Routing key is required")
+    private String routingKey;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    /** Message headers as JSON, including the type ids the JSON converter reads */
+    @Column(name = "headers", columnDefinition = "TEXT")
+    private String headers;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    /**
+     * Outbox status enum
+     */
+    public enum OutboxStatus {
+        PENDING, SENT, FAILED
+    }
+}
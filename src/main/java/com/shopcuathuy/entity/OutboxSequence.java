@@ -0,0 +1,27 @@
+package com.shopcuathuy.entity;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * OutboxSequence entity holding the last outbox sequence number given to an
+ * aggregate. Its row stays locked until the transaction that took the
+ * number commits, so the numbers of one aggregate follow commit order.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "outbox_sequences")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxSequence {
+
+    /** Aggregate type and id, as "type:id" */
+    @Id
+    @Column(name = "aggregate_key", length = 320)
+    private String aggregateKey;
+
+    @Column(name = "last_sequence", nullable = false)
+    private Long lastSequence;
+}
@@ -29,7 +29,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @Table(name = "products", indexes = {
     @Index(name = "idx_product_slug", columnList = "slug"),
     @Index(name = "idx_product_seller_id", columnList = "seller_id"),
-    @Index(name = "idx_product_category_id", columnList = "category_id"),
+    @Index(name = "idx_product_category_status_created", columnList = "category_id, status, created_at, id"),
     @Index(name = "idx_product_status", columnList = "status"),
     @Index(name = "idx_product_featured", columnList = "featured"),
     @Index(name = "idx_product_price", columnList = "price"),
@@ -149,12 +149,14 @@ public class Product {
     @Min(value = 0, message = "Review count cannot be negative")
     private Integer reviewCount = 0;
 
-    @Column(name = "sold_count", nullable = false)
+    // Counters are written only by relative UPDATEs from ProductCounterService,
+    // so an entity save never overwrites increments flushed in the meantime
+    @Column(name = "sold_count", nullable = false, updatable = false)
     @Builder.Default
     @Min(value = 0, message = "Sold count cannot be negative")
     private Integer soldCount = 0;
 
-    @Column(name = "view_count", nullable = false)
+    @Column(name = "view_count", nullable = false, updatable = false)
     @Builder.Default
     @Min(value = 0, message = "View count cannot be negative")
     private Integer viewCount = 0;
@@ -0,0 +1,76 @@
+package com.shopcuathuy.entity;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+/**
+ * Search index document for products.
+ *
+ * The index is created by {@code ElasticsearchProductSearchEngine} at startup
+ * rather than on repository creation, so the application still boots when no
+ * cluster is reachable and the in-process engine is used instead.
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Document(indexName = "products", createIndex = false)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductDocument {
+
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Text)
+    private String name;
+
+    @Field(type = FieldType.Text)
+    private String description;
+
+    @Field(type = FieldType.Text)
+    private String brand;
+
+    @Field(type = FieldType.Text)
+    private String model;
+
+    @Field(type = FieldType.Keyword)
+    private String sku;
+
+    @Field(type = FieldType.Keyword)
+    private String sellerId;
+
+    @Field(type = FieldType.Keyword)
+    private String categoryId;
+
+    @Field(type = FieldType.Keyword)
+    private String status;
+
+    @Field(type = FieldType.Double)
+    private Double price;
+
+    @Field(type = FieldType.Double)
+    private Double rating;
+
+    /**
+     * Build a search document from a product
+     */
+    public static ProductDocument fromProduct(Product product) {
+        return ProductDocument.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .brand(product.getBrand())
+                .model(product.getModel())
+                .sku(product.getSku())
+                .sellerId(product.getSellerId())
+                .categoryId(product.getCategoryId())
+                .status(product.getStatus() != null ? product.getStatus().name() : null)
+                .price(product.getPrice() != null ? product.getPrice().doubleValue() : null)
+                .rating(product.getRating() != null ? product.getRating().doubleValue() : null)
+                .build();
+    }
+}
@@ -24,10 +24,11 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
  */
 @Entity
 @Table(name = "product_images", indexes = {
-    @Index(name = "idx_product_image_product_id", columnList = "product_id"),
+    @Index(name = "idx_product_image_product_primary", columnList = "product_id, is_primary"),
     @Index(name = "idx_product_image_is_primary", columnList = "is_primary"),
     @Index(name = "idx_product_image_sort_order", columnList = "sort_order"),
-    @Index(name = "idx_product_image_created_at", columnList = "created_at")
+    @Index(name = "idx_product_image_created_at", columnList = "created_at"),
+    @Index(name = "idx_product_image_image_url", columnList = "image_url")
 })
 @Data
 @Builder
@@ -53,6 +54,11 @@ public class ProductImage {
     @Size(max = 500, message = "Thumbnail URL must not exceed 500 characters")
     private String thumbnailUrl;
 
+    /** Generated variants as comma-separated size.format pairs, e.g. thumb.webp,thumb.jpg */
+    @Column(name = "variants", length = 500)
+    @Size(max = 500, message = "Variants must not exceed 500 characters")
+    private String variants;
+
     @Column(name = "alt_text", length = 255)
     @Size(max = 255, message = "Alt text must not exceed 255 characters")
     private String altText;
@@ -17,7 +17,9 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
  * @version 1.0.0
  */
 @Entity
-@Table(name = "sales_analytics", indexes = {
+@Table(name = "sales_analytics", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_sales_analytics_seller_date_type", columnNames = {"seller_id", "date", "type", "period"})
+}, indexes = {
     @Index(name = "idx_sales_analytics_seller_id", columnList = "seller_id"),
     @Index(name = "idx_sales_analytics_date", columnList = "date"),
     @Index(name = "idx_sales_analytics_type", columnList = "type"),
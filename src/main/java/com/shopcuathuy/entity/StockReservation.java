@@ -0,0 +1,71 @@
+package com.shopcuathuy.entity;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * StockReservation entity representing stock held for an order until payment
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+    @Index(name = "idx_stock_reservation_order_id", columnList = "order_id"),
+    @Index(name = "idx_stock_reservation_status_expires_at", columnList = "status, expires_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(name = "order_id", nullable = false)
+    @NotBlank(message = "Order ID is required")
+    private String orderId;
+
+    @Column(name = "product_id", nullable = false)
+    @NotBlank(message = "Product ID is required")
+    private String productId;
+
+    @Column(name = "variant_id")
+    private String variantId;
+
+    @Column(nullable = false)
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private ReservationStatus status = ReservationStatus.RESERVED;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * Reservation status enum
+     */
+    public enum ReservationStatus {
+        RESERVED, CONFIRMED, RELEASED
+    }
+}
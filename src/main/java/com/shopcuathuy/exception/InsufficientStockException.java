@@ -0,0 +1,18 @@
+package com.shopcuathuy.exception;
+
+/**
+ * Exception thrown when a product or variant cannot cover the requested quantity
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public class InsufficientStockException extends RuntimeException {
+    
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+    
+    public InsufficientStockException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -20,6 +20,7 @@ public interface CartMapper {
 
     CartMapper INSTANCE = Mappers.getMapper(CartMapper.class);
 
+    @Mapping(target = "itemKey", source = "id")
     @Mapping(target = "userId", source = "user.id")
     @Mapping(target = "productId", source = "product.id")
     @Mapping(target = "productName", source = "product.name")
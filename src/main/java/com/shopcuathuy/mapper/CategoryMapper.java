@@ -39,6 +39,7 @@ public interface CategoryMapper {
      */
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "level", ignore = true)
+    @Mapping(target = "path", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "products", ignore = true)
@@ -49,6 +50,7 @@ public interface CategoryMapper {
      */
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "level", ignore = true)
+    @Mapping(target = "path", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "products", ignore = true)
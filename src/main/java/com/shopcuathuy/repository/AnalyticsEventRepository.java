@@ -1,12 +1,17 @@
 package com.shopcuathuy.repository;
 
+import com.shopcuathuy.config.ExportConfig;
 import com.shopcuathuy.entity.AnalyticsEvent;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
@@ -136,4 +141,15 @@ public interface AnalyticsEventRepository extends JpaRepository<AnalyticsEvent,
     @Query("SELECT HOUR(e.createdAt) as hour, COUNT(e) as count FROM AnalyticsEvent e WHERE e.createdAt BETWEEN :startDate AND :endDate GROUP BY HOUR(e.createdAt) ORDER BY hour")
     List<Object[]> getHourlyEventCounts(@Param("startDate") LocalDateTime startDate, 
                                        @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Stream events by date range for export
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportConfig.STREAMING_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e FROM AnalyticsEvent e WHERE e.createdAt BETWEEN :startDate AND :endDate")
+    Stream<AnalyticsEvent> streamByCreatedAtBetween(@Param("startDate") LocalDateTime startDate,
+                                                    @Param("endDate") LocalDateTime endDate);
 }
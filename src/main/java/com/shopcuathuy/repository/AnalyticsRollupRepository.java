@@ -0,0 +1,84 @@
+package com.shopcuathuy.repository;
+
+import com.shopcuathuy.entity.AnalyticsRollup;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Analytics Rollup Repository
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Repository
+public interface AnalyticsRollupRepository extends JpaRepository<AnalyticsRollup, Long> {
+
+    /**
+     * Get event counts by type
+     */
+    @Query("SELECT r.eventType, SUM(r.eventCount) as count FROM AnalyticsRollup r " +
+           "WHERE r.granularity = :granularity AND r.dimension = :dimension " +
+           "AND r.bucketStart >= :startDate AND r.bucketStart <= :endDate " +
+           "GROUP BY r.eventType ORDER BY count DESC")
+    List<Object[]> sumByEventType(@Param("granularity") AnalyticsRollup.Granularity granularity,
+                                  @Param("dimension") AnalyticsRollup.Dimension dimension,
+                                  @Param("startDate") LocalDateTime startDate,
+                                  @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Get event counts per bucket
+     */
+    @Query("SELECT r.bucketStart, SUM(r.eventCount) FROM AnalyticsRollup r " +
+           "WHERE r.granularity = :granularity AND r.dimension = :dimension " +
+           "AND r.bucketStart >= :startDate AND r.bucketStart <= :endDate " +
+           "GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<Object[]> sumByBucket(@Param("granularity") AnalyticsRollup.Granularity granularity,
+                               @Param("dimension") AnalyticsRollup.Dimension dimension,
+                               @Param("startDate") LocalDateTime startDate,
+                               @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Get event counts by hour of day
+     */
+    @Query("SELECT HOUR(r.bucketStart) as hour, SUM(r.eventCount) FROM AnalyticsRollup r " +
+           "WHERE r.granularity = :granularity " +
+           "AND r.dimension = :dimension " +
+           "AND r.bucketStart >= :startDate AND r.bucketStart <= :endDate " +
+           "GROUP BY HOUR(r.bucketStart) ORDER BY hour")
+    List<Object[]> sumByHourOfDay(@Param("granularity") AnalyticsRollup.Granularity granularity,
+                                  @Param("dimension") AnalyticsRollup.Dimension dimension,
+                                  @Param("startDate") LocalDateTime startDate,
+                                  @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Find the dimension values with the most events of one type
+     */
+    @Query("SELECT r.dimensionKey, SUM(r.eventCount) as count FROM AnalyticsRollup r " +
+           "WHERE r.granularity = :granularity AND r.dimension = :dimension AND r.eventType = :eventType " +
+           "AND r.bucketStart >= :startDate AND r.bucketStart <= :endDate " +
+           "GROUP BY r.dimensionKey ORDER BY count DESC")
+    List<Object[]> findTopKeysByEventType(@Param("granularity") AnalyticsRollup.Granularity granularity,
+                                          @Param("dimension") AnalyticsRollup.Dimension dimension,
+                                          @Param("eventType") String eventType,
+                                          @Param("startDate") LocalDateTime startDate,
+                                          @Param("endDate") LocalDateTime endDate,
+                                          Pageable pageable);
+
+    /**
+     * Find the dimension values with the most events of any type
+     */
+    @Query("SELECT r.dimensionKey, SUM(r.eventCount) as count FROM AnalyticsRollup r " +
+           "WHERE r.granularity = :granularity AND r.dimension = :dimension " +
+           "AND r.bucketStart >= :startDate AND r.bucketStart <= :endDate " +
+           "GROUP BY r.dimensionKey ORDER BY count DESC")
+    List<Object[]> findTopKeys(@Param("granularity") AnalyticsRollup.Granularity granularity,
+                               @Param("dimension") AnalyticsRollup.Dimension dimension,
+                               @Param("startDate") LocalDateTime startDate,
+                               @Param("endDate") LocalDateTime endDate,
+                               Pageable pageable);
+}
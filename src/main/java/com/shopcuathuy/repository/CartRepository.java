@@ -4,6 +4,7 @@ import com.shopcuathuy.entity.Cart;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -22,6 +23,7 @@ public interface CartRepository extends JpaRepository<Cart, String> {
     /**
      * Find cart items by user ID
      */
+    @EntityGraph(attributePaths = "product")
     List<Cart> findByUserIdAndIsActiveTrue(String userId);
 
     /**
@@ -42,6 +44,7 @@ public interface CartRepository extends JpaRepository<Cart, String> {
     /**
      * Find cart items by user ID with pagination
      */
+    @EntityGraph(attributePaths = "product")
     @Query("SELECT c FROM Cart c WHERE c.user.id = :userId AND c.isActive = true ORDER BY c.createdAt DESC")
     List<Cart> findActiveCartItemsByUserId(@Param("userId") String userId);
 
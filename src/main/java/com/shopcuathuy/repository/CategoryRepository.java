@@ -7,6 +7,7 @@ import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -513,4 +514,17 @@ public interface CategoryRepository extends JpaRepository<Category, String> {
      * Find categories by featured and status ordered by sort order
      */
     List<Category> findByFeaturedTrueAndStatusOrderBySortOrderAsc(Category.CategoryStatus status);
+
+    /**
+     * Move the descendants of a category along with it: replace the old path
+     * prefix with the new one and shift their levels
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Category c SET c.path = CONCAT(:newPrefix, SUBSTRING(c.path, :oldPrefixLength + 1)), " +
+           "c.level = c.level + :levelDelta " +
+           "WHERE c.path LIKE CONCAT(:oldPrefix, '%') AND c.path <> :oldPrefix")
+    int moveSubtree(@Param("oldPrefix") String oldPrefix,
+                    @Param("oldPrefixLength") int oldPrefixLength,
+                    @Param("newPrefix") String newPrefix,
+                    @Param("levelDelta") int levelDelta);
 }
@@ -1,14 +1,21 @@
 package com.shopcuathuy.repository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 
+import com.shopcuathuy.config.ExportConfig;
 import com.shopcuathuy.entity.Coupon;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 
@@ -39,41 +46,64 @@ public interface CouponRepository extends JpaRepository<Coupon, Long> {
     /**
      * Find coupons by type
      */
+    @EntityGraph(attributePaths = "createdBy")
     List<Coupon> findByType(Coupon.CouponType type);
 
     /**
      * Find coupons by type with pagination
      */
+    @EntityGraph(attributePaths = "createdBy")
     Page<Coupon> findByType(Coupon.CouponType type, Pageable pageable);
 
     /**
      * Find coupons by created by
      */
+    @EntityGraph(attributePaths = "createdBy")
     List<Coupon> findByCreatedById(Long createdById);
 
     /**
      * Find coupons by created by with pagination
      */
+    @EntityGraph(attributePaths = "createdBy")
     Page<Coupon> findByCreatedById(Long createdById, Pageable pageable);
 
     /**
      * Find valid coupons for current date
      */
+    @EntityGraph(attributePaths = "createdBy")
     @Query("SELECT c FROM Coupon c WHERE c.isActive = true AND c.isPublic = true AND c.startDate <= :currentDate AND c.endDate >= :currentDate AND c.usedCount < c.usageLimit")
     List<Coupon> findValidCoupons(@Param("currentDate") LocalDateTime currentDate);
 
     /**
      * Find valid coupons for current date with pagination
      */
+    @EntityGraph(attributePaths = "createdBy")
     @Query("SELECT c FROM Coupon c WHERE c.isActive = true AND c.isPublic = true AND c.startDate <= :currentDate AND c.endDate >= :currentDate AND c.usedCount < c.usageLimit")
     Page<Coupon> findValidCoupons(@Param("currentDate") LocalDateTime currentDate, Pageable pageable);
 
+    /**
+     * Find active public coupons that have not ended, for the coupon index
+     */
+    @EntityGraph(attributePaths = "createdBy")
+    @Query("SELECT c FROM Coupon c WHERE c.isActive = true AND c.isPublic = true AND c.endDate >= :currentDate")
+    List<Coupon> findIndexableCoupons(@Param("currentDate") LocalDateTime currentDate);
+
     /**
      * Find coupons by date range
      */
     @Query("SELECT c FROM Coupon c WHERE c.startDate BETWEEN :startDate AND :endDate OR c.endDate BETWEEN :startDate AND :endDate ORDER BY c.startDate ASC")
     List<Coupon> findByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
+    /**
+     * Stream coupons by date range for export
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportConfig.STREAMING_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Coupon c WHERE c.startDate BETWEEN :startDate AND :endDate OR c.endDate BETWEEN :startDate AND :endDate ORDER BY c.startDate ASC")
+    Stream<Coupon> streamByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
     /**
      * Find expired coupons
      */
@@ -144,6 +174,15 @@ public interface CouponRepository extends JpaRepository<Coupon, Long> {
     @Query("SELECT c FROM Coupon c WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR LOWER(c.code) LIKE LOWER(CONCAT('%', :searchTerm, '%')) ORDER BY c.createdAt DESC")
     List<Coupon> searchCoupons(@Param("searchTerm") String searchTerm);
 
+    /**
+     * Count one redemption if the coupon has uses left
+     *
+     * @return 1 if counted, 0 if the usage limit is reached
+     */
+    @Modifying
+    @Query("UPDATE Coupon c SET c.usedCount = c.usedCount + 1 WHERE c.id = :couponId AND c.usedCount < c.usageLimit")
+    int incrementUsedCount(@Param("couponId") Long couponId);
+
     /**
      * Find coupons expiring soon
      */
@@ -2,6 +2,7 @@ package com.shopcuathuy.repository;
 
 import com.shopcuathuy.entity.CouponUsage;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -122,6 +123,20 @@ public interface CouponUsageRepository extends JpaRepository<CouponUsage, Long>
      */
     boolean existsByUserIdAndCouponId(Long userId, Long couponId);
 
+    /**
+     * Count a user's usages of a coupon
+     */
+    @Query("SELECT COUNT(cu) FROM CouponUsage cu WHERE cu.user.id = :userId AND cu.coupon.id = :couponId")
+    long countUsages(@Param("userId") String userId, @Param("couponId") Long couponId);
+
+    /**
+     * Count a user's usages of each of the given coupons in one query
+     *
+     * @return rows of coupon ID and count; coupons never used are missing
+     */
+    @Query("SELECT cu.coupon.id, COUNT(cu) FROM CouponUsage cu WHERE cu.user.id = :userId AND cu.coupon.id IN :couponIds GROUP BY cu.coupon.id")
+    List<Object[]> countUsagesByCoupon(@Param("userId") String userId, @Param("couponIds") Collection<Long> couponIds);
+
     /**
      * Find recent coupon usage
      */
@@ -1,12 +1,19 @@
 package com.shopcuathuy.repository;
 
+import com.shopcuathuy.config.ExportConfig;
 import com.shopcuathuy.entity.Notification;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -35,11 +42,6 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      */
     List<Notification> findByUserIdOrderByCreatedAtDesc(Long userId);
 
-    /**
-     * Delete notifications by user ID
-     */
-    void deleteByUserIdOrderByCreatedAtDesc(Long userId);
-
     /**
      * Find notifications by user ID with pagination
      */
@@ -55,6 +57,41 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      */
     Page<Notification> findByUserIdAndIsReadFalseOrderByCreatedAtDesc(Long userId, Pageable pageable);
 
+    /**
+     * Find the first keyset page of a user's notifications, newest first
+     */
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findKeysetByUserId(@Param("userId") String userId, Pageable pageable);
+
+    /**
+     * Find the keyset page of a user's notifications following a cursor
+     */
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId "
+            + "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) "
+            + "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findKeysetByUserIdAfter(@Param("userId") String userId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Pageable pageable);
+
+    /**
+     * Find the first keyset page of a user's unread notifications, newest first
+     */
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.isRead = false "
+            + "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findUnreadKeysetByUserId(@Param("userId") String userId, Pageable pageable);
+
+    /**
+     * Find the keyset page of a user's unread notifications following a cursor
+     */
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.isRead = false "
+            + "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) "
+            + "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findUnreadKeysetByUserIdAfter(@Param("userId") String userId,
+                                                     @Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("id") Long id,
+                                                     Pageable pageable);
+
     /**
      * Find notifications by user ID and type
      */
@@ -80,6 +117,52 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      */
     long countByUserIdAndIsReadFalse(Long userId);
 
+    /**
+     * Count a user's unread notifications
+     */
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.user.id = :userId AND n.isRead = false")
+    long countUnread(@Param("userId") String userId);
+
+    /**
+     * Count the unread notifications of several users in one query
+     *
+     * @return rows of user ID and count; users without unread notifications are missing
+     */
+    @Query("SELECT n.user.id, COUNT(n) FROM Notification n WHERE n.isRead = false AND n.user.id IN :userIds GROUP BY n.user.id")
+    List<Object[]> countUnreadByUsers(@Param("userIds") Collection<String> userIds);
+
+    /**
+     * Mark one of a user's notifications as read if it is unread
+     *
+     * @return 1 if it was unread, otherwise 0
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt "
+            + "WHERE n.id = :id AND n.user.id = :userId AND n.isRead = false")
+    int markRead(@Param("id") Long id, @Param("userId") String userId, @Param("readAt") LocalDateTime readAt);
+
+    /**
+     * Mark all of a user's unread notifications as read
+     *
+     * @return number of notifications marked
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt WHERE n.user.id = :userId AND n.isRead = false")
+    int markAllRead(@Param("userId") String userId, @Param("readAt") LocalDateTime readAt);
+
+    /**
+     * Get the ids of a user's oldest notifications, in index order
+     */
+    @Query("SELECT n.id FROM Notification n WHERE n.user.id = :userId ORDER BY n.createdAt, n.id")
+    List<Long> findOldestIdsByUserId(@Param("userId") String userId, Pageable pageable);
+
+    /**
+     * Delete a user's notifications by id
+     */
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.user.id = :userId AND n.id IN :ids")
+    int deleteByUserIdAndIdIn(@Param("userId") String userId, @Param("ids") Collection<Long> ids);
+
     /**
      * Count notifications by user ID and type
      */
@@ -114,14 +197,41 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     Page<Notification> findByUserIdAndPriorityOrderByCreatedAtDesc(Long userId, Notification.NotificationPriority priority, Pageable pageable);
 
     /**
-     * Delete old notifications
+     * Get the lowest id of the notifications created before a date
      */
-    @Query("DELETE FROM Notification n WHERE n.createdAt < :cutoffDate")
-    void deleteOldNotifications(@Param("cutoffDate") LocalDateTime cutoffDate);
+    @Query("SELECT MIN(n.id) FROM Notification n WHERE n.createdAt < :cutoffDate")
+    Long findMinIdCreatedBefore(@Param("cutoffDate") LocalDateTime cutoffDate);
+
+    /**
+     * Get the highest id of the notifications created before a date
+     */
+    @Query("SELECT MAX(n.id) FROM Notification n WHERE n.createdAt < :cutoffDate")
+    Long findMaxIdCreatedBefore(@Param("cutoffDate") LocalDateTime cutoffDate);
+
+    /**
+     * Delete the notifications created before a date within an id range
+     */
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.createdAt < :cutoffDate AND n.id BETWEEN :fromId AND :toId")
+    int deleteOldNotifications(@Param("cutoffDate") LocalDateTime cutoffDate,
+                               @Param("fromId") Long fromId,
+                               @Param("toId") Long toId);
 
     /**
      * Find notifications by user ID and search term
      */
     @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND (LOWER(n.title) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR LOWER(n.message) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) ORDER BY n.createdAt DESC")
     List<Notification> findByUserIdAndSearchTerm(@Param("userId") Long userId, @Param("searchTerm") String searchTerm);
+
+    /**
+     * Stream notifications by user ID and date range for export
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportConfig.STREAMING_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.createdAt BETWEEN :startDate AND :endDate ORDER BY n.createdAt DESC")
+    Stream<Notification> streamByUserIdAndCreatedAtBetween(@Param("userId") String userId,
+                                                           @Param("startDate") LocalDateTime startDate,
+                                                           @Param("endDate") LocalDateTime endDate);
 }
@@ -1,14 +1,20 @@
 package com.shopcuathuy.repository;
 
+import com.shopcuathuy.config.ExportConfig;
+import com.shopcuathuy.dto.OrderSummaryDTO;
 import com.shopcuathuy.entity.Order;
+import jakarta.persistence.QueryHint;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -22,6 +28,13 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface OrderRepository extends JpaRepository<Order, String> {
 
+    /**
+     * Order list projection: the columns an order list row shows
+     */
+    String SUMMARY_SELECT = "SELECT new com.shopcuathuy.dto.OrderSummaryDTO("
+            + "o.id, o.orderNumber, o.userId, o.sellerId, o.totalAmount, o.status, o.paymentStatus, o.paymentMethod, "
+            + "o.createdAt) FROM Order o";
+
     /**
      * Find order by order number
      */
@@ -47,11 +60,83 @@ public interface OrderRepository extends JpaRepository<Order, String> {
      */
     Page<Order> findBySellerId(String sellerId, Pageable pageable);
 
+    /**
+     * Find order summaries by user
+     */
+    @Query(SUMMARY_SELECT + " WHERE o.userId = :userId")
+    List<OrderSummaryDTO> findSummariesByUserId(@Param("userId") String userId);
+
+    /**
+     * Find order summaries by user with pagination
+     */
+    @Query(value = SUMMARY_SELECT + " WHERE o.userId = :userId",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.userId = :userId")
+    Page<OrderSummaryDTO> findSummariesByUserId(@Param("userId") String userId, Pageable pageable);
+
+    /**
+     * Find order summaries by seller
+     */
+    @Query(SUMMARY_SELECT + " WHERE o.sellerId = :sellerId")
+    List<OrderSummaryDTO> findSummariesBySellerId(@Param("sellerId") String sellerId);
+
+    /**
+     * Find order summaries by seller with pagination
+     */
+    @Query(value = SUMMARY_SELECT + " WHERE o.sellerId = :sellerId",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.sellerId = :sellerId")
+    Page<OrderSummaryDTO> findSummariesBySellerId(@Param("sellerId") String sellerId, Pageable pageable);
+
+    /**
+     * Find the first keyset page of a user's orders, newest first
+     */
+    @Query(SUMMARY_SELECT + " WHERE o.userId = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryDTO> findKeysetByUserId(@Param("userId") String userId, Pageable pageable);
+
+    /**
+     * Find the keyset page of a user's orders following a cursor
+     */
+    @Query(SUMMARY_SELECT + " WHERE o.userId = :userId "
+            + "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryDTO> findKeysetByUserIdAfter(@Param("userId") String userId,
+                                                  @Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("id") String id,
+                                                  Pageable pageable);
+
+    /**
+     * Find the first keyset page of a seller's orders, newest first
+     */
+    @Query(SUMMARY_SELECT + " WHERE o.sellerId = :sellerId ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryDTO> findKeysetBySellerId(@Param("sellerId") String sellerId, Pageable pageable);
+
+    /**
+     * Find the keyset page of a seller's orders following a cursor
+     */
+    @Query(SUMMARY_SELECT + " WHERE o.sellerId = :sellerId "
+            + "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryDTO> findKeysetBySellerIdAfter(@Param("sellerId") String sellerId,
+                                                    @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") String id,
+                                                    Pageable pageable);
+
     /**
      * Find orders by user ID and created date range
      */
     List<Order> findByUserIdAndCreatedAtBetween(String userId, LocalDateTime startDate, LocalDateTime endDate);
 
+    /**
+     * Stream orders by user ID and created date range for export
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportConfig.STREAMING_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId AND o.createdAt BETWEEN :startDate AND :endDate")
+    Stream<Order> streamByUserIdAndCreatedAtBetween(@Param("userId") String userId,
+                                                    @Param("startDate") LocalDateTime startDate,
+                                                    @Param("endDate") LocalDateTime endDate);
+
     /**
      * Find orders by user and seller
      */
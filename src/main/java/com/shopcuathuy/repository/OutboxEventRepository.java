@@ -0,0 +1,66 @@
+package com.shopcuathuy.repository;
+
+import com.shopcuathuy.entity.OutboxEvent;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for OutboxEvent entity
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Find pending events that are due and not held back by an earlier
+     * event of the same aggregate
+     *
+     * Only a pending event still waiting for its retry holds back the later
+     * events of its aggregate. Earlier events that are due come first in id
+     * order, so consecutive events of one aggregate are sent in one batch in
+     * sequence order. Parked FAILED events hold nothing back.
+     */
+    @Query(value = "SELECT e.* FROM outbox_events e " +
+                   "WHERE e.status = 'PENDING' AND (e.next_attempt_at IS NULL OR e.next_attempt_at <= :now) " +
+                   "AND (e.aggregate_sequence IS NULL OR NOT EXISTS (" +
+                   "  SELECT 1 FROM outbox_events p WHERE p.aggregate_type = e.aggregate_type " +
+                   "  AND p.aggregate_id = e.aggregate_id AND p.aggregate_sequence < e.aggregate_sequence " +
+                   "  AND p.status = 'PENDING' AND p.next_attempt_at > :now)) " +
+                   "ORDER BY e.id LIMIT :limit",
+           nativeQuery = true)
+    List<OutboxEvent> findSendable(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Find the oldest event with a status
+     */
+    Optional<OutboxEvent> findFirstByStatusOrderByIdAsc(OutboxEvent.OutboxStatus status);
+
+    /**
+     * Count events by status
+     */
+    long countByStatus(OutboxEvent.OutboxStatus status);
+
+    /**
+     * Mark published events as sent
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = 'SENT', e.sentAt = :now, e.attempts = e.attempts + 1 " +
+           "WHERE e.id IN :ids")
+    int markSent(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Delete up to {@code limit} events sent before a moment
+     */
+    @Modifying
+    @Query(value = "DELETE FROM outbox_events WHERE status = 'SENT' AND sent_at < :before LIMIT :limit",
+           nativeQuery = true)
+    int deleteSentBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
@@ -0,0 +1,34 @@
+package com.shopcuathuy.repository;
+
+import com.shopcuathuy.entity.OutboxSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for OutboxSequence entity
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Repository
+public interface OutboxSequenceRepository extends JpaRepository<OutboxSequence, String> {
+
+    /**
+     * Advance the sequence of an aggregate, creating it at 1, and lock its row
+     * until the current transaction ends
+     */
+    @Modifying
+    @Query(value = "INSERT INTO outbox_sequences (aggregate_key, last_sequence) VALUES (:key, 1) " +
+                   "ON DUPLICATE KEY UPDATE last_sequence = last_sequence + 1",
+           nativeQuery = true)
+    int advance(@Param("key") String aggregateKey);
+
+    /**
+     * Read the sequence of an aggregate
+     */
+    @Query(value = "SELECT last_sequence FROM outbox_sequences WHERE aggregate_key = :key", nativeQuery = true)
+    long current(@Param("key") String aggregateKey);
+}
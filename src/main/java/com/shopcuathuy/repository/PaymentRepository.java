@@ -1,12 +1,18 @@
 package com.shopcuathuy.repository;
 
+import com.shopcuathuy.config.ExportConfig;
 import com.shopcuathuy.entity.Payment;
 import com.shopcuathuy.entity.Payment.PaymentStatus;
+import jakarta.persistence.QueryHint;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -32,9 +38,17 @@ import org.springframework.data.repository.query.Param;
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
+    /**
+     * Find all payments with their payment method
+     */
+    @Override
+    @EntityGraph(attributePaths = "paymentMethod")
+    Page<Payment> findAll(Pageable pageable);
+
     /**
      * Find payments by order ID
      */
+    @EntityGraph(attributePaths = "paymentMethod")
     List<Payment> findByOrderId(Long orderId);
 
     /**
@@ -56,6 +70,7 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     /**
      * Find payments by status
      */
+    @EntityGraph(attributePaths = "paymentMethod")
     List<Payment> findByStatus(PaymentStatus status);
 
     /**
@@ -71,6 +86,7 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     /**
      * Find payments by status with pagination
      */
+    @EntityGraph(attributePaths = "paymentMethod")
     Page<Payment> findByStatus(PaymentStatus status, Pageable pageable);
 
     /**
@@ -90,6 +106,7 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     /**
      * Find payments by order ID with pagination
      */
+    @EntityGraph(attributePaths = "paymentMethod")
     Page<Payment> findByOrderId(Long orderId, Pageable pageable);
 
     /**
@@ -103,4 +120,16 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     @Query("SELECT p FROM Payment p WHERE p.status = 'SUCCESS' AND p.paidAt BETWEEN :startDate AND :endDate")
     List<Payment> findSuccessfulPaymentsByDateRange(@Param("startDate") LocalDateTime startDate, 
                                                    @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Stream payments by user ID and created date range for export
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportConfig.STREAMING_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Payment p LEFT JOIN FETCH p.paymentMethod WHERE p.order.user.id = :userId AND p.createdAt BETWEEN :startDate AND :endDate")
+    Stream<Payment> streamByUserIdAndCreatedAtBetween(@Param("userId") String userId,
+                                                      @Param("startDate") LocalDateTime startDate,
+                                                      @Param("endDate") LocalDateTime endDate);
 }
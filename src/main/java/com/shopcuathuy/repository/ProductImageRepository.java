@@ -0,0 +1,28 @@
+package com.shopcuathuy.repository;
+
+import com.shopcuathuy.entity.ProductImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for ProductImage entity
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Repository
+public interface ProductImageRepository extends JpaRepository<ProductImage, String> {
+
+    /**
+     * Record the generated variants on every image showing the given original
+     */
+    @Modifying
+    @Query("UPDATE ProductImage i SET i.thumbnailUrl = :thumbnailUrl, i.variants = :variants "
+            + "WHERE i.imageUrl = :imageUrl")
+    int updateVariants(@Param("imageUrl") String imageUrl,
+                       @Param("thumbnailUrl") String thumbnailUrl,
+                       @Param("variants") String variants);
+}
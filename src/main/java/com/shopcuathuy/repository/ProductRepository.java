@@ -1,14 +1,21 @@
 package com.shopcuathuy.repository;
 
+import com.shopcuathuy.config.ExportConfig;
+import com.shopcuathuy.dto.ProductSummaryDTO;
 import com.shopcuathuy.entity.Product;
+import jakarta.persistence.QueryHint;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -22,6 +29,17 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface ProductRepository extends JpaRepository<Product, String> {
 
+    /**
+     * Listing card projection: only the columns a card shows plus the primary
+     * image, so listings never load descriptions or managed entities
+     */
+    String SUMMARY_SELECT = "SELECT new com.shopcuathuy.dto.ProductSummaryDTO("
+            + "p.id, p.sellerId, p.categoryId, p.name, p.slug, p.price, p.originalPrice, p.discountPercent, "
+            + "p.stockQuantity, p.status, p.featured, p.freeShipping, p.rating, p.reviewCount, p.soldCount, p.brand, "
+            + "(SELECT MIN(COALESCE(i.thumbnailUrl, i.imageUrl)) FROM ProductImage i "
+            + "WHERE i.productId = p.id AND i.isPrimary = true), "
+            + "p.createdAt) FROM Product p";
+
     /**
      * Find product by slug
      */
@@ -42,6 +60,18 @@ public interface ProductRepository extends JpaRepository<Product, String> {
      */
     List<Product> findBySellerIdAndCreatedAtBetween(String sellerId, LocalDateTime startDate, LocalDateTime endDate);
 
+    /**
+     * Stream products by seller ID and created date range for export
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportConfig.STREAMING_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p WHERE p.sellerId = :sellerId AND p.createdAt BETWEEN :startDate AND :endDate")
+    Stream<Product> streamBySellerIdAndCreatedAtBetween(@Param("sellerId") String sellerId,
+                                                        @Param("startDate") LocalDateTime startDate,
+                                                        @Param("endDate") LocalDateTime endDate);
+
     /**
      * Find products by category
      */
@@ -52,6 +82,69 @@ public interface ProductRepository extends JpaRepository<Product, String> {
      */
     Page<Product> findByCategoryId(String categoryId, Pageable pageable);
 
+    /**
+     * Find product summaries with pagination
+     */
+    @Query(value = SUMMARY_SELECT, countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductSummaryDTO> findSummaries(Pageable pageable);
+
+    /**
+     * Find product summaries by seller
+     */
+    @Query(SUMMARY_SELECT + " WHERE p.sellerId = :sellerId")
+    List<ProductSummaryDTO> findSummariesBySellerId(@Param("sellerId") String sellerId);
+
+    /**
+     * Find product summaries by seller with pagination
+     */
+    @Query(value = SUMMARY_SELECT + " WHERE p.sellerId = :sellerId",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.sellerId = :sellerId")
+    Page<ProductSummaryDTO> findSummariesBySellerId(@Param("sellerId") String sellerId, Pageable pageable);
+
+    /**
+     * Find product summaries by category
+     */
+    @Query(SUMMARY_SELECT + " WHERE p.categoryId = :categoryId")
+    List<ProductSummaryDTO> findSummariesByCategoryId(@Param("categoryId") String categoryId);
+
+    /**
+     * Find product summaries by category with pagination
+     */
+    @Query(value = SUMMARY_SELECT + " WHERE p.categoryId = :categoryId",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.categoryId = :categoryId")
+    Page<ProductSummaryDTO> findSummariesByCategoryId(@Param("categoryId") String categoryId, Pageable pageable);
+
+    /**
+     * Find product summaries of a category and all categories below it, matching
+     * the category's materialized path by prefix
+     */
+    @Query(value = SUMMARY_SELECT + " WHERE p.categoryId IN "
+            + "(SELECT c.id FROM Category c WHERE c.path LIKE CONCAT(:pathPrefix, '%'))",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.categoryId IN "
+                    + "(SELECT c.id FROM Category c WHERE c.path LIKE CONCAT(:pathPrefix, '%'))")
+    Page<ProductSummaryDTO> findSummariesByCategoryPath(@Param("pathPrefix") String pathPrefix, Pageable pageable);
+
+    /**
+     * Find the first keyset page of a category's products in a status, newest first
+     */
+    @Query(SUMMARY_SELECT + " WHERE p.categoryId = :categoryId AND p.status = :status "
+            + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductSummaryDTO> findKeysetByCategoryIdAndStatus(@Param("categoryId") String categoryId,
+                                                            @Param("status") Product.ProductStatus status,
+                                                            Pageable pageable);
+
+    /**
+     * Find the keyset page of a category's products in a status following a cursor
+     */
+    @Query(SUMMARY_SELECT + " WHERE p.categoryId = :categoryId AND p.status = :status "
+            + "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) "
+            + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductSummaryDTO> findKeysetByCategoryIdAndStatusAfter(@Param("categoryId") String categoryId,
+                                                                 @Param("status") Product.ProductStatus status,
+                                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                                 @Param("id") String id,
+                                                                 Pageable pageable);
+
     /**
      * Find products by status
      */
@@ -365,6 +458,40 @@ public interface ProductRepository extends JpaRepository<Product, String> {
                                        @Param("search") String search,
                                        Pageable pageable);
 
+    /**
+     * Find products by the faceted search criteria: the multiple criteria
+     * filters plus brand and stock availability
+     */
+    @Query("SELECT p FROM Product p WHERE " +
+           "(:sellerId IS NULL OR p.sellerId = :sellerId) AND " +
+           "(:categoryId IS NULL OR p.categoryId = :categoryId) AND " +
+           "(:status IS NULL OR p.status = :status) AND " +
+           "(:featured IS NULL OR p.featured = :featured) AND " +
+           "(:freeShipping IS NULL OR p.freeShipping = :freeShipping) AND " +
+           "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
+           "(:maxPrice IS NULL OR p.price <= :maxPrice) AND " +
+           "(:minRating IS NULL OR p.rating >= :minRating) AND " +
+           "(:minStock IS NULL OR p.stockQuantity >= :minStock) AND " +
+           "(:brand IS NULL OR LOWER(p.brand) = LOWER(:brand)) AND " +
+           "(:inStock IS NULL OR (:inStock = true AND p.stockQuantity > 0) OR " +
+           "(:inStock = false AND p.stockQuantity <= 0)) AND " +
+           "(:search IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(p.brand) LIKE LOWER(CONCAT('%', :search, '%')))")
+    Page<Product> findByFacetCriteria(@Param("sellerId") String sellerId,
+                                      @Param("categoryId") String categoryId,
+                                      @Param("status") Product.ProductStatus status,
+                                      @Param("featured") Boolean featured,
+                                      @Param("freeShipping") Boolean freeShipping,
+                                      @Param("minPrice") BigDecimal minPrice,
+                                      @Param("maxPrice") BigDecimal maxPrice,
+                                      @Param("minRating") BigDecimal minRating,
+                                      @Param("minStock") Integer minStock,
+                                      @Param("brand") String brand,
+                                      @Param("inStock") Boolean inStock,
+                                      @Param("search") String search,
+                                      Pageable pageable);
+
     /**
      * Find products by text search
      */
@@ -517,6 +644,21 @@ public interface ProductRepository extends JpaRepository<Product, String> {
            "((p.originalPrice - p.price) / p.originalPrice * 100) >= :discountPercent")
     Page<Product> findByDiscountPercentage(@Param("discountPercent") BigDecimal discountPercent, Pageable pageable);
 
+    /**
+     * Atomically take stock; returns 0 if the product is missing or has too little stock
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity " +
+           "WHERE p.id = :id AND p.stockQuantity >= :quantity")
+    int decrementStock(@Param("id") String id, @Param("quantity") Integer quantity);
+
+    /**
+     * Atomically return stock
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity WHERE p.id = :id")
+    int incrementStock(@Param("id") String id, @Param("quantity") Integer quantity);
+
     /**
      * Count products by seller
      */
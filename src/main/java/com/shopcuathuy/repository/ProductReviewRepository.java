@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -25,21 +26,25 @@ public interface ProductReviewRepository extends JpaRepository<ProductReview, Lo
     /**
      * Find reviews by product ID
      */
+    @EntityGraph(attributePaths = {"product", "user"})
     List<ProductReview> findByProductIdAndStatus(Long productId, ProductReview.ReviewStatus status);
 
     /**
      * Find reviews by product ID with pagination
      */
+    @EntityGraph(attributePaths = {"product", "user"})
     Page<ProductReview> findByProductIdAndStatus(Long productId, ProductReview.ReviewStatus status, Pageable pageable);
 
     /**
      * Find reviews by user ID
      */
+    @EntityGraph(attributePaths = {"product", "user"})
     List<ProductReview> findByUserId(Long userId);
 
     /**
      * Find reviews by user ID with pagination
      */
+    @EntityGraph(attributePaths = {"product", "user"})
     Page<ProductReview> findByUserId(Long userId, Pageable pageable);
 
     /**
@@ -50,11 +55,13 @@ public interface ProductReviewRepository extends JpaRepository<ProductReview, Lo
     /**
      * Find reviews by rating
      */
+    @EntityGraph(attributePaths = {"product", "user"})
     List<ProductReview> findByProductIdAndRatingAndStatus(Long productId, Integer rating, ProductReview.ReviewStatus status);
 
     /**
      * Find reviews by status
      */
+    @EntityGraph(attributePaths = {"product", "user"})
     Page<ProductReview> findByStatus(ProductReview.ReviewStatus status, Pageable pageable);
 
     /**
@@ -76,23 +83,27 @@ public interface ProductReviewRepository extends JpaRepository<ProductReview, Lo
     /**
      * Find verified purchase reviews
      */
+    @EntityGraph(attributePaths = {"product", "user"})
     List<ProductReview> findByProductIdAndIsVerifiedPurchaseTrueAndStatus(Long productId, ProductReview.ReviewStatus status);
 
     /**
      * Find helpful reviews
      */
+    @EntityGraph(attributePaths = {"product", "user"})
     @Query("SELECT r FROM ProductReview r WHERE r.product.id = :productId AND r.status = :status ORDER BY r.helpfulCount DESC")
     List<ProductReview> findMostHelpfulReviews(@Param("productId") Long productId, @Param("status") ProductReview.ReviewStatus status);
 
     /**
      * Find recent reviews
      */
+    @EntityGraph(attributePaths = {"product", "user"})
     @Query("SELECT r FROM ProductReview r WHERE r.product.id = :productId AND r.status = :status ORDER BY r.createdAt DESC")
     List<ProductReview> findRecentReviews(@Param("productId") Long productId, @Param("status") ProductReview.ReviewStatus status);
 
     /**
      * Find reviews by rating range
      */
+    @EntityGraph(attributePaths = {"product", "user"})
     @Query("SELECT r FROM ProductReview r WHERE r.product.id = :productId AND r.rating BETWEEN :minRating AND :maxRating AND r.status = :status")
     List<ProductReview> findByProductIdAndRatingBetweenAndStatus(@Param("productId") Long productId, 
                                                                  @Param("minRating") Integer minRating, 
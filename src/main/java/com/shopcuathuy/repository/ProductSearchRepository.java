@@ -0,0 +1,15 @@
+package com.shopcuathuy.repository;
+
+import com.shopcuathuy.entity.ProductDocument;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Elasticsearch repository for the product search index
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Repository
+public interface ProductSearchRepository extends ElasticsearchRepository<ProductDocument, String> {
+}
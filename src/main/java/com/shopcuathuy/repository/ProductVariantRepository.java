@@ -6,6 +6,7 @@ import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -117,6 +118,22 @@ public interface ProductVariantRepository extends JpaRepository<ProductVariant,
     @Query("SELECT pv FROM ProductVariant pv WHERE pv.variantName LIKE %:variantName%")
     Page<ProductVariant> findByVariantNameContaining(@Param("variantName") String variantName, Pageable pageable);
 
+    /**
+     * Atomically take variant stock; returns 0 if the variant is missing or has too little stock
+     */
+    @Modifying
+    @Query("UPDATE ProductVariant pv SET pv.stockQuantity = pv.stockQuantity - :quantity " +
+           "WHERE pv.id = :id AND pv.productId = :productId AND pv.stockQuantity >= :quantity")
+    int decrementStock(@Param("id") String id, @Param("productId") String productId,
+                       @Param("quantity") Integer quantity);
+
+    /**
+     * Atomically return variant stock
+     */
+    @Modifying
+    @Query("UPDATE ProductVariant pv SET pv.stockQuantity = pv.stockQuantity + :quantity WHERE pv.id = :id")
+    int incrementStock(@Param("id") String id, @Param("quantity") Integer quantity);
+
     /**
      * Count variants by product ID
      */
@@ -0,0 +1,22 @@
+package com.shopcuathuy.repository;
+
+import com.shopcuathuy.entity.SalesAnalytics;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Sales Analytics Repository
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Repository
+public interface SalesAnalyticsRepository extends JpaRepository<SalesAnalytics, String> {
+
+    /**
+     * Find all rollups of one type for a date
+     */
+    List<SalesAnalytics> findByTypeAndDate(String type, LocalDateTime date);
+}
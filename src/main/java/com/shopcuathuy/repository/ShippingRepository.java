@@ -1,13 +1,19 @@
 package com.shopcuathuy.repository;
 
+import com.shopcuathuy.config.ExportConfig;
 import com.shopcuathuy.entity.Shipping;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
@@ -36,26 +42,31 @@ public interface ShippingRepository extends JpaRepository<Shipping, Long> {
     /**
      * Find shipping by status
      */
+    @EntityGraph(attributePaths = {"order", "shippingMethod"})
     List<Shipping> findByStatus(Shipping.ShippingStatus status);
 
     /**
      * Find shipping by status with pagination
      */
+    @EntityGraph(attributePaths = {"order", "shippingMethod"})
     Page<Shipping> findByStatus(Shipping.ShippingStatus status, Pageable pageable);
 
     /**
      * Find shipping by carrier
      */
+    @EntityGraph(attributePaths = {"order", "shippingMethod"})
     List<Shipping> findByCarrier(String carrier);
 
     /**
      * Find shipping by carrier with pagination
      */
+    @EntityGraph(attributePaths = {"order", "shippingMethod"})
     Page<Shipping> findByCarrier(String carrier, Pageable pageable);
 
     /**
      * Find shipping by date range
      */
+    @EntityGraph(attributePaths = {"order", "shippingMethod"})
     @Query("SELECT s FROM Shipping s WHERE s.createdAt BETWEEN :startDate AND :endDate ORDER BY s.createdAt DESC")
     List<Shipping> findByCreatedAtBetween(@Param("startDate") LocalDateTime startDate, 
                                         @Param("endDate") LocalDateTime endDate);
@@ -63,6 +74,7 @@ public interface ShippingRepository extends JpaRepository<Shipping, Long> {
     /**
      * Find shipping by date range with pagination
      */
+    @EntityGraph(attributePaths = {"order", "shippingMethod"})
     @Query("SELECT s FROM Shipping s WHERE s.createdAt BETWEEN :startDate AND :endDate ORDER BY s.createdAt DESC")
     Page<Shipping> findByCreatedAtBetween(@Param("startDate") LocalDateTime startDate, 
                                         @Param("endDate") LocalDateTime endDate, 
@@ -78,12 +90,14 @@ public interface ShippingRepository extends JpaRepository<Shipping, Long> {
     /**
      * Find overdue shipping
      */
+    @EntityGraph(attributePaths = {"order", "shippingMethod"})
     @Query("SELECT s FROM Shipping s WHERE s.estimatedDeliveryDate < :currentDate AND s.status NOT IN ('DELIVERED', 'CANCELLED', 'RETURNED') ORDER BY s.estimatedDeliveryDate ASC")
     List<Shipping> findOverdueShipping(@Param("currentDate") LocalDateTime currentDate);
 
     /**
      * Find shipping by status and date range
      */
+    @EntityGraph(attributePaths = {"order", "shippingMethod"})
     @Query("SELECT s FROM Shipping s WHERE s.status = :status AND s.createdAt BETWEEN :startDate AND :endDate ORDER BY s.createdAt DESC")
     List<Shipping> findByStatusAndCreatedAtBetween(@Param("status") Shipping.ShippingStatus status,
                                                   @Param("startDate") LocalDateTime startDate,
@@ -120,6 +134,7 @@ public interface ShippingRepository extends JpaRepository<Shipping, Long> {
     /**
      * Find shipping by tracking number containing
      */
+    @EntityGraph(attributePaths = {"order", "shippingMethod"})
     @Query("SELECT s FROM Shipping s WHERE s.trackingNumber LIKE CONCAT('%', :trackingNumber, '%') ORDER BY s.createdAt DESC")
     List<Shipping> findByTrackingNumberContaining(@Param("trackingNumber") String trackingNumber);
 
@@ -141,4 +156,15 @@ public interface ShippingRepository extends JpaRepository<Shipping, Long> {
     @Query("SELECT DATE(s.createdAt) as date, COUNT(s) as count FROM Shipping s WHERE s.createdAt BETWEEN :startDate AND :endDate GROUP BY DATE(s.createdAt) ORDER BY date")
     List<Object[]> getDailyShippingCounts(@Param("startDate") LocalDateTime startDate, 
                                         @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Stream shipping by date range for export
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportConfig.STREAMING_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM Shipping s WHERE s.createdAt BETWEEN :startDate AND :endDate ORDER BY s.createdAt DESC")
+    Stream<Shipping> streamByCreatedAtBetween(@Param("startDate") LocalDateTime startDate,
+                                              @Param("endDate") LocalDateTime endDate);
 }
@@ -0,0 +1,66 @@
+package com.shopcuathuy.repository;
+
+import com.shopcuathuy.entity.StockReservation;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for StockReservation entity
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, String> {
+
+    /**
+     * Find reservations by order and status
+     */
+    List<StockReservation> findByOrderIdAndStatus(String orderId, StockReservation.ReservationStatus status);
+
+    /**
+     * Find all reservations of an order
+     */
+    List<StockReservation> findByOrderId(String orderId);
+
+    /**
+     * Find reservations in a status that expired before the given time
+     */
+    List<StockReservation> findByStatusAndExpiresAtBefore(StockReservation.ReservationStatus status,
+                                                          LocalDateTime time, Pageable pageable);
+
+    /**
+     * Move a reservation out of RESERVED; returns 0 if another caller already did
+     */
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :status, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status = 'RESERVED'")
+    int transitionFromReserved(@Param("id") String id,
+                               @Param("status") StockReservation.ReservationStatus status,
+                               @Param("now") LocalDateTime now);
+
+    /**
+     * Move a reservation from one status to another; returns 0 if it is no longer in the expected status
+     */
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :to, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status = :from")
+    int transition(@Param("id") String id,
+                   @Param("from") StockReservation.ReservationStatus from,
+                   @Param("to") StockReservation.ReservationStatus to,
+                   @Param("now") LocalDateTime now);
+
+    /**
+     * Release a reservation that is still reserved and past its expiry; returns 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = 'RELEASED', r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status = 'RESERVED' AND r.expiresAt < :now")
+    int releaseIfExpired(@Param("id") String id, @Param("now") LocalDateTime now);
+}
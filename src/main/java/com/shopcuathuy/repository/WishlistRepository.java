@@ -1,12 +1,18 @@
 package com.shopcuathuy.repository;
 
+import com.shopcuathuy.config.ExportConfig;
 import com.shopcuathuy.entity.Wishlist;
+import jakarta.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
@@ -25,16 +31,29 @@ public interface WishlistRepository extends JpaRepository<Wishlist, Long> {
     /**
      * Find wishlist items by user ID
      */
+    @EntityGraph(attributePaths = "product")
     List<Wishlist> findByUserIdAndIsActiveTrueOrderByCreatedAtDesc(Long userId);
 
     /**
      * Find wishlist items by user ID (active only)
      */
+    @EntityGraph(attributePaths = "product")
     List<Wishlist> findByUserIdAndIsActiveTrue(Long userId);
 
+    /**
+     * Stream active wishlist items by user ID for export
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportConfig.STREAMING_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT w FROM Wishlist w WHERE w.user.id = :userId AND w.isActive = true")
+    Stream<Wishlist> streamActiveByUserId(@Param("userId") String userId);
+
     /**
      * Find wishlist items by user ID with pagination
      */
+    @EntityGraph(attributePaths = "product")
     Page<Wishlist> findByUserIdAndIsActiveTrueOrderByCreatedAtDesc(Long userId, Pageable pageable);
 
     /**
@@ -77,6 +96,7 @@ public interface WishlistRepository extends JpaRepository<Wishlist, Long> {
     /**
      * Find wishlist items by user ID and product name containing
      */
+    @EntityGraph(attributePaths = "product")
     @Query("SELECT w FROM Wishlist w WHERE w.user.id = :userId AND LOWER(w.product.name) LIKE LOWER(CONCAT('%', :productName, '%')) AND w.isActive = true ORDER BY w.createdAt DESC")
     List<Wishlist> findByUserIdAndProductNameContainingIgnoreCase(@Param("userId") Long userId, @Param("productName") String productName);
 }
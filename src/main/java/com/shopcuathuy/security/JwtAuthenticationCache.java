@@ -0,0 +1,266 @@
+package com.shopcuathuy.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shopcuathuy.config.JwtAuthCacheConfig;
+import com.shopcuathuy.entity.User;
+import com.shopcuathuy.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache taking token verification and the user lookup off the request path.
+ *
+ * <ul>
+ *   <li>Verified tokens are remembered by a SHA-256 hash of the token, so the
+ *       HMAC check and claim parsing run once per token.</li>
+ *   <li>Principals are built from the role and status claims and kept per
+ *       subject and issue time for a short TTL. Tokens issued before those
+ *       claims existed fall back to a database lookup.</li>
+ *   <li>Banning, deactivating or changing the password of a user revokes the
+ *       tokens issued before that moment. The revocation is stored in Redis
+ *       and broadcast so every node drops its cached principals.</li>
+ * </ul>
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Component
+public class JwtAuthenticationCache implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationCache.class);
+
+    private static final String KEY_SEPARATOR = "|";
+
+    private final JwtTokenProvider tokenProvider;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final JwtAuthCacheConfig config;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    private final Cache<String, UserDetails> principals;
+    private final Cache<String, Long> revocations;
+
+    public JwtAuthenticationCache(JwtTokenProvider tokenProvider,
+                                  UserDetailsServiceImpl userDetailsService,
+                                  JwtAuthCacheConfig config,
+                                  @Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                  ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                                  MeterRegistry meterRegistry) {
+        this.tokenProvider = tokenProvider;
+        this.userDetailsService = userDetailsService;
+        this.config = config;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.meterRegistry = meterRegistry;
+
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(config.getTokenMaximumSize())
+                .expireAfterWrite(config.getTokenTtl())
+                .recordStats()
+                .build();
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(config.getPrincipalMaximumSize())
+                .expireAfterWrite(config.getPrincipalTtl())
+                .recordStats()
+                .build();
+        // A revocation matters only while tokens issued before it can still be used
+        this.revocations = Caffeine.newBuilder()
+                .maximumSize(config.getPrincipalMaximumSize())
+                .expireAfterWrite(revocationTtl())
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt-tokens", Tags.empty());
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "jwt-principals", Tags.empty());
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.ifAvailable(container ->
+                container.addMessageListener(this, new ChannelTopic(config.getInvalidationChannel())));
+    }
+
+    /**
+     * Resolve the principal of a bearer token, or null when the token is
+     * invalid, expired, revoked or belongs to a disabled account
+     */
+    public UserDetails authenticate(String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        UserDetails principal = config.isEnabled() ? authenticateCached(token) : authenticateUncached(token);
+        sample.stop(Timer.builder("auth.jwt.authenticate")
+                .tags("cached", String.valueOf(config.isEnabled()), "outcome", principal != null ? "success" : "rejected")
+                .register(meterRegistry));
+        return principal;
+    }
+
+    /**
+     * Revoke every token of a user issued up to now, on all nodes
+     */
+    public void revoke(String subject) {
+        long revokedAt = System.currentTimeMillis();
+        applyRevocation(subject, revokedAt);
+        try {
+            redisTemplate.opsForValue().set(config.getRevokedKeyPrefix() + subject,
+                    String.valueOf(revokedAt), revocationTtl());
+            redisTemplate.convertAndSend(config.getInvalidationChannel(), subject + KEY_SEPARATOR + revokedAt);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to publish token revocation for {}: {}", subject, e.getMessage());
+        }
+    }
+
+    /**
+     * Apply a revocation published by another node
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = redisTemplate.getStringSerializer().deserialize(message.getBody());
+        int separator = payload != null ? payload.lastIndexOf(KEY_SEPARATOR) : -1;
+        if (separator <= 0) {
+            return;
+        }
+        try {
+            applyRevocation(payload.substring(0, separator), Long.parseLong(payload.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring unreadable token revocation message: {}", payload);
+        }
+    }
+
+    private UserDetails authenticateCached(String token) {
+        VerifiedToken verified = verify(token);
+        if (verified == null || isRevoked(verified, revocations.getIfPresent(verified.subject()))) {
+            return null;
+        }
+        UserDetails principal = principals.get(verified.subject() + KEY_SEPARATOR + verified.issuedAt(),
+                key -> loadPrincipal(verified));
+        return isUsable(principal) ? principal : null;
+    }
+
+    private UserDetails authenticateUncached(String token) {
+        try {
+            UserDetails principal = userDetailsService.loadUserByUsername(tokenProvider.parseClaims(token).getSubject());
+            return isUsable(principal) ? principal : null;
+        } catch (JwtException | IllegalArgumentException | UsernameNotFoundException e) {
+            return null;
+        }
+    }
+
+    private VerifiedToken verify(String token) {
+        String tokenHash = hash(token);
+        VerifiedToken verified = verifiedTokens.getIfPresent(tokenHash);
+        if (verified == null) {
+            // Invalid tokens are not remembered, so they cost a verification every time as before
+            try {
+                verified = VerifiedToken.from(tokenProvider.parseClaims(token));
+            } catch (JwtException | IllegalArgumentException e) {
+                return null;
+            }
+            verifiedTokens.put(tokenHash, verified);
+        }
+        return verified.expiresAt() > System.currentTimeMillis() ? verified : null;
+    }
+
+    private UserDetails loadPrincipal(VerifiedToken verified) {
+        String subject = verified.subject();
+        try {
+            String revokedAt = redisTemplate.opsForValue().get(config.getRevokedKeyPrefix() + subject);
+            if (revokedAt != null) {
+                applyRevocation(subject, Long.parseLong(revokedAt));
+                if (isRevoked(verified, Long.parseLong(revokedAt))) {
+                    return null;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Without the revocation record only the database knows the current status
+            logger.warn("Failed to check token revocation for {}, loading the user instead: {}", subject, e.getMessage());
+            return loadFromDatabase(subject);
+        }
+
+        if (verified.role() == null || verified.status() == null) {
+            // Token issued before role and status were part of the claims
+            return loadFromDatabase(subject);
+        }
+        return userDetailsService.buildUserDetails(subject, "", verified.role(), verified.status());
+    }
+
+    private UserDetails loadFromDatabase(String subject) {
+        try {
+            return userDetailsService.loadUserByUsername(subject);
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
+
+    private void applyRevocation(String subject, long revokedAt) {
+        revocations.asMap().merge(subject, revokedAt, Math::max);
+        String keyPrefix = subject + KEY_SEPARATOR;
+        principals.asMap().keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+
+    private boolean isRevoked(VerifiedToken verified, Long revokedAt) {
+        if (revokedAt == null) {
+            return false;
+        }
+        // Tokens without the millisecond claim only know their issue second,
+        // so one from the second of the revocation is revoked too
+        return verified.issuedAtPrecise() ? verified.issuedAt() < revokedAt : verified.issuedAt() <= revokedAt;
+    }
+
+    private boolean isUsable(UserDetails principal) {
+        return principal != null && principal.isEnabled() && principal.isAccountNonLocked();
+    }
+
+    private Duration revocationTtl() {
+        return Duration.ofMillis(Math.max(tokenProvider.getJwtExpirationInMs(), tokenProvider.getJwtRefreshExpirationInMs()));
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record VerifiedToken(String subject, long issuedAt, boolean issuedAtPrecise, long expiresAt,
+                                 User.UserRole role, User.UserStatus status) {
+
+        static VerifiedToken from(Claims claims) {
+            String role = claims.get(JwtTokenProvider.ROLE_CLAIM, String.class);
+            String status = claims.get(JwtTokenProvider.STATUS_CLAIM, String.class);
+            Long issuedAtMs = claims.get(JwtTokenProvider.ISSUED_AT_MS_CLAIM, Long.class);
+            return new VerifiedToken(
+                    claims.getSubject(),
+                    issuedAtMs != null ? issuedAtMs
+                            : claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L,
+                    issuedAtMs != null,
+                    claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE,
+                    role != null ? User.UserRole.valueOf(role) : null,
+                    status != null ? User.UserStatus.valueOf(status) : null);
+        }
+    }
+}
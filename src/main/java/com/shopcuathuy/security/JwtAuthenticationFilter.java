@@ -1,6 +1,6 @@
 package com.shopcuathuy.security;
 
-import com.shopcuathuy.service.UserDetailsServiceImpl;
+import com.shopcuathuy.config.NotificationConfig;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -29,11 +29,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
+    private static final String TOKEN_PARAMETER = "access_token";
+    private static final String NOTIFICATION_STREAM_PATH = "/api/notifications/stream";
+
     @Autowired
-    private JwtTokenProvider tokenProvider;
+    private JwtAuthenticationCache authenticationCache;
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
+    private NotificationConfig notificationConfig;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
@@ -41,10 +44,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                
+            UserDetails userDetails = StringUtils.hasText(jwt) ? authenticationCache.authenticate(jwt) : null;
+
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication = 
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -66,6 +68,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
             return bearerToken.substring(7);
         }
+        // Browsers cannot set headers on WebSocket handshakes or EventSource requests
+        if (isPushRequest(request)) {
+            String token = request.getParameter(TOKEN_PARAMETER);
+            return StringUtils.hasText(token) ? token : null;
+        }
         return null;
     }
+
+    private boolean isPushRequest(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.equals(NOTIFICATION_STREAM_PATH) || path.startsWith(notificationConfig.getPush().getEndpoint());
+    }
 }
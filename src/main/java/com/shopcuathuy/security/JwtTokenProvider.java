@@ -1,14 +1,18 @@
 package com.shopcuathuy.security;
 import org.springframework.stereotype.Component;
+import com.shopcuathuy.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import java.util.Date;
 import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
@@ -22,6 +26,17 @@ import org.springframework.stereotype.Component;
 @Component
 public class JwtTokenProvider {
 
+    public static final String ROLE_CLAIM = "role";
+    public static final String STATUS_CLAIM = "status";
+
+    /**
+     * Issue time in milliseconds; the standard iat claim only has seconds,
+     * which is too coarse to order a token against a revocation
+     */
+    public static final String ISSUED_AT_MS_CLAIM = "iat_ms";
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
@@ -31,16 +46,30 @@ public class JwtTokenProvider {
     @Value("${app.jwt.refresh-expiration}")
     private int jwtRefreshExpirationInMs;
 
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        // The key and parser are immutable, so build them once instead of per token
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
     /**
      * Generate JWT token
      */
     public String generateToken(Authentication authentication) {
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
-        Date expiryDate = new Date(System.currentTimeMillis() + jwtExpirationInMs);
+        Date issuedAt = new Date();
+        Date expiryDate = new Date(issuedAt.getTime() + jwtExpirationInMs);
 
         return Jwts.builder()
                 .setSubject(userPrincipal.getUsername())
-                .setIssuedAt(new Date())
+                .claim(ROLE_CLAIM, roleOf(userPrincipal))
+                .claim(STATUS_CLAIM, statusOf(userPrincipal).name())
+                .setIssuedAt(issuedAt)
+                .claim(ISSUED_AT_MS_CLAIM, issuedAt.getTime())
                 .setExpiration(expiryDate)
                 .signWith(getSigningKey(), SignatureAlgorithm.HS512)
                 .compact();
@@ -50,11 +79,31 @@ public class JwtTokenProvider {
      * Generate JWT token from username
      */
     public String generateTokenFromUsername(String username) {
-        Date expiryDate = new Date(System.currentTimeMillis() + jwtExpirationInMs);
+        Date issuedAt = new Date();
+        Date expiryDate = new Date(issuedAt.getTime() + jwtExpirationInMs);
 
         return Jwts.builder()
                 .setSubject(username)
-                .setIssuedAt(new Date())
+                .setIssuedAt(issuedAt)
+                .claim(ISSUED_AT_MS_CLAIM, issuedAt.getTime())
+                .setExpiration(expiryDate)
+                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    /**
+     * Generate JWT token carrying the user's role and status
+     */
+    public String generateTokenFromUsername(String username, User.UserRole role, User.UserStatus status) {
+        Date issuedAt = new Date();
+        Date expiryDate = new Date(issuedAt.getTime() + jwtExpirationInMs);
+
+        return Jwts.builder()
+                .setSubject(username)
+                .claim(ROLE_CLAIM, role.name())
+                .claim(STATUS_CLAIM, status.name())
+                .setIssuedAt(issuedAt)
+                .claim(ISSUED_AT_MS_CLAIM, issuedAt.getTime())
                 .setExpiration(expiryDate)
                 .signWith(getSigningKey(), SignatureAlgorithm.HS512)
                 .compact();
@@ -64,11 +113,13 @@ public class JwtTokenProvider {
      * Generate refresh token
      */
     public String generateRefreshToken(String username) {
-        Date expiryDate = new Date(System.currentTimeMillis() + jwtRefreshExpirationInMs);
+        Date issuedAt = new Date();
+        Date expiryDate = new Date(issuedAt.getTime() + jwtRefreshExpirationInMs);
 
         return Jwts.builder()
                 .setSubject(username)
-                .setIssuedAt(new Date())
+                .setIssuedAt(issuedAt)
+                .claim(ISSUED_AT_MS_CLAIM, issuedAt.getTime())
                 .setExpiration(expiryDate)
                 .signWith(getSigningKey(), SignatureAlgorithm.HS512)
                 .compact();
@@ -78,11 +129,7 @@ public class JwtTokenProvider {
      * Get username from JWT token
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parseClaims(token);
 
         return claims.getSubject();
     }
@@ -91,11 +138,7 @@ public class JwtTokenProvider {
      * Get expiration date from JWT token
      */
     public Date getExpirationDateFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parseClaims(token);
 
         return claims.getExpiration();
     }
@@ -129,21 +172,41 @@ public class JwtTokenProvider {
      */
     public Boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
+            parseClaims(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
 
+    /**
+     * Verify the token signature and expiry and return its claims
+     */
+    public Claims parseClaims(String token) {
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
+
     /**
      * Get signing key
      */
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return signingKey;
+    }
+
+    private String roleOf(UserDetails userDetails) {
+        return userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith(ROLE_PREFIX))
+                .map(authority -> authority.substring(ROLE_PREFIX.length()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private User.UserStatus statusOf(UserDetails userDetails) {
+        if (!userDetails.isAccountNonLocked()) {
+            return User.UserStatus.BANNED;
+        }
+        return userDetails.isEnabled() ? User.UserStatus.ACTIVE : User.UserStatus.INACTIVE;
     }
 
     /**
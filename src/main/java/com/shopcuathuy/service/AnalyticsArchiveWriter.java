@@ -0,0 +1,147 @@
+package com.shopcuathuy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopcuathuy.config.AnalyticsIngestionConfig;
+import com.shopcuathuy.dto.AnalyticsEventRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Long-term archive of analytics events in MinIO.
+ *
+ * Events are appended as newline-delimited JSON to an in-memory gzip stream
+ * and uploaded as one object when it reaches the configured size or age,
+ * instead of one small object per event.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class AnalyticsArchiveWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsArchiveWriter.class);
+
+    private static final String ARCHIVE_FOLDER = "analytics/events";
+    private static final String CONTENT_TYPE = "application/gzip";
+
+    private final FileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
+    private final AnalyticsIngestionConfig.Archive config;
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Counter archivedEvents;
+    private final Counter uploadedObjects;
+    private final Counter uploadFailures;
+
+    private ByteArrayOutputStream buffer;
+    private GZIPOutputStream gzip;
+    private long uncompressedBytes;
+    private long eventCount;
+    private long openedAt;
+
+    public AnalyticsArchiveWriter(FileStorageService fileStorageService,
+                                  ObjectMapper objectMapper,
+                                  AnalyticsIngestionConfig config,
+                                  MeterRegistry meterRegistry) {
+        this.fileStorageService = fileStorageService;
+        this.objectMapper = objectMapper;
+        this.config = config.getArchive();
+
+        this.archivedEvents = Counter.builder("analytics.archive.events").register(meterRegistry);
+        this.uploadedObjects = Counter.builder("analytics.archive.objects").register(meterRegistry);
+        this.uploadFailures = Counter.builder("analytics.archive.upload.failures").register(meterRegistry);
+    }
+
+    /**
+     * Append a batch of events to the current archive object
+     */
+    public synchronized void append(List<AnalyticsEventRecord> events) {
+        if (!config.isEnabled() || events.isEmpty()) {
+            return;
+        }
+        try {
+            if (gzip == null) {
+                open();
+            }
+            for (AnalyticsEventRecord event : events) {
+                byte[] line = objectMapper.writeValueAsBytes(event);
+                gzip.write(line);
+                gzip.write('\n');
+                uncompressedBytes += line.length + 1;
+            }
+            eventCount += events.size();
+            archivedEvents.increment(events.size());
+        } catch (IOException e) {
+            logger.error("Failed to append {} analytics events to archive: {}", events.size(), e.getMessage());
+            return;
+        }
+
+        if (uncompressedBytes >= config.getMaxObjectBytes()) {
+            roll();
+        }
+    }
+
+    /**
+     * Upload the current archive object once it is old enough
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.ingestion.archive.check-interval-ms:30000}")
+    public synchronized void rollIfExpired() {
+        if (gzip != null && System.currentTimeMillis() - openedAt >= config.getMaxObjectAgeMs()) {
+            roll();
+        }
+    }
+
+    /**
+     * Upload whatever is buffered on shutdown
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (gzip != null) {
+            roll();
+        }
+    }
+
+    private void open() {
+        buffer = new ByteArrayOutputStream();
+        try {
+            gzip = new GZIPOutputStream(buffer, 64 * 1024);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open analytics archive stream", e);
+        }
+        uncompressedBytes = 0;
+        eventCount = 0;
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void roll() {
+        String fileName = nodeId + "-" + openedAt + "-" + sequence.incrementAndGet() + ".ndjson.gz";
+        long events = eventCount;
+        try {
+            gzip.finish();
+            String objectName = fileStorageService.uploadFile(buffer.toByteArray(), fileName, CONTENT_TYPE, ARCHIVE_FOLDER);
+            uploadedObjects.increment();
+            logger.debug("Archived {} analytics events to {}", events, objectName);
+        } catch (Exception e) {
+            // The events are already in the database, so the archive object is
+            // given up rather than held in memory indefinitely
+            uploadFailures.increment();
+            logger.error("Failed to upload analytics archive {} ({} events): {}", fileName, events, e.getMessage());
+        } finally {
+            gzip = null;
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.config.AnalyticsIngestionConfig;
+import com.shopcuathuy.dto.AnalyticsEventRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Buffered ingestion pipeline for analytics events.
+ *
+ * Request threads only enqueue into a bounded buffer. A scheduled writer
+ * drains it in batches, inserts each batch with one JDBC batch statement,
+ * folds it into the rollups and appends it to the compressed archive.
+ * Batch volumes are reported through the ingestion metrics. When the buffer fills up, events are sampled and then dropped (or
+ * the caller briefly waits, depending on the overflow policy) so a traffic
+ * burst can never block checkout or browsing on analytics writes. A batch
+ * the database rejects is split in halves until the offending events are
+ * found and dropped; only a failure every event shares, such as a lost
+ * connection, puts the batch back into the buffer.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class AnalyticsIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsIngestionService.class);
+
+    private static final long DROP_LOG_INTERVAL = 1000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO analytics_events (event_name, event_type, user_id, product_id, order_id, event_data, "
+                    + "session_id, ip_address, user_agent, referrer, value, properties, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AnalyticsIngestionConfig config;
+    private final AnalyticsArchiveWriter archiveWriter;
+    private final AnalyticsRollupService rollupService;
+
+    private final BlockingQueue<AnalyticsEventRecord> buffer;
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Counter accepted;
+    private final Counter dropped;
+    private final Counter sampledOut;
+    private final Counter written;
+    private final Counter rejected;
+    private final Counter writeFailures;
+    private final Timer flushTimer;
+
+    public AnalyticsIngestionService(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     AnalyticsIngestionConfig config,
+                                     AnalyticsArchiveWriter archiveWriter,
+                                     AnalyticsRollupService rollupService,
+                                     MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = config;
+        this.archiveWriter = archiveWriter;
+        this.rollupService = rollupService;
+        this.buffer = new ArrayBlockingQueue<>(config.getBufferCapacity());
+
+        Gauge.builder("analytics.ingestion.buffer.size", buffer, BlockingQueue::size)
+                .description("Analytics events waiting to be written")
+                .register(meterRegistry);
+        this.accepted = Counter.builder("analytics.ingestion.events").tag("outcome", "accepted").register(meterRegistry);
+        this.dropped = Counter.builder("analytics.ingestion.events").tag("outcome", "dropped").register(meterRegistry);
+        this.sampledOut = Counter.builder("analytics.ingestion.events").tag("outcome", "sampled").register(meterRegistry);
+        this.written = Counter.builder("analytics.ingestion.events").tag("outcome", "written").register(meterRegistry);
+        this.rejected = Counter.builder("analytics.ingestion.events").tag("outcome", "rejected").register(meterRegistry);
+        this.writeFailures = Counter.builder("analytics.ingestion.write.failures").register(meterRegistry);
+        this.flushTimer = Timer.builder("analytics.ingestion.flush").register(meterRegistry);
+    }
+
+    /**
+     * Queue an event for writing
+     *
+     * @return false when the event was sampled out or dropped
+     */
+    public boolean submit(AnalyticsEventRecord record) {
+        double fill = (double) buffer.size() / config.getBufferCapacity();
+        if (fill >= config.getSampleThreshold()
+                && ThreadLocalRandom.current().nextDouble() >= config.getSampleRate()) {
+            sampledOut.increment();
+            return false;
+        }
+
+        if (buffer.offer(record) || offerBlocking(record)) {
+            accepted.increment();
+            return true;
+        }
+
+        dropped.increment();
+        long droppedSoFar = (long) dropped.count();
+        if (droppedSoFar == 1 || droppedSoFar % DROP_LOG_INTERVAL == 0) {
+            logger.warn("Analytics buffer full ({} events), {} events dropped so far",
+                    config.getBufferCapacity(), droppedSoFar);
+        }
+        return false;
+    }
+
+    /**
+     * Write events now with one JDBC batch, bypassing the buffer. Used by the
+     * batch consumer, which acknowledges its messages only after this returns.
+     *
+     * @throws org.springframework.dao.DataAccessException when the batch was not written
+     */
+    public void write(List<AnalyticsEventRecord> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        try {
+            insert(batch);
+        } catch (RuntimeException e) {
+            writeFailures.increment();
+            throw e;
+        } finally {
+            flushTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+        afterWrite(batch);
+    }
+
+    /**
+     * Get the number of events waiting to be written
+     */
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Write buffered events to the database in batches
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.ingestion.flush-interval-ms:1000}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            writePending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Drain buffered events on shutdown
+     */
+    @PreDestroy
+    public void drain() {
+        logger.info("Draining analytics buffer: {} events pending", buffer.size());
+        flushLock.lock();
+        try {
+            writePending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writePending() {
+        List<AnalyticsEventRecord> batch = new ArrayList<>(config.getBatchSize());
+        while (buffer.drainTo(batch, config.getBatchSize()) > 0) {
+            List<AnalyticsEventRecord> chunk = List.copyOf(batch);
+            batch.clear();
+            // Stop on a failure every event shares: the batch went back into the buffer
+            long startTime = System.nanoTime();
+            boolean writtenOk = writeBatch(chunk);
+            flushTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            if (!writtenOk) {
+                return;
+            }
+        }
+    }
+
+    private boolean offerBlocking(AnalyticsEventRecord record) {
+        if (config.getOverflowPolicy() != AnalyticsIngestionConfig.OverflowPolicy.BLOCK) {
+            return false;
+        }
+        try {
+            return buffer.offer(record, config.getBlockTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean writeBatch(List<AnalyticsEventRecord> batch) {
+        try {
+            insert(batch);
+        } catch (Exception e) {
+            writeFailures.increment();
+            if (affectsEveryRecord(e)) {
+                int requeued = requeue(batch);
+                logger.error("Failed to write {} analytics events, {} re-queued: {}",
+                        batch.size(), requeued, e.getMessage(), e);
+                return false;
+            }
+            if (batch.size() == 1) {
+                // Retrying a row the database rejects would only block the buffer
+                rejected.increment();
+                logger.warn("Dropping analytics event '{}' rejected by the database: {}",
+                        batch.get(0).eventName(), e.getMessage());
+                return true;
+            }
+            int middle = batch.size() / 2;
+            logger.warn("Batch of {} analytics events failed, retrying it in halves: {}", batch.size(), e.getMessage());
+            if (!writeBatch(batch.subList(0, middle))) {
+                requeue(batch.subList(middle, batch.size()));
+                return false;
+            }
+            return writeBatch(batch.subList(middle, batch.size()));
+        }
+
+        afterWrite(batch);
+        return true;
+    }
+
+    /**
+     * Put events back for the next run; whatever no longer fits is dropped
+     */
+    private int requeue(List<AnalyticsEventRecord> records) {
+        int requeued = 0;
+        for (AnalyticsEventRecord record : records) {
+            if (buffer.offer(record)) {
+                requeued++;
+            }
+        }
+        dropped.increment(records.size() - requeued);
+        return requeued;
+    }
+
+    private static boolean affectsEveryRecord(Throwable failure) {
+        for (Throwable current = failure; current != null; current = current.getCause() != current ? current.getCause() : null) {
+            if (current instanceof TransientDataAccessException
+                    || current instanceof RecoverableDataAccessException
+                    || current instanceof DataAccessResourceFailureException
+                    || current instanceof CannotCreateTransactionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void insert(List<AnalyticsEventRecord> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<AnalyticsEventRecord> resolved = resolveReferences(batch);
+            List<Object[]> args = new ArrayList<>(resolved.size());
+            for (AnalyticsEventRecord record : resolved) {
+                args.add(new Object[]{
+                        record.eventName(), record.eventType(),
+                        record.userId(), record.productId(), record.orderId(),
+                        record.eventData(), record.sessionId(), record.ipAddress(),
+                        record.userAgent(), record.referrer(), record.value(), record.properties(),
+                        Timestamp.valueOf(record.createdAt())
+                });
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, args);
+            rollupService.apply(resolved);
+        });
+    }
+
+    /**
+     * Replace unknown user, product and order ids with NULL, so such an event
+     * is stored without the reference instead of failing the whole batch
+     *
+     * Each kind of id is looked up with one query per batch, and the raw rows
+     * and the rollups are written from the same resolved records.
+     */
+    private List<AnalyticsEventRecord> resolveReferences(List<AnalyticsEventRecord> batch) {
+        Set<String> users = existingIds("users", batch, AnalyticsEventRecord::userId);
+        Set<String> products = existingIds("products", batch, AnalyticsEventRecord::productId);
+        Set<String> orders = existingIds("orders", batch, AnalyticsEventRecord::orderId);
+
+        List<AnalyticsEventRecord> resolved = new ArrayList<>(batch.size());
+        for (AnalyticsEventRecord record : batch) {
+            resolved.add(new AnalyticsEventRecord(record.eventName(), record.eventType(),
+                    users.contains(record.userId()) ? record.userId() : null,
+                    products.contains(record.productId()) ? record.productId() : null,
+                    orders.contains(record.orderId()) ? record.orderId() : null,
+                    record.eventData(), record.sessionId(), record.ipAddress(), record.userAgent(),
+                    record.referrer(), record.value(), record.properties(), record.createdAt()));
+        }
+        return resolved;
+    }
+
+    private Set<String> existingIds(String table, List<AnalyticsEventRecord> batch,
+                                    Function<AnalyticsEventRecord, String> reference) {
+        List<String> ids = batch.stream().map(reference).filter(Objects::nonNull).distinct().toList();
+        Set<String> existing = new HashSet<>();
+        if (!ids.isEmpty()) {
+            String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            existing.addAll(jdbcTemplate.queryForList(
+                    "SELECT id FROM " + table + " WHERE id IN (" + placeholders + ")", String.class, ids.toArray()));
+        }
+        return existing;
+    }
+
+    private void afterWrite(List<AnalyticsEventRecord> batch) {
+        written.increment(batch.size());
+        archiveWriter.append(batch);
+    }
+}
@@ -0,0 +1,341 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.config.AnalyticsPartitionConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the analytics tables partitioned by month of created_at.
+ *
+ * Each month is a RANGE COLUMNS partition named pYYYYMM, followed by a
+ * catch-all pmax. Queries filtering on created_at only read the months they
+ * cover. A daily job splits empty months off pmax ahead of time, and
+ * retires months past the retention: each is archived to MinIO and then
+ * dropped, which frees the month at once instead of deleting it row by row.
+ * A month whose archive fails is kept and retried the next day.
+ *
+ * MySQL does not allow foreign keys on partitioned tables and needs
+ * created_at in the primary key, so converting a table drops its foreign
+ * keys and widens the primary key to (id, created_at).
+ *
+ * Converting a plain table copies it under a lock, so it is a maintenance
+ * step rather than something startup does: run it with
+ * POST /api/admin/analytics/partitions/convert during a maintenance window,
+ * or set app.analytics.partitioning.convert-existing to let the nightly job
+ * convert. Until then a plain table is left alone and logged.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class AnalyticsPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsPartitionService.class);
+
+    private static final String PARTITION_COLUMN = "created_at";
+    private static final String CATCH_ALL = "pmax";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PartitionArchiveWriter archiveWriter;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final AnalyticsPartitionConfig config;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicBoolean converting = new AtomicBoolean(false);
+
+    private final Counter created;
+    private final Counter archived;
+    private final Counter dropped;
+    private final Counter archiveFailures;
+
+    public AnalyticsPartitionService(JdbcTemplate jdbcTemplate,
+                                     PartitionArchiveWriter archiveWriter,
+                                     @Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                     AnalyticsPartitionConfig config,
+                                     MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiveWriter = archiveWriter;
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+
+        this.created = Counter.builder("analytics.partitions.created").register(meterRegistry);
+        this.archived = Counter.builder("analytics.partitions.archived").register(meterRegistry);
+        this.dropped = Counter.builder("analytics.partitions.dropped").register(meterRegistry);
+        this.archiveFailures = Counter.builder("analytics.partitions.archive.failures").register(meterRegistry);
+    }
+
+    /**
+     * Create upcoming partitions of already partitioned tables once the schema is in place
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        run(false);
+    }
+
+    /**
+     * Create upcoming partitions and retire expired ones
+     */
+    @Scheduled(cron = "${app.analytics.partitioning.maintenance-cron:0 30 2 * * *}")
+    public void maintain() {
+        run(config.isConvertExisting());
+    }
+
+    /**
+     * Convert the tables that are not partitioned yet, then maintain them
+     *
+     * The maintenance step for existing installations. Each conversion
+     * copies its table, so run it in a maintenance window.
+     */
+    @Async
+    public void convertExisting() {
+        if (!converting.compareAndSet(false, true)) {
+            logger.warn("Analytics partition conversion is already running");
+            return;
+        }
+        try {
+            run(true);
+        } finally {
+            converting.set(false);
+        }
+    }
+
+    /**
+     * Check whether a conversion started by {@link #convertExisting()} is running
+     */
+    public boolean isConverting() {
+        return converting.get();
+    }
+
+    private void run(boolean convert) {
+        if (!config.isEnabled() || !isMySql()) {
+            return;
+        }
+        if (!acquireLease()) {
+            if (convert) {
+                logger.warn("Partition maintenance is running on another node, conversion skipped");
+            }
+            return;
+        }
+        try {
+            for (String table : config.getTables()) {
+                try {
+                    maintain(table, convert);
+                } catch (RuntimeException e) {
+                    logger.error("Partition maintenance of {} failed: {}", table, e.getMessage());
+                }
+            }
+        } finally {
+            releaseLease();
+        }
+    }
+
+    private void maintain(String table, boolean convert) {
+        if (!tableExists(table)) {
+            return;
+        }
+        List<String> partitions = partitions(table);
+        if (partitions.isEmpty()) {
+            if (!convert) {
+                logger.warn("Table {} is not partitioned; convert it with "
+                        + "POST /api/admin/analytics/partitions/convert during a maintenance window", table);
+                return;
+            }
+            convert(table);
+            partitions = partitions(table);
+            if (partitions.isEmpty()) {
+                return;
+            }
+        }
+        premake(table, partitions);
+        retire(table, partitions);
+    }
+
+    /**
+     * Rebuild a plain table as monthly partitions from its oldest row onwards
+     */
+    private void convert(String table) {
+        List<String> referencing = jdbcTemplate.queryForList(
+                "SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS "
+                        + "WHERE CONSTRAINT_SCHEMA = DATABASE() AND REFERENCED_TABLE_NAME = ?",
+                String.class, table);
+        if (!referencing.isEmpty()) {
+            logger.error("Table {} cannot be partitioned while foreign keys {} reference it", table, referencing);
+            return;
+        }
+
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+                "SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS "
+                        + "WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                String.class, table);
+        for (String foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP FOREIGN KEY " + foreignKey);
+        }
+
+        Timestamp oldest = jdbcTemplate.queryForObject(
+                "SELECT MIN(" + PARTITION_COLUMN + ") FROM " + table, Timestamp.class);
+        YearMonth current = YearMonth.now();
+        YearMonth first = oldest != null ? YearMonth.from(oldest.toLocalDateTime()) : current;
+        List<String> definitions = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(current.plusMonths(config.getPremakeMonths())); month = month.plusMonths(1)) {
+            definitions.add(definition(month));
+        }
+        definitions.add("PARTITION " + CATCH_ALL + " VALUES LESS THAN (MAXVALUE)");
+
+        long started = System.currentTimeMillis();
+        jdbcTemplate.execute("ALTER TABLE " + table
+                + " DROP PRIMARY KEY, ADD PRIMARY KEY (id, " + PARTITION_COLUMN + ")"
+                + " PARTITION BY RANGE COLUMNS(" + PARTITION_COLUMN + ") (" + String.join(", ", definitions) + ")");
+        created.increment(definitions.size());
+        logger.info("Partitioned {} into {} monthly partitions in {} ms",
+                table, definitions.size() - 1, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Split the months up to the premake horizon off the empty catch-all
+     */
+    private void premake(String table, List<String> partitions) {
+        YearMonth last = partitions.stream()
+                .map(this::month)
+                .filter(month -> month != null)
+                .max(YearMonth::compareTo)
+                .orElse(YearMonth.now().minusMonths(1));
+        YearMonth horizon = YearMonth.now().plusMonths(config.getPremakeMonths());
+
+        List<String> definitions = new ArrayList<>();
+        for (YearMonth month = last.plusMonths(1); !month.isAfter(horizon); month = month.plusMonths(1)) {
+            definitions.add(definition(month));
+        }
+        if (definitions.isEmpty()) {
+            return;
+        }
+        if (partitions.contains(CATCH_ALL)) {
+            definitions.add("PARTITION " + CATCH_ALL + " VALUES LESS THAN (MAXVALUE)");
+            jdbcTemplate.execute("ALTER TABLE " + table + " REORGANIZE PARTITION " + CATCH_ALL
+                    + " INTO (" + String.join(", ", definitions) + ")");
+            created.increment(definitions.size() - 1);
+        } else {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD PARTITION (" + String.join(", ", definitions) + ")");
+            created.increment(definitions.size());
+        }
+    }
+
+    /**
+     * Archive and drop the months that ended before the retention window
+     */
+    private void retire(String table, List<String> partitions) {
+        YearMonth oldestKept = YearMonth.now().minusMonths(Math.max(config.getRetentionMonths(), 1) - 1L);
+        for (String partition : partitions) {
+            YearMonth month = month(partition);
+            if (month == null || !month.isBefore(oldestKept)) {
+                continue;
+            }
+            if (config.getArchive().isEnabled()) {
+                try {
+                    PartitionArchiveWriter.ArchivedPartition archive = archiveWriter.archive(table, partition);
+                    archived.increment();
+                    logger.info("Archived {} rows of {}.{} to {}", archive.rows(), table, partition, archive.objectName());
+                } catch (IOException | RuntimeException e) {
+                    archiveFailures.increment();
+                    logger.error("Failed to archive {}.{}, keeping it: {}", table, partition, e.getMessage());
+                    continue;
+                }
+            }
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP PARTITION " + partition);
+            dropped.increment();
+            logger.info("Dropped partition {}.{}", table, partition);
+        }
+    }
+
+    private List<String> partitions(String table) {
+        return jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL "
+                        + "ORDER BY PARTITION_ORDINAL_POSITION",
+                String.class, table);
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private boolean isMySql() {
+        try {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            return product != null && product.toLowerCase().contains("mysql");
+        } catch (DataAccessException e) {
+            logger.warn("Failed to detect the database for partitioning: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private String definition(YearMonth month) {
+        LocalDate end = month.plusMonths(1).atDay(1);
+        return "PARTITION " + month.format(PARTITION_NAME) + " VALUES LESS THAN ('" + end + " 00:00:00')";
+    }
+
+    /**
+     * Get the month of a pYYYYMM partition, or null for other partitions
+     */
+    private YearMonth month(String partition) {
+        try {
+            return YearMonth.parse(partition, PARTITION_NAME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Partition DDL must not run on two nodes at once; without Redis the
+     * run is skipped rather than risk it
+     */
+    private boolean acquireLease() {
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(config.getLockKey(), nodeId, config.getLockTtl());
+            return Boolean.TRUE.equals(acquired);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to take the partition maintenance lease, skipping: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void releaseLease() {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(config.getLockKey()), nodeId);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to release the partition maintenance lease: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.config.AnalyticsRollupConfig;
+import com.shopcuathuy.dto.AnalyticsEventRecord;
+import com.shopcuathuy.entity.AnalyticsRollup.Dimension;
+import com.shopcuathuy.entity.AnalyticsRollup.Granularity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service maintaining the minute, hour and day analytics rollups.
+ *
+ * Every ingested batch is folded into per-bucket deltas and applied with one
+ * upsert per touched row, in the same transaction as the raw insert. Minute
+ * and hour rows are pruned on a schedule once they are past retention, so the
+ * dashboard reads a small, bounded table instead of grouping raw events.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class AnalyticsRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsRollupService.class);
+
+    private static final String ALL_KEY = "";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO analytics_rollups (granularity, dimension, bucket_start, event_type, dimension_key, "
+                    + "event_count, value_sum, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE event_count = event_count + VALUES(event_count), "
+                    + "value_sum = value_sum + VALUES(value_sum), updated_at = VALUES(updated_at)";
+
+    private static final String PRUNE_SQL =
+            "DELETE FROM analytics_rollups WHERE granularity = ? AND bucket_start < ? LIMIT ?";
+
+    private static final String DELETE_DAY_SQL =
+            "DELETE FROM analytics_rollups WHERE bucket_start >= ? AND bucket_start < ?";
+
+    private static final Map<Granularity, String> BUCKET_EXPRESSIONS = Map.of(
+            Granularity.MINUTE, "DATE_FORMAT(created_at, '%Y-%m-%d %H:%i:00')",
+            Granularity.HOUR, "DATE_FORMAT(created_at, '%Y-%m-%d %H:00:00')",
+            Granularity.DAY, "DATE_FORMAT(created_at, '%Y-%m-%d 00:00:00')");
+
+    private static final Map<Dimension, String> KEY_EXPRESSIONS = Map.of(
+            Dimension.ALL, "''",
+            Dimension.PRODUCT, "product_id",
+            Dimension.USER, "user_id");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AnalyticsRollupConfig config;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    private final Counter upsertedRows;
+    private final Counter prunedRows;
+
+    public AnalyticsRollupService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  AnalyticsRollupConfig config,
+                                  MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = config;
+
+        this.upsertedRows = Counter.builder("analytics.rollup.upserts").register(meterRegistry);
+        this.prunedRows = Counter.builder("analytics.rollup.pruned").register(meterRegistry);
+    }
+
+    /**
+     * Add a batch of ingested events to the rollups
+     *
+     * Runs in the caller's transaction so the rollups commit together with the
+     * raw events. The events must carry the user and product ids as they were
+     * stored, with unknown ids already resolved to null, so a rebuild from
+     * the raw events gives the same rollups.
+     */
+    public void apply(List<AnalyticsEventRecord> events) {
+        // Sorted so concurrent writers on several nodes lock rows in the same order
+        Map<RollupKey, Delta> deltas = new TreeMap<>();
+        for (AnalyticsEventRecord event : events) {
+            for (Granularity granularity : Granularity.values()) {
+                LocalDateTime bucket = bucketStart(event.createdAt(), granularity);
+                add(deltas, new RollupKey(granularity, Dimension.ALL, bucket, event.eventType(), ALL_KEY), event);
+                if (event.productId() != null) {
+                    add(deltas, new RollupKey(granularity, Dimension.PRODUCT, bucket, event.eventType(), event.productId()), event);
+                }
+                if (event.userId() != null) {
+                    add(deltas, new RollupKey(granularity, Dimension.USER, bucket, event.eventType(), event.userId()), event);
+                }
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> args.add(new Object[]{
+                key.granularity().name(), key.dimension().name(), Timestamp.valueOf(key.bucketStart()),
+                key.eventType(), key.dimensionKey(), delta.count, delta.valueSum, now
+        }));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+        upsertedRows.increment(args.size());
+    }
+
+    /**
+     * Delete minute and hour buckets that are past retention
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.rollup.compaction-interval-ms:600000}")
+    public void compact() {
+        LocalDateTime now = LocalDateTime.now();
+        prune(Granularity.MINUTE, now.minus(config.getMinuteRetention()));
+        prune(Granularity.HOUR, now.minus(config.getHourRetention()));
+    }
+
+    /**
+     * Recompute the rollups of a date range from the raw events
+     *
+     * Meant for backfilling days before the rollups existed, or repairing
+     * closed days; each day is replaced in its own transaction.
+     */
+    @Async
+    public void rebuild(LocalDate fromDate, LocalDate toDate) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            logger.info("Analytics rollup rebuild already running, skipping");
+            return;
+        }
+        try {
+            for (LocalDate day = fromDate; !day.isAfter(toDate); day = day.plusDays(1)) {
+                rebuildDay(day);
+            }
+            logger.info("Rebuilt analytics rollups from {} to {}", fromDate, toDate);
+        } catch (Exception e) {
+            logger.error("Failed to rebuild analytics rollups: {}", e.getMessage(), e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Check whether a rollup rebuild is running
+     */
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    private void rebuildDay(LocalDate day) {
+        Timestamp start = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        LocalDateTime minuteCutoff = LocalDateTime.now().minus(config.getMinuteRetention());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(DELETE_DAY_SQL, start, end);
+            for (Granularity granularity : Granularity.values()) {
+                if (granularity == Granularity.MINUTE && day.plusDays(1).atStartOfDay().isBefore(minuteCutoff)) {
+                    continue;
+                }
+                for (Dimension dimension : Dimension.values()) {
+                    String keyExpression = KEY_EXPRESSIONS.get(dimension);
+                    jdbcTemplate.update("INSERT INTO analytics_rollups (granularity, dimension, bucket_start, "
+                                    + "event_type, dimension_key, event_count, value_sum, updated_at) "
+                                    + "SELECT ?, ?, " + BUCKET_EXPRESSIONS.get(granularity) + " AS bucket, event_type, "
+                                    + keyExpression + ", COUNT(*), COALESCE(SUM(value), 0), NOW() "
+                                    + "FROM analytics_events WHERE created_at >= ? AND created_at < ?"
+                                    + (dimension == Dimension.ALL ? "" : " AND " + keyExpression + " IS NOT NULL")
+                                    + " GROUP BY bucket, event_type, " + keyExpression,
+                            granularity.name(), dimension.name(), start, end);
+                }
+            }
+        });
+    }
+
+    private void prune(Granularity granularity, LocalDateTime cutoff) {
+        Timestamp cutoffTimestamp = Timestamp.valueOf(cutoff);
+        int deleted;
+        try {
+            // Small chunks keep each delete from holding locks for long
+            do {
+                deleted = jdbcTemplate.update(PRUNE_SQL, granularity.name(), cutoffTimestamp,
+                        config.getCompactionBatchSize());
+                prunedRows.increment(deleted);
+            } while (deleted == config.getCompactionBatchSize());
+        } catch (Exception e) {
+            logger.error("Failed to prune {} analytics rollups: {}", granularity, e.getMessage(), e);
+        }
+    }
+
+    private void add(Map<RollupKey, Delta> deltas, RollupKey key, AnalyticsEventRecord event) {
+        Delta delta = deltas.computeIfAbsent(key, k -> new Delta());
+        delta.count++;
+        if (event.value() != null) {
+            delta.valueSum += event.value();
+        }
+    }
+
+    static LocalDateTime bucketStart(LocalDateTime time, Granularity granularity) {
+        return switch (granularity) {
+            case MINUTE -> time.truncatedTo(ChronoUnit.MINUTES);
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+        };
+    }
+
+    private record RollupKey(Granularity granularity, Dimension dimension, LocalDateTime bucketStart,
+                             String eventType, String dimensionKey) implements Comparable<RollupKey> {
+
+        @Override
+        public int compareTo(RollupKey other) {
+            int result = granularity.compareTo(other.granularity);
+            if (result == 0) {
+                result = dimension.compareTo(other.dimension);
+            }
+            if (result == 0) {
+                result = bucketStart.compareTo(other.bucketStart);
+            }
+            if (result == 0) {
+                result = eventType.compareTo(other.eventType);
+            }
+            if (result == 0) {
+                result = dimensionKey.compareTo(other.dimensionKey);
+            }
+            return result;
+        }
+    }
+
+    private static final class Delta {
+        private long count;
+        private double valueSum;
+    }
+}
@@ -3,21 +3,26 @@ import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
 
 import com.shopcuathuy.dto.AnalyticsEventDTO;
+import com.shopcuathuy.dto.AnalyticsEventRecord;
 import com.shopcuathuy.dto.CreateAnalyticsEventDTO;
+import com.shopcuathuy.dto.ExportJobDTO;
 import com.shopcuathuy.entity.*;
+import com.shopcuathuy.entity.AnalyticsRollup.Dimension;
+import com.shopcuathuy.entity.AnalyticsRollup.Granularity;
+import com.shopcuathuy.exception.ValidationException;
 import com.shopcuathuy.mapper.AnalyticsEventMapper;
 import com.shopcuathuy.repository.AnalyticsEventRepository;
-import com.shopcuathuy.repository.OrderRepository;
-import com.shopcuathuy.repository.ProductRepository;
-import com.shopcuathuy.repository.UserRepository;
+import com.shopcuathuy.repository.AnalyticsRollupRepository;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
 
 /**
@@ -30,64 +35,74 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class AnalyticsService {
 
+    private static final List<ExportColumn<AnalyticsEvent>> EXPORT_COLUMNS = List.of(
+            ExportColumn.of("id", AnalyticsEvent::getId),
+            ExportColumn.of("eventName", AnalyticsEvent::getEventName),
+            ExportColumn.of("eventType", AnalyticsEvent::getEventType),
+            ExportColumn.of("userId", event -> event.getUser() != null ? event.getUser().getId() : null),
+            ExportColumn.of("productId", event -> event.getProduct() != null ? event.getProduct().getId() : null),
+            ExportColumn.of("createdAt", AnalyticsEvent::getCreatedAt));
+
+    // Width of the text columns of analytics_events
+    private static final int MAX_COLUMN_LENGTH = 255;
+
     private final AnalyticsEventRepository analyticsEventRepository;
-    private final UserRepository userRepository;
-    private final ProductRepository productRepository;
-    private final OrderRepository orderRepository;
+    private final AnalyticsRollupRepository analyticsRollupRepository;
     private final AnalyticsEventMapper analyticsEventMapper;
-    private final MessageProducerService messageProducerService;
-    private final FileStorageService fileStorageService;
+    private final StreamingExportService streamingExportService;
+    private final AnalyticsIngestionService analyticsIngestionService;
 
 
 
     /**
      * Track analytics event
+     *
+     * The event is queued for batched writing, so the returned DTO has no id.
      */
-    @Transactional
     public AnalyticsEventDTO trackEvent(CreateAnalyticsEventDTO createEventDTO) {
-        // Validate entities if provided
-        User user = null;
-        if (createEventDTO.getUserId() != null) {
-            user = userRepository.findById(String.valueOf(createEventDTO.getUserId()))
-                    .orElse(null);
-        }
-
-        Product product = null;
-        if (createEventDTO.getProductId() != null) {
-            product = productRepository.findById(String.valueOf(createEventDTO.getProductId()))
-                    .orElse(null);
+        // Checked here because a row rejected by the database would fail its whole batch
+        if (!StringUtils.hasText(createEventDTO.getEventName()) || !StringUtils.hasText(createEventDTO.getEventType())) {
+            throw new ValidationException("Event name and event type are required");
         }
-
-        Order order = null;
-        if (createEventDTO.getOrderId() != null) {
-            order = orderRepository.findById(String.valueOf(createEventDTO.getOrderId()))
-                    .orElse(null);
+        if (createEventDTO.getEventName().length() > MAX_COLUMN_LENGTH
+                || createEventDTO.getEventType().length() > MAX_COLUMN_LENGTH) {
+            throw new ValidationException("Event name and event type must not exceed " + MAX_COLUMN_LENGTH + " characters");
         }
 
-        // Create analytics event
-        AnalyticsEvent event = new AnalyticsEvent();
-        event.setEventName(createEventDTO.getEventName());
-        event.setEventType(createEventDTO.getEventType());
-        event.setUser(user);
-        event.setProduct(product);
-        event.setOrder(order);
-        event.setEventData(createEventDTO.getEventData());
-        event.setSessionId(createEventDTO.getSessionId());
-        event.setIpAddress(createEventDTO.getIpAddress());
-        event.setUserAgent(createEventDTO.getUserAgent());
-        event.setReferrer(createEventDTO.getReferrer());
-        event.setValue(createEventDTO.getValue());
-        event.setProperties(String.valueOf(createEventDTO.getProperties()));
-
-        event = analyticsEventRepository.save(event);
-
-        // Send analytics event to RabbitMQ
-        messageProducerService.sendAnalyticsEvent(event);
-
-        // Store analytics data to MinIO for long-term storage
-        storeAnalyticsToMinIO(event);
-
-        return analyticsEventMapper.toDTO(event);
+        LocalDateTime now = LocalDateTime.now();
+        String properties = String.valueOf(createEventDTO.getProperties());
+
+        // Free-form fields are cut to the column width rather than rejected
+        analyticsIngestionService.submit(new AnalyticsEventRecord(
+                createEventDTO.getEventName(),
+                createEventDTO.getEventType(),
+                toId(createEventDTO.getUserId()),
+                toId(createEventDTO.getProductId()),
+                toId(createEventDTO.getOrderId()),
+                clip(createEventDTO.getEventData()),
+                clip(createEventDTO.getSessionId()),
+                clip(createEventDTO.getIpAddress()),
+                clip(createEventDTO.getUserAgent()),
+                clip(createEventDTO.getReferrer()),
+                createEventDTO.getValue(),
+                clip(properties),
+                now));
+
+        return AnalyticsEventDTO.builder()
+                .eventName(createEventDTO.getEventName())
+                .eventType(createEventDTO.getEventType())
+                .userId(createEventDTO.getUserId())
+                .productId(createEventDTO.getProductId())
+                .orderId(createEventDTO.getOrderId())
+                .eventData(createEventDTO.getEventData())
+                .sessionId(createEventDTO.getSessionId())
+                .ipAddress(createEventDTO.getIpAddress())
+                .userAgent(createEventDTO.getUserAgent())
+                .referrer(createEventDTO.getReferrer())
+                .value(createEventDTO.getValue())
+                .properties(properties)
+                .createdAt(now)
+                .build();
     }
 
     /**
@@ -140,41 +155,53 @@ public class AnalyticsService {
 
     /**
      * Get analytics dashboard data
+     *
+     * Reads the pre-aggregated rollups: day buckets for totals and rankings,
+     * hour buckets for the hour-of-day breakdown. The start of the range is
+     * widened to the start of its bucket.
      */
     public AnalyticsDashboardDTO getDashboardData(LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDateTime dayStart = startDate.toLocalDate().atStartOfDay();
+        LocalDateTime hourStart = startDate.truncatedTo(ChronoUnit.HOURS);
+
         // Get event statistics
-        List<Object[]> eventStats = analyticsEventRepository.getEventStatisticsByType();
+        List<Object[]> eventStats = analyticsRollupRepository.sumByEventType(
+                Granularity.DAY, Dimension.ALL, dayStart, endDate);
         Map<String, Long> eventCounts = new HashMap<>();
         for (Object[] stat : eventStats) {
-            eventCounts.put((String) stat[0], (Long) stat[1]);
+            eventCounts.put((String) stat[0], ((Number) stat[1]).longValue());
         }
 
         // Get daily event counts
-        List<Object[]> dailyCounts = analyticsEventRepository.getDailyEventCounts(startDate, endDate);
-        Map<String, Long> dailyEventCounts = new HashMap<>();
+        List<Object[]> dailyCounts = analyticsRollupRepository.sumByBucket(
+                Granularity.DAY, Dimension.ALL, dayStart, endDate);
+        Map<String, Long> dailyEventCounts = new LinkedHashMap<>();
         for (Object[] count : dailyCounts) {
-            dailyEventCounts.put(count[0].toString(), (Long) count[1]);
+            dailyEventCounts.put(((LocalDateTime) count[0]).toLocalDate().toString(), ((Number) count[1]).longValue());
         }
 
         // Get hourly event counts
-        List<Object[]> hourlyCounts = analyticsEventRepository.getHourlyEventCounts(startDate, endDate);
+        List<Object[]> hourlyCounts = analyticsRollupRepository.sumByHourOfDay(
+                Granularity.HOUR, Dimension.ALL, hourStart, endDate);
         Map<Integer, Long> hourlyEventCounts = new HashMap<>();
         for (Object[] count : hourlyCounts) {
-            hourlyEventCounts.put((Integer) count[0], (Long) count[1]);
+            hourlyEventCounts.put(((Number) count[0]).intValue(), ((Number) count[1]).longValue());
         }
 
         // Get most popular products
-        List<Object[]> popularProducts = analyticsEventRepository.findMostPopularProducts(Pageable.ofSize(10));
-        Map<Long, Long> productViews = new HashMap<>();
+        List<Object[]> popularProducts = analyticsRollupRepository.findTopKeysByEventType(
+                Granularity.DAY, Dimension.PRODUCT, "PRODUCT_VIEW", dayStart, endDate, Pageable.ofSize(10));
+        Map<String, Long> productViews = new LinkedHashMap<>();
         for (Object[] product : popularProducts) {
-            productViews.put((Long) product[0], (Long) product[1]);
+            productViews.put((String) product[0], ((Number) product[1]).longValue());
         }
 
         // Get most active users
-        List<Object[]> activeUsers = analyticsEventRepository.findMostActiveUsers(Pageable.ofSize(10));
-        Map<Long, Long> userActivity = new HashMap<>();
+        List<Object[]> activeUsers = analyticsRollupRepository.findTopKeys(
+                Granularity.DAY, Dimension.USER, dayStart, endDate, Pageable.ofSize(10));
+        Map<String, Long> userActivity = new LinkedHashMap<>();
         for (Object[] user : activeUsers) {
-            userActivity.put((Long) user[0], (Long) user[1]);
+            userActivity.put((String) user[0], ((Number) user[1]).longValue());
         }
 
         return new AnalyticsDashboardDTO(
@@ -189,99 +216,17 @@ public class AnalyticsService {
     /**
      * Export analytics data to MinIO
      */
-    public String exportAnalyticsData(LocalDateTime startDate, LocalDateTime endDate, String format) {
-        List<AnalyticsEvent> events = analyticsEventRepository.findByCreatedAtBetween(startDate, endDate);
-        
-        // Generate export data
-        String exportData = generateExportData(events, format);
-        
-        // Store to MinIO
-        String fileName = "analytics-export-" + System.currentTimeMillis() + "." + format;
-        String fileUrl = fileStorageService.uploadAnalyticsExport(fileName, exportData);
-        
-        return fileUrl;
+    public ExportJobDTO exportAnalyticsData(LocalDateTime startDate, LocalDateTime endDate, String format) {
+        return streamingExportService.submit("analytics-export", "analytics/exports", format, EXPORT_COLUMNS,
+                () -> analyticsEventRepository.streamByCreatedAtBetween(startDate, endDate));
     }
 
-    /**
-     * Store analytics data to MinIO
-     */
-    private void storeAnalyticsToMinIO(AnalyticsEvent event) {
-        try {
-            // Create analytics data JSON
-            String analyticsData = createAnalyticsDataJson(event);
-            
-            // Store to MinIO
-            String fileName = "analytics/" + event.getEventType() + "/" + 
-                            event.getCreatedAt().toLocalDate() + "/" + 
-                            event.getId() + ".json";
-            
-            fileStorageService.uploadAnalyticsData(fileName, analyticsData);
-        } catch (Exception e) {
-            // Log error but don't fail the main operation
-            System.err.println("Failed to store analytics data to MinIO: " + e.getMessage());
-        }
+    private String toId(Long id) {
+        return id != null ? String.valueOf(id) : null;
     }
 
-    /**
-     * Create analytics data JSON
-     */
-    private String createAnalyticsDataJson(AnalyticsEvent event) {
-        // Simple JSON creation - in production, use Jackson or Gson
-        return String.format(
-            "{\"id\":%d,\"eventName\":\"%s\",\"eventType\":\"%s\",\"userId\":%s,\"productId\":%s,\"createdAt\":\"%s\"}",
-            event.getId(),
-            event.getEventName(),
-            event.getEventType(),
-            event.getUser() != null ? event.getUser().getId() : null,
-            event.getProduct() != null ? event.getProduct().getId() : null,
-            event.getCreatedAt()
-        );
-    }
-
-    /**
-     * Generate export data
-     */
-    private String generateExportData(List<AnalyticsEvent> events, String format) {
-        if ("json".equalsIgnoreCase(format)) {
-            return generateJsonExport(events);
-        } else if ("csv".equalsIgnoreCase(format)) {
-            return generateCsvExport(events);
-        }
-        return generateJsonExport(events);
-    }
-
-    /**
-     * Generate JSON export
-     */
-    private String generateJsonExport(List<AnalyticsEvent> events) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < events.size(); i++) {
-            AnalyticsEvent event = events.get(i);
-            json.append(createAnalyticsDataJson(event));
-            if (i < events.size() - 1) {
-                json.append(",");
-            }
-        }
-        json.append("]");
-        return json.toString();
-    }
-
-    /**
-     * Generate CSV export
-     */
-    private String generateCsvExport(List<AnalyticsEvent> events) {
-        StringBuilder csv = new StringBuilder("id,eventName,eventType,userId,productId,createdAt\n");
-        for (AnalyticsEvent event : events) {
-            csv.append(String.format("%d,%s,%s,%s,%s,%s\n",
-                event.getId(),
-                event.getEventName(),
-                event.getEventType(),
-                event.getUser() != null ? event.getUser().getId() : "",
-                event.getProduct() != null ? event.getProduct().getId() : "",
-                event.getCreatedAt()
-            ));
-        }
-        return csv.toString();
+    private String clip(String value) {
+        return value != null && value.length() > MAX_COLUMN_LENGTH ? value.substring(0, MAX_COLUMN_LENGTH) : value;
     }
 
     /**
@@ -291,12 +236,12 @@ public class AnalyticsService {
         private Map<String, Long> eventCounts;
         private Map<String, Long> dailyEventCounts;
         private Map<Integer, Long> hourlyEventCounts;
-        private Map<Long, Long> productViews;
-        private Map<Long, Long> userActivity;
+        private Map<String, Long> productViews;
+        private Map<String, Long> userActivity;
 
         public AnalyticsDashboardDTO(Map<String, Long> eventCounts, Map<String, Long> dailyEventCounts,
-                                   Map<Integer, Long> hourlyEventCounts, Map<Long, Long> productViews,
-                                   Map<Long, Long> userActivity) {
+                                   Map<Integer, Long> hourlyEventCounts, Map<String, Long> productViews,
+                                   Map<String, Long> userActivity) {
             this.eventCounts = eventCounts;
             this.dailyEventCounts = dailyEventCounts;
             this.hourlyEventCounts = hourlyEventCounts;
@@ -314,11 +259,11 @@ public class AnalyticsService {
         public Map<Integer, Long> getHourlyEventCounts() { return hourlyEventCounts; }
         public void setHourlyEventCounts(Map<Integer, Long> hourlyEventCounts) { this.hourlyEventCounts = hourlyEventCounts; }
 
-        public Map<Long, Long> getProductViews() { return productViews; }
-        public void setProductViews(Map<Long, Long> productViews) { this.productViews = productViews; }
+        public Map<String, Long> getProductViews() { return productViews; }
+        public void setProductViews(Map<String, Long> productViews) { this.productViews = productViews; }
 
-        public Map<Long, Long> getUserActivity() { return userActivity; }
-        public void setUserActivity(Map<Long, Long> userActivity) { this.userActivity = userActivity; }
+        public Map<String, Long> getUserActivity() { return userActivity; }
+        public void setUserActivity(Map<String, Long> userActivity) { this.userActivity = userActivity; }
     }
 
     /**
@@ -0,0 +1,73 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.dto.CartLine;
+import com.shopcuathuy.dto.ProductDTO;
+import com.shopcuathuy.dto.ProductVariantDTO;
+import com.shopcuathuy.entity.ProductVariant;
+import com.shopcuathuy.exception.ResourceNotFoundException;
+import com.shopcuathuy.repository.ProductVariantRepository;
+import java.math.BigDecimal;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resolves products, variants and prices for cart lines through the cache,
+ * so pricing a cart does not read the catalog tables
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class CartPriceResolver {
+
+    static final String VARIANT_CACHE = "product-variants";
+
+    private final ProductService productService;
+    private final ProductVariantRepository productVariantRepository;
+    private final CacheManager cacheManager;
+
+    public CartPriceResolver(ProductService productService,
+                             ProductVariantRepository productVariantRepository,
+                             CacheManager cacheManager) {
+        this.productService = productService;
+        this.productVariantRepository = productVariantRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Get a product from the product cache
+     */
+    public ProductDTO getProduct(String productId) {
+        return productService.getProductById(productId);
+    }
+
+    /**
+     * Get the pricing fields of a variant from the variant cache
+     */
+    public ProductVariantDTO getVariant(String variantId) {
+        Cache cache = cacheManager.getCache(VARIANT_CACHE);
+        return cache != null ? cache.get(variantId, () -> loadVariant(variantId)) : loadVariant(variantId);
+    }
+
+    /**
+     * Get the current unit price of a cart line
+     */
+    public BigDecimal unitPrice(CartLine line) {
+        return line.variantId() != null ? getVariant(line.variantId()).getPrice() : getProduct(line.productId()).getPrice();
+    }
+
+    private ProductVariantDTO loadVariant(String variantId) {
+        ProductVariant variant = productVariantRepository.findById(variantId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product variant not found with id: " + variantId));
+        return ProductVariantDTO.builder()
+                .id(variant.getId())
+                .productId(variant.getProductId())
+                .sku(variant.getSku())
+                .variantName(variant.getVariantName())
+                .price(variant.getPrice())
+                .imageUrl(variant.getImageUrl())
+                .status(variant.getStatus())
+                .build();
+    }
+}
@@ -2,24 +2,42 @@ package com.shopcuathuy.service;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
 
+import com.shopcuathuy.config.CartStoreConfig;
 import com.shopcuathuy.dto.AddToCartDTO;
 import com.shopcuathuy.dto.CartDTO;
+import com.shopcuathuy.dto.CartLine;
+import com.shopcuathuy.dto.ProductDTO;
+import com.shopcuathuy.dto.ProductVariantDTO;
 import com.shopcuathuy.entity.*;
+import com.shopcuathuy.exception.ResourceNotFoundException;
+import com.shopcuathuy.exception.ValidationException;
 import com.shopcuathuy.mapper.CartMapper;
 import com.shopcuathuy.repository.CartRepository;
 import com.shopcuathuy.repository.ProductRepository;
 import com.shopcuathuy.repository.ProductVariantRepository;
 import com.shopcuathuy.repository.UserRepository;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 /**
  * Cart Service
+ *
+ * With {@code app.cart.redis-enabled} the active cart of a user lives in a
+ * Redis hash and is read and changed there only; {@link CartWriteBehindService}
+ * copies it to the carts table shortly after each change. Prices come from the
+ * product cache, so they always reflect the current catalog.
  * 
  * @author ShopCuaThuy Team
  * @version 1.0.0
@@ -27,6 +45,8 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class CartService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CartService.class);
+
     private final CartRepository cartRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
@@ -34,11 +54,17 @@ public class CartService {
     private final CartMapper cartMapper;
     private final MessageProducerService messageProducerService;
     private final FileStorageService fileStorageService;
+    private final RedisCartStore cartStore;
+    private final CartPriceResolver priceResolver;
+    private final CartStoreConfig cartStoreConfig;
+    private final TransactionTemplate transactionTemplate;
 
     public CartService(CartRepository cartRepository, UserRepository userRepository, 
                       ProductRepository productRepository, ProductVariantRepository productVariantRepository,
                       CartMapper cartMapper, MessageProducerService messageProducerService,
-                      FileStorageService fileStorageService) {
+                      FileStorageService fileStorageService, RedisCartStore cartStore,
+                      CartPriceResolver priceResolver, CartStoreConfig cartStoreConfig,
+                      PlatformTransactionManager transactionManager) {
         this.cartRepository = cartRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
@@ -46,13 +72,25 @@ public class CartService {
         this.cartMapper = cartMapper;
         this.messageProducerService = messageProducerService;
         this.fileStorageService = fileStorageService;
+        this.cartStore = cartStore;
+        this.priceResolver = priceResolver;
+        this.cartStoreConfig = cartStoreConfig;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
      * Add item to cart
      */
-    @Transactional
     public CartDTO addToCart(String userId, AddToCartDTO addToCartDTO) {
+        if (cartStoreConfig.isRedisEnabled()) {
+            CartLine line = validatedLine(addToCartDTO);
+            int quantity = incrementUserCart(userId, line);
+            return toDTO(userId, new CartLine(line.productId(), line.variantId(), quantity, line.notes()));
+        }
+        return transactionTemplate.execute(status -> addToDatabaseCart(userId, addToCartDTO));
+    }
+
+    private CartDTO addToDatabaseCart(String userId, AddToCartDTO addToCartDTO) {
         // Validate user
         User user = userRepository.findById(String.valueOf(userId))
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -115,6 +153,9 @@ public class CartService {
      * Get user's cart items
      */
     public List<CartDTO> getUserCart(String userId) {
+        if (cartStoreConfig.isRedisEnabled()) {
+            return toDTOList(userId, userCartLines(userId));
+        }
         List<Cart> cartItems = cartRepository.findByUserIdAndIsActiveTrue(userId);
         return cartMapper.toDTOList(cartItems);
     }
@@ -122,8 +163,28 @@ public class CartService {
     /**
      * Update cart item quantity
      */
-    @Transactional
     public CartDTO updateCartItemQuantity(String userId, String cartItemId, Integer quantity) {
+        if (cartStoreConfig.isRedisEnabled()) {
+            if (quantity == null || quantity <= 0) {
+                throw new ValidationException("Quantity must be greater than 0");
+            }
+            String cartKey = cartStore.userCartKey(userId);
+            long ttlMillis = cartStoreConfig.getTtl().toMillis();
+            boolean updated = cartStore.setQuantity(cartKey, cartItemId, quantity, ttlMillis);
+            if (!updated && loadUserCart(userId, cartKey)) {
+                updated = cartStore.setQuantity(cartKey, cartItemId, quantity, ttlMillis);
+            }
+            if (!updated) {
+                throw new ResourceNotFoundException("Cart item not found");
+            }
+            cartStore.markDirty(userId);
+            CartLine line = CartLine.of(cartItemId, quantity, null);
+            return toDTO(userId, line);
+        }
+        return transactionTemplate.execute(status -> updateDatabaseCartItemQuantity(userId, cartItemId, quantity));
+    }
+
+    private CartDTO updateDatabaseCartItemQuantity(String userId, String cartItemId, Integer quantity) {
         Cart cartItem = cartRepository.findById(cartItemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
 
@@ -146,8 +207,23 @@ public class CartService {
     /**
      * Remove item from cart
      */
-    @Transactional
     public void removeFromCart(String userId, String cartItemId) {
+        if (cartStoreConfig.isRedisEnabled()) {
+            String cartKey = cartStore.userCartKey(userId);
+            boolean removed = cartStore.remove(cartKey, cartItemId);
+            if (!removed && loadUserCart(userId, cartKey)) {
+                removed = cartStore.remove(cartKey, cartItemId);
+            }
+            if (!removed) {
+                throw new ResourceNotFoundException("Cart item not found");
+            }
+            cartStore.markDirty(userId);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> removeFromDatabaseCart(userId, cartItemId));
+    }
+
+    private void removeFromDatabaseCart(String userId, String cartItemId) {
         Cart cartItem = cartRepository.findById(cartItemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
 
@@ -168,6 +244,21 @@ public class CartService {
     @Transactional
     public void clearCart(String userId) {
         cartRepository.deleteByUserIdAndIsActiveTrue(userId);
+        if (cartStoreConfig.isRedisEnabled()) {
+            // The emptied cart is reloaded from the table on next use; dropping
+            // it before the delete commits would let a read reload the old rows
+            String cartKey = cartStore.userCartKey(userId);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        cartStore.clear(cartKey);
+                    }
+                });
+            } else {
+                cartStore.clear(cartKey);
+            }
+        }
         
         // Send cart cleared message
         messageProducerService.sendCartCleared(userId);
@@ -177,6 +268,9 @@ public class CartService {
      * Get cart summary
      */
     public CartSummaryDTO getCartSummary(String userId) {
+        if (cartStoreConfig.isRedisEnabled()) {
+            return summarize(getUserCart(userId));
+        }
         List<Cart> cartItems = cartRepository.findByUserIdAndIsActiveTrue(userId);
         
         int totalItems = cartItems.stream()
@@ -190,6 +284,176 @@ public class CartService {
         return new CartSummaryDTO(totalItems, totalValue);
     }
 
+    /**
+     * Add item to a guest cart
+     */
+    public CartDTO addToGuestCart(String guestId, AddToCartDTO addToCartDTO) {
+        requireRedisCarts();
+        CartLine line = validatedLine(addToCartDTO);
+        Long quantity = cartStore.increment(cartStore.guestCartKey(guestId), line, false,
+                cartStoreConfig.getGuestTtl().toMillis());
+        return toDTO(null, new CartLine(line.productId(), line.variantId(), quantity.intValue(), line.notes()));
+    }
+
+    /**
+     * Get guest cart items
+     */
+    public List<CartDTO> getGuestCart(String guestId) {
+        requireRedisCarts();
+        List<CartLine> lines = cartStore.lines(cartStore.guestCartKey(guestId));
+        return toDTOList(null, lines != null ? lines : List.of());
+    }
+
+    /**
+     * Get guest cart summary
+     */
+    public CartSummaryDTO getGuestCartSummary(String guestId) {
+        return summarize(getGuestCart(guestId));
+    }
+
+    /**
+     * Move a guest cart into a user's cart, adding up quantities of lines in both
+     */
+    public List<CartDTO> mergeGuestCart(String guestId, String userId) {
+        requireRedisCarts();
+        String cartKey = cartStore.userCartKey(userId);
+        // The user's persisted lines must be in Redis first, or the merge would hide them
+        if (cartStore.lines(cartKey) == null) {
+            loadUserCart(userId, cartKey);
+        }
+        long merged = cartStore.merge(cartStore.guestCartKey(guestId), cartKey, cartStoreConfig.getTtl().toMillis());
+        if (merged > 0) {
+            cartStore.markDirty(userId);
+            logger.debug("Merged {} guest cart lines into the cart of user {}", merged, userId);
+        }
+        return getUserCart(userId);
+    }
+
+    private void requireRedisCarts() {
+        if (!cartStoreConfig.isRedisEnabled()) {
+            throw new ValidationException("Guest carts are not available");
+        }
+    }
+
+    /**
+     * Check the product and variant of a new line against the product cache
+     */
+    private CartLine validatedLine(AddToCartDTO addToCartDTO) {
+        ProductDTO product = priceResolver.getProduct(addToCartDTO.getProductId());
+        if (product.getStatus() != Product.ProductStatus.ACTIVE) {
+            throw new ValidationException("Product is not available");
+        }
+        if (addToCartDTO.getProductVariantId() != null) {
+            ProductVariantDTO variant = priceResolver.getVariant(addToCartDTO.getProductVariantId());
+            if (!product.getId().equals(variant.getProductId())) {
+                throw new ValidationException("Product variant does not belong to the product");
+            }
+        }
+        return new CartLine(product.getId(), addToCartDTO.getProductVariantId(),
+                addToCartDTO.getQuantity(), addToCartDTO.getNotes());
+    }
+
+    private int incrementUserCart(String userId, CartLine line) {
+        String cartKey = cartStore.userCartKey(userId);
+        long ttlMillis = cartStoreConfig.getTtl().toMillis();
+        Long quantity = cartStore.increment(cartKey, line, true, ttlMillis);
+        if (quantity == null) {
+            loadUserCart(userId, cartKey);
+            quantity = cartStore.increment(cartKey, line, false, ttlMillis);
+        }
+        cartStore.markDirty(userId);
+        return quantity.intValue();
+    }
+
+    private List<CartLine> userCartLines(String userId) {
+        String cartKey = cartStore.userCartKey(userId);
+        List<CartLine> lines = cartStore.lines(cartKey);
+        if (lines == null) {
+            loadUserCart(userId, cartKey);
+            lines = cartStore.lines(cartKey);
+        }
+        return lines != null ? lines : List.of();
+    }
+
+    /**
+     * Load a user's persisted cart into Redis; only happens when the cart has
+     * not been used for longer than its TTL
+     *
+     * Every Redis cart of a user starts here, so this is where the user is
+     * checked, once per cart rather than once per change.
+     *
+     * @return true when the cart had persisted lines
+     */
+    private boolean loadUserCart(String userId, String cartKey) {
+        if (userId == null || !userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
+        List<CartLine> lines = new ArrayList<>();
+        for (Cart cartItem : cartRepository.findByUserIdAndIsActiveTrue(userId)) {
+            lines.add(new CartLine(cartItem.getProduct().getId(),
+                    cartItem.getProductVariant() != null ? cartItem.getProductVariant().getId() : null,
+                    cartItem.getQuantity(), cartItem.getNotes()));
+        }
+        cartStore.load(cartKey, lines, cartStoreConfig.getTtl().toMillis());
+        return !lines.isEmpty();
+    }
+
+    private List<CartDTO> toDTOList(String userId, List<CartLine> lines) {
+        List<CartDTO> cartItems = new ArrayList<>(lines.size());
+        for (CartLine line : lines) {
+            try {
+                cartItems.add(toDTO(userId, line));
+            } catch (ResourceNotFoundException e) {
+                // Products removed from the catalog drop out of the cart
+                logger.debug("Skipping cart line {}: {}", line.key(), e.getMessage());
+            }
+        }
+        return cartItems;
+    }
+
+    private CartDTO toDTO(String userId, CartLine line) {
+        ProductDTO product = priceResolver.getProduct(line.productId());
+        ProductVariantDTO variant = line.variantId() != null ? priceResolver.getVariant(line.variantId()) : null;
+        BigDecimal unitPrice = variant != null ? variant.getPrice() : product.getPrice();
+
+        CartDTO cartItem = new CartDTO();
+        cartItem.setItemKey(line.key());
+        cartItem.setUserId(userId);
+        cartItem.setProductId(product.getId());
+        cartItem.setProductName(product.getName());
+        cartItem.setProductImage(variant != null && variant.getImageUrl() != null
+                ? variant.getImageUrl() : primaryImage(product));
+        cartItem.setProductVariantId(line.variantId());
+        cartItem.setVariantName(variant != null ? variant.getVariantName() : null);
+        cartItem.setQuantity(line.quantity());
+        cartItem.setUnitPrice(unitPrice);
+        cartItem.setTotalPrice(unitPrice.multiply(BigDecimal.valueOf(line.quantity())));
+        cartItem.setNotes(line.notes());
+        cartItem.setIsActive(true);
+        return cartItem;
+    }
+
+    private String primaryImage(ProductDTO product) {
+        if (product.getImages() == null || product.getImages().isEmpty()) {
+            return null;
+        }
+        return product.getImages().stream()
+                .filter(image -> Boolean.TRUE.equals(image.getIsPrimary()))
+                .findFirst()
+                .orElse(product.getImages().get(0))
+                .getImageUrl();
+    }
+
+    private CartSummaryDTO summarize(List<CartDTO> cartItems) {
+        int totalItems = cartItems.stream()
+                .mapToInt(CartDTO::getQuantity)
+                .sum();
+        BigDecimal totalValue = cartItems.stream()
+                .map(CartDTO::getTotalPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new CartSummaryDTO(totalItems, totalValue);
+    }
+
     /**
      * Cart Summary DTO
      */
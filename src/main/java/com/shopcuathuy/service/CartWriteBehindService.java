@@ -0,0 +1,172 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.config.CartStoreConfig;
+import com.shopcuathuy.dto.CartLine;
+import com.shopcuathuy.entity.Cart;
+import com.shopcuathuy.exception.ResourceNotFoundException;
+import com.shopcuathuy.repository.CartRepository;
+import com.shopcuathuy.repository.ProductRepository;
+import com.shopcuathuy.repository.ProductVariantRepository;
+import com.shopcuathuy.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind persistence of Redis carts.
+ *
+ * Cart changes only mark the user dirty; this job takes dirty users in
+ * batches and rewrites their active rows in the carts table from the Redis
+ * hash, so a burst of clicks costs one transaction. The table is what a cart
+ * is reloaded from after it expires from Redis.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class CartWriteBehindService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartWriteBehindService.class);
+
+    private final RedisCartStore cartStore;
+    private final CartRepository cartRepository;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final CartPriceResolver priceResolver;
+    private final MessageProducerService messageProducerService;
+    private final CartStoreConfig config;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter persistedCarts;
+    private final Counter persistFailures;
+    private final Timer persistTimer;
+
+    public CartWriteBehindService(RedisCartStore cartStore,
+                                  CartRepository cartRepository,
+                                  UserRepository userRepository,
+                                  ProductRepository productRepository,
+                                  ProductVariantRepository productVariantRepository,
+                                  CartPriceResolver priceResolver,
+                                  MessageProducerService messageProducerService,
+                                  CartStoreConfig config,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry) {
+        this.cartStore = cartStore;
+        this.cartRepository = cartRepository;
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.productVariantRepository = productVariantRepository;
+        this.priceResolver = priceResolver;
+        this.messageProducerService = messageProducerService;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.persistedCarts = Counter.builder("cart.persist.carts").register(meterRegistry);
+        this.persistFailures = Counter.builder("cart.persist.failures").register(meterRegistry);
+        this.persistTimer = Timer.builder("cart.persist").register(meterRegistry);
+    }
+
+    /**
+     * Persist the carts changed since the last run
+     */
+    @Scheduled(fixedDelayString = "${app.cart.persist-interval-ms:5000}")
+    public void persistDirtyCarts() {
+        if (!config.isRedisEnabled()) {
+            return;
+        }
+        List<String> userIds;
+        try {
+            userIds = cartStore.popDirty(config.getPersistBatchSize());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read dirty carts from Redis: {}", e.getMessage());
+            return;
+        }
+
+        for (String userId : userIds) {
+            try {
+                persistTimer.record(() -> persist(userId));
+                persistedCarts.increment();
+            } catch (DataIntegrityViolationException e) {
+                // The user or a product row is gone; retrying cannot succeed
+                persistFailures.increment();
+                logger.warn("Dropping cart of user {} from write-behind, its rows violate a constraint: {}",
+                        userId, e.getMessage());
+            } catch (RuntimeException e) {
+                persistFailures.increment();
+                logger.warn("Failed to persist cart of user {}, retrying next run: {}", userId, e.getMessage());
+                cartStore.markDirty(userId);
+            }
+        }
+    }
+
+    /**
+     * Write a user's Redis cart to the carts table
+     */
+    public void persist(String userId) {
+        List<CartLine> lines = cartStore.lines(cartStore.userCartKey(userId));
+        if (lines == null) {
+            // Cleared or expired: clearing already deleted the rows, and an
+            // expired cart was persisted before it went idle
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> writeRows(userId, lines));
+        messageProducerService.sendCartUpdated(userId, null);
+    }
+
+    private void writeRows(String userId, List<CartLine> lines) {
+        Map<String, Cart> rows = new HashMap<>();
+        List<Cart> changed = new ArrayList<>();
+        for (Cart row : cartRepository.findByUserIdAndIsActiveTrue(userId)) {
+            String lineKey = CartLine.key(row.getProduct().getId(),
+                    row.getProductVariant() != null ? row.getProductVariant().getId() : null);
+            if (rows.putIfAbsent(lineKey, row) != null) {
+                // Duplicate rows written by the old per-request path collapse into one
+                row.setIsActive(false);
+                changed.add(row);
+            }
+        }
+
+        for (CartLine line : lines) {
+            BigDecimal unitPrice;
+            try {
+                unitPrice = priceResolver.unitPrice(line);
+            } catch (ResourceNotFoundException e) {
+                // Removed from the catalog: its row, if any, is deactivated below
+                continue;
+            }
+            Cart row = rows.remove(line.key());
+            if (row == null) {
+                row = new Cart();
+                row.setUser(userRepository.getReferenceById(userId));
+                row.setProduct(productRepository.getReferenceById(line.productId()));
+                row.setProductVariant(line.variantId() != null
+                        ? productVariantRepository.getReferenceById(line.variantId()) : null);
+                row.setIsActive(true);
+            }
+            row.setQuantity(line.quantity());
+            row.setNotes(line.notes());
+            row.setUnitPrice(unitPrice);
+            row.setTotalPrice(unitPrice.multiply(BigDecimal.valueOf(line.quantity())));
+            changed.add(row);
+        }
+
+        for (Cart removed : rows.values()) {
+            removed.setIsActive(false);
+            changed.add(removed);
+        }
+        cartRepository.saveAll(changed);
+    }
+}
@@ -14,7 +14,10 @@ import com.shopcuathuy.mapper.CategoryMapper;
 import com.shopcuathuy.repository.CategoryRepository;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
@@ -46,10 +49,16 @@ public class CategoryService {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CategoryTreeService categoryTreeService;
+
     /**
      * Create a new category
      */
-    @CacheEvict(value = "categories", allEntries = true)
+    @CacheEvict(value = {"root-categories", "featured-categories"}, allEntries = true)
     public CategoryDTO createCategory(CreateCategoryDTO createCategoryDTO) {
         // Check if slug already exists
         if (categoryRepository.existsBySlug(createCategoryDTO.getSlug())) {
@@ -62,16 +71,19 @@ public class CategoryService {
         category.setUpdatedAt(LocalDateTime.now());
 
         // Set level based on parent
+        Category parentCategory = null;
         if (StringUtils.hasText(category.getParentId())) {
-            Category parentCategory = categoryRepository.findById(category.getParentId())
+            parentCategory = categoryRepository.findById(category.getParentId())
                     .orElseThrow(() -> new ResourceNotFoundException("Parent category not found with id: " + category.getParentId()));
             category.setLevel(parentCategory.getLevel() + 1);
         } else {
             category.setLevel(1);
         }
 
-        // Save category
+        // Save category, then derive its path from the generated id
         Category savedCategory = categoryRepository.save(category);
+        savedCategory.setPath(parentPath(parentCategory) + savedCategory.getId() + CategoryTree.PATH_SEPARATOR);
+        categoryTreeService.refreshAfterCommit();
 
         // Send category created message to RabbitMQ
         messageProducerService.sendCategoryCreatedMessage(categoryMapper.toDTO(savedCategory));
@@ -273,11 +285,9 @@ public class CategoryService {
     /**
      * Get category tree (hierarchical structure)
      */
-    @Cacheable(value = "category-tree")
     @Transactional(readOnly = true)
     public List<CategoryDTO> getCategoryTree() {
-        List<Category> rootCategories = categoryRepository.findByParentIdIsNullOrderBySortOrderAsc();
-        return categoryMapper.toDTOList(rootCategories);
+        return categoryTreeService.getTree().roots();
     }
 
     /**
@@ -285,8 +295,7 @@ public class CategoryService {
      */
     @Transactional(readOnly = true)
     public List<CategoryDTO> getCategoryTreeByParent(String parentId) {
-        List<Category> categories = categoryRepository.findByParentIdOrderBySortOrderAsc(parentId);
-        return categoryMapper.toDTOList(categories);
+        return categoryTreeService.getTree().children(parentId);
     }
 
     /**
@@ -294,31 +303,19 @@ public class CategoryService {
      */
     @Transactional(readOnly = true)
     public List<CategoryDTO> getCategoryBreadcrumb(String categoryId) {
-        List<CategoryDTO> breadcrumb = new java.util.ArrayList<>();
-        Category category = categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + categoryId));
-        
-        // Add current category
-        breadcrumb.add(categoryMapper.toDTO(category));
-        
-        // Add parent categories
-        while (StringUtils.hasText(category.getParentId())) {
-            String parentId = category.getParentId();
-            category = categoryRepository.findById(parentId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Parent category not found with id: " + parentId));
-            breadcrumb.add(0, categoryMapper.toDTO(category));
+        List<CategoryDTO> breadcrumb = categoryTreeService.getTree().breadcrumb(categoryId);
+        if (breadcrumb.isEmpty()) {
+            throw new ResourceNotFoundException("Category not found with id: " + categoryId);
         }
-        
         return breadcrumb;
     }
 
     /**
-     * Get all subcategories
+     * Get all subcategories at every level below a category, depth first
      */
     @Transactional(readOnly = true)
     public List<CategoryDTO> getAllSubcategories(String parentId) {
-        List<Category> subcategories = categoryRepository.findByParentIdOrderBySortOrderAsc(parentId);
-        return categoryMapper.toDTOList(subcategories);
+        return categoryTreeService.getTree().descendants(parentId);
     }
 
     /**
@@ -360,10 +357,11 @@ public class CategoryService {
     /**
      * Update category
      */
-    @CacheEvict(value = {"categories", "root-categories", "featured-categories", "category-tree"}, allEntries = true)
+    @CacheEvict(value = {"root-categories", "featured-categories"}, allEntries = true)
     public CategoryDTO updateCategory(String id, UpdateCategoryDTO updateCategoryDTO) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+        evictCategory(category);
 
         // Check if slug already exists (excluding current category)
         if (StringUtils.hasText(updateCategoryDTO.getSlug()) && 
@@ -372,33 +370,33 @@ public class CategoryService {
             throw new DuplicateResourceException("Slug already exists: " + updateCategoryDTO.getSlug());
         }
 
+        // The mapper overwrites the parent, so remember the old one first
+        String oldParentId = category.getParentId();
+
         // Update category fields
         categoryMapper.updateEntity(updateCategoryDTO, category);
         category.setUpdatedAt(LocalDateTime.now());
 
-        // Update level if parent changed
-        if (StringUtils.hasText(updateCategoryDTO.getParentId()) && 
-            !updateCategoryDTO.getParentId().equals(category.getParentId())) {
-            Category parentCategory = categoryRepository.findById(updateCategoryDTO.getParentId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Parent category not found with id: " + updateCategoryDTO.getParentId()));
-            category.setLevel(parentCategory.getLevel() + 1);
-        } else if (!StringUtils.hasText(updateCategoryDTO.getParentId()) && 
-                   StringUtils.hasText(category.getParentId())) {
-            category.setLevel(1);
+        // Update level and path of the category and its subtree if parent changed
+        String newParentId = StringUtils.hasText(category.getParentId()) ? category.getParentId() : null;
+        if (!Objects.equals(newParentId, StringUtils.hasText(oldParentId) ? oldParentId : null)) {
+            moveCategory(category, newParentId);
         }
 
         // Save updated category
         Category updatedCategory = categoryRepository.save(category);
+        categoryTreeService.refreshAfterCommit();
         return categoryMapper.toDTO(updatedCategory);
     }
 
     /**
      * Delete category
      */
-    @CacheEvict(value = {"categories", "root-categories", "featured-categories", "category-tree"}, allEntries = true)
+    @CacheEvict(value = {"root-categories", "featured-categories"}, allEntries = true)
     public void deleteCategory(String id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+        evictCategory(category);
         
         // Check if category has subcategories
         long subcategoryCount = categoryRepository.countByParentId(id);
@@ -407,65 +405,74 @@ public class CategoryService {
         }
         
         categoryRepository.delete(category);
+        categoryTreeService.refreshAfterCommit();
     }
 
     /**
      * Activate category
      */
-    @CacheEvict(value = {"categories", "root-categories", "featured-categories", "category-tree"}, allEntries = true)
+    @CacheEvict(value = {"root-categories", "featured-categories"}, allEntries = true)
     public CategoryDTO activateCategory(String id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+        evictCategory(category);
         
         category.setStatus(Category.CategoryStatus.ACTIVE);
         category.setUpdatedAt(LocalDateTime.now());
         
         Category updatedCategory = categoryRepository.save(category);
+        categoryTreeService.refreshAfterCommit();
         return categoryMapper.toDTO(updatedCategory);
     }
 
     /**
      * Deactivate category
      */
-    @CacheEvict(value = {"categories", "root-categories", "featured-categories", "category-tree"}, allEntries = true)
+    @CacheEvict(value = {"root-categories", "featured-categories"}, allEntries = true)
     public CategoryDTO deactivateCategory(String id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+        evictCategory(category);
         
         category.setStatus(Category.CategoryStatus.INACTIVE);
         category.setUpdatedAt(LocalDateTime.now());
         
         Category updatedCategory = categoryRepository.save(category);
+        categoryTreeService.refreshAfterCommit();
         return categoryMapper.toDTO(updatedCategory);
     }
 
     /**
      * Set category as featured
      */
-    @CacheEvict(value = {"categories", "featured-categories"}, allEntries = true)
+    @CacheEvict(value = "featured-categories", allEntries = true)
     public CategoryDTO setFeatured(String id, Boolean featured) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+        evictCategory(category);
         
         category.setFeatured(featured);
         category.setUpdatedAt(LocalDateTime.now());
         
         Category updatedCategory = categoryRepository.save(category);
+        categoryTreeService.refreshAfterCommit();
         return categoryMapper.toDTO(updatedCategory);
     }
 
     /**
      * Update category sort order
      */
-    @CacheEvict(value = {"categories", "root-categories", "featured-categories", "category-tree"}, allEntries = true)
+    @CacheEvict(value = {"root-categories", "featured-categories"}, allEntries = true)
     public CategoryDTO updateSortOrder(String id, Integer sortOrder) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+        evictCategory(category);
         
         category.setSortOrder(sortOrder);
         category.setUpdatedAt(LocalDateTime.now());
         
         Category updatedCategory = categoryRepository.save(category);
+        categoryTreeService.refreshAfterCommit();
         return categoryMapper.toDTO(updatedCategory);
     }
 
@@ -641,4 +648,53 @@ public class CategoryService {
         }
         return csv.toString();
     }
+
+    /**
+     * Re-parent a category, rewriting the paths and levels of its subtree
+     */
+    private void moveCategory(Category category, String newParentId) {
+        Category parentCategory = null;
+        if (newParentId != null) {
+            parentCategory = categoryRepository.findById(newParentId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Parent category not found with id: " + newParentId));
+            if (categoryTreeService.getTree().subtreeIds(category.getId()).contains(newParentId)) {
+                throw new ValidationException("Cannot move a category under itself or one of its subcategories");
+            }
+        }
+
+        String oldPath = category.getPath() != null ? category.getPath() : categoryTreeService.getTree().path(category.getId());
+        int oldLevel = category.getLevel() != null ? category.getLevel() : 1;
+        String newPath = parentPath(parentCategory) + category.getId() + CategoryTree.PATH_SEPARATOR;
+        int newLevel = parentCategory != null ? parentCategory.getLevel() + 1 : 1;
+
+        category.setPath(newPath);
+        category.setLevel(newLevel);
+        categoryRepository.save(category);
+        if (oldPath != null) {
+            categoryRepository.moveSubtree(oldPath, oldPath.length(), newPath, newLevel - oldLevel);
+        }
+    }
+
+    /**
+     * Path of a parent category, or the root prefix when there is none
+     */
+    private String parentPath(Category parentCategory) {
+        if (parentCategory == null) {
+            return CategoryTree.PATH_SEPARATOR;
+        }
+        String path = parentCategory.getPath() != null
+                ? parentCategory.getPath() : categoryTreeService.getTree().path(parentCategory.getId());
+        return path != null ? path : CategoryTree.PATH_SEPARATOR + parentCategory.getId() + CategoryTree.PATH_SEPARATOR;
+    }
+
+    /**
+     * Evict the cached entries of one category, stored under both its id and slug
+     */
+    private void evictCategory(Category category) {
+        Cache categories = cacheManager.getCache("categories");
+        if (categories != null) {
+            categories.evict(category.getId());
+            categories.evict(category.getSlug());
+        }
+    }
 }
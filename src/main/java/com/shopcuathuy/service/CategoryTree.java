@@ -0,0 +1,176 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.dto.CategoryDTO;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the category hierarchy.
+ *
+ * Built in one pass over all categories: children are sorted by sort order,
+ * every category gets its materialized path, and the id set of each subtree
+ * is precomputed, so breadcrumbs cost O(depth) and subtree lookups O(1).
+ * A new snapshot replaces the old one whole; instances are never modified.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public final class CategoryTree {
+
+    static final String PATH_SEPARATOR = "/";
+
+    private static final Comparator<CategoryDTO> SORT_ORDER = Comparator
+            .comparing((CategoryDTO category) -> category.getSortOrder() != null ? category.getSortOrder() : 0)
+            .thenComparing(CategoryDTO::getName, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final Map<String, CategoryDTO> categories;
+    private final Map<String, List<String>> childIds;
+    private final Map<String, String> paths;
+    private final Map<String, Set<String>> subtreeIds;
+    private final List<String> rootIds;
+
+    private CategoryTree(Map<String, CategoryDTO> categories, Map<String, List<String>> childIds,
+                         Map<String, String> paths, Map<String, Set<String>> subtreeIds, List<String> rootIds) {
+        this.categories = categories;
+        this.childIds = childIds;
+        this.paths = paths;
+        this.subtreeIds = subtreeIds;
+        this.rootIds = rootIds;
+    }
+
+    /**
+     * Build a snapshot from every category
+     */
+    public static CategoryTree build(List<CategoryDTO> all) {
+        Map<String, CategoryDTO> categories = new HashMap<>();
+        for (CategoryDTO category : all) {
+            categories.put(category.getId(), category);
+        }
+
+        Map<String, List<CategoryDTO>> children = new HashMap<>();
+        List<CategoryDTO> roots = new ArrayList<>();
+        for (CategoryDTO category : all) {
+            String parentId = category.getParentId();
+            // A category whose parent is gone is shown as a root rather than lost
+            if (parentId == null || parentId.isEmpty() || !categories.containsKey(parentId)) {
+                roots.add(category);
+            } else {
+                children.computeIfAbsent(parentId, key -> new ArrayList<>()).add(category);
+            }
+        }
+        roots.sort(SORT_ORDER);
+        children.values().forEach(list -> list.sort(SORT_ORDER));
+
+        Map<String, List<String>> childIds = new HashMap<>();
+        children.forEach((parentId, list) -> childIds.put(parentId, ids(list)));
+
+        Map<String, String> paths = new HashMap<>();
+        Map<String, Set<String>> subtreeIds = new HashMap<>();
+        for (CategoryDTO root : roots) {
+            index(root.getId(), PATH_SEPARATOR, childIds, paths, subtreeIds);
+        }
+
+        return new CategoryTree(Collections.unmodifiableMap(categories), Collections.unmodifiableMap(childIds),
+                Collections.unmodifiableMap(paths), Collections.unmodifiableMap(subtreeIds), ids(roots));
+    }
+
+    public CategoryDTO get(String id) {
+        return categories.get(id);
+    }
+
+    public boolean contains(String id) {
+        return categories.containsKey(id);
+    }
+
+    public int size() {
+        return categories.size();
+    }
+
+    /**
+     * Root categories in sort order
+     */
+    public List<CategoryDTO> roots() {
+        return toCategories(rootIds);
+    }
+
+    /**
+     * Direct children of a category in sort order
+     */
+    public List<CategoryDTO> children(String parentId) {
+        return toCategories(childIds.getOrDefault(parentId, List.of()));
+    }
+
+    /**
+     * The categories from the root down to the given one, or an empty list
+     * when it does not exist
+     */
+    public List<CategoryDTO> breadcrumb(String id) {
+        List<CategoryDTO> breadcrumb = new ArrayList<>();
+        CategoryDTO category = categories.get(id);
+        while (category != null && breadcrumb.size() <= categories.size()) {
+            breadcrumb.add(category);
+            category = category.getParentId() != null ? categories.get(category.getParentId()) : null;
+        }
+        Collections.reverse(breadcrumb);
+        return breadcrumb;
+    }
+
+    /**
+     * Every category below the given one, depth first in sort order
+     */
+    public List<CategoryDTO> descendants(String id) {
+        Set<String> subtree = subtreeIds.getOrDefault(id, Set.of());
+        List<CategoryDTO> descendants = new ArrayList<>(Math.max(subtree.size() - 1, 0));
+        for (String descendantId : subtree) {
+            if (!descendantId.equals(id)) {
+                descendants.add(categories.get(descendantId));
+            }
+        }
+        return descendants;
+    }
+
+    /**
+     * Ids of a category and all categories below it
+     */
+    public Set<String> subtreeIds(String id) {
+        return subtreeIds.getOrDefault(id, Set.of());
+    }
+
+    /**
+     * Materialized path of a category, or null when it does not exist
+     */
+    public String path(String id) {
+        return paths.get(id);
+    }
+
+    private static Set<String> index(String id, String parentPath, Map<String, List<String>> childIds,
+                                     Map<String, String> paths, Map<String, Set<String>> subtreeIds) {
+        String path = parentPath + id + PATH_SEPARATOR;
+        paths.put(id, path);
+        Set<String> subtree = new LinkedHashSet<>();
+        subtree.add(id);
+        for (String childId : childIds.getOrDefault(id, List.of())) {
+            // Guards against a parent cycle in the table
+            if (!paths.containsKey(childId)) {
+                subtree.addAll(index(childId, path, childIds, paths, subtreeIds));
+            }
+        }
+        Set<String> frozen = Collections.unmodifiableSet(subtree);
+        subtreeIds.put(id, frozen);
+        return frozen;
+    }
+
+    private static List<String> ids(List<CategoryDTO> categories) {
+        return categories.stream().map(CategoryDTO::getId).toList();
+    }
+
+    private List<CategoryDTO> toCategories(List<String> ids) {
+        return ids.stream().map(categories::get).toList();
+    }
+}
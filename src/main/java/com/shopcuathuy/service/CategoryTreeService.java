@@ -0,0 +1,183 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.entity.Category;
+import com.shopcuathuy.mapper.CategoryMapper;
+import com.shopcuathuy.repository.CategoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Holds the current {@link CategoryTree} and replaces it when categories change.
+ *
+ * The snapshot is rebuilt from one query after a category change commits, and
+ * a message on Redis makes the other nodes rebuild theirs. Readers always see
+ * a complete tree, either the old one or the new one.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class CategoryTreeService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryTreeService.class);
+
+    static final String CHANGE_CHANNEL = "category:tree:changed";
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryMapper categoryMapper;
+    private final TransactionTemplate readTemplate;
+    private final TransactionTemplate writeTemplate;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicReference<CategoryTree> tree = new AtomicReference<>();
+
+    public CategoryTreeService(CategoryRepository categoryRepository,
+                               CategoryMapper categoryMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                               ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                               MeterRegistry meterRegistry) {
+        this.categoryRepository = categoryRepository;
+        this.categoryMapper = categoryMapper;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gauge("category.tree.size", tree, current -> current.get() != null ? current.get().size() : 0);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.ifAvailable(container ->
+                container.addMessageListener(this, new ChannelTopic(CHANGE_CHANNEL)));
+    }
+
+    /**
+     * Build the first snapshot and fill in missing materialized paths
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            backfillPaths();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to backfill category paths: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Get the current snapshot, building it on first use
+     */
+    public CategoryTree getTree() {
+        CategoryTree current = tree.get();
+        return current != null ? current : refresh();
+    }
+
+    /**
+     * Rebuild the snapshot from the categories table
+     */
+    public synchronized CategoryTree refresh() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CategoryTree built = readTemplate.execute(status ->
+                CategoryTree.build(categoryMapper.toDTOList(categoryRepository.findAll())));
+        tree.set(built);
+        sample.stop(Timer.builder("category.tree.refresh").register(meterRegistry));
+        return built;
+    }
+
+    /**
+     * Rebuild the snapshot on every node once the current transaction commits
+     */
+    public void refreshAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshAndPublish();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refreshAndPublish();
+            }
+        });
+    }
+
+    /**
+     * Rebuild after a change made on another node
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String origin = redisTemplate.getStringSerializer().deserialize(message.getBody());
+        if (nodeId.equals(origin)) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh the category tree: {}", e.getMessage());
+        }
+    }
+
+    private void refreshAndPublish() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // Drop the snapshot so the next reader rebuilds it
+            tree.set(null);
+            logger.warn("Failed to refresh the category tree: {}", e.getMessage());
+        }
+        try {
+            redisTemplate.convertAndSend(CHANGE_CHANNEL, nodeId);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to publish category tree change: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Store the path computed by the snapshot on categories whose column is
+     * empty or stale, e.g. rows created before the column existed
+     */
+    private void backfillPaths() {
+        CategoryTree current = refresh();
+        Integer updated = writeTemplate.execute(status -> {
+            List<Category> categories = categoryRepository.findAll();
+            int count = 0;
+            for (Category category : categories) {
+                String path = current.path(category.getId());
+                if (path != null && !Objects.equals(path, category.getPath())) {
+                    category.setPath(path);
+                    count++;
+                }
+            }
+            return count;
+        });
+        if (updated != null && updated > 0) {
+            logger.info("Backfilled materialized paths of {} categories", updated);
+        }
+    }
+}
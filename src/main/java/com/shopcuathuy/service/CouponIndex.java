@@ -0,0 +1,138 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.dto.CouponDTO;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the coupons a customer can be offered.
+ *
+ * Coupons are bucketed by scope: coupons for any cart, coupons per
+ * applicable product and coupons per applicable category. Each bucket is
+ * sorted by minimum order amount, so a lookup reads only the buckets of the
+ * cart and stops at the first coupon the order amount does not reach.
+ * A new snapshot replaces the old one whole; instances are never modified.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public final class CouponIndex {
+
+    private static final Comparator<CouponDTO> MINIMUM_AMOUNT = Comparator.comparing(
+            (CouponDTO coupon) -> coupon.getMinimumOrderAmount() != null ? coupon.getMinimumOrderAmount() : BigDecimal.ZERO)
+            .thenComparing(CouponDTO::getId);
+
+    private final List<CouponDTO> all;
+    private final List<CouponDTO> unrestricted;
+    private final Map<String, List<CouponDTO>> byProduct;
+    private final Map<String, List<CouponDTO>> byCategory;
+
+    private CouponIndex(List<CouponDTO> all, List<CouponDTO> unrestricted,
+                        Map<String, List<CouponDTO>> byProduct, Map<String, List<CouponDTO>> byCategory) {
+        this.all = all;
+        this.unrestricted = unrestricted;
+        this.byProduct = byProduct;
+        this.byCategory = byCategory;
+    }
+
+    /**
+     * Build a snapshot from the active public coupons
+     */
+    public static CouponIndex build(List<CouponDTO> coupons) {
+        List<CouponDTO> all = new ArrayList<>(coupons);
+        all.sort(MINIMUM_AMOUNT);
+
+        List<CouponDTO> unrestricted = new ArrayList<>();
+        Map<String, List<CouponDTO>> byProduct = new HashMap<>();
+        Map<String, List<CouponDTO>> byCategory = new HashMap<>();
+        for (CouponDTO coupon : all) {
+            Set<String> products = parseIds(coupon.getApplicableProducts());
+            Set<String> categories = parseIds(coupon.getApplicableCategories());
+            if (products.isEmpty() && categories.isEmpty()) {
+                unrestricted.add(coupon);
+            }
+            // Added in amount order, so every bucket stays sorted
+            products.forEach(id -> byProduct.computeIfAbsent(id, key -> new ArrayList<>()).add(coupon));
+            categories.forEach(id -> byCategory.computeIfAbsent(id, key -> new ArrayList<>()).add(coupon));
+        }
+        return new CouponIndex(List.copyOf(all), List.copyOf(unrestricted), freeze(byProduct), freeze(byCategory));
+    }
+
+    /**
+     * Get the coupons valid at the given time whose minimum the order amount
+     * reaches, ordered by minimum amount
+     *
+     * @param productIds  products in the cart, or null to ignore product and category scopes
+     * @param categoryIds categories of those products, or null for none
+     */
+    public List<CouponDTO> candidates(BigDecimal orderAmount, Collection<String> productIds,
+                                      Collection<String> categoryIds, LocalDateTime now) {
+        if (productIds == null) {
+            return collect(List.of(all), orderAmount, now);
+        }
+        List<List<CouponDTO>> buckets = new ArrayList<>();
+        buckets.add(unrestricted);
+        for (String productId : productIds) {
+            buckets.add(byProduct.getOrDefault(productId, List.of()));
+        }
+        if (categoryIds != null) {
+            for (String categoryId : categoryIds) {
+                buckets.add(byCategory.getOrDefault(categoryId, List.of()));
+            }
+        }
+        List<CouponDTO> result = collect(buckets, orderAmount, now);
+        result.sort(MINIMUM_AMOUNT);
+        return result;
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    private static List<CouponDTO> collect(List<List<CouponDTO>> buckets, BigDecimal orderAmount, LocalDateTime now) {
+        Map<Long, CouponDTO> found = new LinkedHashMap<>();
+        for (List<CouponDTO> bucket : buckets) {
+            for (CouponDTO coupon : bucket) {
+                if (coupon.getMinimumOrderAmount() != null && orderAmount.compareTo(coupon.getMinimumOrderAmount()) < 0) {
+                    break;
+                }
+                if (!now.isBefore(coupon.getStartDate()) && !now.isAfter(coupon.getEndDate())) {
+                    found.putIfAbsent(coupon.getId(), coupon);
+                }
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    /**
+     * Parse an applicable products or categories column: ids separated by
+     * commas, semicolons or whitespace, optionally as a JSON array
+     */
+    static Set<String> parseIds(String value) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (value == null || value.isBlank()) {
+            return ids;
+        }
+        for (String part : value.replaceAll("[\\[\\]\"']", " ").split("[,;\\s]+")) {
+            if (!part.isBlank()) {
+                ids.add(part.trim());
+            }
+        }
+        return ids;
+    }
+
+    private static Map<String, List<CouponDTO>> freeze(Map<String, List<CouponDTO>> buckets) {
+        Map<String, List<CouponDTO>> frozen = new HashMap<>();
+        buckets.forEach((key, bucket) -> frozen.put(key, List.copyOf(bucket)));
+        return Map.copyOf(frozen);
+    }
+}
@@ -0,0 +1,159 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.mapper.CouponMapper;
+import com.shopcuathuy.repository.CouponRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Holds the current {@link CouponIndex} and replaces it when coupons change.
+ *
+ * The index is rebuilt from one query after a coupon change commits, and a
+ * message on Redis makes the other nodes rebuild theirs. A periodic rebuild
+ * picks up changes made outside the application.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class CouponIndexService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponIndexService.class);
+
+    static final String CHANGE_CHANNEL = "coupon:index:changed";
+
+    private final CouponRepository couponRepository;
+    private final CouponMapper couponMapper;
+    private final TransactionTemplate readTemplate;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicReference<CouponIndex> index = new AtomicReference<>();
+
+    public CouponIndexService(CouponRepository couponRepository,
+                              CouponMapper couponMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                              ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                              MeterRegistry meterRegistry) {
+        this.couponRepository = couponRepository;
+        this.couponMapper = couponMapper;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gauge("coupon.index.size", index, current -> current.get() != null ? current.get().size() : 0);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.ifAvailable(container ->
+                container.addMessageListener(this, new ChannelTopic(CHANGE_CHANNEL)));
+    }
+
+    /**
+     * Get the current index, building it on first use
+     */
+    public CouponIndex getIndex() {
+        CouponIndex current = index.get();
+        return current != null ? current : refresh();
+    }
+
+    /**
+     * Rebuild the index from the coupons table
+     */
+    public synchronized CouponIndex refresh() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CouponIndex built = readTemplate.execute(status ->
+                CouponIndex.build(couponMapper.toDTOList(couponRepository.findIndexableCoupons(LocalDateTime.now()))));
+        index.set(built);
+        sample.stop(Timer.builder("coupon.index.refresh").register(meterRegistry));
+        return built;
+    }
+
+    /**
+     * Rebuild periodically so expired coupons leave the index and edits made
+     * directly in the database are picked up
+     */
+    @Scheduled(fixedDelayString = "${app.coupon.index.refresh-interval-ms:300000}")
+    public void scheduledRefresh() {
+        if (index.get() == null) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh the coupon index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the index on every node once the current transaction commits
+     */
+    public void refreshAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshAndPublish();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refreshAndPublish();
+            }
+        });
+    }
+
+    /**
+     * Rebuild after a change made on another node
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String origin = redisTemplate.getStringSerializer().deserialize(message.getBody());
+        if (nodeId.equals(origin)) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh the coupon index: {}", e.getMessage());
+        }
+    }
+
+    private void refreshAndPublish() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // Drop the index so the next reader rebuilds it
+            index.set(null);
+            logger.warn("Failed to refresh the coupon index: {}", e.getMessage());
+        }
+        try {
+            redisTemplate.convertAndSend(CHANGE_CHANNEL, nodeId);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to publish coupon index change: {}", e.getMessage());
+        }
+    }
+}
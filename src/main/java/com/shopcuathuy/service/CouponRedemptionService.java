@@ -0,0 +1,589 @@
+package com.shopcuathuy.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopcuathuy.config.CouponRedemptionConfig;
+import com.shopcuathuy.dto.CouponDTO;
+import com.shopcuathuy.dto.CouponRedemption;
+import com.shopcuathuy.entity.Coupon;
+import com.shopcuathuy.exception.ValidationException;
+import com.shopcuathuy.repository.CouponRepository;
+import com.shopcuathuy.repository.CouponUsageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Enforces coupon usage limits with Redis counters.
+ *
+ * Each coupon has a usage counter and a hash of per-user counts. A single
+ * script checks both limits, increments both counters and queues the
+ * redemption, so concurrent requests can never take more uses than the
+ * limits allow. The coupons row is not touched on the request path.
+ * The counters are copied back to coupons.used_count periodically.
+ *
+ * Queued redemptions are written to coupon_usages in JDBC batches by one
+ * node at a time. A batch is moved to a processing list before it is
+ * written and removed from it after the commit, so a writer that dies
+ * leaves its batch for the next run; rows it already wrote are skipped by
+ * their redemption id. A row the database refuses keeps its use, since the
+ * caller was told it succeeded, and is parked in a failed list for an
+ * operator.
+ *
+ * Counters are seeded from the database the first time a coupon or user is
+ * seen and expire after the coupon ends. If Redis fails, redemption is
+ * refused rather than risk exceeding a limit.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class CouponRedemptionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponRedemptionService.class);
+
+    private static final long LIMIT_REACHED = -1;
+    private static final long USER_LIMIT_REACHED = -2;
+    private static final long COUPON_NOT_SEEDED = -3;
+    private static final long USER_NOT_SEEDED = -4;
+
+    private static final int MAX_BATCHES_PER_RUN = 20;
+
+    private static final RedisScript<Long> REDEEM_SCRIPT = new DefaultRedisScript<>(
+            "local used = redis.call('GET', KEYS[1]) "
+                    + "if not used then return -3 end "
+                    + "local userUsed = redis.call('HGET', KEYS[2], ARGV[3]) "
+                    + "if not userUsed then return -4 end "
+                    + "if tonumber(used) >= tonumber(ARGV[1]) then return -1 end "
+                    + "if tonumber(userUsed) >= tonumber(ARGV[2]) then return -2 end "
+                    + "redis.call('HINCRBY', KEYS[2], ARGV[3], 1) "
+                    + "redis.call('RPUSH', KEYS[3], ARGV[4]) "
+                    + "return redis.call('INCR', KEYS[1])",
+            Long.class);
+
+    private static final RedisScript<Long> SEED_COUPON_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('SET', KEYS[1], ARGV[1], 'NX') "
+                    + "redis.call('PEXPIREAT', KEYS[1], ARGV[2]) "
+                    + "redis.call('SADD', KEYS[2], ARGV[3]) "
+                    + "return 1",
+            Long.class);
+
+    private static final RedisScript<Long> SEED_USER_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('HSETNX', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "redis.call('PEXPIREAT', KEYS[1], ARGV[3]) "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * Move up to ARGV[1] entries from the head of the pending list to the
+     * tail of the processing list
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "local claimed = {} "
+                    + "for i = 1, tonumber(ARGV[1]) do "
+                    + "local entry = redis.call('LMOVE', KEYS[1], KEYS[2], 'LEFT', 'RIGHT') "
+                    + "if not entry then break end "
+                    + "claimed[#claimed + 1] = entry "
+                    + "end "
+                    + "return claimed",
+            List.class);
+
+    /**
+     * Remove the first ARGV[1] entries of the processing list and park
+     * ARGV[2..] in the failed list
+     */
+    private static final RedisScript<Long> ACK_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #ARGV do redis.call('RPUSH', KEYS[2], ARGV[i]) end "
+                    + "redis.call('LTRIM', KEYS[1], tonumber(ARGV[1]), -1) "
+                    + "return 1",
+            Long.class);
+
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    /**
+     * Read the usage counter and the user's count of several coupons; KEYS
+     * alternate between counter and user hash, -1 marks a missing value
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> USAGE_SCRIPT = new DefaultRedisScript<>(
+            "local result = {} "
+                    + "for i = 1, #KEYS, 2 do "
+                    + "result[#result + 1] = redis.call('GET', KEYS[i]) or '-1' "
+                    + "result[#result + 1] = redis.call('HGET', KEYS[i + 1], ARGV[1]) or '-1' "
+                    + "end "
+                    + "return result",
+            List.class);
+
+    private static final RedisScript<Long> SEED_USER_COUNTS_SCRIPT = new DefaultRedisScript<>(
+            "for i, key in ipairs(KEYS) do "
+                    + "redis.call('HSETNX', key, ARGV[1], ARGV[2 * i]) "
+                    + "redis.call('PEXPIREAT', key, ARGV[2 * i + 1]) "
+                    + "end "
+                    + "return #KEYS",
+            Long.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO coupon_usages (redemption_id, coupon_id, user_id, order_id, discount_amount, order_amount, used_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE redemption_id = redemption_id";
+
+    private static final String RECONCILE_SQL =
+            "UPDATE coupons SET used_count = ? WHERE id = ? AND used_count <> ?";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final CouponRepository couponRepository;
+    private final CouponUsageRepository couponUsageRepository;
+    private final ObjectMapper objectMapper;
+    private final CouponRedemptionConfig config;
+    private final TransactionTemplate transactionTemplate;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Counter redeemed;
+    private final Counter refused;
+    private final Counter persisted;
+    private final Counter parked;
+
+    public CouponRedemptionService(@Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                   JdbcTemplate jdbcTemplate,
+                                   CouponRepository couponRepository,
+                                   CouponUsageRepository couponUsageRepository,
+                                   ObjectMapper objectMapper,
+                                   CouponRedemptionConfig config,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.couponRepository = couponRepository;
+        this.couponUsageRepository = couponUsageRepository;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.redeemed = Counter.builder("coupon.redemptions").register(meterRegistry);
+        this.refused = Counter.builder("coupon.redemptions.refused").register(meterRegistry);
+        this.persisted = Counter.builder("coupon.redemptions.persisted").register(meterRegistry);
+        this.parked = Counter.builder("coupon.redemptions.parked").register(meterRegistry);
+    }
+
+    /**
+     * Take one use of a coupon for a user if both usage limits allow it
+     *
+     * With Redis counters the use is taken and queued when this returns;
+     * its coupon_usages row is written by {@link #persistPending()}.
+     *
+     * @throws ValidationException   when a usage limit is reached
+     * @throws IllegalStateException when the counters cannot be reached
+     */
+    public CouponRedemption redeem(Coupon coupon, CouponRedemption redemption) {
+        if (!config.isRedisEnabled()) {
+            return redeemInDatabase(coupon, redemption);
+        }
+
+        long result;
+        try {
+            result = redeemInRedis(coupon, redemption);
+        } catch (DataAccessException e) {
+            logger.error("Coupon counters unavailable, refusing redemption of {}: {}", coupon.getCode(), e.getMessage());
+            throw new IllegalStateException("Coupon redemption is temporarily unavailable, please retry", e);
+        }
+        if (result == LIMIT_REACHED) {
+            refused.increment();
+            throw new ValidationException("Coupon usage limit exceeded");
+        }
+        if (result == USER_LIMIT_REACHED) {
+            refused.increment();
+            throw new ValidationException("User usage limit exceeded");
+        }
+        redeemed.increment();
+        return redemption;
+    }
+
+    /**
+     * Get how often a coupon has been used, including queued redemptions
+     */
+    public long usedCount(Coupon coupon) {
+        if (config.isRedisEnabled()) {
+            try {
+                String used = redisTemplate.opsForValue().get(usedKey(coupon.getId()));
+                if (used != null) {
+                    return Long.parseLong(used);
+                }
+            } catch (DataAccessException e) {
+                logger.warn("Failed to read usage of coupon {}: {}", coupon.getCode(), e.getMessage());
+            }
+        }
+        return coupon.getUsedCount();
+    }
+
+    /**
+     * Get how often a user has used a coupon, including queued redemptions
+     */
+    public long userUsedCount(Coupon coupon, String userId) {
+        if (config.isRedisEnabled()) {
+            try {
+                Object used = redisTemplate.opsForHash().get(usersKey(coupon.getId()), userId);
+                if (used != null) {
+                    return Long.parseLong(used.toString());
+                }
+            } catch (DataAccessException e) {
+                logger.warn("Failed to read usage of coupon {} by {}: {}", coupon.getCode(), userId, e.getMessage());
+            }
+        }
+        return couponUsageRepository.countUsages(userId, coupon.getId());
+    }
+
+    /**
+     * Keep the coupons a user can still redeem
+     *
+     * Counts come from the Redis counters in one round trip. A user's count
+     * missing from a coupon's hash means none of their redemptions are
+     * queued, so the missing counts are read with one query and seeded, and
+     * later calls for the same user do not touch the database. The result is
+     * advisory; limits are enforced when the coupon is applied.
+     */
+    public List<CouponDTO> withinLimits(List<CouponDTO> coupons, String userId) {
+        if (coupons.isEmpty()) {
+            return coupons;
+        }
+        if (config.isRedisEnabled()) {
+            try {
+                return withinLimitsInRedis(coupons, userId);
+            } catch (DataAccessException e) {
+                logger.warn("Failed to read coupon usage of {}: {}", userId, e.getMessage());
+            }
+        }
+        Map<Long, Long> userCounts = countUsages(userId, coupons.stream().map(CouponDTO::getId).toList());
+        return coupons.stream()
+                .filter(coupon -> coupon.getUsedCount() < coupon.getUsageLimit())
+                .filter(coupon -> userCounts.getOrDefault(coupon.getId(), 0L) < coupon.getUsageLimitPerUser())
+                .toList();
+    }
+
+    /**
+     * Write queued redemptions to coupon_usages while this node holds the writer lease
+     */
+    @Scheduled(fixedDelayString = "${app.coupon.redemption.persist-interval-ms:1000}")
+    public void persistPending() {
+        if (!config.isRedisEnabled() || !acquireLease()) {
+            return;
+        }
+        long deadline = System.nanoTime() + config.getLockTtl().toNanos() / 2;
+        try {
+            for (int run = 0; run < MAX_BATCHES_PER_RUN && System.nanoTime() < deadline; run++) {
+                // A batch a failed or dead run left in the processing list goes first
+                List<String> entries = redisTemplate.opsForList()
+                        .range(processingKey(), 0, config.getPersistBatchSize() - 1);
+                if (entries == null || entries.isEmpty()) {
+                    entries = claim();
+                }
+                if (entries.isEmpty() || !persistBatch(entries)) {
+                    return;
+                }
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Failed to move queued coupon redemptions: {}", e.getMessage());
+        } finally {
+            releaseLease();
+        }
+    }
+
+    /**
+     * Copy the Redis usage counters to coupons.used_count
+     */
+    @Scheduled(fixedDelayString = "${app.coupon.redemption.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        if (!config.isRedisEnabled()) {
+            return;
+        }
+        try {
+            Set<String> couponIds = redisTemplate.opsForSet().members(activeKey());
+            if (couponIds == null || couponIds.isEmpty()) {
+                return;
+            }
+            List<String> ids = new ArrayList<>(couponIds);
+            List<String> counts = redisTemplate.opsForValue().multiGet(ids.stream().map(id -> usedKey(Long.valueOf(id))).toList());
+            List<Object[]> args = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) {
+                String count = counts != null ? counts.get(i) : null;
+                if (count == null) {
+                    // Expired after the coupon ended; the last reconcile already copied it
+                    redisTemplate.opsForSet().remove(activeKey(), ids.get(i));
+                    continue;
+                }
+                int used = Integer.parseInt(count);
+                args.add(new Object[]{used, Long.valueOf(ids.get(i)), used});
+            }
+            if (!args.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(RECONCILE_SQL, args));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to reconcile coupon usage counters: {}", e.getMessage());
+        }
+    }
+
+    private List<CouponDTO> withinLimitsInRedis(List<CouponDTO> coupons, String userId) {
+        List<String> keys = new ArrayList<>(coupons.size() * 2);
+        for (CouponDTO coupon : coupons) {
+            keys.add(usedKey(coupon.getId()));
+            keys.add(usersKey(coupon.getId()));
+        }
+        List<?> values = redisTemplate.execute(USAGE_SCRIPT, keys, userId);
+        if (values == null || values.size() != keys.size()) {
+            throw new IllegalStateException("Unexpected result from coupon usage script");
+        }
+
+        Map<Long, Long> userCounts = new HashMap<>();
+        List<CouponDTO> unseeded = new ArrayList<>();
+        for (int i = 0; i < coupons.size(); i++) {
+            long userUsed = Long.parseLong(values.get(2 * i + 1).toString());
+            if (userUsed < 0) {
+                unseeded.add(coupons.get(i));
+            } else {
+                userCounts.put(coupons.get(i).getId(), userUsed);
+            }
+        }
+        if (!unseeded.isEmpty()) {
+            Map<Long, Long> counted = countUsages(userId, unseeded.stream().map(CouponDTO::getId).toList());
+            List<String> seedKeys = new ArrayList<>(unseeded.size());
+            List<String> seedArgs = new ArrayList<>(unseeded.size() * 2 + 1);
+            seedArgs.add(userId);
+            for (CouponDTO coupon : unseeded) {
+                long userUsed = counted.getOrDefault(coupon.getId(), 0L);
+                userCounts.put(coupon.getId(), userUsed);
+                seedKeys.add(usersKey(coupon.getId()));
+                seedArgs.add(String.valueOf(userUsed));
+                seedArgs.add(String.valueOf(expireAt(coupon.getEndDate())));
+            }
+            redisTemplate.execute(SEED_USER_COUNTS_SCRIPT, seedKeys, seedArgs.toArray());
+        }
+
+        List<CouponDTO> result = new ArrayList<>(coupons.size());
+        for (int i = 0; i < coupons.size(); i++) {
+            CouponDTO coupon = coupons.get(i);
+            long used = Long.parseLong(values.get(2 * i).toString());
+            if (used < 0) {
+                // Not redeemed since the counters expired or were created; the snapshot value holds
+                used = coupon.getUsedCount();
+            }
+            if (used < coupon.getUsageLimit() && userCounts.get(coupon.getId()) < coupon.getUsageLimitPerUser()) {
+                result.add(coupon);
+            }
+        }
+        return result;
+    }
+
+    private Map<Long, Long> countUsages(String userId, List<Long> couponIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : couponUsageRepository.countUsagesByCoupon(userId, couponIds)) {
+            counts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    private long redeemInRedis(Coupon coupon, CouponRedemption redemption) {
+        List<String> keys = List.of(usedKey(coupon.getId()), usersKey(coupon.getId()), pendingKey());
+        String payload = toJson(redemption);
+        long expireAt = expireAt(coupon.getEndDate());
+        // Each pass seeds at most one missing counter, so three passes always end in a decision
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Long result = redisTemplate.execute(REDEEM_SCRIPT, keys,
+                    String.valueOf(coupon.getUsageLimit()), String.valueOf(coupon.getUsageLimitPerUser()),
+                    redemption.userId(), payload);
+            if (result == null) {
+                throw new IllegalStateException("No result from coupon redemption script");
+            }
+            if (result == COUPON_NOT_SEEDED) {
+                redisTemplate.execute(SEED_COUPON_SCRIPT, List.of(keys.get(0), activeKey()),
+                        String.valueOf(coupon.getUsedCount()), String.valueOf(expireAt), String.valueOf(coupon.getId()));
+            } else if (result == USER_NOT_SEEDED) {
+                long userUsed = couponUsageRepository.countUsages(redemption.userId(), coupon.getId());
+                redisTemplate.execute(SEED_USER_SCRIPT, List.of(keys.get(1)),
+                        redemption.userId(), String.valueOf(userUsed), String.valueOf(expireAt));
+            } else {
+                return result;
+            }
+        }
+        throw new IllegalStateException("Coupon counters could not be seeded for " + coupon.getCode());
+    }
+
+    /**
+     * Without Redis the usage limit is kept by a conditional update of the
+     * coupons row; the per-user check is a count and not atomic
+     */
+    private CouponRedemption redeemInDatabase(Coupon coupon, CouponRedemption redemption) {
+        return transactionTemplate.execute(status -> {
+            if (couponUsageRepository.countUsages(redemption.userId(), coupon.getId()) >= coupon.getUsageLimitPerUser()) {
+                refused.increment();
+                throw new ValidationException("User usage limit exceeded");
+            }
+            if (couponRepository.incrementUsedCount(coupon.getId()) == 0) {
+                refused.increment();
+                throw new ValidationException("Coupon usage limit exceeded");
+            }
+            insert(List.of(redemption));
+            redeemed.increment();
+            persisted.increment();
+            return redemption;
+        });
+    }
+
+    /**
+     * Write a claimed batch and remove it from the processing list
+     *
+     * @return false when the database is unavailable; the batch stays in the processing list
+     */
+    private boolean persistBatch(List<String> entries) {
+        List<CouponRedemption> batch = new ArrayList<>(entries.size());
+        List<String> failed = new ArrayList<>();
+        for (String entry : entries) {
+            try {
+                batch.add(objectMapper.readValue(entry, CouponRedemption.class));
+            } catch (JsonProcessingException e) {
+                logger.error("Parking unreadable coupon redemption {}: {}", entry, e.getMessage());
+                failed.add(entry);
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+            persisted.increment(batch.size());
+        } catch (DataIntegrityViolationException e) {
+            // One bad row fails the batch: write the rows one by one to find it
+            logger.warn("Coupon redemption batch rejected, writing {} rows one by one: {}", batch.size(), e.getMessage());
+            if (!persistOneByOne(batch, failed)) {
+                return false;
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Failed to write {} coupon redemptions, retrying next run: {}", batch.size(), e.getMessage());
+            return false;
+        }
+
+        parked.increment(failed.size());
+        List<String> args = new ArrayList<>(failed.size() + 1);
+        args.add(String.valueOf(entries.size()));
+        args.addAll(failed);
+        redisTemplate.execute(ACK_SCRIPT, List.of(processingKey(), failedKey()), args.toArray());
+        return true;
+    }
+
+    /**
+     * @return false when the database became unavailable; rows written so far are skipped on the retry
+     */
+    private boolean persistOneByOne(List<CouponRedemption> batch, List<String> failed) {
+        for (CouponRedemption redemption : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(List.of(redemption)));
+                persisted.increment();
+            } catch (DataIntegrityViolationException e) {
+                logger.error("Coupon redemption {} of coupon {} for order {} cannot be stored, parked in {}: {}",
+                        redemption.id(), redemption.couponId(), redemption.orderId(), failedKey(), e.getMessage());
+                failed.add(toJson(redemption));
+            } catch (DataAccessException e) {
+                logger.warn("Failed to write coupon redemptions, retrying next run: {}", e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(List<CouponRedemption> redemptions) {
+        List<Object[]> args = new ArrayList<>(redemptions.size());
+        for (CouponRedemption redemption : redemptions) {
+            args.add(new Object[]{
+                    redemption.id(), redemption.couponId(), redemption.userId(), redemption.orderId(),
+                    redemption.discountAmount(), redemption.orderAmount(), Timestamp.valueOf(redemption.usedAt())
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> claim() {
+        List<String> claimed = redisTemplate.execute(CLAIM_SCRIPT, List.of(pendingKey(), processingKey()),
+                String.valueOf(config.getPersistBatchSize()));
+        return claimed != null ? claimed : List.of();
+    }
+
+    private boolean acquireLease() {
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(lockKey(), nodeId, config.getLockTtl());
+            return Boolean.TRUE.equals(acquired);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to take the coupon redemption writer lease, skipping this run: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void releaseLease() {
+        try {
+            redisTemplate.execute(RELEASE_LEASE_SCRIPT, List.of(lockKey()), nodeId);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to release the coupon redemption writer lease: {}", e.getMessage());
+        }
+    }
+
+    private String toJson(CouponRedemption redemption) {
+        try {
+            return objectMapper.writeValueAsString(redemption);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Coupon redemption cannot be serialized", e);
+        }
+    }
+
+    private long expireAt(LocalDateTime endDate) {
+        return endDate.plus(config.getKeyGrace()).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private String usedKey(Long couponId) {
+        return config.getKeyPrefix() + couponId + ":used";
+    }
+
+    private String usersKey(Long couponId) {
+        return config.getKeyPrefix() + couponId + ":users";
+    }
+
+    private String pendingKey() {
+        return config.getKeyPrefix() + "redemptions:pending";
+    }
+
+    private String processingKey() {
+        return config.getKeyPrefix() + "redemptions:processing";
+    }
+
+    private String failedKey() {
+        return config.getKeyPrefix() + "redemptions:failed";
+    }
+
+    private String lockKey() {
+        return config.getKeyPrefix() + "redemptions:lock";
+    }
+
+    private String activeKey() {
+        return config.getKeyPrefix() + "redemptions:active";
+    }
+}
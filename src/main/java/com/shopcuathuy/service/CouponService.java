@@ -3,17 +3,23 @@ import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
 
 import com.shopcuathuy.dto.CouponDTO;
+import com.shopcuathuy.dto.CouponRedemption;
 import com.shopcuathuy.dto.CreateCouponDTO;
+import com.shopcuathuy.dto.ExportJobDTO;
 import com.shopcuathuy.entity.*;
+import com.shopcuathuy.exception.ResourceNotFoundException;
 import com.shopcuathuy.mapper.CouponMapper;
 import com.shopcuathuy.repository.CouponRepository;
 import com.shopcuathuy.repository.CouponUsageRepository;
+import com.shopcuathuy.repository.OrderRepository;
 import com.shopcuathuy.repository.UserRepository;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,22 +34,42 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class CouponService {
 
+    private static final List<ExportColumn<Coupon>> EXPORT_COLUMNS = List.of(
+            ExportColumn.of("id", Coupon::getId),
+            ExportColumn.of("code", Coupon::getCode),
+            ExportColumn.of("name", Coupon::getName),
+            ExportColumn.of("type", Coupon::getType),
+            ExportColumn.of("value", Coupon::getValue),
+            ExportColumn.of("usedCount", Coupon::getUsedCount),
+            ExportColumn.of("createdAt", Coupon::getCreatedAt));
+
     private final CouponRepository couponRepository;
     private final CouponUsageRepository couponUsageRepository;
     private final UserRepository userRepository;
+    private final OrderRepository orderRepository;
     private final CouponMapper couponMapper;
     private final MessageProducerService messageProducerService;
     private final FileStorageService fileStorageService;
+    private final StreamingExportService streamingExportService;
+    private final CouponRedemptionService couponRedemptionService;
+    private final CouponIndexService couponIndexService;
 
     public CouponService(CouponRepository couponRepository, CouponUsageRepository couponUsageRepository,
-                        UserRepository userRepository, CouponMapper couponMapper,
-                        MessageProducerService messageProducerService, FileStorageService fileStorageService) {
+                        UserRepository userRepository, OrderRepository orderRepository, CouponMapper couponMapper,
+                        MessageProducerService messageProducerService, FileStorageService fileStorageService,
+                        StreamingExportService streamingExportService,
+                        CouponRedemptionService couponRedemptionService,
+                        CouponIndexService couponIndexService) {
         this.couponRepository = couponRepository;
         this.couponUsageRepository = couponUsageRepository;
         this.userRepository = userRepository;
+        this.orderRepository = orderRepository;
         this.couponMapper = couponMapper;
         this.messageProducerService = messageProducerService;
         this.fileStorageService = fileStorageService;
+        this.streamingExportService = streamingExportService;
+        this.couponRedemptionService = couponRedemptionService;
+        this.couponIndexService = couponIndexService;
     }
 
     /**
@@ -87,6 +113,7 @@ public class CouponService {
         coupon.setUsedCount(0);
 
         coupon = couponRepository.save(coupon);
+        couponIndexService.refreshAfterCommit();
 
         // Send coupon created message to RabbitMQ
         messageProducerService.sendCouponCreated(coupon);
@@ -100,110 +127,94 @@ public class CouponService {
     /**
      * Validate and apply coupon
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public CouponValidationResult validateCoupon(String couponCode, Long userId, BigDecimal orderAmount, Long orderId) {
         // Find coupon by code
         Coupon coupon = couponRepository.findByCode(couponCode)
                 .orElseThrow(() -> new RuntimeException("Coupon not found"));
 
-        // Check if coupon is active
-        if (!coupon.getIsActive()) {
-            return new CouponValidationResult(false, "Coupon is not active", null);
-        }
-
-        // Check if coupon is public or user is the creator
-        if (!coupon.getIsPublic() && !coupon.getCreatedBy().getId().equals(userId)) {
-            return new CouponValidationResult(false, "Coupon is not available", null);
+        CouponValidationResult eligibility = checkEligibility(coupon, userId, orderAmount);
+        if (!eligibility.isValid()) {
+            return eligibility;
         }
 
-        // Check date validity
-        LocalDateTime now = LocalDateTime.now();
-        if (now.isBefore(coupon.getStartDate()) || now.isAfter(coupon.getEndDate())) {
-            return new CouponValidationResult(false, "Coupon is not valid for current date", null);
-        }
-
-        // Check usage limit
-        if (coupon.getUsedCount() >= coupon.getUsageLimit()) {
+        // Advisory only: the limits are enforced atomically when the coupon is applied
+        if (couponRedemptionService.usedCount(coupon) >= coupon.getUsageLimit()) {
             return new CouponValidationResult(false, "Coupon usage limit exceeded", null);
         }
-
-        // Check user usage limit
-        long userUsageCount = couponUsageRepository.countByUserIdAndCouponId(userId, coupon.getId());
-        if (userUsageCount >= coupon.getUsageLimitPerUser()) {
+        if (couponRedemptionService.userUsedCount(coupon, String.valueOf(userId)) >= coupon.getUsageLimitPerUser()) {
             return new CouponValidationResult(false, "User usage limit exceeded", null);
         }
 
-        // Check minimum order amount
-        if (coupon.getMinimumOrderAmount() != null && orderAmount.compareTo(coupon.getMinimumOrderAmount()) < 0) {
-            return new CouponValidationResult(false, "Order amount is below minimum requirement", null);
-        }
-
-        // Calculate discount
-        BigDecimal discountAmount = calculateDiscount(coupon, orderAmount);
-
-        // Check maximum discount amount
-        if (coupon.getMaximumDiscountAmount() != null && discountAmount.compareTo(coupon.getMaximumDiscountAmount()) > 0) {
-            discountAmount = coupon.getMaximumDiscountAmount();
-        }
-
-        return new CouponValidationResult(true, "Coupon is valid", discountAmount);
+        return eligibility;
     }
 
     /**
      * Apply coupon to order
+     *
+     * The usage limits are checked and taken in one atomic step, so a
+     * campaign cannot be redeemed more often than its limits allow however
+     * many requests arrive at once. The coupons row is not locked.
+     *
+     * The returned usage has no id yet: its row is written to coupon_usages
+     * in the next batch. The user and order are checked before the use is
+     * taken, so that row cannot be refused for a missing parent.
      */
-    @Transactional
     public CouponUsage applyCoupon(String couponCode, Long userId, Long orderId, BigDecimal orderAmount) {
-        CouponValidationResult validation = validateCoupon(couponCode, userId, orderAmount, orderId);
-        
+        Coupon coupon = couponRepository.findByCode(couponCode)
+                .orElseThrow(() -> new RuntimeException("Coupon not found"));
+
+        CouponValidationResult validation = checkEligibility(coupon, userId, orderAmount);
         if (!validation.isValid()) {
             throw new RuntimeException(validation.getMessage());
         }
+        if (!userRepository.existsById(String.valueOf(userId))) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
+        if (!orderRepository.existsById(String.valueOf(orderId))) {
+            throw new ResourceNotFoundException("Order not found with id: " + orderId);
+        }
 
-        Coupon coupon = couponRepository.findByCode(couponCode).get();
-        User user = userRepository.findById(String.valueOf(userId)).get();
-        Order order = new Order(); // You would get this from OrderRepository
-        order.setId(String.valueOf(orderId));
-
-        // Create coupon usage record
-        CouponUsage couponUsage = new CouponUsage(
-            null, // id
-            coupon.getCode(), // couponCode
-            userId, // userId
-            orderId, // orderId
-            validation.getDiscountAmount(), // discountAmount
-            LocalDateTime.now() // usedAt
+        CouponRedemption redemption = couponRedemptionService.redeem(coupon, new CouponRedemption(
+                UUID.randomUUID().toString(),
+                coupon.getId(),
+                String.valueOf(userId),
+                String.valueOf(orderId),
+                validation.getDiscountAmount(),
+                orderAmount,
+                LocalDateTime.now()));
+
+        return new CouponUsage(
+            null, // id, assigned when the redemption is written
+            coupon.getCode(),
+            userId,
+            orderId,
+            redemption.discountAmount(),
+            redemption.usedAt()
         );
-
-        // Note: CouponUsage is not an entity, so we can't save it to repository
-        // couponUsage = couponUsageRepository.save(couponUsage);
-
-        // Update coupon usage count
-        coupon.setUsedCount(coupon.getUsedCount() + 1);
-        couponRepository.save(coupon);
-
-        // Send coupon applied message to RabbitMQ
-        // Note: CouponUsage is not an entity, so we can't send it to RabbitMQ
-        // messageProducerService.sendCouponApplied(couponUsage);
-
-        // Store coupon usage to MinIO
-        // Note: CouponUsage is not an entity, so we can't store it to MinIO
-        // storeCouponUsageToMinIO(couponUsage);
-
-        return couponUsage;
     }
 
     /**
      * Get valid coupons for user
      */
     public List<CouponDTO> getValidCoupons(Long userId, BigDecimal orderAmount) {
-        List<Coupon> coupons = couponRepository.findValidCoupons(LocalDateTime.now());
-        
-        // Filter by order amount and user eligibility
-        return coupons.stream()
-                .filter(coupon -> isCouponApplicable(coupon, userId, orderAmount))
-                .map(couponMapper::toDTO)
-                .toList();
+        return getValidCoupons(userId, orderAmount, null, null);
+    }
+
+    /**
+     * Get valid coupons for a user's cart
+     *
+     * Answered from the coupon index and the usage counters, without a
+     * query per coupon.
+     *
+     * @param productIds  products in the cart; null skips the product and category scopes
+     * @param categoryIds categories of those products
+     */
+    public List<CouponDTO> getValidCoupons(Long userId, BigDecimal orderAmount,
+                                           Collection<String> productIds, Collection<String> categoryIds) {
+        List<CouponDTO> candidates = couponIndexService.getIndex()
+                .candidates(orderAmount, productIds, categoryIds, LocalDateTime.now());
+        return couponRedemptionService.withinLimits(candidates, String.valueOf(userId));
     }
 
     /**
@@ -280,17 +291,47 @@ public class CouponService {
     /**
      * Export coupon data
      */
-    public String exportCouponData(LocalDateTime startDate, LocalDateTime endDate, String format) {
-        List<Coupon> coupons = couponRepository.findByDateRange(startDate, endDate);
-        
-        // Generate export data
-        String exportData = generateCouponExportData(coupons, format);
-        
-        // Store to MinIO
-        String fileName = "coupon-export-" + System.currentTimeMillis() + "." + format;
-        String fileUrl = fileStorageService.uploadCouponExport(fileName, exportData);
-        
-        return fileUrl;
+    public ExportJobDTO exportCouponData(LocalDateTime startDate, LocalDateTime endDate, String format) {
+        return streamingExportService.submit("coupon-export", "coupons/exports", format, EXPORT_COLUMNS,
+                () -> couponRepository.streamByDateRange(startDate, endDate));
+    }
+
+    /**
+     * Check everything about a coupon except its usage limits
+     *
+     * @return a valid result carrying the discount, or the reason it does not apply
+     */
+    private CouponValidationResult checkEligibility(Coupon coupon, Long userId, BigDecimal orderAmount) {
+        // Check if coupon is active
+        if (!coupon.getIsActive()) {
+            return new CouponValidationResult(false, "Coupon is not active", null);
+        }
+
+        // Check if coupon is public or user is the creator
+        if (!coupon.getIsPublic() && !coupon.getCreatedBy().getId().equals(userId)) {
+            return new CouponValidationResult(false, "Coupon is not available", null);
+        }
+
+        // Check date validity
+        LocalDateTime now = LocalDateTime.now();
+        if (now.isBefore(coupon.getStartDate()) || now.isAfter(coupon.getEndDate())) {
+            return new CouponValidationResult(false, "Coupon is not valid for current date", null);
+        }
+
+        // Check minimum order amount
+        if (coupon.getMinimumOrderAmount() != null && orderAmount.compareTo(coupon.getMinimumOrderAmount()) < 0) {
+            return new CouponValidationResult(false, "Order amount is below minimum requirement", null);
+        }
+
+        // Calculate discount
+        BigDecimal discountAmount = calculateDiscount(coupon, orderAmount);
+
+        // Check maximum discount amount
+        if (coupon.getMaximumDiscountAmount() != null && discountAmount.compareTo(coupon.getMaximumDiscountAmount()) > 0) {
+            discountAmount = coupon.getMaximumDiscountAmount();
+        }
+
+        return new CouponValidationResult(true, "Coupon is valid", discountAmount);
     }
 
     /**
@@ -311,20 +352,6 @@ public class CouponService {
         }
     }
 
-    /**
-     * Check if coupon is applicable
-     */
-    private boolean isCouponApplicable(Coupon coupon, Long userId, BigDecimal orderAmount) {
-        // Check minimum order amount
-        if (coupon.getMinimumOrderAmount() != null && orderAmount.compareTo(coupon.getMinimumOrderAmount()) < 0) {
-            return false;
-        }
-
-        // Check user usage limit
-        long userUsageCount = couponUsageRepository.countByUserIdAndCouponId(userId, coupon.getId());
-        return userUsageCount < coupon.getUsageLimitPerUser();
-    }
-
     /**
      * Store coupon data to MinIO
      */
@@ -387,53 +414,6 @@ public class CouponService {
         );
     }
 
-    /**
-     * Generate coupon export data
-     */
-    private String generateCouponExportData(List<Coupon> coupons, String format) {
-        if ("json".equalsIgnoreCase(format)) {
-            return generateCouponJsonExport(coupons);
-        } else if ("csv".equalsIgnoreCase(format)) {
-            return generateCouponCsvExport(coupons);
-        }
-        return generateCouponJsonExport(coupons);
-    }
-
-    /**
-     * Generate JSON export
-     */
-    private String generateCouponJsonExport(List<Coupon> coupons) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < coupons.size(); i++) {
-            Coupon coupon = coupons.get(i);
-            json.append(createCouponDataJson(coupon));
-            if (i < coupons.size() - 1) {
-                json.append(",");
-            }
-        }
-        json.append("]");
-        return json.toString();
-    }
-
-    /**
-     * Generate CSV export
-     */
-    private String generateCouponCsvExport(List<Coupon> coupons) {
-        StringBuilder csv = new StringBuilder("id,code,name,type,value,usedCount,createdAt\n");
-        for (Coupon coupon : coupons) {
-            csv.append(String.format("%d,%s,%s,%s,%s,%d,%s\n",
-                coupon.getId(),
-                coupon.getCode(),
-                coupon.getName(),
-                coupon.getType(),
-                coupon.getValue(),
-                coupon.getUsedCount(),
-                coupon.getCreatedAt()
-            ));
-        }
-        return csv.toString();
-    }
-
     /**
      * Coupon Validation Result
      */
@@ -0,0 +1,99 @@
+package com.shopcuathuy.service;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
+import com.shopcuathuy.entity.ProductDocument;
+import com.shopcuathuy.repository.ProductSearchRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.stereotype.Service;
+
+/**
+ * Elasticsearch implementation of {@link ProductSearchEngine}
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.search", name = "engine", havingValue = "elasticsearch")
+public class ElasticsearchProductSearchEngine implements ProductSearchEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ElasticsearchProductSearchEngine.class);
+
+    private static final List<String> SEARCH_FIELDS = List.of("name^3", "brand^2", "model^2", "sku^2", "description");
+
+    private final ProductSearchRepository productSearchRepository;
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    public ElasticsearchProductSearchEngine(ProductSearchRepository productSearchRepository,
+                                            ElasticsearchOperations elasticsearchOperations) {
+        this.productSearchRepository = productSearchRepository;
+        this.elasticsearchOperations = elasticsearchOperations;
+    }
+
+    /**
+     * Create the index with its mapping if it does not exist yet
+     */
+    @PostConstruct
+    public void createIndex() {
+        try {
+            IndexOperations indexOps = elasticsearchOperations.indexOps(ProductDocument.class);
+            if (!indexOps.exists()) {
+                indexOps.createWithMapping();
+                logger.info("Created product search index");
+            }
+        } catch (Exception e) {
+            logger.error("Failed to create product search index: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void index(ProductDocument document) {
+        productSearchRepository.save(document);
+    }
+
+    @Override
+    public void indexAll(List<ProductDocument> documents) {
+        productSearchRepository.saveAll(documents);
+    }
+
+    @Override
+    public void delete(String productId) {
+        productSearchRepository.deleteById(productId);
+    }
+
+    @Override
+    public Page<String> search(String text, Pageable pageable) {
+        // Results are ranked by relevance, so the caller's sort is not applied
+        Pageable relevancePage = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.multiMatch(m -> m
+                        .query(text)
+                        .fields(SEARCH_FIELDS)
+                        .operator(Operator.And)))
+                .withPageable(relevancePage)
+                .build();
+
+        SearchHits<ProductDocument> hits = elasticsearchOperations.search(query, ProductDocument.class);
+        List<String> ids = hits.getSearchHits().stream()
+                .map(SearchHit::getId)
+                .toList();
+        return new PageImpl<>(ids, relevancePage, hits.getTotalHits());
+    }
+
+    @Override
+    public long count() {
+        return productSearchRepository.count();
+    }
+}
@@ -0,0 +1,16 @@
+package com.shopcuathuy.service;
+
+import java.util.function.Function;
+
+/**
+ * One column of a streaming export: its header and how to read it from a row
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public record ExportColumn<T>(String name, Function<T, Object> value) {
+
+    public static <T> ExportColumn<T> of(String name, Function<T, Object> value) {
+        return new ExportColumn<>(name, value);
+    }
+}
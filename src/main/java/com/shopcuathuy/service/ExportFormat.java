@@ -0,0 +1,41 @@
+package com.shopcuathuy.service;
+
+/**
+ * Output formats of the streaming export engine
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public enum ExportFormat {
+    CSV("csv", "text/csv"),
+    JSON("json", "application/json"),
+    NDJSON("ndjson", "application/x-ndjson");
+
+    private final String extension;
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Resolve a requested format, defaulting to JSON like the original exports
+     */
+    public static ExportFormat from(String format) {
+        for (ExportFormat value : values()) {
+            if (value.extension.equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,108 @@
+package com.shopcuathuy.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streaming encoder writing export rows as CSV, a JSON array or NDJSON
+ * without holding more than one row in memory
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+class ExportRowWriter<T> implements Closeable {
+
+    private final ExportFormat format;
+    private final List<ExportColumn<T>> columns;
+    private final Writer csvWriter;
+    private final JsonGenerator jsonGenerator;
+
+    ExportRowWriter(OutputStream out, ExportFormat format, List<ExportColumn<T>> columns,
+                    ObjectMapper objectMapper) throws IOException {
+        this.format = format;
+        this.columns = columns;
+        if (format == ExportFormat.CSV) {
+            this.csvWriter = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.jsonGenerator = null;
+            writeCsvHeader();
+        } else {
+            this.csvWriter = null;
+            this.jsonGenerator = objectMapper.getFactory().createGenerator(out);
+            if (format == ExportFormat.JSON) {
+                jsonGenerator.writeStartArray();
+            } else {
+                jsonGenerator.setRootValueSeparator(new SerializedString("\n"));
+            }
+        }
+    }
+
+    /**
+     * Encode one row
+     */
+    void write(T row) throws IOException {
+        if (csvWriter != null) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    csvWriter.write(',');
+                }
+                csvWriter.write(csvField(columns.get(i).value().apply(row)));
+            }
+            csvWriter.write('\n');
+            return;
+        }
+
+        jsonGenerator.writeStartObject();
+        for (ExportColumn<T> column : columns) {
+            jsonGenerator.writeFieldName(column.name());
+            jsonGenerator.writeObject(column.value().apply(row));
+        }
+        jsonGenerator.writeEndObject();
+    }
+
+    /**
+     * Write the closing bytes of the format and close the underlying stream
+     */
+    @Override
+    public void close() throws IOException {
+        if (csvWriter != null) {
+            csvWriter.close();
+            return;
+        }
+        if (format == ExportFormat.JSON) {
+            jsonGenerator.writeEndArray();
+        } else {
+            jsonGenerator.writeRaw('\n');
+        }
+        jsonGenerator.close();
+    }
+
+    private void writeCsvHeader() throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                csvWriter.write(',');
+            }
+            csvWriter.write(csvField(columns.get(i).name()));
+        }
+        csvWriter.write('\n');
+    }
+
+    private String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
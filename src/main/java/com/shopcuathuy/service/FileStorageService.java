@@ -5,16 +5,23 @@ import lombok.RequiredArgsConstructor;
 import com.shopcuathuy.config.MinIOConfig;
 import io.minio.BucketExistsArgs;
 import io.minio.GetObjectArgs;
+import io.minio.GetPresignedObjectUrlArgs;
 import io.minio.MakeBucketArgs;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
 import io.minio.RemoveObjectArgs;
 import io.minio.StatObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -38,6 +45,7 @@ public class FileStorageService {
 
     private static final String DATE_FORMAT = "yyyy/MM/dd";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(DATE_FORMAT);
+    private static final Set<String> NOT_FOUND_CODES = Set.of("NoSuchKey", "NoSuchObject", "NoSuchBucket");
 
     /**
      * Initialize bucket if it doesn't exist
@@ -125,6 +133,43 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Upload bytes under an exact object name, replacing any existing object
+     */
+    public void putObject(String objectName, byte[] data, String contentType) {
+        try {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(minIOConfig.getBucketName())
+                    .object(objectName)
+                    .stream(new ByteArrayInputStream(data), data.length, -1)
+                    .contentType(contentType)
+                    .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to upload file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Upload a stream of unknown length as a multipart upload, buffering one part at a time
+     */
+    public String uploadStream(InputStream stream, String folder, String fileName, String contentType, long partSize) {
+        try {
+            String bucketName = minIOConfig.getBucketName();
+            String objectName = folder + "/" + getCurrentDatePath() + "/" + fileName;
+
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .stream(stream, -1, partSize)
+                    .contentType(contentType)
+                    .build());
+
+            return objectName;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to upload file: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Download file from MinIO
      */
@@ -140,6 +185,38 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Download a byte range of a file from MinIO
+     */
+    public InputStream downloadFile(String objectName, long offset, long length) {
+        try {
+            return minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(minIOConfig.getBucketName())
+                    .object(objectName)
+                    .offset(offset)
+                    .length(length)
+                    .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to download file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get a presigned URL letting the holder download a file from MinIO directly until it expires
+     */
+    public String getPresignedUrl(String objectName, Duration expiry) {
+        try {
+            return minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(Method.GET)
+                    .bucket(minIOConfig.getBucketName())
+                    .object(objectName)
+                    .expiry((int) expiry.toSeconds(), TimeUnit.SECONDS)
+                    .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to presign file URL: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Delete file from MinIO
      */
@@ -171,6 +248,21 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Get file info, or empty if the file does not exist
+     */
+    public Optional<FileInfo> findFileInfo(String objectName) {
+        try {
+            return Optional.of(getFileInfo(objectName));
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof ErrorResponseException notFound
+                    && NOT_FOUND_CODES.contains(notFound.errorResponse().code())) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
     /**
      * Get file info
      */
@@ -221,30 +313,6 @@ public class FileStorageService {
         return LocalDateTime.now().format(DATE_FORMATTER);
     }
 
-    /**
-     * Generate thumbnail for image
-     */
-    public String generateThumbnail(String originalObjectName, int width, int height) {
-        try {
-            // This is a simplified implementation
-            // In a real application, you would use an image processing library
-            // like ImageMagick or Java's BufferedImage to create thumbnails
-            
-            String bucketName = minIOConfig.getBucketName();
-            String thumbnailObjectName = originalObjectName.replace("/", "/thumbnails/");
-            
-            // For now, we'll just return the original object name
-            // In a real implementation, you would:
-            // 1. Download the original image
-            // 2. Resize it to the specified dimensions
-            // 3. Upload the resized image as a thumbnail
-            
-            return thumbnailObjectName;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate thumbnail: " + e.getMessage(), e);
-        }
-    }
-
     /**
      * Get file URL
      */
@@ -254,14 +322,6 @@ public class FileStorageService {
         return "https://your-minio-server.com/" + minIOConfig.getBucketName() + "/" + objectName;
     }
 
-    /**
-     * Get thumbnail URL
-     */
-    public String getThumbnailUrl(String objectName) {
-        String thumbnailObjectName = objectName.replace("/", "/thumbnails/");
-        return getFileUrl(thumbnailObjectName);
-    }
-
     /**
      * Upload analytics data to MinIO
      */
@@ -0,0 +1,366 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.config.ImageVariantConfig;
+import com.shopcuathuy.exception.ResourceNotFoundException;
+import com.shopcuathuy.repository.ProductImageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import net.coobird.thumbnailator.Thumbnails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Generates resized variants of uploaded images.
+ *
+ * Every configured size is rendered in every configured format and stored
+ * next to the original under a deterministic key, so a variant URL can be
+ * built without a lookup: {@code <folder>/variants/<name>/<size>.<format>}.
+ * Uploads queue the work on a bounded pool sized to the cores. A request for
+ * a variant that does not exist yet, because the upload was rejected by a
+ * full queue or failed, generates the variants on demand.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    public static final String VARIANTS_FOLDER = "variants";
+    public static final String THUMBNAIL_SIZE = "thumb";
+
+    private final FileStorageService fileStorageService;
+    private final ProductImageRepository productImageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ImageVariantConfig config;
+
+    private final ThreadPoolExecutor executor;
+    private final List<String> formats;
+    private final Map<String, CompletableFuture<List<String>>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter generated;
+    private final Counter failures;
+    private final Counter rejected;
+    private final Timer renderTimer;
+
+    public ImageVariantService(FileStorageService fileStorageService,
+                               ProductImageRepository productImageRepository,
+                               PlatformTransactionManager transactionManager,
+                               ImageVariantConfig config,
+                               MeterRegistry meterRegistry) {
+        this.fileStorageService = fileStorageService;
+        this.productImageRepository = productImageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = config;
+        this.formats = writableFormats(config.getFormats());
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(config.threads(), config.threads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        meterRegistry.gauge("images.variants.queued", executor, pool -> pool.getQueue().size());
+        this.generated = Counter.builder("images.variants.generated").register(meterRegistry);
+        this.failures = Counter.builder("images.variants.failures").register(meterRegistry);
+        this.rejected = Counter.builder("images.variants.rejected").register(meterRegistry);
+        this.renderTimer = Timer.builder("images.variants.render").register(meterRegistry);
+    }
+
+    /**
+     * Queue variant generation for an uploaded file; files that are not images are ignored
+     *
+     * @return true if the work was queued
+     */
+    public boolean submit(String objectName, String contentType) {
+        if (!config.isEnabled() || contentType == null || !contentType.startsWith("image/")) {
+            return false;
+        }
+        try {
+            start(objectName);
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Generated on demand when first requested
+            rejected.increment();
+            logger.warn("Image variant queue full, deferring variants of {}", objectName);
+            return false;
+        }
+    }
+
+    /**
+     * Get the key of a variant, generating the variants first if it does not exist
+     *
+     * @param format requested format; an unsupported one is replaced by the preferred format
+     * @throws ResourceNotFoundException when the original does not exist
+     * @throws IllegalArgumentException  for an unknown size or an unreadable original
+     * @throws IllegalStateException     when the variants could not be generated in time
+     */
+    public String resolveVariant(String objectName, String size, String format) {
+        if (!config.getSizes().containsKey(size)) {
+            throw new IllegalArgumentException("Unknown image size: " + size);
+        }
+        String key = variantKey(objectName, size, supportedFormat(format));
+        if (fileStorageService.fileExists(key)) {
+            return key;
+        }
+        if (!fileStorageService.fileExists(objectName)) {
+            throw new ResourceNotFoundException("Image not found: " + objectName);
+        }
+
+        CompletableFuture<List<String>> generation;
+        try {
+            generation = start(objectName);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new IllegalStateException("Image workers are busy, please retry later", e);
+        }
+        try {
+            generation.get(config.getOnDemandTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating image variants", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Image variants are still being generated, please retry later", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalArgumentException illegalArgument) {
+                throw illegalArgument;
+            }
+            throw new IllegalStateException("Failed to generate image variants: " + cause.getMessage(), cause);
+        }
+        return key;
+    }
+
+    /**
+     * Get the key of a thumbnail of one of the configured sizes, in the preferred format
+     *
+     * Renders on the worker pool like {@link #resolveVariant}; arbitrary
+     * sizes are not rendered, so a caller cannot make the server decode and
+     * store an image per size it asks for.
+     *
+     * @throws IllegalArgumentException if no configured size has these dimensions
+     */
+    public String generateThumbnail(String objectName, int width, int height) {
+        for (Map.Entry<String, ImageVariantConfig.Size> size : config.getSizes().entrySet()) {
+            if (size.getValue().getWidth() == width && size.getValue().getHeight() == height) {
+                return resolveVariant(objectName, size.getKey(), null);
+            }
+        }
+        throw new IllegalArgumentException("Thumbnail size must be one of " + sizeList());
+    }
+
+    /**
+     * Get the key of a variant of an original object
+     */
+    public String variantKey(String objectName, String size, String format) {
+        int slash = objectName.lastIndexOf('/');
+        String folder = slash == -1 ? "" : objectName.substring(0, slash + 1);
+        String fileName = objectName.substring(slash + 1);
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
+        return folder + VARIANTS_FOLDER + "/" + baseName + "/" + size + "." + format;
+    }
+
+    /**
+     * Get the thumbnail URL of an original object, in the preferred format
+     */
+    public String getThumbnailUrl(String objectName) {
+        return fileStorageService.getFileUrl(variantKey(objectName, THUMBNAIL_SIZE, formats.get(0)));
+    }
+
+    /**
+     * Get the URLs of all sizes of an original object, in the preferred format
+     */
+    public Map<String, String> getVariantUrls(String objectName) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String size : config.getSizes().keySet()) {
+            urls.put(size, fileStorageService.getFileUrl(variantKey(objectName, size, formats.get(0))));
+        }
+        return urls;
+    }
+
+    /**
+     * Get the format a request for the given format is served in
+     */
+    public String supportedFormat(String format) {
+        String normalized = format == null ? null : normalize(format);
+        return normalized != null && formats.contains(normalized) ? normalized : formats.get(0);
+    }
+
+    /**
+     * Get the content type of a format
+     */
+    public String contentType(String format) {
+        return switch (normalize(format)) {
+            case "jpg" -> "image/jpeg";
+            default -> "image/" + normalize(format);
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Start generating all variants of an original, or join a generation already running
+     */
+    private CompletableFuture<List<String>> start(String objectName) {
+        CompletableFuture<List<String>> created = new CompletableFuture<>();
+        CompletableFuture<List<String>> running = inFlight.putIfAbsent(objectName, created);
+        if (running != null) {
+            return running;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    created.complete(generateAll(objectName));
+                } catch (Throwable t) {
+                    created.completeExceptionally(t);
+                } finally {
+                    inFlight.remove(objectName, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(objectName, created);
+            throw e;
+        }
+        return created;
+    }
+
+    private List<String> generateAll(String objectName) throws IOException {
+        long startTime = System.nanoTime();
+        List<String> variants = new ArrayList<>();
+        try {
+            BufferedImage source = read(objectName);
+            for (Map.Entry<String, ImageVariantConfig.Size> size : config.getSizes().entrySet()) {
+                for (String format : formats) {
+                    byte[] data = render(source, size.getValue(), format);
+                    fileStorageService.putObject(variantKey(objectName, size.getKey(), format), data,
+                            contentType(format));
+                    variants.add(size.getKey() + "." + format);
+                    generated.increment();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failures.increment();
+            logger.error("Failed to generate variants of {}: {}", objectName, e.getMessage());
+            throw e;
+        } finally {
+            renderTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+
+        record(objectName, variants);
+        return variants;
+    }
+
+    private void record(String objectName, List<String> variants) {
+        String thumbnailUrl = config.getSizes().containsKey(THUMBNAIL_SIZE) ? getThumbnailUrl(objectName) : null;
+        try {
+            transactionTemplate.executeWithoutResult(status -> productImageRepository.updateVariants(
+                    fileStorageService.getFileUrl(objectName), thumbnailUrl, String.join(",", variants)));
+        } catch (RuntimeException e) {
+            // The variants exist under their keys; only the shortcut on the image row is missing
+            logger.warn("Failed to record variants of {}: {}", objectName, e.getMessage());
+        }
+    }
+
+    private BufferedImage read(String objectName) throws IOException {
+        try (InputStream in = fileStorageService.downloadFile(objectName);
+             ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = imageIn == null ? null : ImageIO.getImageReaders(imageIn);
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Not a readable image: " + objectName);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                // Checked from the header, before the pixels are decoded into memory
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > config.getMaxSourcePixels()) {
+                    throw new IllegalArgumentException("Image too large to resize: " + objectName);
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private byte[] render(BufferedImage source, ImageVariantConfig.Size size, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Thumbnails.Builder<BufferedImage> builder = Thumbnails.of(source)
+                // Fit the box but never enlarge
+                .size(Math.min(size.getWidth(), source.getWidth()), Math.min(size.getHeight(), source.getHeight()))
+                .keepAspectRatio(true)
+                .outputFormat(format)
+                .outputQuality(config.getQuality());
+        if ("jpg".equals(format)) {
+            // JPEG has no alpha channel
+            builder.imageType(BufferedImage.TYPE_INT_RGB);
+        }
+        builder.toOutputStream(out);
+        return out.toByteArray();
+    }
+
+    private String sizeList() {
+        List<String> sizes = new ArrayList<>();
+        for (ImageVariantConfig.Size size : config.getSizes().values()) {
+            sizes.add(size.getWidth() + "x" + size.getHeight());
+        }
+        return String.join(", ", sizes);
+    }
+
+    private static List<String> writableFormats(List<String> configured) {
+        List<String> writable = new ArrayList<>();
+        for (String format : configured) {
+            String normalized = normalize(format);
+            if (ImageIO.getImageWritersByFormatName(normalized).hasNext()) {
+                writable.add(normalized);
+            } else {
+                logger.warn("No ImageIO writer for image format {}, skipping it", normalized);
+            }
+        }
+        if (writable.isEmpty()) {
+            writable.add("jpg");
+        }
+        return List.copyOf(writable);
+    }
+
+    private static String normalize(String format) {
+        String lower = format.toLowerCase(Locale.ROOT);
+        return "jpeg".equals(lower) ? "jpg" : lower;
+    }
+}
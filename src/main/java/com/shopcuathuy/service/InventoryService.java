@@ -2,6 +2,9 @@ package com.shopcuathuy.service;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -24,4 +27,27 @@ public class InventoryService {
         logger.info("Updating inventory for product {}: {} -> {}", productId, oldStock, newStock);
         // Implementation for updating inventory
     }
+
+    /**
+     * Apply a batch of stock changes. Changes to the same product are merged,
+     * from the first old stock to the last new stock, and applied once.
+     */
+    public void updateInventory(List<StockChange> changes) {
+        Map<String, StockChange> merged = new LinkedHashMap<>();
+        for (StockChange change : changes) {
+            if (change.productId() == null) {
+                continue;
+            }
+            merged.merge(change.productId(), change, (first, last) ->
+                    new StockChange(first.productId(), first.oldStock(), last.newStock()));
+        }
+        merged.values().forEach(change ->
+                updateInventory(change.productId(), change.oldStock(), change.newStock()));
+    }
+
+    /**
+     * Stock change of one product
+     */
+    public record StockChange(String productId, Integer oldStock, Integer newStock) {
+    }
 }
@@ -0,0 +1,97 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.config.MessageListenerConfig;
+import com.shopcuathuy.config.RabbitMQConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Adapts the batch size of the batch listeners to their queue depth.
+ *
+ * A short queue gets small batches so events are written soon after they
+ * arrive. A long queue gets batches up to the configured maximum so each
+ * insert carries more rows. Consumers pick up the new size with their next
+ * batch.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class ListenerBatchSizeTuner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListenerBatchSizeTuner.class);
+
+    /** Batch listeners by listener id, with the queue they consume */
+    private static final Map<String, String> BATCH_LISTENERS = Map.of(
+            MessageConsumerService.ANALYTICS_LISTENER_ID, RabbitMQConfig.ANALYTICS_QUEUE,
+            MessageConsumerService.INVENTORY_LISTENER_ID, RabbitMQConfig.INVENTORY_QUEUE);
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final AmqpAdmin amqpAdmin;
+    private final MessageListenerConfig config;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, AtomicInteger> batchSizes = new ConcurrentHashMap<>();
+
+    public ListenerBatchSizeTuner(RabbitListenerEndpointRegistry listenerRegistry,
+                                  AmqpAdmin amqpAdmin,
+                                  MessageListenerConfig config,
+                                  MeterRegistry meterRegistry) {
+        this.listenerRegistry = listenerRegistry;
+        this.amqpAdmin = amqpAdmin;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Resize the batches of every batch listener
+     */
+    @Scheduled(fixedDelayString = "${app.messaging.batch-tune-interval-ms:5000}")
+    public void tune() {
+        BATCH_LISTENERS.forEach((listenerId, queueName) -> {
+            try {
+                tune(listenerId, queueName);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to tune the batch size of {}: {}", queueName, e.getMessage());
+            }
+        });
+    }
+
+    private void tune(String listenerId, String queueName) {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+        if (!(container instanceof SimpleMessageListenerContainer simpleContainer) || !container.isRunning()) {
+            return;
+        }
+        QueueInformation queueInfo = amqpAdmin.getQueueInfo(queueName);
+        if (queueInfo == null) {
+            return;
+        }
+
+        MessageListenerConfig.ListenerSpec spec = config.specFor(queueName);
+        int consumers = Math.max(simpleContainer.getActiveConsumerCount(), 1);
+        // Enough to drain the backlog in one batch per consumer, within the bounds
+        long perConsumer = queueInfo.getMessageCount() / consumers;
+        int batchSize = (int) Math.min(Math.max(perConsumer, spec.getMinBatchSize()), spec.getBatchSize());
+
+        AtomicInteger current = batchSizes.computeIfAbsent(queueName, name ->
+                meterRegistry.gauge("messaging.listener.batch.size", Tags.of("queue", name),
+                        new AtomicInteger(spec.getBatchSize())));
+        if (current.getAndSet(batchSize) != batchSize) {
+            simpleContainer.setBatchSize(batchSize);
+            logger.debug("Batch size of {} set to {} for a depth of {}", queueName, batchSize,
+                    queueInfo.getMessageCount());
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.config.ListingCacheConfig;
+import com.shopcuathuy.dto.ListingCacheEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stampede-safe cache for the ranked product listings.
+ *
+ * <ul>
+ *   <li>Single flight: concurrent misses on a key share one load per node.</li>
+ *   <li>Stale-while-revalidate: invalidation marks a cache stale instead of
+ *       emptying it, and the old value is served while one refresh runs.</li>
+ *   <li>Probabilistic early refresh: fresh entries are refreshed in the
+ *       background slightly before they are due, with a probability that
+ *       grows as expiry approaches and with the cost of the query.</li>
+ * </ul>
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class ListingCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingCacheService.class);
+
+    /**
+     * Reserved key holding the time before which entries of a cache are stale
+     */
+    static final String STALE_BEFORE_KEY = "__stale_before__";
+
+    private static final long STALE_MARKER_RECHECK_MILLIS = 1000;
+
+    private final CacheManager cacheManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ListingCacheConfig config;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor refreshExecutor;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // The marker is usually absent, which L1 cannot cache, so remember the
+    // last lookup briefly instead of asking Redis on every request
+    private final Map<String, StaleMarker> staleMarkers = new ConcurrentHashMap<>();
+
+    public ListingCacheService(CacheManager cacheManager,
+                               PlatformTransactionManager transactionManager,
+                               ListingCacheConfig config,
+                               MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Refreshes are optional work: when the queue is full they are rejected
+        // and the next request for the key tries again
+        this.refreshExecutor = new ThreadPoolExecutor(
+                config.getRefreshThreads(), config.getRefreshThreads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getRefreshQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "listing-cache-refresh-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        meterRegistry.gauge("listing.cache.inflight", inFlight, Map::size);
+    }
+
+    /**
+     * Get a cached listing, loading it at most once per key at a time
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String cacheName, Object key, Supplier<T> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return loader.get();
+        }
+
+        String cacheKey = String.valueOf(key);
+        ListingCacheEntry entry = readEntry(cache, cacheKey);
+        if (entry == null) {
+            count(cacheName, "miss");
+            return (T) loadShared(cache, cacheKey, loader);
+        }
+
+        if (entry.getComputedAt() < staleBefore(cache)) {
+            if (config.isStaleWhileRevalidate()) {
+                count(cacheName, "stale");
+                refreshAsync(cache, cacheKey, loader, "stale");
+                return (T) entry.getValue();
+            }
+            count(cacheName, "miss");
+            return (T) loadShared(cache, cacheKey, loader);
+        }
+
+        count(cacheName, "hit");
+        if (shouldRefreshEarly(entry)) {
+            refreshAsync(cache, cacheKey, loader, "early");
+        }
+        return (T) entry.getValue();
+    }
+
+    /**
+     * Invalidate every entry of a listing cache
+     *
+     * With stale-while-revalidate the entries are only marked stale, so the
+     * next reader gets the previous listing while it is recomputed.
+     */
+    public void invalidate(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (config.isStaleWhileRevalidate()) {
+            cache.put(STALE_BEFORE_KEY, System.currentTimeMillis());
+        } else {
+            cache.clear();
+        }
+        staleMarkers.remove(cacheName);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private Object loadShared(Cache cache, String cacheKey, Supplier<?> loader) {
+        String flightKey = flightKey(cache, cacheKey);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            counter("listing.cache.coalesced", cache.getName()).increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+            }
+        }
+        return runFlight(flightKey, flight, cache, cacheKey, loader);
+    }
+
+    private Object runFlight(String flightKey, CompletableFuture<Object> flight,
+                             Cache cache, String cacheKey, Supplier<?> loader) {
+        try {
+            Object value = load(cache, cacheKey, loader);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private Object load(Cache cache, String cacheKey, Supplier<?> loader) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long startTime = System.currentTimeMillis();
+        Object value = readOnlyTransaction.execute(status -> loader.get());
+        long computeMillis = System.currentTimeMillis() - startTime;
+        sample.stop(Timer.builder("listing.cache.load").tag("cache", cache.getName()).register(meterRegistry));
+
+        cache.put(cacheKey, new ListingCacheEntry(value, startTime, computeMillis));
+        return value;
+    }
+
+    private void refreshAsync(Cache cache, String cacheKey, Supplier<?> loader, String trigger) {
+        // Claim the key before queueing so a burst of readers schedules one refresh
+        String flightKey = flightKey(cache, cacheKey);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(flightKey, flight) != null) {
+            counter("listing.cache.coalesced", cache.getName()).increment();
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    runFlight(flightKey, flight, cache, cacheKey, loader);
+                    Counter.builder("listing.cache.refreshes")
+                            .tags("cache", cache.getName(), "trigger", trigger)
+                            .register(meterRegistry)
+                            .increment();
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to refresh listing cache {} key {}: {}",
+                            cache.getName(), cacheKey, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(flightKey, flight);
+            flight.cancel(false);
+        }
+    }
+
+    /**
+     * Probabilistic early expiration: refresh when
+     * {@code now - computeTime * beta * ln(random) >= computedAt + refreshAfter}
+     */
+    private boolean shouldRefreshEarly(ListingCacheEntry entry) {
+        long dueAt = entry.getComputedAt() + config.getRefreshAfter().toMillis();
+        double gap = entry.getComputeMillis() * config.getEarlyRefreshBeta()
+                * -Math.log(ThreadLocalRandom.current().nextDouble(Double.MIN_VALUE, 1.0));
+        return System.currentTimeMillis() + gap >= dueAt;
+    }
+
+    private ListingCacheEntry readEntry(Cache cache, String cacheKey) {
+        Cache.ValueWrapper wrapper = cache.get(cacheKey);
+        return wrapper != null && wrapper.get() instanceof ListingCacheEntry entry ? entry : null;
+    }
+
+    private long staleBefore(Cache cache) {
+        long now = System.currentTimeMillis();
+        StaleMarker marker = staleMarkers.get(cache.getName());
+        if (marker != null && now - marker.checkedAt() < STALE_MARKER_RECHECK_MILLIS) {
+            return marker.staleBefore();
+        }
+
+        Cache.ValueWrapper wrapper = cache.get(STALE_BEFORE_KEY);
+        long staleBefore = wrapper != null && wrapper.get() instanceof Number value ? value.longValue() : 0L;
+        staleMarkers.put(cache.getName(), new StaleMarker(staleBefore, now));
+        return staleBefore;
+    }
+
+    private void count(String cacheName, String outcome) {
+        Counter.builder("listing.cache.requests")
+                .tags("cache", cacheName, "outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Counter counter(String name, String cacheName) {
+        return Counter.builder(name).tag("cache", cacheName).register(meterRegistry);
+    }
+
+    private String flightKey(Cache cache, String cacheKey) {
+        return cache.getName() + "::" + cacheKey;
+    }
+
+    private record StaleMarker(long staleBefore, long checkedAt) {
+    }
+}
@@ -0,0 +1,180 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.entity.ProductDocument;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-process Lucene implementation of {@link ProductSearchEngine}.
+ *
+ * The index lives in memory and is rebuilt from the database at startup, which
+ * makes it suitable for development, tests and single-node deployments.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.search", name = "engine", havingValue = "lucene", matchIfMissing = true)
+public class LuceneProductSearchEngine implements ProductSearchEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LuceneProductSearchEngine.class);
+
+    private static final String[] SEARCH_FIELDS = {"name", "brand", "model", "sku", "description"};
+
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(
+            "name", 3.0f,
+            "brand", 2.0f,
+            "model", 2.0f,
+            "sku", 2.0f,
+            "description", 1.0f
+    );
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Directory directory = new ByteBuffersDirectory();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    public LuceneProductSearchEngine() throws IOException {
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    @Override
+    public void index(ProductDocument document) {
+        try {
+            writer.updateDocument(new Term("id", document.getId()), toLuceneDocument(document));
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to index product: " + document.getId(), e);
+        }
+    }
+
+    @Override
+    public void indexAll(List<ProductDocument> documents) {
+        try {
+            for (ProductDocument document : documents) {
+                writer.updateDocument(new Term("id", document.getId()), toLuceneDocument(document));
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to bulk index products", e);
+        }
+    }
+
+    @Override
+    public void delete(String productId) {
+        try {
+            writer.deleteDocuments(new Term("id", productId));
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to remove product from index: " + productId, e);
+        }
+    }
+
+    @Override
+    public Page<String> search(String text, Pageable pageable) {
+        Query query = parse(text);
+        int limit = (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            TopDocs topDocs = searcher.search(query, Math.max(limit, 1));
+
+            List<String> ids = new ArrayList<>(pageable.getPageSize());
+            ScoreDoc[] hits = topDocs.scoreDocs;
+            for (int i = (int) pageable.getOffset(); i < hits.length; i++) {
+                ids.add(searcher.storedFields().document(hits[i].doc).get("id"));
+            }
+            return new PageImpl<>(ids, pageable, topDocs.totalHits.value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to search products", e);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    @Override
+    public long count() {
+        return writer.getDocStats().numDocs;
+    }
+
+    @PreDestroy
+    public void close() {
+        try {
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close product search index: {}", e.getMessage());
+        }
+    }
+
+    private Query parse(String text) {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(SEARCH_FIELDS, analyzer, FIELD_BOOSTS);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+        try {
+            return parser.parse(QueryParser.escape(text));
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid search query: " + text, e);
+        }
+    }
+
+    private void release(IndexSearcher searcher) {
+        if (searcher == null) {
+            return;
+        }
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            logger.warn("Failed to release index searcher: {}", e.getMessage());
+        }
+    }
+
+    private Document toLuceneDocument(ProductDocument product) {
+        Document document = new Document();
+        document.add(new StringField("id", product.getId(), Field.Store.YES));
+        addText(document, "name", product.getName());
+        addText(document, "brand", product.getBrand());
+        addText(document, "model", product.getModel());
+        addText(document, "sku", product.getSku());
+        addText(document, "description", product.getDescription());
+        return document;
+    }
+
+    private void addText(Document document, String field, String value) {
+        if (value != null) {
+            document.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+}
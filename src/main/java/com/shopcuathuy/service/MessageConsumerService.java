@@ -1,19 +1,46 @@
 package com.shopcuathuy.service;
-import com.shopcuathuy.dto.CreateAnalyticsEventDTO;
+import com.shopcuathuy.dto.AnalyticsEventRecord;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
 
+import com.shopcuathuy.config.DelayedRetryMessageRecoverer;
+import com.shopcuathuy.config.MessageListenerConfig;
 import com.shopcuathuy.config.RabbitMQConfig;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
 
 
 /**
  * Service for consuming messages from RabbitMQ
+ *
+ * Each queue has its own listener container factory. A listener that throws
+ * has its message retried after a delay and finally parked, see
+ * {@link DelayedRetryMessageRecoverer}. The analytics and inventory listeners
+ * receive batches. A batch that fails is split until the messages that
+ * cannot be handled are found, and only those are retried.
+ *
+ * A message that is retried after failing halfway must not repeat what
+ * already succeeded. Handlers with several notifications and emails run
+ * each of them once per message id, see {@link #once}.
  * 
  * @author ShopCuaThuy Team
  * @version 1.0.0
@@ -23,9 +50,17 @@ public class MessageConsumerService {
 
     private static final Logger logger = LoggerFactory.getLogger(MessageConsumerService.class);
 
+    public static final String ANALYTICS_LISTENER_ID = "analyticsBatchListener";
+    public static final String INVENTORY_LISTENER_ID = "inventoryBatchListener";
+
+    private static final String EFFECT_KEY_PREFIX = "messaging:effect:";
+
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NotificationPushService notificationPushService;
+
     @Autowired
     private EmailService emailService;
 
@@ -38,56 +73,72 @@ public class MessageConsumerService {
     @Autowired
     private InventoryService inventoryService;
 
+    @Autowired
+    private AnalyticsIngestionService analyticsIngestionService;
+
+    @Autowired
+    private MessageConverter messageConverter;
+
+    @Autowired
+    private DelayedRetryMessageRecoverer messageRecoverer;
+
+    @Autowired
+    private ProductSearchIndexService productSearchIndexService;
+
+    @Autowired
+    @Qualifier("customStringRedisTemplate")
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private MessageListenerConfig listenerConfig;
+
     // Order Message Consumers
     /**
      * Consume order created messages
      */
-    @RabbitListener(queues = RabbitMQConfig.ORDER_QUEUE)
-    public void handleOrderMessage(Map<String, Object> message) {
-        try {
-            String eventType = (String) message.get("eventType");
-            logger.info("Received order message: {}", eventType);
-
-            switch (eventType) {
-                case "ORDER_CREATED":
-                    handleOrderCreated(message);
-                    break;
-                case "ORDER_UPDATED":
-                    handleOrderUpdated(message);
-                    break;
-                case "ORDER_CANCELLED":
-                    handleOrderCancelled(message);
-                    break;
-                case "ORDER_SHIPPED":
-                    handleOrderShipped(message);
-                    break;
-                case "ORDER_DELIVERED":
-                    handleOrderDelivered(message);
-                    break;
-                default:
-                    logger.warn("Unknown order event type: {}", eventType);
-            }
-        } catch (Exception e) {
-            logger.error("Error processing order message: {}", e.getMessage(), e);
+    @RabbitListener(queues = RabbitMQConfig.ORDER_QUEUE, containerFactory = "orderListenerContainerFactory")
+    public void handleOrderMessage(Map<String, Object> message,
+                                   @Header(name = AmqpHeaders.MESSAGE_ID, required = false) String messageId) {
+        String eventType = (String) message.get("eventType");
+        logger.info("Received order message: {}", eventType);
+
+        switch (eventType) {
+            case "ORDER_CREATED":
+                handleOrderCreated(message, messageId);
+                break;
+            case "ORDER_UPDATED":
+                handleOrderUpdated(message);
+                break;
+            case "ORDER_CANCELLED":
+                handleOrderCancelled(message, messageId);
+                break;
+            case "ORDER_SHIPPED":
+                handleOrderShipped(message, messageId);
+                break;
+            case "ORDER_DELIVERED":
+                handleOrderDelivered(message, messageId);
+                break;
+            default:
+                logger.warn("Unknown order event type: {}", eventType);
         }
     }
 
-    private void handleOrderCreated(Map<String, Object> message) {
+    private void handleOrderCreated(Map<String, Object> message, String messageId) {
         String orderId = (String) message.get("orderId");
         String userId = (String) message.get("userId");
         String sellerId = (String) message.get("sellerId");
         
         // Send notification to user
-        notificationService.sendOrderCreatedNotification(userId, orderId);
+        once(messageId, "notify-user", () -> notificationService.sendOrderCreatedNotification(userId, orderId));
         
         // Send notification to seller
-        notificationService.sendOrderCreatedNotification(sellerId, orderId);
+        once(messageId, "notify-seller", () -> notificationService.sendOrderCreatedNotification(sellerId, orderId));
         
         // Send email to user
-        emailService.sendOrderConfirmationEmail(userId, orderId);
+        once(messageId, "email-user", () -> emailService.sendOrderConfirmationEmail(userId, orderId));
         
         // Track analytics
-        analyticsService.trackOrderCreated(Long.valueOf(orderId), Long.valueOf(userId), sellerId);
+        trackQuietly(() -> analyticsService.trackOrderCreated(Long.valueOf(orderId), Long.valueOf(userId), sellerId));
         
         logger.info("Order created event processed for order: {}", orderId);
     }
@@ -101,60 +152,61 @@ public class MessageConsumerService {
         notificationService.sendOrderStatusUpdateNotification(userId, orderId, status);
         
         // Track analytics
-        analyticsService.trackOrderStatusUpdate(Long.valueOf(orderId), status);
+        trackQuietly(() -> analyticsService.trackOrderStatusUpdate(Long.valueOf(orderId), status));
         
         logger.info("Order updated event processed for order: {}", orderId);
     }
 
-    private void handleOrderCancelled(Map<String, Object> message) {
+    private void handleOrderCancelled(Map<String, Object> message, String messageId) {
         String orderId = (String) message.get("orderId");
         String userId = (String) message.get("userId");
         String sellerId = (String) message.get("sellerId");
         
         // Send notification to user
-        notificationService.sendOrderCancelledNotification(userId, orderId);
+        once(messageId, "notify-user", () -> notificationService.sendOrderCancelledNotification(userId, orderId));
         
         // Send notification to seller
-        notificationService.sendOrderCancelledNotification(sellerId, orderId);
+        once(messageId, "notify-seller", () -> notificationService.sendOrderCancelledNotification(sellerId, orderId));
         
         // Send email to user
-        emailService.sendOrderCancelledEmail(userId, orderId);
+        once(messageId, "email-user", () -> emailService.sendOrderCancelledEmail(userId, orderId));
         
         // Track analytics
-        analyticsService.trackOrderCancelled(Long.valueOf(orderId), Long.valueOf(userId), sellerId);
+        trackQuietly(() -> analyticsService.trackOrderCancelled(Long.valueOf(orderId), Long.valueOf(userId), sellerId));
         
         logger.info("Order cancelled event processed for order: {}", orderId);
     }
 
-    private void handleOrderShipped(Map<String, Object> message) {
+    private void handleOrderShipped(Map<String, Object> message, String messageId) {
         String orderId = (String) message.get("orderId");
         String userId = (String) message.get("userId");
         String trackingNumber = (String) message.get("trackingNumber");
         
         // Send notification to user
-        notificationService.sendOrderShippedNotification(userId, orderId, trackingNumber);
+        once(messageId, "notify-user",
+                () -> notificationService.sendOrderShippedNotification(userId, orderId, trackingNumber));
         
         // Send email to user
-        emailService.sendOrderShippedEmail(userId, orderId, trackingNumber);
+        once(messageId, "email-user", () -> emailService.sendOrderShippedEmail(userId, orderId, trackingNumber));
         
         // Track analytics
-        analyticsService.trackOrderShipped(Long.valueOf(orderId), userId);
+        trackQuietly(() -> analyticsService.trackOrderShipped(Long.valueOf(orderId), userId));
         
         logger.info("Order shipped event processed for order: {}", orderId);
     }
 
-    private void handleOrderDelivered(Map<String, Object> message) {
+    private void handleOrderDelivered(Map<String, Object> message, String messageId) {
         String orderId = (String) message.get("orderId");
         String userId = (String) message.get("userId");
         
         // Send notification to user
-        notificationService.sendOrderDeliveredNotification(userId, orderId);
+        once(messageId, "notify-user", () -> notificationService.sendOrderDeliveredNotification(userId, orderId));
         
         // Send email to user
-        emailService.sendOrderDeliveredEmail(userId, orderId);
+        once(messageId, "email-user", () -> emailService.sendOrderDeliveredEmail(userId, orderId));
         
         // Track analytics
-        analyticsService.trackOrderDelivered(Long.valueOf(orderId), userId);
+        trackQuietly(() -> analyticsService.trackOrderDelivered(Long.valueOf(orderId), userId));
         
         logger.info("Order delivered event processed for order: {}", orderId);
     }
@@ -163,39 +215,39 @@ public class MessageConsumerService {
     /**
      * Consume product messages
      */
-    @RabbitListener(queues = RabbitMQConfig.PRODUCT_QUEUE)
-    public void handleProductMessage(Map<String, Object> message) {
-        try {
-            String eventType = (String) message.get("eventType");
-            logger.info("Received product message: {}", eventType);
-
-            switch (eventType) {
-                case "PRODUCT_CREATED":
-                    handleProductCreated(message);
-                    break;
-                case "PRODUCT_UPDATED":
-                    handleProductUpdated(message);
-                    break;
-                case "PRODUCT_DELETED":
-                    handleProductDeleted(message);
-                    break;
-                case "PRODUCT_STOCK_LOW":
-                    handleProductStockLow(message);
-                    break;
-                default:
-                    logger.warn("Unknown product event type: {}", eventType);
-            }
-        } catch (Exception e) {
-            logger.error("Error processing product message: {}", e.getMessage(), e);
+    @RabbitListener(queues = RabbitMQConfig.PRODUCT_QUEUE, containerFactory = "productListenerContainerFactory")
+    public void handleProductMessage(Map<String, Object> message,
+                                     @Header(name = AmqpHeaders.MESSAGE_ID, required = false) String messageId) {
+        String eventType = (String) message.get("eventType");
+        logger.info("Received product message: {}", eventType);
+
+        switch (eventType) {
+            case "PRODUCT_CREATED":
+                handleProductCreated(message);
+                break;
+            case "PRODUCT_UPDATED":
+                handleProductUpdated(message);
+                break;
+            case "PRODUCT_DELETED":
+                handleProductDeleted(message);
+                break;
+            case "PRODUCT_STOCK_LOW":
+                handleProductStockLow(message, messageId);
+                break;
+            default:
+                logger.warn("Unknown product event type: {}", eventType);
         }
     }
 
     private void handleProductCreated(Map<String, Object> message) {
         String productId = (String) message.get("productId");
         String sellerId = (String) message.get("sellerId");
+
+        // Update search index
+        productSearchIndexService.indexProduct(productId);
         
         // Track analytics
-        analyticsService.trackProductCreated(productId, Long.valueOf(sellerId));
+        trackQuietly(() -> analyticsService.trackProductCreated(productId, Long.valueOf(sellerId)));
         
         logger.info("Product created event processed for product: {}", productId);
     }
@@ -203,9 +255,12 @@ public class MessageConsumerService {
     private void handleProductUpdated(Map<String, Object> message) {
         String productId = (String) message.get("productId");
         String sellerId = (String) message.get("sellerId");
+
+        // Update search index
+        productSearchIndexService.indexProduct(productId);
         
         // Track analytics
-        analyticsService.trackProductUpdated(Long.valueOf(productId), sellerId);
+        trackQuietly(() -> analyticsService.trackProductUpdated(Long.valueOf(productId), sellerId));
         
         logger.info("Product updated event processed for product: {}", productId);
     }
@@ -213,26 +268,29 @@ public class MessageConsumerService {
     private void handleProductDeleted(Map<String, Object> message) {
         String productId = (String) message.get("productId");
         String sellerId = (String) message.get("sellerId");
+
+        // Update search index
+        productSearchIndexService.removeProduct(productId);
         
         // Track analytics
-        analyticsService.trackProductDeleted(Long.valueOf(productId), sellerId);
+        trackQuietly(() -> analyticsService.trackProductDeleted(Long.valueOf(productId), sellerId));
         
         logger.info("Product deleted event processed for product: {}", productId);
     }
 
-    private void handleProductStockLow(Map<String, Object> message) {
+    private void handleProductStockLow(Map<String, Object> message, String messageId) {
         String productId = (String) message.get("productId");
         String sellerId = (String) message.get("sellerId");
         Integer stock = (Integer) message.get("stock");
         
         // Send notification to seller
-        notificationService.sendLowStockNotification(sellerId, productId, stock);
+        once(messageId, "notify-seller", () -> notificationService.sendLowStockNotification(sellerId, productId, stock));
         
         // Send email to seller
-        emailService.sendLowStockEmail(sellerId, productId, stock);
+        once(messageId, "email-seller", () -> emailService.sendLowStockEmail(sellerId, productId, stock));
         
         // Track analytics
-        analyticsService.trackLowStock(Long.valueOf(productId), sellerId, stock);
+        trackQuietly(() -> analyticsService.trackLowStock(Long.valueOf(productId), sellerId, stock));
         
         logger.info("Product stock low event processed for product: {}", productId);
     }
@@ -241,27 +299,23 @@ public class MessageConsumerService {
     /**
      * Consume user messages
      */
-    @RabbitListener(queues = RabbitMQConfig.USER_QUEUE)
+    @RabbitListener(queues = RabbitMQConfig.USER_QUEUE, containerFactory = "userListenerContainerFactory")
     public void handleUserMessage(Map<String, Object> message) {
-        try {
-            String eventType = (String) message.get("eventType");
-            logger.info("Received user message: {}", eventType);
-
-            switch (eventType) {
-                case "USER_REGISTERED":
-                    handleUserRegistered(message);
-                    break;
-                case "USER_UPDATED":
-                    handleUserUpdated(message);
-                    break;
-                case "USER_DEACTIVATED":
-                    handleUserDeactivated(message);
-                    break;
-                default:
-                    logger.warn("Unknown user event type: {}", eventType);
-            }
-        } catch (Exception e) {
-            logger.error("Error processing user message: {}", e.getMessage(), e);
+        String eventType = (String) message.get("eventType");
+        logger.info("Received user message: {}", eventType);
+
+        switch (eventType) {
+            case "USER_REGISTERED":
+                handleUserRegistered(message);
+                break;
+            case "USER_UPDATED":
+                handleUserUpdated(message);
+                break;
+            case "USER_DEACTIVATED":
+                handleUserDeactivated(message);
+                break;
+            default:
+                logger.warn("Unknown user event type: {}", eventType);
         }
     }
 
@@ -273,7 +327,7 @@ public class MessageConsumerService {
         emailService.sendWelcomeEmail(email);
         
         // Track analytics
-        analyticsService.trackUserRegistered(Long.valueOf(userId), email);
+        trackQuietly(() -> analyticsService.trackUserRegistered(Long.valueOf(userId), email));
         
         logger.info("User registered event processed for user: {}", userId);
     }
@@ -283,7 +337,7 @@ public class MessageConsumerService {
         String email = (String) message.get("email");
         
         // Track analytics
-        analyticsService.trackUserUpdated(Long.valueOf(userId), email);
+        trackQuietly(() -> analyticsService.trackUserUpdated(Long.valueOf(userId), email));
         
         logger.info("User updated event processed for user: {}", userId);
     }
@@ -296,7 +350,7 @@ public class MessageConsumerService {
         emailService.sendAccountDeactivatedEmail(email);
         
         // Track analytics
-        analyticsService.trackUserDeactivated(Long.valueOf(userId), email);
+        trackQuietly(() -> analyticsService.trackUserDeactivated(Long.valueOf(userId), email));
         
         logger.info("User deactivated event processed for user: {}", userId);
     }
@@ -305,49 +359,52 @@ public class MessageConsumerService {
     /**
      * Consume notification messages
      */
-    @RabbitListener(queues = RabbitMQConfig.NOTIFICATION_QUEUE)
+    @RabbitListener(queues = RabbitMQConfig.NOTIFICATION_QUEUE, containerFactory = "notificationListenerContainerFactory")
     public void handleNotificationMessage(Map<String, Object> message) {
-        try {
-            String eventType = (String) message.get("eventType");
-            logger.info("Received notification message: {}", eventType);
-
-            if ("NOTIFICATION_SEND".equals(eventType)) {
-                String userId = (String) message.get("userId");
-                String title = (String) message.get("title");
-                String messageText = (String) message.get("message");
-                String type = (String) message.get("type");
-                
-                notificationService.sendNotification(userId, title, messageText, type);
-                
-                logger.info("Notification sent to user: {}", userId);
-            }
-        } catch (Exception e) {
-            logger.error("Error processing notification message: {}", e.getMessage(), e);
+        String eventType = (String) message.get("eventType");
+        logger.info("Received notification message: {}", eventType);
+
+        if ("NOTIFICATION_SEND".equals(eventType)) {
+            String userId = (String) message.get("userId");
+            String title = (String) message.get("title");
+            String messageText = (String) message.get("message");
+            String type = (String) message.get("type");
+            
+            notificationService.sendNotification(userId, title, messageText, type);
+            
+            logger.info("Notification sent to user: {}", userId);
         }
     }
 
+    /**
+     * Push created notifications to the users' sessions on this node
+     */
+    @RabbitListener(queues = "#{notificationPushQueue.name}", containerFactory = "notificationPushListenerContainerFactory")
+    public void handleNotificationPush(Map<String, Object> message) {
+        if (!"NOTIFICATION_CREATED".equals(message.get("eventType")) || message.get("userId") == null) {
+            return;
+        }
+        notificationPushService.push(String.valueOf(message.get("userId")), message);
+    }
+
     // Email Message Consumers
     /**
      * Consume email messages
      */
-    @RabbitListener(queues = RabbitMQConfig.EMAIL_QUEUE)
+    @RabbitListener(queues = RabbitMQConfig.EMAIL_QUEUE, containerFactory = "emailListenerContainerFactory")
     public void handleEmailMessage(Map<String, Object> message) {
-        try {
-            String eventType = (String) message.get("eventType");
-            logger.info("Received email message: {}", eventType);
-
-            if ("EMAIL_SEND".equals(eventType)) {
-                String to = (String) message.get("to");
-                String subject = (String) message.get("subject");
-                String body = (String) message.get("body");
-                String template = (String) message.get("template");
-                
-                emailService.sendEmail(to, subject, body, template);
-                
-                logger.info("Email sent to: {}", to);
-            }
-        } catch (Exception e) {
-            logger.error("Error processing email message: {}", e.getMessage(), e);
+        String eventType = (String) message.get("eventType");
+        logger.info("Received email message: {}", eventType);
+
+        if ("EMAIL_SEND".equals(eventType)) {
+            String to = (String) message.get("to");
+            String subject = (String) message.get("subject");
+            String body = (String) message.get("body");
+            String template = (String) message.get("template");
+            
+            emailService.sendEmail(to, subject, body, template);
+            
+            logger.info("Email sent to: {}", to);
         }
     }
 
@@ -355,104 +412,94 @@ public class MessageConsumerService {
     /**
      * Consume SMS messages
      */
-    @RabbitListener(queues = RabbitMQConfig.SMS_QUEUE)
+    @RabbitListener(queues = RabbitMQConfig.SMS_QUEUE, containerFactory = "smsListenerContainerFactory")
     public void handleSMSMessage(Map<String, Object> message) {
-        try {
-            String eventType = (String) message.get("eventType");
-            logger.info("Received SMS message: {}", eventType);
-
-            if ("SMS_SEND".equals(eventType)) {
-                String phoneNumber = (String) message.get("phoneNumber");
-                String messageText = (String) message.get("message");
-                
-                smsService.sendSMS(phoneNumber, messageText);
-                
-                logger.info("SMS sent to: {}", phoneNumber);
-            }
-        } catch (Exception e) {
-            logger.error("Error processing SMS message: {}", e.getMessage(), e);
+        String eventType = (String) message.get("eventType");
+        logger.info("Received SMS message: {}", eventType);
+
+        if ("SMS_SEND".equals(eventType)) {
+            String phoneNumber = (String) message.get("phoneNumber");
+            String messageText = (String) message.get("message");
+            
+            smsService.sendSMS(phoneNumber, messageText);
+            
+            logger.info("SMS sent to: {}", phoneNumber);
         }
     }
 
     // Analytics Message Consumers
     /**
-     * Consume analytics messages
+     * Consume analytics messages a batch at a time. The tracked events of the
+     * batch are written with one JDBC batch insert and the batch is
+     * acknowledged as a whole once the insert has committed. If the insert
+     * fails, only the events that cannot be written are retried.
      */
-    @RabbitListener(queues = RabbitMQConfig.ANALYTICS_QUEUE)
-    public void handleAnalyticsMessage(Map<String, Object> message) {
-        try {
-            String eventType = (String) message.get("eventType");
-            logger.info("Received analytics message: {}", eventType);
-
-            if ("ANALYTICS_TRACK".equals(eventType)) {
-                String event = (String) message.get("event");
-                String userId = (String) message.get("userId");
-                @SuppressWarnings("unchecked")
-                Map<String, Object> data = (Map<String, Object>) message.get("data");
-                
-                // Create CreateAnalyticsEventDTO from the message data
-                CreateAnalyticsEventDTO createEventDTO = CreateAnalyticsEventDTO.builder()
-                        .eventName(event)
-                        .eventType(event)
-                        .userId(Long.valueOf(userId))
-                        .eventData(data.toString())
-                        .build();
-                
-                analyticsService.trackEvent(createEventDTO);
-                
-                logger.info("Analytics event tracked: {}", event);
+    @RabbitListener(id = ANALYTICS_LISTENER_ID, queues = RabbitMQConfig.ANALYTICS_QUEUE,
+            containerFactory = "analyticsListenerContainerFactory")
+    public void handleAnalyticsMessages(List<Message> messages) {
+        List<Message> tracked = new ArrayList<>(messages.size());
+        List<AnalyticsEventRecord> records = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            Map<String, Object> payload = convert(message);
+            if (payload == null || !"ANALYTICS_TRACK".equals(payload.get("eventType"))) {
+                continue;
             }
-        } catch (Exception e) {
-            logger.error("Error processing analytics message: {}", e.getMessage(), e);
+            String event = (String) payload.get("event");
+            if (event == null || event.isBlank()) {
+                logger.warn("Skipping analytics message without an event name");
+                continue;
+            }
+            Object data = payload.get("data");
+            tracked.add(message);
+            records.add(new AnalyticsEventRecord(event, event, (String) payload.get("userId"), null, null,
+                    data != null ? data.toString() : null, null, null, null, null, null, null,
+                    LocalDateTime.now()));
         }
+
+        writeBisecting(tracked, records, analyticsIngestionService::write);
+        logger.debug("Analytics batch of {} messages written, {} events tracked", messages.size(), records.size());
     }
 
     // Inventory Message Consumers
     /**
-     * Consume inventory messages
+     * Consume inventory messages a batch at a time, acknowledged as a whole
      */
-    @RabbitListener(queues = RabbitMQConfig.INVENTORY_QUEUE)
-    public void handleInventoryMessage(Map<String, Object> message) {
-        try {
-            String eventType = (String) message.get("eventType");
-            logger.info("Received inventory message: {}", eventType);
-
-            if ("INVENTORY_UPDATE".equals(eventType)) {
-                String productId = (String) message.get("productId");
-                Integer oldStock = (Integer) message.get("oldStock");
-                Integer newStock = (Integer) message.get("newStock");
-                
-                inventoryService.updateInventory(productId, oldStock, newStock);
-                
-                logger.info("Inventory updated for product: {}", productId);
+    @RabbitListener(id = INVENTORY_LISTENER_ID, queues = RabbitMQConfig.INVENTORY_QUEUE,
+            containerFactory = "inventoryListenerContainerFactory")
+    public void handleInventoryMessages(List<Message> messages) {
+        List<Message> changed = new ArrayList<>(messages.size());
+        List<InventoryService.StockChange> changes = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            Map<String, Object> payload = convert(message);
+            if (payload != null && "INVENTORY_UPDATE".equals(payload.get("eventType"))) {
+                changed.add(message);
+                changes.add(new InventoryService.StockChange((String) payload.get("productId"),
+                        (Integer) payload.get("oldStock"), (Integer) payload.get("newStock")));
             }
-        } catch (Exception e) {
-            logger.error("Error processing inventory message: {}", e.getMessage(), e);
         }
+
+        writeBisecting(changed, changes, inventoryService::updateInventory);
+        logger.debug("Inventory batch of {} messages handled, {} stock changes", messages.size(), changes.size());
     }
 
     // Payment Message Consumers
     /**
      * Consume payment messages
      */
-    @RabbitListener(queues = RabbitMQConfig.PAYMENT_QUEUE)
+    @RabbitListener(queues = RabbitMQConfig.PAYMENT_QUEUE, containerFactory = "paymentListenerContainerFactory")
     public void handlePaymentMessage(Map<String, Object> message) {
-        try {
-            String eventType = (String) message.get("eventType");
-            logger.info("Received payment message: {}", eventType);
-
-            if ("PAYMENT_PROCESSED".equals(eventType)) {
-                String orderId = (String) message.get("orderId");
-                String paymentMethod = (String) message.get("paymentMethod");
-                String status = (String) message.get("status");
-                Double amount = (Double) message.get("amount");
-                
-                // Process payment
-                logger.info("Payment processed for order: {} with method: {} and status: {}", 
-                    orderId, paymentMethod, status);
-            }
-        } catch (Exception e) {
-            logger.error("Error processing payment message: {}", e.getMessage(), e);
+        String eventType = (String) message.get("eventType");
+        logger.info("Received payment message: {}", eventType);
+
+        if ("PAYMENT_PROCESSED".equals(eventType)) {
+            String orderId = (String) message.get("orderId");
+            String paymentMethod = (String) message.get("paymentMethod");
+            String status = (String) message.get("status");
+            Double amount = (Double) message.get("amount");
+            
+            // Process payment
+            logger.info("Payment processed for order: {} with method: {} and status: {}", 
+                orderId, paymentMethod, status);
         }
     }
 
@@ -460,23 +507,119 @@ public class MessageConsumerService {
     /**
      * Consume shipping messages
      */
-    @RabbitListener(queues = RabbitMQConfig.SHIPPING_QUEUE)
+    @RabbitListener(queues = RabbitMQConfig.SHIPPING_QUEUE, containerFactory = "shippingListenerContainerFactory")
     public void handleShippingMessage(Map<String, Object> message) {
+        String eventType = (String) message.get("eventType");
+        logger.info("Received shipping message: {}", eventType);
+
+        if ("SHIPPING_UPDATE".equals(eventType)) {
+            String orderId = (String) message.get("orderId");
+            String trackingNumber = (String) message.get("trackingNumber");
+            String status = (String) message.get("status");
+            
+            // Process shipping update
+            logger.info("Shipping updated for order: {} with tracking: {} and status: {}", 
+                orderId, trackingNumber, status);
+        }
+    }
+
+    /**
+     * Convert one message of a batch. A message that cannot be read is parked
+     * on its own so it does not fail the rest of the batch.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> convert(Message message) {
+        try {
+            return (Map<String, Object>) messageConverter.fromMessage(message);
+        } catch (MessageConversionException | ClassCastException e) {
+            messageRecoverer.recover(message, e);
+            return null;
+        }
+    }
+
+    /**
+     * Write the items of a batch, halving it on failure until the items that
+     * cannot be written are found
+     *
+     * Only the messages of those items are sent to a delayed retry or the
+     * parking lot; the rest of the batch is written and acknowledged. The
+     * writer must be all or nothing for the items it is given. A failure
+     * that no split can avoid, such as a lost database connection, sends the
+     * unwritten part of the batch to a retry at once.
+     *
+     * @param messages the message of each item, at the same index
+     */
+    private <T> void writeBisecting(List<Message> messages, List<T> items, Consumer<List<T>> writer) {
+        if (items.isEmpty()) {
+            return;
+        }
+        try {
+            writer.accept(items);
+        } catch (RuntimeException e) {
+            if (items.size() == 1 || affectsEveryItem(e)) {
+                messageRecoverer.recover(messages, e);
+                return;
+            }
+            int middle = items.size() / 2;
+            logger.warn("Batch of {} failed, retrying it in halves: {}", items.size(), e.getMessage());
+            writeBisecting(messages.subList(0, middle), items.subList(0, middle), writer);
+            writeBisecting(messages.subList(middle, messages.size()), items.subList(middle, items.size()), writer);
+        }
+    }
+
+    private static boolean affectsEveryItem(Throwable failure) {
+        for (Throwable current = failure; current != null; current = current.getCause() != current ? current.getCause() : null) {
+            if (current instanceof TransientDataAccessException
+                    || current instanceof RecoverableDataAccessException
+                    || current instanceof DataAccessResourceFailureException
+                    || current instanceof CannotCreateTransactionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Run one side effect of a message unless an earlier delivery completed it
+     *
+     * Completed effects are remembered under the message id for the
+     * deduplication TTL, so the retry of a message that failed halfway
+     * repeats only the effect that failed. Without a message id, or while
+     * Redis is unavailable, the effect always runs.
+     */
+    private void once(String messageId, String effect, Runnable action) {
+        if (messageId == null) {
+            action.run();
+            return;
+        }
+        String key = EFFECT_KEY_PREFIX + messageId + ":" + effect;
         try {
-            String eventType = (String) message.get("eventType");
-            logger.info("Received shipping message: {}", eventType);
-
-            if ("SHIPPING_UPDATE".equals(eventType)) {
-                String orderId = (String) message.get("orderId");
-                String trackingNumber = (String) message.get("trackingNumber");
-                String status = (String) message.get("status");
-                
-                // Process shipping update
-                logger.info("Shipping updated for order: {} with tracking: {} and status: {}", 
-                    orderId, trackingNumber, status);
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+                logger.debug("Skipping {} of message {}, already done", effect, messageId);
+                return;
             }
-        } catch (Exception e) {
-            logger.error("Error processing shipping message: {}", e.getMessage(), e);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to check {} of message {}, running it: {}", effect, messageId, e.getMessage());
+        }
+
+        action.run();
+
+        try {
+            redisTemplate.opsForValue().set(key, "1", listenerConfig.getDeduplicationTtl());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to record {} of message {}: {}", effect, messageId, e.getMessage());
+        }
+    }
+
+    /**
+     * Analytics is best effort: its failure must not send the message back for
+     * a retry that would repeat the notifications and emails already sent
+     */
+    private void trackQuietly(Runnable tracking) {
+        try {
+            tracking.run();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to track analytics: {}", e.getMessage());
         }
     }
 }
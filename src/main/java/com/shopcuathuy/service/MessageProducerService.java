@@ -2,20 +2,27 @@ package com.shopcuathuy.service;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
 
+import com.shopcuathuy.config.OutboxConfig;
 import com.shopcuathuy.config.RabbitMQConfig;
 import com.shopcuathuy.dto.OrderDTO;
 import com.shopcuathuy.dto.ProductDTO;
 import com.shopcuathuy.dto.UserDTO;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 
 /**
  * Service for producing messages to RabbitMQ
+ *
+ * Messages go through the transactional outbox, so they are published only
+ * when the surrounding transaction commits and never on the request thread.
  * 
  * @author ShopCuaThuy Team
  * @version 1.0.0
@@ -26,6 +33,12 @@ public class MessageProducerService {
     @Autowired
     private RabbitTemplate rabbitTemplate;
 
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxConfig outboxConfig;
+
     // Order Messages
     /**
      * Send order created message
@@ -41,9 +54,10 @@ public class MessageProducerService {
         message.put("status", order.getStatus());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.ORDER_EXCHANGE,
             RabbitMQConfig.ORDER_CREATED_ROUTING_KEY,
+            order.getId(),
             message
         );
     }
@@ -61,9 +75,10 @@ public class MessageProducerService {
         message.put("status", order.getStatus());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.ORDER_EXCHANGE,
             RabbitMQConfig.ORDER_UPDATED_ROUTING_KEY,
+            order.getId(),
             message
         );
     }
@@ -81,9 +96,10 @@ public class MessageProducerService {
         message.put("cancellationReason", order.getCancellationReason());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.ORDER_EXCHANGE,
             RabbitMQConfig.ORDER_CANCELLED_ROUTING_KEY,
+            order.getId(),
             message
         );
     }
@@ -101,9 +117,10 @@ public class MessageProducerService {
         message.put("trackingNumber", order.getTrackingNumber());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.ORDER_EXCHANGE,
             RabbitMQConfig.ORDER_SHIPPED_ROUTING_KEY,
+            order.getId(),
             message
         );
     }
@@ -120,9 +137,10 @@ public class MessageProducerService {
         message.put("sellerId", order.getSellerId());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.ORDER_EXCHANGE,
             RabbitMQConfig.ORDER_DELIVERED_ROUTING_KEY,
+            order.getId(),
             message
         );
     }
@@ -142,9 +160,10 @@ public class MessageProducerService {
         message.put("stock", product.getStockQuantity());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.PRODUCT_EXCHANGE,
             RabbitMQConfig.PRODUCT_CREATED_ROUTING_KEY,
+            product.getId(),
             message
         );
     }
@@ -162,9 +181,10 @@ public class MessageProducerService {
         message.put("stock", product.getStockQuantity());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.PRODUCT_EXCHANGE,
             RabbitMQConfig.PRODUCT_UPDATED_ROUTING_KEY,
+            product.getId(),
             message
         );
     }
@@ -179,9 +199,10 @@ public class MessageProducerService {
         message.put("sellerId", sellerId);
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.PRODUCT_EXCHANGE,
             RabbitMQConfig.PRODUCT_DELETED_ROUTING_KEY,
+            productId,
             message
         );
     }
@@ -198,9 +219,10 @@ public class MessageProducerService {
         message.put("stock", product.getStockQuantity());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.PRODUCT_EXCHANGE,
             RabbitMQConfig.PRODUCT_STOCK_LOW_ROUTING_KEY,
+            product.getId(),
             message
         );
     }
@@ -217,9 +239,10 @@ public class MessageProducerService {
         message.put("role", user.getRole());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.USER_EXCHANGE,
             RabbitMQConfig.USER_REGISTERED_ROUTING_KEY,
+            user.getId(),
             message
         );
     }
@@ -235,9 +258,10 @@ public class MessageProducerService {
         message.put("role", user.getRole());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.USER_EXCHANGE,
             RabbitMQConfig.USER_UPDATED_ROUTING_KEY,
+            user.getId(),
             message
         );
     }
@@ -252,9 +276,10 @@ public class MessageProducerService {
         message.put("email", email);
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.USER_EXCHANGE,
             RabbitMQConfig.USER_DEACTIVATED_ROUTING_KEY,
+            userId,
             message
         );
     }
@@ -272,9 +297,10 @@ public class MessageProducerService {
         notificationMessage.put("type", type);
         notificationMessage.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.NOTIFICATION_EXCHANGE,
             RabbitMQConfig.NOTIFICATION_SEND_ROUTING_KEY,
+            userId,
             notificationMessage
         );
     }
@@ -292,9 +318,10 @@ public class MessageProducerService {
         message.put("template", template);
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.EMAIL_EXCHANGE,
             RabbitMQConfig.EMAIL_SEND_ROUTING_KEY,
+            to,
             message
         );
     }
@@ -310,9 +337,10 @@ public class MessageProducerService {
         smsMessage.put("message", message);
         smsMessage.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.SMS_EXCHANGE,
             RabbitMQConfig.SMS_SEND_ROUTING_KEY,
+            phoneNumber,
             smsMessage
         );
     }
@@ -329,9 +357,10 @@ public class MessageProducerService {
         message.put("data", data);
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.ANALYTICS_EXCHANGE,
             RabbitMQConfig.ANALYTICS_TRACK_ROUTING_KEY,
+            userId,
             message
         );
     }
@@ -353,9 +382,10 @@ public class MessageProducerService {
         message.put("value", event.getValue());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.ANALYTICS_EXCHANGE,
             RabbitMQConfig.ANALYTICS_EVENT_ROUTING_KEY,
+            event.getId(),
             message
         );
     }
@@ -372,9 +402,10 @@ public class MessageProducerService {
         message.put("newStock", newStock);
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.INVENTORY_EXCHANGE,
             RabbitMQConfig.INVENTORY_UPDATE_ROUTING_KEY,
+            productId,
             message
         );
     }
@@ -394,9 +425,10 @@ public class MessageProducerService {
         message.put("transactionId", payment.getTransactionId());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.PAYMENT_EXCHANGE,
             RabbitMQConfig.PAYMENT_CREATED_ROUTING_KEY,
+            payment.getId(),
             message
         );
     }
@@ -415,9 +447,10 @@ public class MessageProducerService {
         message.put("gatewayUrl", payment.getGatewayUrl());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.PAYMENT_EXCHANGE,
             RabbitMQConfig.PAYMENT_PROCESSING_ROUTING_KEY,
+            payment.getId(),
             message
         );
     }
@@ -437,9 +470,10 @@ public class MessageProducerService {
         message.put("paidAt", payment.getPaidAt());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.PAYMENT_EXCHANGE,
             RabbitMQConfig.PAYMENT_SUCCESS_ROUTING_KEY,
+            payment.getId(),
             message
         );
     }
@@ -458,9 +492,10 @@ public class MessageProducerService {
         message.put("failureReason", payment.getFailureReason());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.PAYMENT_EXCHANGE,
             RabbitMQConfig.PAYMENT_FAILED_ROUTING_KEY,
+            payment.getId(),
             message
         );
     }
@@ -478,9 +513,10 @@ public class MessageProducerService {
         message.put("status", payment.getStatus());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.PAYMENT_EXCHANGE,
             RabbitMQConfig.PAYMENT_CANCELLED_ROUTING_KEY,
+            payment.getId(),
             message
         );
     }
@@ -497,9 +533,10 @@ public class MessageProducerService {
         message.put("status", status);
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.SHIPPING_EXCHANGE,
             RabbitMQConfig.SHIPPING_UPDATE_ROUTING_KEY,
+            orderId,
             message
         );
     }
@@ -519,9 +556,10 @@ public class MessageProducerService {
         message.put("estimatedDeliveryDate", shipping.getEstimatedDeliveryDate());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.SHIPPING_EXCHANGE,
             RabbitMQConfig.SHIPPING_CREATED_ROUTING_KEY,
+            shipping.getOrder().getId(),
             message
         );
     }
@@ -542,9 +580,10 @@ public class MessageProducerService {
         message.put("carrier", shipping.getCarrier());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.SHIPPING_EXCHANGE,
             RabbitMQConfig.SHIPPING_STATUS_UPDATE_ROUTING_KEY,
+            shipping.getOrder().getId(),
             message
         );
     }
@@ -566,9 +605,10 @@ public class MessageProducerService {
         message.put("endDate", coupon.getEndDate());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.COUPON_EXCHANGE,
             RabbitMQConfig.COUPON_CREATED_ROUTING_KEY,
+            coupon.getId(),
             message
         );
     }
@@ -587,9 +627,10 @@ public class MessageProducerService {
         message.put("orderAmount", couponUsage.getOrderAmount());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.COUPON_EXCHANGE,
             RabbitMQConfig.COUPON_APPLIED_ROUTING_KEY,
+            couponUsage.getCoupon().getId(),
             message
         );
     }
@@ -609,9 +650,10 @@ public class MessageProducerService {
         message.put("isVerified", seller.getVerified());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.SELLER_EXCHANGE,
             RabbitMQConfig.SELLER_CREATED_ROUTING_KEY,
+            seller.getId(),
             message
         );
     }
@@ -634,9 +676,10 @@ public class MessageProducerService {
         message.put("isVerified", seller.getVerified());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.SELLER_EXCHANGE,
             RabbitMQConfig.SELLER_STATUS_UPDATE_ROUTING_KEY,
+            seller.getId(),
             message
         );
     }
@@ -646,11 +689,11 @@ public class MessageProducerService {
      * Send custom message to any exchange and routing key
      */
     public void sendMessage(String exchange, String routingKey, Object message) {
-        rabbitTemplate.convertAndSend(exchange, routingKey, message);
+        publish(exchange, routingKey, null, message);
     }
 
     /**
-     * Send message with delay
+     * Send message with delay, directly since the delay is applied by the broker on arrival
      */
     public void sendDelayedMessage(String exchange, String routingKey, Object message, long delay) {
         rabbitTemplate.convertAndSend(exchange, routingKey, message, msg -> {
@@ -670,9 +713,10 @@ public class MessageProducerService {
         message.put("parentId", categoryDTO.getParentId());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.CATEGORY_EXCHANGE,
             RabbitMQConfig.CATEGORY_CREATED_ROUTING_KEY,
+            categoryDTO.getId(),
             message
         );
     }
@@ -687,9 +731,10 @@ public class MessageProducerService {
         message.put("productId", productId);
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.WISHLIST_EXCHANGE,
             RabbitMQConfig.WISHLIST_UPDATED_ROUTING_KEY,
+            String.valueOf(userId),
             message
         );
     }
@@ -703,9 +748,10 @@ public class MessageProducerService {
         message.put("userId", userId);
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.WISHLIST_EXCHANGE,
             RabbitMQConfig.WISHLIST_CLEARED_ROUTING_KEY,
+            String.valueOf(userId),
             message
         );
     }
@@ -721,10 +767,14 @@ public class MessageProducerService {
         message.put("title", notification.getTitle());
         message.put("type", notification.getType());
         message.put("timestamp", LocalDateTime.now());
+        message.put(NotificationPushService.CREATED_AT_HEADER, notification.getCreatedAt() != null
+                ? notification.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.NOTIFICATION_EXCHANGE,
             RabbitMQConfig.NOTIFICATION_CREATED_ROUTING_KEY,
+            notification.getUser().getId(),
             message
         );
     }
@@ -741,9 +791,10 @@ public class MessageProducerService {
         message.put("rating", review.getRating());
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.REVIEW_EXCHANGE,
             RabbitMQConfig.REVIEW_CREATED_ROUTING_KEY,
+            review.getProduct().getId(),
             message
         );
     }
@@ -758,9 +809,10 @@ public class MessageProducerService {
         message.put("productId", productId);
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.CART_EXCHANGE,
             RabbitMQConfig.CART_UPDATED_ROUTING_KEY,
+            userId,
             message
         );
     }
@@ -774,10 +826,30 @@ public class MessageProducerService {
         message.put("userId", userId);
         message.put("timestamp", LocalDateTime.now());
         
-        rabbitTemplate.convertAndSend(
+        publish(
             RabbitMQConfig.CART_EXCHANGE,
             RabbitMQConfig.CART_CLEARED_ROUTING_KEY,
+            userId,
             message
         );
     }
+
+    /**
+     * Write a message to the outbox, or send it right away when the outbox is disabled
+     */
+    private void publish(String exchange, String routingKey, String aggregateId, Object message) {
+        if (outboxConfig.isEnabled()) {
+            outboxService.enqueue(exchange, routingKey, aggregateId, message);
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Consumers must not see an event before the change it describes is visible
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rabbitTemplate.convertAndSend(exchange, routingKey, message);
+                }
+            });
+        } else {
+            rabbitTemplate.convertAndSend(exchange, routingKey, message);
+        }
+    }
 }
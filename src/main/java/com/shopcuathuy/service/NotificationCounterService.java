@@ -0,0 +1,182 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.config.NotificationConfig;
+import com.shopcuathuy.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps each user's unread notification count in Redis.
+ *
+ * A counter is created from a COUNT query the first time it is read and is
+ * then moved by the changes that commit: new notifications add to it, reads
+ * and deletes take from it. Changes to a user without a counter are skipped,
+ * since the next read counts anyway. Counters are recounted in batches once
+ * they reach the reconcile age, which repairs drift from bulk cleanups or
+ * lost updates. Without Redis every read is a COUNT query.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class NotificationCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationCounterService.class);
+
+    private static final RedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then "
+                    + "return redis.call('INCRBY', KEYS[1], ARGV[1]) "
+                    + "end "
+                    + "return nil",
+            Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final NotificationRepository notificationRepository;
+    private final NotificationConfig.Unread config;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public NotificationCounterService(@Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                      NotificationRepository notificationRepository,
+                                      NotificationConfig notificationConfig,
+                                      MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.notificationRepository = notificationRepository;
+        this.config = notificationConfig.getUnread();
+
+        this.hits = Counter.builder("notification.unread.counter").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("notification.unread.counter").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * Get a user's unread notification count
+     */
+    public long get(String userId) {
+        if (!config.isEnabled()) {
+            return notificationRepository.countUnread(userId);
+        }
+        try {
+            String value = redisTemplate.opsForValue().get(key(userId));
+            if (value != null) {
+                hits.increment();
+                // Concurrent reads and deletes can briefly push the counter below zero
+                return Math.max(Long.parseLong(value), 0);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Failed to read unread counter of {}: {}", userId, e.getMessage());
+            return notificationRepository.countUnread(userId);
+        }
+
+        misses.increment();
+        long count = notificationRepository.countUnread(userId);
+        try {
+            redisTemplate.opsForValue().setIfAbsent(key(userId), String.valueOf(count), config.getTtl());
+            redisTemplate.opsForZSet().add(trackedKey(), userId, System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            logger.warn("Failed to store unread counter of {}: {}", userId, e.getMessage());
+        }
+        return count;
+    }
+
+    /**
+     * Move a user's counter once the current transaction commits
+     */
+    public void adjustAfterCommit(String userId, long delta) {
+        if (!config.isEnabled() || delta == 0) {
+            return;
+        }
+        afterCommit(() -> redisTemplate.execute(ADJUST_SCRIPT, List.of(key(userId)), String.valueOf(delta)));
+    }
+
+    /**
+     * Set a user's counter to zero once the current transaction commits
+     */
+    public void resetAfterCommit(String userId) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        afterCommit(() -> {
+            redisTemplate.opsForValue().set(key(userId), "0", config.getTtl());
+            redisTemplate.opsForZSet().add(trackedKey(), userId, System.currentTimeMillis());
+        });
+    }
+
+    /**
+     * Recount the oldest counters with one grouped query per batch
+     */
+    @Scheduled(fixedDelayString = "${app.notification.unread.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            Set<String> userIds = redisTemplate.opsForZSet().rangeByScore(trackedKey(),
+                    0, now - config.getReconcileAge().toMillis(), 0, config.getReconcileBatchSize());
+            if (userIds == null || userIds.isEmpty()) {
+                return;
+            }
+            Map<String, Long> counts = new HashMap<>();
+            for (Object[] row : notificationRepository.countUnreadByUsers(userIds)) {
+                counts.put(String.valueOf(row[0]), ((Number) row[1]).longValue());
+            }
+            for (String userId : userIds) {
+                String count = String.valueOf(counts.getOrDefault(userId, 0L));
+                Boolean present = redisTemplate.opsForValue().setIfPresent(key(userId), count, config.getTtl());
+                if (Boolean.TRUE.equals(present)) {
+                    redisTemplate.opsForZSet().add(trackedKey(), userId, now);
+                } else {
+                    // Expired; the next read counts again
+                    redisTemplate.opsForZSet().remove(trackedKey(), userId);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to reconcile unread notification counters: {}", e.getMessage());
+        }
+    }
+
+    private void afterCommit(Runnable update) {
+        Runnable guarded = () -> {
+            try {
+                update.run();
+            } catch (DataAccessException e) {
+                // Left for the reconcile to repair
+                logger.warn("Failed to update unread notification counter: {}", e.getMessage());
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            guarded.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                guarded.run();
+            }
+        });
+    }
+
+    private String key(String userId) {
+        return config.getKeyPrefix() + userId;
+    }
+
+    private String trackedKey() {
+        return config.getKeyPrefix() + "tracked";
+    }
+}
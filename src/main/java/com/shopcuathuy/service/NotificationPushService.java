@@ -0,0 +1,277 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.config.NotificationConfig;
+import com.shopcuathuy.entity.User;
+import com.shopcuathuy.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes new notifications to the connected clients of a user.
+ *
+ * Clients connect with STOMP over WebSocket, or with server-sent events
+ * where WebSockets are blocked. Every node receives every notification
+ * event and delivers it to the sessions it holds. Each SSE session has a
+ * bounded queue drained by a shared sender pool; a client that falls a
+ * full queue behind is disconnected and reloads its notifications when it
+ * reconnects. WebSocket sessions get the same treatment from the transport
+ * limits in {@link com.shopcuathuy.config.WebSocketConfig}.
+ *
+ * The notification.push.fanout timer measures from the creation of a
+ * notification to its hand-over to a session, per transport, so it takes
+ * in the outbox, the broker and the sender queues.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class NotificationPushService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationPushService.class);
+
+    public static final String DESTINATION = "/queue/notifications";
+
+    /**
+     * Event field and STOMP header carrying the creation time of the notification in epoch milliseconds
+     */
+    public static final String CREATED_AT_HEADER = "createdAtMs";
+
+    private static final String EVENT_NAME = "notification";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry userRegistry;
+    private final UserRepository userRepository;
+    private final NotificationCounterService notificationCounterService;
+    private final NotificationConfig.Push config;
+    private final ThreadPoolExecutor sender;
+
+    private final Map<String, Set<SseSession>> sseSessions = new ConcurrentHashMap<>();
+    private final AtomicInteger sseConnections = new AtomicInteger();
+
+    private final Timer fanOut;
+    private final Counter delivered;
+    private final Counter dropped;
+
+    public NotificationPushService(SimpMessagingTemplate messagingTemplate,
+                                   SimpUserRegistry userRegistry,
+                                   UserRepository userRepository,
+                                   NotificationCounterService notificationCounterService,
+                                   NotificationConfig notificationConfig,
+                                   MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.userRegistry = userRegistry;
+        this.userRepository = userRepository;
+        this.notificationCounterService = notificationCounterService;
+        this.config = notificationConfig.getPush();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(config.getSenderThreads(), config.getSenderThreads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getSenderQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sse-sender-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        meterRegistry.gauge("notification.push.connections", Tags.of("transport", "sse"), sseConnections);
+        meterRegistry.gauge("notification.push.connections", Tags.of("transport", "websocket"), userRegistry,
+                registry -> registry.getUsers().stream().mapToInt(user -> user.getSessions().size()).sum());
+        this.fanOut = fanOutTimer(meterRegistry, "sse");
+        this.delivered = Counter.builder("notification.push.delivered").register(meterRegistry);
+        this.dropped = Counter.builder("notification.push.dropped").register(meterRegistry);
+    }
+
+    /**
+     * Timer of the creation-to-delivery time of notifications on one transport
+     */
+    public static Timer fanOutTimer(MeterRegistry meterRegistry, String transport) {
+        return Timer.builder("notification.push.fanout")
+                .tag("transport", transport)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open an SSE stream for the authenticated user
+     *
+     * @param email the principal name carried by the token
+     */
+    public SseEmitter subscribe(String email) {
+        String userId = userRepository.findByEmail(email)
+                .map(User::getId)
+                .orElseThrow(() -> new IllegalStateException("User not found"));
+
+        SseEmitter emitter = new SseEmitter(config.getSseTimeout().toMillis());
+        SseSession session = new SseSession(userId, emitter);
+        Set<SseSession> sessions = sseSessions.computeIfAbsent(userId, key -> new CopyOnWriteArraySet<>());
+        sessions.add(session);
+        sseConnections.incrementAndGet();
+        emitter.onCompletion(() -> remove(session));
+        emitter.onTimeout(() -> remove(session));
+        emitter.onError(error -> remove(session));
+
+        // Keep a user's open tabs bounded; the oldest gives way
+        if (sessions.size() > config.getMaxSseSessionsPerUser()) {
+            sessions.stream().findFirst().ifPresent(SseSession::close);
+        }
+
+        session.offer(SseEmitter.event().comment("connected"), 0);
+        return emitter;
+    }
+
+    /**
+     * Deliver a notification event to the sessions of its user held by this node
+     */
+    public void push(String userId, Map<String, Object> event) {
+        boolean webSocket = userRegistry.getUser(userId) != null;
+        Set<SseSession> sessions = sseSessions.getOrDefault(userId, Set.of());
+        if (!webSocket && sessions.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> payload = new LinkedHashMap<>(event);
+        payload.put("unreadCount", notificationCounterService.get(userId));
+        Object createdAt = event.get(CREATED_AT_HEADER);
+        long createdAtMs = createdAt instanceof Number number ? number.longValue() : 0;
+
+        if (webSocket) {
+            // The outbound channel records the delivery when it has written the frame
+            Map<String, Object> headers = createdAtMs > 0 ? Map.of(CREATED_AT_HEADER, createdAtMs) : Map.of();
+            messagingTemplate.convertAndSendToUser(userId, DESTINATION, payload, headers);
+            delivered.increment();
+        }
+        for (SseSession session : sessions) {
+            session.offer(SseEmitter.event().name(EVENT_NAME).data(payload), createdAtMs);
+        }
+    }
+
+    /**
+     * Keep idle SSE connections open through proxies and detect closed ones
+     */
+    @Scheduled(fixedDelayString = "${app.notification.push.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Set<SseSession> sessions : sseSessions.values()) {
+            for (SseSession session : sessions) {
+                session.offer(SseEmitter.event().comment("heartbeat"), 0);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<SseSession> open = new ArrayList<>();
+        sseSessions.values().forEach(open::addAll);
+        open.forEach(SseSession::close);
+        sender.shutdownNow();
+    }
+
+    private void remove(SseSession session) {
+        Set<SseSession> sessions = sseSessions.get(session.userId);
+        if (sessions != null && sessions.remove(session)) {
+            sseConnections.decrementAndGet();
+            if (sessions.isEmpty()) {
+                sseSessions.remove(session.userId, sessions);
+            }
+        }
+    }
+
+    /**
+     * An unsent SSE event with the creation time of its notification, 0 for other events
+     */
+    private record PendingEvent(SseEmitter.SseEventBuilder event, long createdAtMs) {
+    }
+
+    /**
+     * One SSE connection with its queue of unsent events
+     */
+    private class SseSession {
+
+        private final String userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<PendingEvent> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        SseSession(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(config.getSseQueueCapacity());
+        }
+
+        void offer(SseEmitter.SseEventBuilder event, long createdAtMs) {
+            if (!pending.offer(new PendingEvent(event, createdAtMs))) {
+                dropped.increment();
+                logger.debug("Disconnecting slow notification stream of user {}", userId);
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        void close() {
+            remove(this);
+            emitter.complete();
+        }
+
+        private void schedule() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                dropped.increment();
+                close();
+            }
+        }
+
+        private void drain() {
+            try {
+                PendingEvent event;
+                while ((event = pending.poll()) != null) {
+                    emitter.send(event.event());
+                    delivered.increment();
+                    if (event.createdAtMs() > 0) {
+                        fanOut.record(Duration.ofMillis(Math.max(System.currentTimeMillis() - event.createdAtMs(), 0)));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away
+                remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (!pending.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
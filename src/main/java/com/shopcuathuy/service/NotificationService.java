@@ -4,18 +4,26 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.shopcuathuy.config.NotificationConfig;
 import com.shopcuathuy.dto.CreateNotificationDTO;
+import com.shopcuathuy.dto.CursorPageDTO;
+import com.shopcuathuy.dto.ExportJobDTO;
 import com.shopcuathuy.dto.NotificationDTO;
+import com.shopcuathuy.dto.PageCursor;
 import com.shopcuathuy.entity.*;
 import com.shopcuathuy.mapper.NotificationMapper;
 import com.shopcuathuy.repository.NotificationRepository;
 import com.shopcuathuy.repository.UserRepository;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.BiFunction;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 /**
@@ -29,20 +37,40 @@ public class NotificationService {
     
     private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
 
+    private static final List<ExportColumn<Notification>> EXPORT_COLUMNS = List.of(
+            ExportColumn.of("id", Notification::getId),
+            ExportColumn.of("userId", notification -> notification.getUser() != null ? notification.getUser().getId() : null),
+            ExportColumn.of("title", Notification::getTitle),
+            ExportColumn.of("message", Notification::getMessage),
+            ExportColumn.of("type", Notification::getType),
+            ExportColumn.of("createdAt", Notification::getCreatedAt));
+
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final NotificationMapper notificationMapper;
     private final MessageProducerService messageProducerService;
     private final FileStorageService fileStorageService;
+    private final StreamingExportService streamingExportService;
+    private final NotificationCounterService notificationCounterService;
+    private final NotificationConfig notificationConfig;
+    private final TransactionTemplate transactionTemplate;
 
     public NotificationService(NotificationRepository notificationRepository, UserRepository userRepository,
                              NotificationMapper notificationMapper, MessageProducerService messageProducerService,
-                             FileStorageService fileStorageService) {
+                             FileStorageService fileStorageService,
+                             StreamingExportService streamingExportService,
+                             NotificationCounterService notificationCounterService,
+                             NotificationConfig notificationConfig,
+                             PlatformTransactionManager transactionManager) {
         this.notificationRepository = notificationRepository;
         this.userRepository = userRepository;
         this.notificationMapper = notificationMapper;
         this.messageProducerService = messageProducerService;
         this.fileStorageService = fileStorageService;
+        this.streamingExportService = streamingExportService;
+        this.notificationCounterService = notificationCounterService;
+        this.notificationConfig = notificationConfig;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -67,6 +95,7 @@ public class NotificationService {
         notification.setIsSent(false);
 
         notification = notificationRepository.save(notification);
+        notificationCounterService.adjustAfterCommit(user.getId(), 1);
 
         // Send notification created message
         messageProducerService.sendNotificationCreated(notification);
@@ -109,6 +138,36 @@ public class NotificationService {
         return notifications.map(notificationMapper::toDTO);
     }
 
+    /**
+     * Get user's notifications with keyset pagination
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<NotificationDTO> getUserNotificationsKeyset(String userId, String cursor, int size) {
+        PageCursor position = PageCursor.decode(cursor);
+        int limit = CursorPageDTO.limit(size);
+        Pageable fetch = PageRequest.of(0, limit + 1);
+        List<Notification> rows = position == null
+                ? notificationRepository.findKeysetByUserId(userId, fetch)
+                : notificationRepository.findKeysetByUserIdAfter(userId, position.createdAt(), position.longId(), fetch);
+        return CursorPageDTO.of(rows, limit,
+                row -> new PageCursor(row.getCreatedAt(), String.valueOf(row.getId())), notificationMapper::toDTO);
+    }
+
+    /**
+     * Get unread notifications with keyset pagination
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<NotificationDTO> getUnreadNotificationsKeyset(String userId, String cursor, int size) {
+        PageCursor position = PageCursor.decode(cursor);
+        int limit = CursorPageDTO.limit(size);
+        Pageable fetch = PageRequest.of(0, limit + 1);
+        List<Notification> rows = position == null
+                ? notificationRepository.findUnreadKeysetByUserId(userId, fetch)
+                : notificationRepository.findUnreadKeysetByUserIdAfter(userId, position.createdAt(), position.longId(), fetch);
+        return CursorPageDTO.of(rows, limit,
+                row -> new PageCursor(row.getCreatedAt(), String.valueOf(row.getId())), notificationMapper::toDTO);
+    }
+
     /**
      * Get notifications by type
      */
@@ -130,17 +189,20 @@ public class NotificationService {
      */
     @Transactional
     public NotificationDTO markAsRead(Long userId, Long notificationId) {
+        String ownerId = String.valueOf(userId);
+        // Only the call that flips the flag takes it off the counter
+        int marked = notificationRepository.markRead(notificationId, ownerId, LocalDateTime.now());
+
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
 
-        if (!notification.getUser().getId().equals(userId)) {
+        if (!notification.getUser().getId().equals(ownerId)) {
             throw new RuntimeException("Unauthorized access to notification");
         }
 
-        notification.setIsRead(true);
-        notification.setReadAt(LocalDateTime.now());
-        notification = notificationRepository.save(notification);
-
+        if (marked > 0) {
+            notificationCounterService.adjustAfterCommit(ownerId, -1);
+        }
         return notificationMapper.toDTO(notification);
     }
 
@@ -149,15 +211,10 @@ public class NotificationService {
      */
     @Transactional
     public void markAllAsRead(Long userId) {
-        List<Notification> unreadNotifications = notificationRepository.findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId);
-        LocalDateTime now = LocalDateTime.now();
-        
-        for (Notification notification : unreadNotifications) {
-            notification.setIsRead(true);
-            notification.setReadAt(now);
-        }
-        
-        notificationRepository.saveAll(unreadNotifications);
+        String ownerId = String.valueOf(userId);
+        int marked = notificationRepository.markAllRead(ownerId, LocalDateTime.now());
+        log.debug("Marked {} notifications of user {} as read", marked, ownerId);
+        notificationCounterService.resetAfterCommit(ownerId);
     }
 
     /**
@@ -168,26 +225,46 @@ public class NotificationService {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
 
-        if (!notification.getUser().getId().equals(userId)) {
+        String ownerId = String.valueOf(userId);
+        if (!notification.getUser().getId().equals(ownerId)) {
             throw new RuntimeException("Unauthorized access to notification");
         }
 
         notificationRepository.delete(notification);
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            notificationCounterService.adjustAfterCommit(ownerId, -1);
+        }
     }
 
     /**
      * Delete all notifications
+     *
+     * Deleted in batches of the user's oldest ids, each batch in its own
+     * transaction, so a large inbox does not hold locks for the whole delete.
+     * Each batch is read from the user's index, so the cost follows the
+     * size of the inbox and not the spread of its ids across the table.
      */
-    @Transactional
     public void deleteAllNotifications(Long userId) {
-        notificationRepository.deleteByUserIdOrderByCreatedAtDesc(userId);
+        String ownerId = String.valueOf(userId);
+        Pageable batch = PageRequest.of(0, Math.max(notificationConfig.getDeleteBatchSize(), 1));
+        int deleted = 0;
+        Integer count;
+        do {
+            count = transactionTemplate.execute(status -> {
+                List<Long> ids = notificationRepository.findOldestIdsByUserId(ownerId, batch);
+                return ids.isEmpty() ? 0 : notificationRepository.deleteByUserIdAndIdIn(ownerId, ids);
+            });
+            deleted += count != null ? count : 0;
+        } while (count != null && count > 0);
+        log.debug("Deleted {} notifications of user {}", deleted, ownerId);
+        notificationCounterService.resetAfterCommit(ownerId);
     }
 
     /**
      * Get notification count
      */
     public long getNotificationCount(Long userId) {
-        return notificationRepository.countByUserIdAndIsReadFalse(userId);
+        return notificationCounterService.get(String.valueOf(userId));
     }
 
     /**
@@ -223,27 +300,47 @@ public class NotificationService {
 
     /**
      * Clean up old notifications
+     *
+     * Deleted one id range at a time, each range in its own transaction.
+     * Unread counters of the affected users are corrected by their next
+     * reconcile.
      */
-    @Transactional
     public void cleanupOldNotifications(int daysToKeep) {
         LocalDateTime cutoffDate = LocalDateTime.now().minusDays(daysToKeep);
-        notificationRepository.deleteOldNotifications(cutoffDate);
+        int deleted = deleteByIdRange(
+                notificationRepository.findMinIdCreatedBefore(cutoffDate),
+                notificationRepository.findMaxIdCreatedBefore(cutoffDate),
+                (fromId, toId) -> notificationRepository.deleteOldNotifications(cutoffDate, fromId, toId));
+        log.info("Deleted {} notifications created before {}", deleted, cutoffDate);
     }
 
     /**
      * Export notification data
      */
-    public String exportNotificationData(Long userId, LocalDateTime startDate, LocalDateTime endDate, String format) {
-        List<Notification> notifications = notificationRepository.findByUserIdAndCreatedAtBetween(userId, startDate, endDate);
-        
-        // Generate export data
-        String exportData = generateNotificationExportData(notifications, format);
-        
-        // Store to MinIO
-        String fileName = "notification-export-" + userId + "-" + System.currentTimeMillis() + "." + format;
-        String fileUrl = fileStorageService.uploadNotificationExport(fileName, exportData);
-        
-        return fileUrl;
+    public ExportJobDTO exportNotificationData(Long userId, LocalDateTime startDate, LocalDateTime endDate, String format) {
+        String ownerId = String.valueOf(userId);
+        return streamingExportService.submit("notification-export-" + userId, "notifications/exports", format, EXPORT_COLUMNS,
+                () -> notificationRepository.streamByUserIdAndCreatedAtBetween(ownerId, startDate, endDate));
+    }
+
+    /**
+     * Run a delete over consecutive id ranges between the given ids
+     *
+     * @return number of rows deleted
+     */
+    private int deleteByIdRange(Long minId, Long maxId, BiFunction<Long, Long, Integer> deleteRange) {
+        if (minId == null || maxId == null) {
+            return 0;
+        }
+        int deleted = 0;
+        long step = Math.max(notificationConfig.getDeleteBatchSize(), 1);
+        for (long from = minId; from <= maxId; from += step) {
+            long fromId = from;
+            long toId = Math.min(from + step - 1, maxId);
+            Integer count = transactionTemplate.execute(status -> deleteRange.apply(fromId, toId));
+            deleted += count != null ? count : 0;
+        }
+        return deleted;
     }
 
     /**
@@ -277,52 +374,6 @@ public class NotificationService {
         );
     }
 
-    /**
-     * Generate notification export data
-     */
-    private String generateNotificationExportData(List<Notification> notifications, String format) {
-        if ("json".equalsIgnoreCase(format)) {
-            return generateNotificationJsonExport(notifications);
-        } else if ("csv".equalsIgnoreCase(format)) {
-            return generateNotificationCsvExport(notifications);
-        }
-        return generateNotificationJsonExport(notifications);
-    }
-
-    /**
-     * Generate JSON export
-     */
-    private String generateNotificationJsonExport(List<Notification> notifications) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < notifications.size(); i++) {
-            Notification notification = notifications.get(i);
-            json.append(createNotificationDataJson(notification));
-            if (i < notifications.size() - 1) {
-                json.append(",");
-            }
-        }
-        json.append("]");
-        return json.toString();
-    }
-
-    /**
-     * Generate CSV export
-     */
-    private String generateNotificationCsvExport(List<Notification> notifications) {
-        StringBuilder csv = new StringBuilder("id,userId,title,message,type,createdAt\n");
-        for (Notification notification : notifications) {
-            csv.append(String.format("%d,%d,%s,%s,%s,%s\n",
-                notification.getId(),
-                notification.getUser().getId(),
-                notification.getTitle(),
-                notification.getMessage(),
-                notification.getType(),
-                notification.getCreatedAt()
-            ));
-        }
-        return csv.toString();
-    }
-
     /**
      * Send order created notification
      */
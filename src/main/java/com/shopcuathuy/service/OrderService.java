@@ -4,22 +4,40 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import com.shopcuathuy.dto.CreateOrderDTO;
+import com.shopcuathuy.dto.CreateOrderItemDTO;
+import com.shopcuathuy.dto.CursorPageDTO;
+import com.shopcuathuy.dto.ExportJobDTO;
 import com.shopcuathuy.dto.OrderDTO;
+import com.shopcuathuy.dto.OrderSummaryDTO;
+import com.shopcuathuy.dto.PageCursor;
 import com.shopcuathuy.dto.UpdateOrderDTO;
 import com.shopcuathuy.entity.Order;
+import com.shopcuathuy.entity.OrderItem;
+import com.shopcuathuy.entity.Product;
+import com.shopcuathuy.entity.ProductVariant;
 import com.shopcuathuy.exception.ResourceNotFoundException;
 import com.shopcuathuy.mapper.OrderMapper;
 import com.shopcuathuy.repository.OrderRepository;
+import com.shopcuathuy.repository.ProductRepository;
+import com.shopcuathuy.repository.ProductVariantRepository;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 
 
@@ -33,6 +51,14 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class OrderService {
 
+    private static final List<ExportColumn<Order>> EXPORT_COLUMNS = List.of(
+            ExportColumn.of("id", Order::getId),
+            ExportColumn.of("orderNumber", Order::getOrderNumber),
+            ExportColumn.of("userId", Order::getUserId),
+            ExportColumn.of("status", Order::getStatus),
+            ExportColumn.of("totalAmount", Order::getTotalAmount),
+            ExportColumn.of("createdAt", Order::getCreatedAt));
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -45,6 +71,18 @@ public class OrderService {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private StreamingExportService streamingExportService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductVariantRepository productVariantRepository;
+
     /**
      * Create a new order
      */
@@ -67,11 +105,34 @@ public class OrderService {
         // Save order
         Order savedOrder = orderRepository.save(order);
 
+        // Persist the line items with the order; they are cascaded on flush
+        if (savedOrder.getOrderItems() == null) {
+            savedOrder.setOrderItems(new ArrayList<>());
+        }
+        if (createOrderDTO.getItems() != null) {
+            savedOrder.getOrderItems().addAll(buildOrderItems(savedOrder, createOrderDTO.getItems()));
+        }
+
         // Send order created message to RabbitMQ
         messageProducerService.sendOrderCreatedMessage(orderMapper.toDTO(savedOrder));
 
-        // Store order data to MinIO
-        storeOrderToMinIO(savedOrder);
+        // Hold stock for the order's line items until payment; the reservation
+        // shares this transaction, so a rollback returns the stock with the
+        // order. It runs last to keep the product rows locked for as short a
+        // time as possible.
+        if (!savedOrder.getOrderItems().isEmpty()) {
+            stockReservationService.reserve(savedOrder.getId(), savedOrder.getOrderItems().stream()
+                    .map(item -> new CreateOrderItemDTO(item.getProductId(), item.getVariantId(), item.getQuantity()))
+                    .collect(Collectors.toList()));
+        }
+
+        // Store order data to MinIO once the order exists
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                storeOrderToMinIO(savedOrder);
+            }
+        });
 
         return orderMapper.toDTO(savedOrder);
     }
@@ -111,36 +172,62 @@ public class OrderService {
      * Get orders by user
      */
     @Transactional(readOnly = true)
-    public List<OrderDTO> getOrdersByUser(String userId) {
-        List<Order> orders = orderRepository.findByUserId(userId);
-        return orderMapper.toDTOList(orders);
+    public List<OrderSummaryDTO> getOrdersByUser(String userId) {
+        return orderRepository.findSummariesByUserId(userId);
     }
 
     /**
      * Get orders by user with pagination
      */
     @Transactional(readOnly = true)
-    public Page<OrderDTO> getOrdersByUser(String userId, Pageable pageable) {
-        Page<Order> orders = orderRepository.findByUserId(userId, pageable);
-        return orders.map(orderMapper::toDTO);
+    public Page<OrderSummaryDTO> getOrdersByUser(String userId, Pageable pageable) {
+        return orderRepository.findSummariesByUserId(userId, pageable);
     }
 
     /**
      * Get orders by seller
      */
     @Transactional(readOnly = true)
-    public List<OrderDTO> getOrdersBySeller(String sellerId) {
-        List<Order> orders = orderRepository.findBySellerId(sellerId);
-        return orderMapper.toDTOList(orders);
+    public List<OrderSummaryDTO> getOrdersBySeller(String sellerId) {
+        return orderRepository.findSummariesBySellerId(sellerId);
     }
 
     /**
      * Get orders by seller with pagination
      */
     @Transactional(readOnly = true)
-    public Page<OrderDTO> getOrdersBySeller(String sellerId, Pageable pageable) {
-        Page<Order> orders = orderRepository.findBySellerId(sellerId, pageable);
-        return orders.map(orderMapper::toDTO);
+    public Page<OrderSummaryDTO> getOrdersBySeller(String sellerId, Pageable pageable) {
+        return orderRepository.findSummariesBySellerId(sellerId, pageable);
+    }
+
+    /**
+     * Get orders by user with keyset pagination
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<OrderSummaryDTO> getOrdersByUserKeyset(String userId, String cursor, int size) {
+        PageCursor position = PageCursor.decode(cursor);
+        int limit = CursorPageDTO.limit(size);
+        Pageable fetch = PageRequest.of(0, limit + 1);
+        List<OrderSummaryDTO> rows = position == null
+                ? orderRepository.findKeysetByUserId(userId, fetch)
+                : orderRepository.findKeysetByUserIdAfter(userId, position.createdAt(), position.id(), fetch);
+        return CursorPageDTO.of(rows, limit,
+                row -> new PageCursor(row.createdAt(), row.id()), Function.identity());
+    }
+
+    /**
+     * Get orders by seller with keyset pagination
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<OrderSummaryDTO> getOrdersBySellerKeyset(String sellerId, String cursor, int size) {
+        PageCursor position = PageCursor.decode(cursor);
+        int limit = CursorPageDTO.limit(size);
+        Pageable fetch = PageRequest.of(0, limit + 1);
+        List<OrderSummaryDTO> rows = position == null
+                ? orderRepository.findKeysetBySellerId(sellerId, fetch)
+                : orderRepository.findKeysetBySellerIdAfter(sellerId, position.createdAt(), position.id(), fetch);
+        return CursorPageDTO.of(rows, limit,
+                row -> new PageCursor(row.createdAt(), row.id()), Function.identity());
     }
 
     /**
@@ -333,6 +420,15 @@ public class OrderService {
         order.setUpdatedAt(LocalDateTime.now());
         
         Order updatedOrder = orderRepository.save(order);
+
+        if (paymentStatus == Order.PaymentStatus.PAID && !stockReservationService.confirm(id)) {
+            // The payment stands; the order waits for an admin to restock or refund it
+            updatedOrder.setStatus(Order.OrderStatus.ON_HOLD);
+            updatedOrder = orderRepository.save(updatedOrder);
+        } else if (paymentStatus == Order.PaymentStatus.FAILED) {
+            stockReservationService.release(id);
+        }
+
         return orderMapper.toDTO(updatedOrder);
     }
 
@@ -365,6 +461,7 @@ public class OrderService {
         order.setUpdatedAt(LocalDateTime.now());
         
         Order updatedOrder = orderRepository.save(order);
+        stockReservationService.release(id);
         return orderMapper.toDTO(updatedOrder);
     }
 
@@ -545,6 +642,49 @@ public class OrderService {
         return orderRepository.existsByPaymentReferenceAndIdNot(paymentReference, orderId);
     }
 
+    /**
+     * Build the line items of a new order from the current product and variant rows
+     */
+    private List<OrderItem> buildOrderItems(Order order, List<CreateOrderItemDTO> items) {
+        Map<String, Product> products = productRepository.findAllById(items.stream()
+                        .map(CreateOrderItemDTO::getProductId).distinct().collect(Collectors.toList()))
+                .stream().collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<String, ProductVariant> variants = productVariantRepository.findAllById(items.stream()
+                        .map(CreateOrderItemDTO::getProductVariantId).filter(Objects::nonNull).distinct()
+                        .collect(Collectors.toList()))
+                .stream().collect(Collectors.toMap(ProductVariant::getId, Function.identity()));
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (CreateOrderItemDTO item : items) {
+            Product product = products.get(item.getProductId());
+            if (product == null) {
+                throw new ResourceNotFoundException("Product not found with id: " + item.getProductId());
+            }
+            ProductVariant variant = null;
+            if (item.getProductVariantId() != null) {
+                variant = variants.get(item.getProductVariantId());
+                if (variant == null || !variant.getProductId().equals(product.getId())) {
+                    throw new ResourceNotFoundException("Product variant not found with id: " + item.getProductVariantId());
+                }
+            }
+
+            BigDecimal unitPrice = variant != null && variant.getPrice() != null ? variant.getPrice() : product.getPrice();
+            orderItems.add(OrderItem.builder()
+                    .orderId(order.getId())
+                    .order(order)
+                    .productId(product.getId())
+                    .variantId(variant != null ? variant.getId() : null)
+                    .productName(product.getName())
+                    .productSku(variant != null ? variant.getSku() : product.getSku())
+                    .productVariant(variant != null ? variant.getVariantName() : null)
+                    .quantity(item.getQuantity())
+                    .unitPrice(unitPrice)
+                    .totalPrice(unitPrice.multiply(BigDecimal.valueOf(item.getQuantity())))
+                    .build());
+        }
+        return orderItems;
+    }
+
     /**
      * Generate unique order number
      */
@@ -555,17 +695,10 @@ public class OrderService {
     /**
      * Export order data
      */
-    public String exportOrderData(Long userId, LocalDateTime startDate, LocalDateTime endDate, String format) {
-        List<Order> orders = orderRepository.findByUserIdAndCreatedAtBetween(String.valueOf(userId), startDate, endDate);
-        
-        // Generate export data
-        String exportData = generateOrderExportData(orders, format);
-        
-        // Store to MinIO
-        String fileName = "order-export-" + userId + "-" + System.currentTimeMillis() + "." + format;
-        String fileUrl = fileStorageService.uploadOrderExport(fileName, exportData);
-        
-        return fileUrl;
+    public ExportJobDTO exportOrderData(Long userId, LocalDateTime startDate, LocalDateTime endDate, String format) {
+        String ownerId = String.valueOf(userId);
+        return streamingExportService.submit("order-export-" + userId, "orders/exports", format, EXPORT_COLUMNS,
+                () -> orderRepository.streamByUserIdAndCreatedAtBetween(ownerId, startDate, endDate));
     }
 
     /**
@@ -599,49 +732,4 @@ public class OrderService {
         );
     }
 
-    /**
-     * Generate order export data
-     */
-    private String generateOrderExportData(List<Order> orders, String format) {
-        if ("json".equalsIgnoreCase(format)) {
-            return generateOrderJsonExport(orders);
-        } else if ("csv".equalsIgnoreCase(format)) {
-            return generateOrderCsvExport(orders);
-        }
-        return generateOrderJsonExport(orders);
-    }
-
-    /**
-     * Generate JSON export
-     */
-    private String generateOrderJsonExport(List<Order> orders) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < orders.size(); i++) {
-            Order order = orders.get(i);
-            json.append(createOrderDataJson(order));
-            if (i < orders.size() - 1) {
-                json.append(",");
-            }
-        }
-        json.append("]");
-        return json.toString();
-    }
-
-    /**
-     * Generate CSV export
-     */
-    private String generateOrderCsvExport(List<Order> orders) {
-        StringBuilder csv = new StringBuilder("id,orderNumber,userId,status,totalAmount,createdAt\n");
-        for (Order order : orders) {
-            csv.append(String.format("%s,%s,%d,%s,%s,%s\n",
-                order.getId(),
-                order.getOrderNumber(),
-                order.getUserId(),
-                order.getStatus(),
-                order.getTotalAmount(),
-                order.getCreatedAt()
-            ));
-        }
-        return csv.toString();
-    }
 }
@@ -0,0 +1,260 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.config.OutboxConfig;
+import com.shopcuathuy.entity.OutboxEvent;
+import com.shopcuathuy.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Publishes outbox events to RabbitMQ.
+ *
+ * Each batch is sent on one channel and the relay waits once for the broker to
+ * confirm all of it. Confirmed events are marked sent. If the batch fails, all
+ * of its events are retried with backoff, so delivery is at least once and
+ * consumers drop duplicates by message id.
+ *
+ * Events of an ordered aggregate arrive in commit order: consecutive due
+ * events of one aggregate go out in one batch in sequence order, and an
+ * event waiting for its backoff holds back the later events of its
+ * aggregate. An event parked as FAILED holds nothing back, so its aggregate
+ * moves on without it. Events of other aggregates are not held up.
+ * A Redis lease lets one node relay at a time; without Redis no node relays.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class OutboxRelayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelayService.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxService outboxService;
+    private final RabbitTemplate rabbitTemplate;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final OutboxConfig config;
+    private final TransactionTemplate transactionTemplate;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong oldestPendingAgeMs = new AtomicLong();
+
+    private final Counter published;
+    private final Counter failures;
+    private final Counter parked;
+    private final Timer batchTimer;
+
+    public OutboxRelayService(OutboxEventRepository outboxEventRepository,
+                              OutboxService outboxService,
+                              RabbitTemplate rabbitTemplate,
+                              @Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                              OutboxConfig config,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxService = outboxService;
+        this.rabbitTemplate = rabbitTemplate;
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.published = Counter.builder("outbox.published").register(meterRegistry);
+        this.failures = Counter.builder("outbox.publish.failures").register(meterRegistry);
+        this.parked = Counter.builder("outbox.parked").register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.relay.batch").register(meterRegistry);
+        meterRegistry.gauge("outbox.oldest.pending.age", oldestPendingAgeMs);
+    }
+
+    /**
+     * Publish pending events while this node holds the relay lease
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void relay() {
+        if (!config.isEnabled() || !acquireLease()) {
+            return;
+        }
+        long deadline = System.nanoTime() + config.getLockTtl().toNanos() / 2;
+        try {
+            updateOldestPendingAge();
+            for (int batch = 0; batch < config.getMaxBatchesPerRun() && System.nanoTime() < deadline; batch++) {
+                Integer sent = batchTimer.record(this::relayBatch);
+                if (sent == null || sent < config.getBatchSize()) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Outbox relay run failed: {}", e.getMessage());
+        } finally {
+            releaseLease();
+        }
+    }
+
+    /**
+     * Delete sent events older than the retention
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval-ms:3600000}")
+    public void deleteSent() {
+        LocalDateTime before = LocalDateTime.now().minus(config.getRetention());
+        int deleted;
+        int total = 0;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                    outboxEventRepository.deleteSentBefore(before, config.getCleanupBatchSize()));
+            total += deleted;
+        } while (deleted >= config.getCleanupBatchSize());
+        if (total > 0) {
+            logger.info("Deleted {} sent outbox events", total);
+        }
+    }
+
+    /**
+     * Publish one batch
+     *
+     * @return the number of events handled, so the caller knows whether more are waiting
+     */
+    private int relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> pending = outboxEventRepository.findSendable(now, config.getBatchSize());
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        List<OutboxEvent> batch = new ArrayList<>();
+        List<Message> messages = new ArrayList<>();
+        List<OutboxEvent> unsendable = new ArrayList<>();
+        Set<String> heldBack = new HashSet<>();
+        for (OutboxEvent event : pending) {
+            String aggregate = event.getAggregateSequence() != null
+                    ? event.getAggregateType() + ":" + event.getAggregateId() : null;
+            if (aggregate != null && heldBack.contains(aggregate)) {
+                // Waits behind the unsendable event, which is now backing off
+                continue;
+            }
+            try {
+                messages.add(outboxService.toMessage(event));
+                batch.add(event);
+            } catch (RuntimeException e) {
+                unsendable.add(event);
+                if (aggregate != null) {
+                    heldBack.add(aggregate);
+                }
+                logger.warn("Outbox event {} cannot be sent: {}", event.getId(), e.getMessage());
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                publish(batch, messages);
+                transactionTemplate.executeWithoutResult(status ->
+                        outboxEventRepository.markSent(batch.stream().map(OutboxEvent::getId).toList(), LocalDateTime.now()));
+                published.increment(batch.size());
+            } catch (AmqpException e) {
+                logger.warn("Failed to publish {} outbox events, retrying: {}", batch.size(), e.getMessage());
+                scheduleRetry(batch, e, now);
+            }
+        }
+        if (!unsendable.isEmpty()) {
+            scheduleRetry(unsendable, null, now);
+        }
+        return pending.size();
+    }
+
+    /**
+     * Age of the oldest pending event, including events waiting for a retry
+     */
+    private void updateOldestPendingAge() {
+        oldestPendingAgeMs.set(outboxEventRepository.findFirstByStatusOrderByIdAsc(OutboxEvent.OutboxStatus.PENDING)
+                .map(event -> ChronoUnit.MILLIS.between(event.getCreatedAt(), LocalDateTime.now()))
+                .orElse(0L));
+    }
+
+    private void publish(List<OutboxEvent> batch, List<Message> messages) {
+        long timeoutMs = config.getConfirmTimeout().toMillis();
+        rabbitTemplate.invoke(operations -> {
+            for (int i = 0; i < batch.size(); i++) {
+                OutboxEvent event = batch.get(i);
+                operations.send(event.getExchange(), event.getRoutingKey(), messages.get(i));
+            }
+            operations.waitForConfirmsOrDie(timeoutMs);
+            return null;
+        });
+    }
+
+    private void scheduleRetry(List<OutboxEvent> events, Exception error, LocalDateTime now) {
+        for (OutboxEvent event : events) {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            event.setLastError(truncate(error != null ? error.getMessage() : "Message could not be built"));
+            if (attempts >= config.getMaxAttempts()) {
+                event.setStatus(OutboxEvent.OutboxStatus.FAILED);
+                parked.increment();
+                logger.error("Parking outbox event {} for {} after {} attempts",
+                        event.getId(), event.getRoutingKey(), attempts);
+            } else {
+                event.setNextAttemptAt(now.plus(backoff(attempts)));
+            }
+        }
+        failures.increment(events.size());
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.saveAll(events));
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = config.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(config.getMaxBackoff()) > 0 ? config.getMaxBackoff() : delay;
+    }
+
+    private boolean acquireLease() {
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(config.getLockKey(), nodeId, config.getLockTtl());
+            return Boolean.TRUE.equals(acquired);
+        } catch (RuntimeException e) {
+            // Skipping a run only delays events; relaying on every node at once would send each batch many times
+            logger.warn("Failed to take the outbox relay lease, skipping this run: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void releaseLease() {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(config.getLockKey()), nodeId);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to release the outbox relay lease: {}", e.getMessage());
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
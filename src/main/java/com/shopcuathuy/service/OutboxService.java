@@ -0,0 +1,158 @@
+package com.shopcuathuy.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopcuathuy.config.OutboxConfig;
+import com.shopcuathuy.entity.OutboxEvent;
+import com.shopcuathuy.repository.OutboxEventRepository;
+import com.shopcuathuy.repository.OutboxSequenceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes RabbitMQ messages to the outbox table.
+ *
+ * Inside a read-write transaction the event is saved in that transaction, so
+ * it is published only if the change commits; callers enqueue inside their
+ * transaction rather than after it. Without one, inside a read-only one, or
+ * from a callback of a transaction that has already committed, it is saved
+ * in a transaction of its own.
+ * {@link OutboxRelayService} publishes the rows.
+ *
+ * An event of an ordered exchange, such as orders and products, takes the
+ * next sequence number of its aggregate. The sequence row stays locked
+ * until the transaction commits, so a concurrent writer of the same
+ * aggregate waits, and the sequence order is the commit order the relay
+ * publishes in. Other events take no sequence and no lock.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class OutboxService {
+
+    private static final TypeReference<Map<String, Object>> HEADERS_TYPE = new TypeReference<>() {};
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSequenceRepository outboxSequenceRepository;
+    private final MessageConverter messageConverter;
+    private final ObjectMapper objectMapper;
+    private final OutboxConfig config;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate ownTransaction;
+    private final Counter enqueued;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository,
+                         OutboxSequenceRepository outboxSequenceRepository,
+                         MessageConverter messageConverter,
+                         ObjectMapper objectMapper,
+                         OutboxConfig config,
+                         EntityManagerFactory entityManagerFactory,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxSequenceRepository = outboxSequenceRepository;
+        this.messageConverter = messageConverter;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.entityManagerFactory = entityManagerFactory;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enqueued = Counter.builder("outbox.enqueued").register(meterRegistry);
+    }
+
+    /**
+     * Store a message for publishing once the current transaction commits
+     *
+     * @param aggregateId events of an ordered exchange with the same aggregate
+     *                    id are published in the order they were committed; null for none
+     */
+    public void enqueue(String exchange, String routingKey, String aggregateId, Object payload) {
+        OutboxEvent event = toEvent(exchange, routingKey, aggregateId, payload);
+        if (inOpenTransaction()) {
+            save(event);
+        } else {
+            ownTransaction.executeWithoutResult(status -> save(event));
+        }
+        enqueued.increment();
+    }
+
+    /**
+     * Rebuild the AMQP message of a stored event
+     */
+    public Message toMessage(OutboxEvent event) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(event.getContentType());
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        // Lets consumers drop duplicates of an at-least-once delivery
+        properties.setMessageId("outbox-" + event.getId());
+        if (event.getHeaders() != null) {
+            try {
+                objectMapper.readValue(event.getHeaders(), HEADERS_TYPE).forEach(properties::setHeader);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Unreadable headers of outbox event " + event.getId(), e);
+            }
+        }
+        return new Message(event.getPayload().getBytes(StandardCharsets.UTF_8), properties);
+    }
+
+    /**
+     * Whether a read-write transaction is active and not yet committed; an
+     * afterCommit callback still reports its transaction as active
+     */
+    private boolean inOpenTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        Object holder = TransactionSynchronizationManager.getResource(entityManagerFactory);
+        return !(holder instanceof EntityManagerHolder entityManagerHolder)
+                || entityManagerHolder.getEntityManager().getTransaction().isActive();
+    }
+
+    private void save(OutboxEvent event) {
+        if (event.getAggregateId() != null && config.getOrderedExchanges().contains(event.getExchange())) {
+            String key = event.getAggregateType() + ":" + event.getAggregateId();
+            outboxSequenceRepository.advance(key);
+            event.setAggregateSequence(outboxSequenceRepository.current(key));
+        }
+        outboxEventRepository.save(event);
+    }
+
+    private OutboxEvent toEvent(String exchange, String routingKey, String aggregateId, Object payload) {
+        // Converting here keeps the body and type headers exactly what a direct send would produce
+        Message message = messageConverter.toMessage(payload, new MessageProperties());
+        Map<String, Object> headers = new HashMap<>(message.getMessageProperties().getHeaders());
+        String headersJson;
+        try {
+            headersJson = headers.isEmpty() ? null : objectMapper.writeValueAsString(headers);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Message headers cannot be stored: " + e.getMessage(), e);
+        }
+        return OutboxEvent.builder()
+                .aggregateType(exchange)
+                .aggregateId(aggregateId)
+                .exchange(exchange)
+                .routingKey(routingKey)
+                .contentType(message.getMessageProperties().getContentType())
+                .headers(headersJson)
+                .payload(new String(message.getBody(), StandardCharsets.UTF_8))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,205 @@
+package com.shopcuathuy.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopcuathuy.config.AnalyticsPartitionConfig;
+import com.shopcuathuy.config.ExportConfig;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+/**
+ * Copies a table partition to MinIO before it is dropped.
+ *
+ * The partition is streamed from MySQL into a gzip file laid out by column:
+ * a header line names the columns, then each line holds one row group with
+ * an array of values per column, and a last line gives the row count.
+ * Values of a column sit together, so they compress well and a reader can
+ * take single columns without parsing whole rows.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class PartitionArchiveWriter {
+
+    private static final String CONTENT_TYPE = "application/gzip";
+    private static final String FORMAT = "column-chunks";
+
+    private final JdbcTemplate streamingTemplate;
+    private final FileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
+    private final AnalyticsPartitionConfig.Archive config;
+
+    public PartitionArchiveWriter(DataSource dataSource,
+                                  FileStorageService fileStorageService,
+                                  ObjectMapper objectMapper,
+                                  AnalyticsPartitionConfig config) {
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        // Rows are streamed one at a time instead of the driver reading the whole partition
+        this.streamingTemplate.setFetchSize(Integer.parseInt(ExportConfig.STREAMING_FETCH_SIZE));
+        this.fileStorageService = fileStorageService;
+        this.objectMapper = objectMapper;
+        this.config = config.getArchive();
+    }
+
+    /**
+     * Archive one partition of a table
+     *
+     * @return the MinIO object name and the number of rows archived
+     * @throws IOException when the local spool file cannot be written
+     */
+    public ArchivedPartition archive(String table, String partition) throws IOException {
+        Path spool = Files.createTempFile(table + "-" + partition + "-", ".json.gz");
+        try {
+            long rows;
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(spool), 64 * 1024);
+                 JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                ColumnChunkWriter writer = new ColumnChunkWriter(json, table, partition);
+                try {
+                    streamingTemplate.query("SELECT * FROM " + table + " PARTITION (" + partition + ")", writer);
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                rows = writer.finish();
+            }
+
+            String objectName;
+            try (InputStream in = Files.newInputStream(spool)) {
+                objectName = fileStorageService.uploadStream(in, config.getFolder() + "/" + table,
+                        partition + ".json.gz", CONTENT_TYPE, config.getUploadPartSize());
+            }
+            return new ArchivedPartition(objectName, rows);
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    public record ArchivedPartition(String objectName, long rows) {
+    }
+
+    /**
+     * Collects rows into row groups and writes each group column by column
+     */
+    private class ColumnChunkWriter implements RowCallbackHandler {
+
+        private final JsonGenerator json;
+        private final String table;
+        private final String partition;
+
+        private List<String> columns;
+        private List<List<Object>> values;
+        private int groupRows;
+        private long totalRows;
+
+        ColumnChunkWriter(JsonGenerator json, String table, String partition) {
+            this.json = json;
+            this.table = table;
+            this.partition = partition;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                if (columns == null) {
+                    writeHeader(rs.getMetaData());
+                }
+                for (int i = 0; i < columns.size(); i++) {
+                    values.get(i).add(normalize(rs.getObject(i + 1)));
+                }
+                groupRows++;
+                totalRows++;
+                if (groupRows >= config.getRowGroupSize()) {
+                    writeGroup();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        long finish() throws IOException {
+            if (columns == null) {
+                writeHeader(null);
+            }
+            if (groupRows > 0) {
+                writeGroup();
+            }
+            json.writeStartObject();
+            json.writeNumberField("rowCount", totalRows);
+            json.writeEndObject();
+            json.writeRaw('\n');
+            return totalRows;
+        }
+
+        private void writeHeader(ResultSetMetaData metaData) throws IOException {
+            columns = new ArrayList<>();
+            json.writeStartObject();
+            json.writeStringField("format", FORMAT);
+            json.writeNumberField("version", 1);
+            json.writeStringField("table", table);
+            json.writeStringField("partition", partition);
+            json.writeArrayFieldStart("columns");
+            if (metaData != null) {
+                try {
+                    for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                        columns.add(metaData.getColumnLabel(i));
+                        json.writeStartObject();
+                        json.writeStringField("name", metaData.getColumnLabel(i));
+                        json.writeStringField("type", metaData.getColumnTypeName(i));
+                        json.writeEndObject();
+                    }
+                } catch (SQLException e) {
+                    throw new IOException("Failed to read the columns of " + table, e);
+                }
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeRaw('\n');
+
+            values = new ArrayList<>(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                values.add(new ArrayList<>(config.getRowGroupSize()));
+            }
+        }
+
+        private void writeGroup() throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("rows", groupRows);
+            json.writeObjectFieldStart("columns");
+            for (int i = 0; i < columns.size(); i++) {
+                json.writeFieldName(columns.get(i));
+                objectMapper.writeValue(json, values.get(i));
+                values.get(i).clear();
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+            json.writeRaw('\n');
+            groupRows = 0;
+        }
+
+        private Object normalize(Object value) {
+            if (value instanceof Timestamp timestamp) {
+                return timestamp.toLocalDateTime().toString();
+            }
+            if (value instanceof TemporalAccessor) {
+                return value.toString();
+            }
+            return value;
+        }
+    }
+}
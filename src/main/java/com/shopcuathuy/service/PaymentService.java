@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import com.shopcuathuy.dto.CreatePaymentDTO;
+import com.shopcuathuy.dto.ExportJobDTO;
 import com.shopcuathuy.dto.PaymentDTO;
 import com.shopcuathuy.dto.VNPayPaymentDTO;
 import com.shopcuathuy.entity.*;
@@ -32,6 +33,14 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 public class PaymentService {
 
+    private static final List<ExportColumn<Payment>> EXPORT_COLUMNS = List.of(
+            ExportColumn.of("id", Payment::getId),
+            ExportColumn.of("orderId", payment -> payment.getOrder() != null ? payment.getOrder().getId() : null),
+            ExportColumn.of("amount", Payment::getAmount),
+            ExportColumn.of("status", Payment::getStatus),
+            ExportColumn.of("method", payment -> payment.getPaymentMethod() != null ? payment.getPaymentMethod().getName() : null),
+            ExportColumn.of("createdAt", Payment::getCreatedAt));
+
     private final PaymentRepository paymentRepository;
     private final PaymentMethodRepository paymentMethodRepository;
     private final OrderRepository orderRepository;
@@ -39,6 +48,8 @@ public class PaymentService {
     private final VNPayService vnPayService;
     private final MessageProducerService messageProducerService;
     private final FileStorageService fileStorageService;
+    private final StreamingExportService streamingExportService;
+    private final StockReservationService stockReservationService;
 
     /**
      * Create payment
@@ -108,6 +119,7 @@ public class PaymentService {
         if (payment.getExpiredAt() != null && payment.getExpiredAt().isBefore(LocalDateTime.now())) {
             payment.setStatus(Payment.PaymentStatus.EXPIRED);
             paymentRepository.save(payment);
+            stockReservationService.release(payment.getOrder().getId());
             throw new RuntimeException("Payment has expired");
         }
 
@@ -154,6 +166,7 @@ public class PaymentService {
         payment.setStatus(Payment.PaymentStatus.SUCCESS);
         payment.setPaidAt(LocalDateTime.now());
         payment = paymentRepository.save(payment);
+        confirmStock(payment);
 
         // Send payment success message
         messageProducerService.sendPaymentSuccess(payment);
@@ -161,6 +174,24 @@ public class PaymentService {
         return paymentMapper.toDTO(payment);
     }
 
+    /**
+     * Confirm the order's stock for a successful payment
+     *
+     * The money has been captured, so a failed confirmation must not roll
+     * the payment back: the order is put on hold for a refund or restock.
+     */
+    private void confirmStock(Payment payment) {
+        Order order = payment.getOrder();
+        if (stockReservationService.confirm(order.getId())) {
+            return;
+        }
+        log.error("Payment {} succeeded but the stock of order {} is gone, holding the order for refund or restock",
+                payment.getId(), order.getId());
+        order.setStatus(Order.OrderStatus.ON_HOLD);
+        order.setUpdatedAt(LocalDateTime.now());
+        orderRepository.save(order);
+    }
+
     /**
      * Handle payment callback
      */
@@ -200,6 +231,7 @@ public class PaymentService {
                 payment.setGatewayResponse(callbackParams.toString());
                 
                 payment = paymentRepository.save(payment);
+                confirmStock(payment);
 
                 // Send payment success message
                 messageProducerService.sendPaymentSuccess(payment);
@@ -210,6 +242,7 @@ public class PaymentService {
                 payment.setFailureReason("Payment failed with code: " + responseCode);
                 payment.setGatewayResponse(callbackParams.toString());
                 paymentRepository.save(payment);
+                stockReservationService.release(payment.getOrder().getId());
 
                 // Send payment failed message
                 messageProducerService.sendPaymentFailed(payment);
@@ -273,6 +306,7 @@ public class PaymentService {
 
         payment.setStatus(Payment.PaymentStatus.CANCELLED);
         payment = paymentRepository.save(payment);
+        stockReservationService.release(payment.getOrder().getId());
 
         // Send payment cancelled message
         messageProducerService.sendPaymentCancelled(payment);
@@ -300,17 +334,10 @@ public class PaymentService {
     /**
      * Export payment data
      */
-    public String exportPaymentData(Long userId, LocalDateTime startDate, LocalDateTime endDate, String format) {
-        List<Payment> payments = paymentRepository.findByUserIdAndCreatedAtBetween(userId, startDate, endDate);
-        
-        // Generate export data
-        String exportData = generatePaymentExportData(payments, format);
-        
-        // Store to MinIO
-        String fileName = "payment-export-" + userId + "-" + System.currentTimeMillis() + "." + format;
-        String fileUrl = fileStorageService.uploadPaymentExport(fileName, exportData);
-        
-        return fileUrl;
+    public ExportJobDTO exportPaymentData(Long userId, LocalDateTime startDate, LocalDateTime endDate, String format) {
+        String ownerId = String.valueOf(userId);
+        return streamingExportService.submit("payment-export-" + userId, "payments/exports", format, EXPORT_COLUMNS,
+                () -> paymentRepository.streamByUserIdAndCreatedAtBetween(ownerId, startDate, endDate));
     }
 
     /**
@@ -344,49 +371,4 @@ public class PaymentService {
         );
     }
 
-    /**
-     * Generate payment export data
-     */
-    private String generatePaymentExportData(List<Payment> payments, String format) {
-        if ("json".equalsIgnoreCase(format)) {
-            return generatePaymentJsonExport(payments);
-        } else if ("csv".equalsIgnoreCase(format)) {
-            return generatePaymentCsvExport(payments);
-        }
-        return generatePaymentJsonExport(payments);
-    }
-
-    /**
-     * Generate JSON export
-     */
-    private String generatePaymentJsonExport(List<Payment> payments) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < payments.size(); i++) {
-            Payment payment = payments.get(i);
-            json.append(createPaymentDataJson(payment));
-            if (i < payments.size() - 1) {
-                json.append(",");
-            }
-        }
-        json.append("]");
-        return json.toString();
-    }
-
-    /**
-     * Generate CSV export
-     */
-    private String generatePaymentCsvExport(List<Payment> payments) {
-        StringBuilder csv = new StringBuilder("id,orderId,amount,status,method,createdAt\n");
-        for (Payment payment : payments) {
-            csv.append(String.format("%d,%d,%s,%s,%s,%s\n",
-                payment.getId(),
-                payment.getOrder().getId(),
-                payment.getAmount(),
-                payment.getStatus(),
-                payment.getPaymentMethod().getName(),
-                payment.getCreatedAt()
-            ));
-        }
-        return csv.toString();
-    }
 }
@@ -0,0 +1,272 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.config.ProductCounterConfig;
+import com.shopcuathuy.exception.ResourceNotFoundException;
+import com.shopcuathuy.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind store for product view and sold counters.
+ *
+ * Increments are absorbed by per-product {@link LongAdder}s and flushed
+ * periodically as relative {@code UPDATE ... SET view_count = view_count + ?}
+ * statements, so a page view never rewrites the product row. The product
+ * is looked up once, when it first gets a counter slot.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class ProductCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCounterService.class);
+
+    private static final String FLUSH_SQL =
+            "UPDATE products SET view_count = view_count + ?, sold_count = sold_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final ProductCounterConfig config;
+    private final ListingCacheService listingCacheService;
+    private final ProductRepository productRepository;
+
+    // Entries are kept after a flush: removing them would race with concurrent
+    // increments. Slots are only created for existing products and removed
+    // once a flush finds the product deleted, so the map is bounded by the
+    // size of the catalog.
+    private final Map<String, ProductCounters> counters = new ConcurrentHashMap<>();
+
+    private final LongAdder pendingViews = new LongAdder();
+    private final LongAdder pendingSold = new LongAdder();
+
+    private final Counter flushedViews;
+    private final Counter flushedSold;
+    private final Counter flushFailures;
+    private final Timer flushTimer;
+
+    public ProductCounterService(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 CacheManager cacheManager,
+                                 ProductCounterConfig config,
+                                 ListingCacheService listingCacheService,
+                                 ProductRepository productRepository,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.config = config;
+        this.listingCacheService = listingCacheService;
+        this.productRepository = productRepository;
+
+        Gauge.builder("product.counters.pending", pendingViews, LongAdder::sum)
+                .tag("type", "view")
+                .description("View increments not yet flushed to the database")
+                .register(meterRegistry);
+        Gauge.builder("product.counters.pending", pendingSold, LongAdder::sum)
+                .tag("type", "sold")
+                .description("Sold increments not yet flushed to the database")
+                .register(meterRegistry);
+        Gauge.builder("product.counters.tracked", counters, Map::size)
+                .description("Products with an in-memory counter slot")
+                .register(meterRegistry);
+
+        this.flushedViews = Counter.builder("product.counters.flushed").tag("type", "view").register(meterRegistry);
+        this.flushedSold = Counter.builder("product.counters.flushed").tag("type", "sold").register(meterRegistry);
+        this.flushFailures = Counter.builder("product.counters.flush.failures").register(meterRegistry);
+        this.flushTimer = Timer.builder("product.counters.flush").register(meterRegistry);
+    }
+
+    /**
+     * Record a product view
+     *
+     * @throws ResourceNotFoundException if the product does not exist
+     */
+    public void recordView(String productId) {
+        slot(productId).views.increment();
+        pendingViews.increment();
+    }
+
+    /**
+     * Record sold units for a product
+     */
+    public void recordSold(String productId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        slot(productId).sold.add(quantity);
+        pendingSold.add(quantity);
+    }
+
+    /**
+     * Get the view count not yet flushed for a product
+     */
+    public long getPendingViews(String productId) {
+        ProductCounters slot = counters.get(productId);
+        return slot == null ? 0 : slot.views.sum();
+    }
+
+    /**
+     * Get the sold count not yet flushed for a product
+     */
+    public long getPendingSold(String productId) {
+        ProductCounters slot = counters.get(productId);
+        return slot == null ? 0 : slot.sold.sum();
+    }
+
+    /**
+     * Flush aggregated deltas to the database
+     */
+    @Scheduled(fixedDelayString = "${app.product-counters.flush-interval-ms:5000}")
+    public void flush() {
+        List<Delta> deltas = drainDeltas();
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        flushTimer.record(() -> {
+            int from = 0;
+            try {
+                for (; from < deltas.size(); from += config.getBatchSize()) {
+                    List<Delta> chunk = deltas.subList(from, Math.min(from + config.getBatchSize(), deltas.size()));
+                    writeChunk(chunk);
+                    evictCachesQuietly(chunk);
+                }
+            } catch (Exception e) {
+                // Each chunk commits as a unit, so the failed chunk and the ones
+                // after it can be re-queued without double counting
+                List<Delta> remaining = deltas.subList(from, deltas.size());
+                requeue(remaining);
+                flushFailures.increment();
+                logger.error("Failed to flush product counters, {} products re-queued: {}",
+                        remaining.size(), e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Drain pending counters on shutdown
+     */
+    @PreDestroy
+    public void drain() {
+        logger.info("Draining product counters: {} views, {} sold pending",
+                pendingViews.sum(), pendingSold.sum());
+        flush();
+    }
+
+    private ProductCounters slot(String productId) {
+        ProductCounters slot = counters.get(productId);
+        if (slot != null) {
+            return slot;
+        }
+        if (productId == null || !productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        return counters.computeIfAbsent(productId, id -> new ProductCounters());
+    }
+
+    private List<Delta> drainDeltas() {
+        List<Delta> deltas = new ArrayList<>();
+        counters.forEach((productId, slot) -> {
+            long views = slot.views.sumThenReset();
+            long sold = slot.sold.sumThenReset();
+            if (views != 0 || sold != 0) {
+                deltas.add(new Delta(productId, views, sold));
+            }
+        });
+        return deltas;
+    }
+
+    private void writeChunk(List<Delta> chunk) {
+        int[] updated = transactionTemplate.execute(status -> {
+            List<Object[]> args = new ArrayList<>(chunk.size());
+            for (Delta delta : chunk) {
+                args.add(new Object[]{delta.views(), delta.sold(), delta.productId()});
+            }
+            return jdbcTemplate.batchUpdate(FLUSH_SQL, args);
+        });
+
+        // The product was deleted since its slot was created
+        for (int i = 0; updated != null && i < updated.length; i++) {
+            if (updated[i] == 0) {
+                counters.remove(chunk.get(i).productId());
+            }
+        }
+
+        long views = 0;
+        long sold = 0;
+        for (Delta delta : chunk) {
+            views += delta.views();
+            sold += delta.sold();
+        }
+        pendingViews.add(-views);
+        pendingSold.add(-sold);
+        flushedViews.increment(views);
+        flushedSold.increment(sold);
+    }
+
+    private void requeue(List<Delta> deltas) {
+        for (Delta delta : deltas) {
+            ProductCounters slot = counters.computeIfAbsent(delta.productId(), id -> new ProductCounters());
+            slot.views.add(delta.views());
+            slot.sold.add(delta.sold());
+        }
+    }
+
+    private void evictCachesQuietly(List<Delta> chunk) {
+        // The chunk is already committed, so a cache failure must not re-queue it
+        try {
+            evictCaches(chunk);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to evict product caches after counter flush: {}", e.getMessage());
+        }
+    }
+
+    private void evictCaches(List<Delta> chunk) {
+        Cache products = cacheManager.getCache("products");
+        boolean viewsChanged = false;
+        boolean soldChanged = false;
+        for (Delta delta : chunk) {
+            if (products != null) {
+                products.evict(delta.productId());
+            }
+            viewsChanged |= delta.views() != 0;
+            soldChanged |= delta.sold() != 0;
+        }
+
+        // Ranked listings depend on every product's counter, so they are
+        // marked stale once per flush instead of once per increment
+        if (viewsChanged) {
+            listingCacheService.invalidate("most-viewed-products");
+        }
+        if (soldChanged) {
+            listingCacheService.invalidate("top-selling-products");
+        }
+    }
+
+    private static final class ProductCounters {
+        private final LongAdder views = new LongAdder();
+        private final LongAdder sold = new LongAdder();
+    }
+
+    private record Delta(String productId, long views, long sold) {
+    }
+}
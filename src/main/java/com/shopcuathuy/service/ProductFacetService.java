@@ -0,0 +1,279 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.config.ProductFacetConfig;
+import com.shopcuathuy.dto.FacetBucketDTO;
+import com.shopcuathuy.dto.ProductFacetsDTO;
+import com.shopcuathuy.dto.ProductSearchCriteria;
+import com.shopcuathuy.entity.Category;
+import com.shopcuathuy.repository.CategoryRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service computing product facet counts for a filter set.
+ *
+ * All facets come from a single grouped scan of the filtered products: each
+ * row of the result is one (brand, category, price bucket, rating, free
+ * shipping, in stock) combination with its count, and the individual facets
+ * are summed up from those rows in memory. A text search is matched by the
+ * search index and narrows the scan to the matched ids; the LIKE filter is
+ * only used while the index is unavailable, as in product search.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class ProductFacetService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetService.class);
+
+    private static final int MAX_RATING_BAND = 4;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CategoryRepository categoryRepository;
+    private final ProductSearchEngine productSearchEngine;
+    private final ProductFacetConfig config;
+
+    public ProductFacetService(NamedParameterJdbcTemplate jdbcTemplate,
+                               CategoryRepository categoryRepository,
+                               ProductSearchEngine productSearchEngine,
+                               ProductFacetConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.categoryRepository = categoryRepository;
+        this.productSearchEngine = productSearchEngine;
+        this.config = config;
+    }
+
+    /**
+     * Get facet counts for the products matching the criteria
+     */
+    @Cacheable(value = "product-facets", key = "#criteria.signature()")
+    @Transactional(readOnly = true)
+    public ProductFacetsDTO getFacets(ProductSearchCriteria criteria) {
+        ProductSearchCriteria normalized = criteria.normalized();
+        List<BigDecimal> boundaries = config.getPriceBoundaries();
+        List<String> searchIds = searchIds(normalized.getSearch());
+        if (searchIds != null && searchIds.isEmpty()) {
+            return aggregate(List.of(), boundaries);
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT brand, category_id, " + priceBucketExpression(boundaries, params) + " AS price_bucket, "
+                + "FLOOR(rating) AS rating_floor, free_shipping, "
+                + "CASE WHEN stock_quantity > 0 THEN 1 ELSE 0 END AS in_stock, COUNT(*) AS cnt "
+                + "FROM products" + whereClause(normalized, searchIds, params)
+                + " GROUP BY brand, category_id, price_bucket, rating_floor, free_shipping, in_stock";
+
+        List<FacetRow> rows = jdbcTemplate.query(sql, params, (rs, rowNum) -> new FacetRow(
+                rs.getString("brand"),
+                rs.getString("category_id"),
+                rs.getInt("price_bucket"),
+                rs.getInt("rating_floor"),
+                rs.getBoolean("free_shipping"),
+                rs.getInt("in_stock") == 1,
+                rs.getLong("cnt")));
+
+        return aggregate(rows, boundaries);
+    }
+
+    /**
+     * Ids of the products matching a text search
+     *
+     * @return null when there is no search, or the index is unavailable and
+     *         the text has to be matched in the database
+     */
+    private List<String> searchIds(String search) {
+        if (search == null) {
+            return null;
+        }
+        try {
+            return productSearchEngine.search(search, PageRequest.of(0, config.getMaxSearchHits())).getContent();
+        } catch (RuntimeException e) {
+            logger.warn("Product search index unavailable, falling back to database search for facets: {}",
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    private ProductFacetsDTO aggregate(List<FacetRow> rows, List<BigDecimal> boundaries) {
+        Map<String, Long> brands = new HashMap<>();
+        Map<String, Long> categories = new HashMap<>();
+        long[] priceBuckets = new long[boundaries.size() + 1];
+        long[] ratingFloors = new long[MAX_RATING_BAND + 2];
+        long total = 0;
+        long freeShipping = 0;
+        long inStock = 0;
+
+        for (FacetRow row : rows) {
+            total += row.count();
+            if (row.brand() != null && !row.brand().isBlank()) {
+                brands.merge(row.brand(), row.count(), Long::sum);
+            }
+            if (row.categoryId() != null) {
+                categories.merge(row.categoryId(), row.count(), Long::sum);
+            }
+            priceBuckets[row.priceBucket()] += row.count();
+            ratingFloors[Math.min(Math.max(row.ratingFloor(), 0), ratingFloors.length - 1)] += row.count();
+            if (row.freeShipping()) {
+                freeShipping += row.count();
+            }
+            if (row.inStock()) {
+                inStock += row.count();
+            }
+        }
+
+        return ProductFacetsDTO.builder()
+                .total(total)
+                .brands(termBuckets(brands, config.getMaxBrandBuckets(), Function.identity()))
+                .categories(termBuckets(categories, config.getMaxCategoryBuckets(), categoryNames(categories)))
+                .priceRanges(priceBuckets(priceBuckets, boundaries))
+                .ratings(ratingBands(ratingFloors))
+                .freeShipping(freeShipping)
+                .inStock(inStock)
+                .build();
+    }
+
+    private List<FacetBucketDTO> termBuckets(Map<String, Long> counts, int limit, Function<String, String> labels) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(entry -> FacetBucketDTO.builder()
+                        .key(entry.getKey())
+                        .label(labels.apply(entry.getKey()))
+                        .count(entry.getValue())
+                        .build())
+                .toList();
+    }
+
+    private Function<String, String> categoryNames(Map<String, Long> categories) {
+        if (categories.isEmpty()) {
+            return Function.identity();
+        }
+        Map<String, String> names = categoryRepository.findAllById(categories.keySet()).stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+        return id -> names.getOrDefault(id, id);
+    }
+
+    private List<FacetBucketDTO> priceBuckets(long[] counts, List<BigDecimal> boundaries) {
+        List<FacetBucketDTO> buckets = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            BigDecimal from = i == 0 ? BigDecimal.ZERO : boundaries.get(i - 1);
+            BigDecimal to = i < boundaries.size() ? boundaries.get(i) : null;
+            buckets.add(FacetBucketDTO.builder()
+                    .key(from.toPlainString() + "-" + (to != null ? to.toPlainString() : "*"))
+                    .from(from)
+                    .to(to)
+                    .count(counts[i])
+                    .build());
+        }
+        return buckets;
+    }
+
+    private List<FacetBucketDTO> ratingBands(long[] ratingFloors) {
+        // Bands are cumulative ("4 stars and up"), so sum from the top down
+        List<FacetBucketDTO> bands = new ArrayList<>();
+        long cumulative = ratingFloors[ratingFloors.length - 1];
+        for (int band = MAX_RATING_BAND; band >= 1; band--) {
+            cumulative += ratingFloors[band];
+            bands.add(FacetBucketDTO.builder()
+                    .key(band + "+")
+                    .from(BigDecimal.valueOf(band))
+                    .count(cumulative)
+                    .build());
+        }
+        return bands;
+    }
+
+    private String priceBucketExpression(List<BigDecimal> boundaries, MapSqlParameterSource params) {
+        StringBuilder expression = new StringBuilder("CASE");
+        for (int i = 0; i < boundaries.size(); i++) {
+            expression.append(" WHEN price < :priceBoundary").append(i).append(" THEN ").append(i);
+            params.addValue("priceBoundary" + i, boundaries.get(i));
+        }
+        return expression.append(" ELSE ").append(boundaries.size()).append(" END").toString();
+    }
+
+    /**
+     * Build the same filters as ProductRepository#findByMultipleCriteria, plus
+     * brand and stock availability. Only the filters that are set are emitted,
+     * so MySQL can pick an index for them.
+     */
+    private String whereClause(ProductSearchCriteria criteria, List<String> searchIds, MapSqlParameterSource params) {
+        List<String> predicates = new ArrayList<>();
+        if (criteria.getSellerId() != null) {
+            predicates.add("seller_id = :sellerId");
+            params.addValue("sellerId", criteria.getSellerId());
+        }
+        if (criteria.getCategoryId() != null) {
+            predicates.add("category_id = :categoryId");
+            params.addValue("categoryId", criteria.getCategoryId());
+        }
+        if (criteria.getStatus() != null) {
+            predicates.add("status = :status");
+            params.addValue("status", criteria.getStatus().name());
+        }
+        if (criteria.getFeatured() != null) {
+            predicates.add("featured = :featured");
+            params.addValue("featured", criteria.getFeatured());
+        }
+        if (criteria.getFreeShipping() != null) {
+            predicates.add("free_shipping = :freeShipping");
+            params.addValue("freeShipping", criteria.getFreeShipping());
+        }
+        if (criteria.getMinPrice() != null) {
+            predicates.add("price >= :minPrice");
+            params.addValue("minPrice", criteria.getMinPrice());
+        }
+        if (criteria.getMaxPrice() != null) {
+            predicates.add("price <= :maxPrice");
+            params.addValue("maxPrice", criteria.getMaxPrice());
+        }
+        if (criteria.getMinRating() != null) {
+            predicates.add("rating >= :minRating");
+            params.addValue("minRating", criteria.getMinRating());
+        }
+        if (criteria.getMinStock() != null) {
+            predicates.add("stock_quantity >= :minStock");
+            params.addValue("minStock", criteria.getMinStock());
+        }
+        if (criteria.getBrand() != null) {
+            predicates.add("LOWER(brand) = LOWER(:brand)");
+            params.addValue("brand", criteria.getBrand());
+        }
+        if (criteria.getInStock() != null) {
+            predicates.add(criteria.getInStock() ? "stock_quantity > 0" : "stock_quantity <= 0");
+        }
+        if (searchIds != null) {
+            predicates.add("id IN (:searchIds)");
+            params.addValue("searchIds", searchIds);
+        } else if (criteria.getSearch() != null) {
+            predicates.add("(LOWER(name) LIKE LOWER(CONCAT('%', :search, '%')) OR "
+                    + "LOWER(description) LIKE LOWER(CONCAT('%', :search, '%')) OR "
+                    + "LOWER(brand) LIKE LOWER(CONCAT('%', :search, '%')))");
+            params.addValue("search", criteria.getSearch());
+        }
+        return predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates);
+    }
+
+    private record FacetRow(String brand, String categoryId, int priceBucket, int ratingFloor,
+                            boolean freeShipping, boolean inStock, long count) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.entity.ProductDocument;
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Full-text index over the product catalog.
+ *
+ * Implementations are selected with {@code app.search.engine}: {@code elasticsearch}
+ * for the shared cluster, or {@code lucene} for an in-process index that needs
+ * no external service.
+ * 
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+public interface ProductSearchEngine {
+
+    /**
+     * Add or replace a product in the index
+     */
+    void index(ProductDocument document);
+
+    /**
+     * Add or replace many products in one bulk request
+     */
+    void indexAll(List<ProductDocument> documents);
+
+    /**
+     * Remove a product from the index
+     */
+    void delete(String productId);
+
+    /**
+     * Search product ids by relevance
+     */
+    Page<String> search(String text, Pageable pageable);
+
+    /**
+     * Number of indexed products
+     */
+    long count();
+}
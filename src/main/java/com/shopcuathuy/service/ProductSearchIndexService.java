@@ -0,0 +1,121 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.entity.Product;
+import com.shopcuathuy.entity.ProductDocument;
+import com.shopcuathuy.repository.ProductRepository;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service keeping the product search index in sync with the database.
+ *
+ * Single products are (re)indexed from product events; a full bulk reindex
+ * runs at startup when the index is empty and can be triggered on demand.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class ProductSearchIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndexService.class);
+
+    private static final int REINDEX_BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final ProductSearchEngine searchEngine;
+
+    private final AtomicBoolean reindexing = new AtomicBoolean(false);
+
+    public ProductSearchIndexService(ProductRepository productRepository, ProductSearchEngine searchEngine) {
+        this.productRepository = productRepository;
+        this.searchEngine = searchEngine;
+    }
+
+    /**
+     * Index the current state of a product, or remove it if it no longer exists
+     */
+    @Transactional(readOnly = true)
+    public void indexProduct(String productId) {
+        productRepository.findById(productId).ifPresentOrElse(
+                product -> searchEngine.index(ProductDocument.fromProduct(product)),
+                () -> searchEngine.delete(productId));
+    }
+
+    /**
+     * Remove a product from the index
+     */
+    public void removeProduct(String productId) {
+        searchEngine.delete(productId);
+    }
+
+    /**
+     * Rebuild the index from the products table in batches
+     */
+    @Async
+    public void reindexAll() {
+        if (!reindexing.compareAndSet(false, true)) {
+            logger.info("Product reindex already running, skipping request");
+            return;
+        }
+
+        try {
+            long startTime = System.currentTimeMillis();
+            long indexed = 0;
+            Page<Product> page;
+            int pageNumber = 0;
+            // Each page is read in its own short transaction so the persistence
+            // context does not grow with the size of the catalog
+            do {
+                page = productRepository.findAll(
+                        PageRequest.of(pageNumber++, REINDEX_BATCH_SIZE, Sort.by("id")));
+                List<ProductDocument> documents = page.getContent().stream()
+                        .map(ProductDocument::fromProduct)
+                        .toList();
+                if (!documents.isEmpty()) {
+                    searchEngine.indexAll(documents);
+                    indexed += documents.size();
+                }
+            } while (page.hasNext());
+
+            logger.info("Reindexed {} products in {} ms", indexed, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            logger.error("Failed to reindex products: {}", e.getMessage(), e);
+        } finally {
+            reindexing.set(false);
+        }
+    }
+
+    /**
+     * Check whether a bulk reindex is in progress
+     */
+    public boolean isReindexing() {
+        return reindexing.get();
+    }
+
+    /**
+     * Populate an empty index once the application has started
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            if (searchEngine.count() == 0) {
+                logger.info("Product search index is empty, starting bulk reindex");
+                reindexAll();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to check product search index: {}", e.getMessage());
+        }
+    }
+}
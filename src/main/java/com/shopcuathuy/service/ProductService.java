@@ -4,21 +4,39 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import com.shopcuathuy.dto.CreateProductDTO;
+import com.shopcuathuy.dto.CursorPageDTO;
+import com.shopcuathuy.dto.ExportJobDTO;
+import com.shopcuathuy.dto.FacetedProductPageDTO;
+import com.shopcuathuy.dto.PageCursor;
 import com.shopcuathuy.dto.ProductDTO;
+import com.shopcuathuy.dto.ProductSearchCriteria;
+import com.shopcuathuy.dto.ProductSummaryDTO;
 import com.shopcuathuy.dto.UpdateProductDTO;
 import com.shopcuathuy.entity.Product;
 import com.shopcuathuy.exception.DuplicateResourceException;
+import com.shopcuathuy.exception.InsufficientStockException;
 import com.shopcuathuy.exception.ResourceNotFoundException;
 import com.shopcuathuy.mapper.ProductMapper;
 import com.shopcuathuy.repository.ProductRepository;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
@@ -34,6 +52,19 @@ import org.springframework.util.StringUtils;
 @Transactional
 public class ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
+    private static final int MAX_SEARCH_RESULTS = 100;
+
+    private static final List<ExportColumn<Product>> EXPORT_COLUMNS = List.of(
+            ExportColumn.of("id", Product::getId),
+            ExportColumn.of("name", Product::getName),
+            ExportColumn.of("sku", Product::getSku),
+            ExportColumn.of("slug", Product::getSlug),
+            ExportColumn.of("status", Product::getStatus),
+            ExportColumn.of("price", Product::getPrice),
+            ExportColumn.of("createdAt", Product::getCreatedAt));
+
     @Autowired
     private ProductRepository productRepository;
 
@@ -46,10 +77,31 @@ public class ProductService {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private StreamingExportService streamingExportService;
+
+    @Autowired
+    private ProductCounterService productCounterService;
+
+    @Autowired
+    private ProductSearchEngine productSearchEngine;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ListingCacheService listingCacheService;
+
+    @Autowired
+    private CategoryTreeService categoryTreeService;
+
     /**
      * Create a new product
      */
-    @CacheEvict(value = "products", allEntries = true)
+    @CacheEvict(value = "product-facets", allEntries = true)
     public ProductDTO createProduct(CreateProductDTO createProductDTO) {
         // Check if SKU already exists
         if (productRepository.existsBySku(createProductDTO.getSku())) {
@@ -68,9 +120,11 @@ public class ProductService {
 
         // Save product
         Product savedProduct = productRepository.save(product);
+        listingCacheService.invalidate("newest-products");
 
         // Send product created message to RabbitMQ
-        messageProducerService.sendProductCreatedMessage(productMapper.toDTO(savedProduct));
+        ProductDTO createdProduct = productMapper.toDTO(savedProduct);
+        messageProducerService.sendProductCreatedMessage(createdProduct);
 
         // Store product data to MinIO
         storeProductToMinIO(savedProduct);
@@ -104,45 +158,67 @@ public class ProductService {
      * Get all products with pagination
      */
     @Transactional(readOnly = true)
-    public Page<ProductDTO> getAllProducts(Pageable pageable) {
-        Page<Product> products = productRepository.findAll(pageable);
-        return products.map(productMapper::toDTO);
+    public Page<ProductSummaryDTO> getAllProducts(Pageable pageable) {
+        return productRepository.findSummaries(pageable);
     }
 
     /**
      * Get products by seller
      */
     @Transactional(readOnly = true)
-    public List<ProductDTO> getProductsBySeller(String sellerId) {
-        List<Product> products = productRepository.findBySellerId(sellerId);
-        return productMapper.toDTOList(products);
+    public List<ProductSummaryDTO> getProductsBySeller(String sellerId) {
+        return productRepository.findSummariesBySellerId(sellerId);
     }
 
     /**
      * Get products by seller with pagination
      */
     @Transactional(readOnly = true)
-    public Page<ProductDTO> getProductsBySeller(String sellerId, Pageable pageable) {
-        Page<Product> products = productRepository.findBySellerId(sellerId, pageable);
-        return products.map(productMapper::toDTO);
+    public Page<ProductSummaryDTO> getProductsBySeller(String sellerId, Pageable pageable) {
+        return productRepository.findSummariesBySellerId(sellerId, pageable);
     }
 
     /**
      * Get products by category
      */
     @Transactional(readOnly = true)
-    public List<ProductDTO> getProductsByCategory(String categoryId) {
-        List<Product> products = productRepository.findByCategoryId(categoryId);
-        return productMapper.toDTOList(products);
+    public List<ProductSummaryDTO> getProductsByCategory(String categoryId) {
+        return productRepository.findSummariesByCategoryId(categoryId);
     }
 
     /**
      * Get products by category with pagination
      */
     @Transactional(readOnly = true)
-    public Page<ProductDTO> getProductsByCategory(String categoryId, Pageable pageable) {
-        Page<Product> products = productRepository.findByCategoryId(categoryId, pageable);
-        return products.map(productMapper::toDTO);
+    public Page<ProductSummaryDTO> getProductsByCategory(String categoryId, Pageable pageable) {
+        return productRepository.findSummariesByCategoryId(categoryId, pageable);
+    }
+
+    /**
+     * Get products of a category and all its subcategories with pagination
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductSummaryDTO> getProductsInCategoryTree(String categoryId, Pageable pageable) {
+        String path = categoryTreeService.getTree().path(categoryId);
+        if (path == null) {
+            throw new ResourceNotFoundException("Category not found with id: " + categoryId);
+        }
+        return productRepository.findSummariesByCategoryPath(path, pageable);
+    }
+
+    /**
+     * Get products by category and status with keyset pagination
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductSummaryDTO> getProductsByCategoryKeyset(String categoryId, Product.ProductStatus status, String cursor, int size) {
+        PageCursor position = PageCursor.decode(cursor);
+        int limit = CursorPageDTO.limit(size);
+        Pageable fetch = PageRequest.of(0, limit + 1);
+        List<ProductSummaryDTO> rows = position == null
+                ? productRepository.findKeysetByCategoryIdAndStatus(categoryId, status, fetch)
+                : productRepository.findKeysetByCategoryIdAndStatusAfter(categoryId, status, position.createdAt(), position.id(), fetch);
+        return CursorPageDTO.of(rows, limit,
+                row -> new PageCursor(row.createdAt(), row.id()), Function.identity());
     }
 
     /**
@@ -187,17 +263,40 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public List<ProductDTO> searchProducts(String search) {
-        List<Product> products = productRepository.findByTextSearch(search);
-        return productMapper.toDTOList(products);
+        return searchProducts(search, PageRequest.of(0, MAX_SEARCH_RESULTS)).getContent();
     }
 
     /**
      * Search products by text with pagination
+     *
+     * Matching and ranking are done by the search index; only the matched page
+     * of products is loaded from the database. Falls back to the LIKE query if
+     * the index is unavailable.
      */
     @Transactional(readOnly = true)
     public Page<ProductDTO> searchProducts(String search, Pageable pageable) {
-        Page<Product> products = productRepository.findByTextSearch(search, pageable);
-        return products.map(productMapper::toDTO);
+        if (!StringUtils.hasText(search)) {
+            return productRepository.findAll(pageable).map(productMapper::toDTO);
+        }
+
+        Page<String> ids;
+        try {
+            ids = productSearchEngine.search(search.trim(), pageable);
+        } catch (RuntimeException e) {
+            logger.warn("Product search index unavailable, falling back to database search: {}", e.getMessage());
+            return productRepository.findByTextSearch(search, pageable).map(productMapper::toDTO);
+        }
+
+        Map<String, Product> productsById = productRepository.findAllById(ids.getContent()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        // Keep the relevance order of the index and skip products deleted since indexing
+        List<ProductDTO> products = ids.getContent().stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(productMapper::toDTO)
+                .toList();
+        return new PageImpl<>(products, ids.getPageable(), ids.getTotalElements());
     }
 
     /**
@@ -216,43 +315,57 @@ public class ProductService {
     }
 
     /**
-     * Get top selling products
+     * Get a page of products matching the criteria together with facet counts
      */
-    @Cacheable(value = "top-selling-products")
     @Transactional(readOnly = true)
+    public FacetedProductPageDTO getProductsWithFacets(ProductSearchCriteria criteria, Pageable pageable) {
+        ProductSearchCriteria normalized = criteria.normalized();
+        Page<Product> products = productRepository.findByFacetCriteria(
+            normalized.getSellerId(), normalized.getCategoryId(), normalized.getStatus(),
+            normalized.getFeatured(), normalized.getFreeShipping(), normalized.getMinPrice(),
+            normalized.getMaxPrice(), normalized.getMinRating(), normalized.getMinStock(),
+            normalized.getBrand(), normalized.getInStock(), normalized.getSearch(), pageable);
+
+        return FacetedProductPageDTO.builder()
+                .products(products.map(productMapper::toDTO))
+                .facets(productFacetService.getFacets(normalized))
+                .build();
+    }
+
+    /**
+     * Get top selling products
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<ProductDTO> getTopSellingProducts(Pageable pageable) {
-        List<Product> products = productRepository.findTopSellingProducts(pageable);
-        return productMapper.toDTOList(products);
+        return listingCacheService.get("top-selling-products", pageable,
+            () -> productMapper.toDTOList(productRepository.findTopSellingProducts(pageable)));
     }
 
     /**
      * Get most viewed products
      */
-    @Cacheable(value = "most-viewed-products")
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<ProductDTO> getMostViewedProducts(Pageable pageable) {
-        List<Product> products = productRepository.findMostViewedProducts(pageable);
-        return productMapper.toDTOList(products);
+        return listingCacheService.get("most-viewed-products", pageable,
+            () -> productMapper.toDTOList(productRepository.findMostViewedProducts(pageable)));
     }
 
     /**
      * Get highest rated products
      */
-    @Cacheable(value = "highest-rated-products")
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<ProductDTO> getHighestRatedProducts(Pageable pageable) {
-        List<Product> products = productRepository.findHighestRatedProducts(pageable);
-        return productMapper.toDTOList(products);
+        return listingCacheService.get("highest-rated-products", pageable,
+            () -> productMapper.toDTOList(productRepository.findHighestRatedProducts(pageable)));
     }
 
     /**
      * Get newest products
      */
-    @Cacheable(value = "newest-products")
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<ProductDTO> getNewestProducts(Pageable pageable) {
-        List<Product> products = productRepository.findNewestProducts(pageable);
-        return productMapper.toDTOList(products);
+        return listingCacheService.get("newest-products", pageable,
+            () -> productMapper.toDTOList(productRepository.findNewestProducts(pageable)));
     }
 
     /**
@@ -303,12 +416,12 @@ public class ProductService {
     /**
      * Update product
      */
-    @CacheEvict(value = {"products", "featured-products", "top-selling-products", 
-                        "most-viewed-products", "highest-rated-products", "newest-products"}, 
-                allEntries = true)
+    @CacheEvict(value = {"featured-products", "product-facets"}, allEntries = true)
     public ProductDTO updateProduct(String id, UpdateProductDTO updateProductDTO) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        evictProduct(product);
+        invalidateRankedListings();
 
         // Check if SKU already exists (excluding current product)
         if (StringUtils.hasText(updateProductDTO.getSku()) && 
@@ -330,136 +443,157 @@ public class ProductService {
 
         // Save updated product
         Product updatedProduct = productRepository.save(product);
-        return productMapper.toDTO(updatedProduct);
+        ProductDTO productDTO = productMapper.toDTO(updatedProduct);
+        messageProducerService.sendProductUpdatedMessage(productDTO);
+        return productDTO;
     }
 
     /**
      * Delete product
      */
-    @CacheEvict(value = {"products", "featured-products", "top-selling-products", 
-                        "most-viewed-products", "highest-rated-products", "newest-products"}, 
-                allEntries = true)
+    @CacheEvict(value = {"featured-products", "product-facets"}, allEntries = true)
     public void deleteProduct(String id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        evictProduct(product);
+        invalidateRankedListings();
         productRepository.delete(product);
+        messageProducerService.sendProductDeletedMessage(id, product.getSellerId());
     }
 
     /**
      * Activate product
      */
-    @CacheEvict(value = {"products", "featured-products"}, allEntries = true)
+    @CacheEvict(value = {"featured-products", "product-facets"}, allEntries = true)
     public ProductDTO activateProduct(String id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        evictProduct(product);
         
         product.setStatus(Product.ProductStatus.ACTIVE);
         product.setUpdatedAt(LocalDateTime.now());
         
         Product updatedProduct = productRepository.save(product);
-        return productMapper.toDTO(updatedProduct);
+        ProductDTO productDTO = productMapper.toDTO(updatedProduct);
+        messageProducerService.sendProductUpdatedMessage(productDTO);
+        return productDTO;
     }
 
     /**
      * Deactivate product
      */
-    @CacheEvict(value = {"products", "featured-products"}, allEntries = true)
+    @CacheEvict(value = {"featured-products", "product-facets"}, allEntries = true)
     public ProductDTO deactivateProduct(String id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        evictProduct(product);
         
         product.setStatus(Product.ProductStatus.INACTIVE);
         product.setUpdatedAt(LocalDateTime.now());
         
         Product updatedProduct = productRepository.save(product);
-        return productMapper.toDTO(updatedProduct);
+        ProductDTO productDTO = productMapper.toDTO(updatedProduct);
+        messageProducerService.sendProductUpdatedMessage(productDTO);
+        return productDTO;
     }
 
     /**
      * Set product as featured
      */
-    @CacheEvict(value = {"products", "featured-products"}, allEntries = true)
+    @CacheEvict(value = {"featured-products", "product-facets"}, allEntries = true)
     public ProductDTO setFeatured(String id, Boolean featured) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        evictProduct(product);
         
         product.setFeatured(featured);
         product.setUpdatedAt(LocalDateTime.now());
         
         Product updatedProduct = productRepository.save(product);
-        return productMapper.toDTO(updatedProduct);
+        ProductDTO productDTO = productMapper.toDTO(updatedProduct);
+        messageProducerService.sendProductUpdatedMessage(productDTO);
+        return productDTO;
     }
 
     /**
      * Update product stock
      */
-    @CacheEvict(value = "products", allEntries = true)
+    @CacheEvict(value = "product-facets", allEntries = true)
     public ProductDTO updateStock(String id, Integer stockQuantity) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        evictProduct(product);
         
         product.setStockQuantity(stockQuantity);
         product.setUpdatedAt(LocalDateTime.now());
         
         Product updatedProduct = productRepository.save(product);
-        return productMapper.toDTO(updatedProduct);
+        ProductDTO productDTO = productMapper.toDTO(updatedProduct);
+        messageProducerService.sendProductUpdatedMessage(productDTO);
+        return productDTO;
     }
 
     /**
      * Update product price
      */
-    @CacheEvict(value = "products", allEntries = true)
+    @CacheEvict(value = "product-facets", allEntries = true)
     public ProductDTO updatePrice(String id, BigDecimal price) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        evictProduct(product);
         
         product.setPrice(price);
         product.setUpdatedAt(LocalDateTime.now());
         
         Product updatedProduct = productRepository.save(product);
-        return productMapper.toDTO(updatedProduct);
+        ProductDTO productDTO = productMapper.toDTO(updatedProduct);
+        messageProducerService.sendProductUpdatedMessage(productDTO);
+        return productDTO;
     }
 
     /**
      * Increment product view count
+     *
+     * The increment is buffered and written by {@link ProductCounterService}
+     * in the next batched flush.
      */
-    @CacheEvict(value = {"products", "most-viewed-products"}, allEntries = true)
     public void incrementViewCount(String id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
-        
-        product.setViewCount(product.getViewCount() + 1);
-        productRepository.save(product);
+        productCounterService.recordView(id);
     }
 
     /**
      * Increment product sold count
      */
-    @CacheEvict(value = {"products", "top-selling-products"}, allEntries = true)
+    @CacheEvict(value = "products", key = "#id")
     public void incrementSoldCount(String id, Integer quantity) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
-        
-        product.setSoldCount(product.getSoldCount() + quantity);
-        product.setStockQuantity(product.getStockQuantity() - quantity);
-        product.setUpdatedAt(LocalDateTime.now());
-        productRepository.save(product);
+        if (productRepository.decrementStock(id, quantity) == 0) {
+            if (!productRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Product not found with id: " + id);
+            }
+            throw new InsufficientStockException("Insufficient stock for product: " + id);
+        }
+
+        productCounterService.recordSold(id, quantity);
     }
 
     /**
      * Update product rating
      */
-    @CacheEvict(value = {"products", "highest-rated-products"}, allEntries = true)
+    @CacheEvict(value = "product-facets", allEntries = true)
     public ProductDTO updateRating(String id, BigDecimal rating, Integer reviewCount) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        evictProduct(product);
+        listingCacheService.invalidate("highest-rated-products");
         
         product.setRating(rating);
         product.setReviewCount(reviewCount);
         product.setUpdatedAt(LocalDateTime.now());
         
         Product updatedProduct = productRepository.save(product);
-        return productMapper.toDTO(updatedProduct);
+        ProductDTO productDTO = productMapper.toDTO(updatedProduct);
+        messageProducerService.sendProductUpdatedMessage(productDTO);
+        return productDTO;
     }
 
     /**
@@ -521,17 +655,10 @@ public class ProductService {
     /**
      * Export product data
      */
-    public String exportProductData(Long sellerId, LocalDateTime startDate, LocalDateTime endDate, String format) {
-        List<Product> products = productRepository.findBySellerIdAndCreatedAtBetween(String.valueOf(sellerId), startDate, endDate);
-        
-        // Generate export data
-        String exportData = generateProductExportData(products, format);
-        
-        // Store to MinIO
-        String fileName = "product-export-" + sellerId + "-" + System.currentTimeMillis() + "." + format;
-        String fileUrl = fileStorageService.uploadProductExport(fileName, exportData);
-        
-        return fileUrl;
+    public ExportJobDTO exportProductData(Long sellerId, LocalDateTime startDate, LocalDateTime endDate, String format) {
+        String ownerId = String.valueOf(sellerId);
+        return streamingExportService.submit("product-export-" + sellerId, "products/exports", format, EXPORT_COLUMNS,
+                () -> productRepository.streamBySellerIdAndCreatedAtBetween(ownerId, startDate, endDate));
     }
 
     /**
@@ -567,49 +694,23 @@ public class ProductService {
     }
 
     /**
-     * Generate product export data
+     * Evict the cached entries of one product, stored under both its id and slug
      */
-    private String generateProductExportData(List<Product> products, String format) {
-        if ("json".equalsIgnoreCase(format)) {
-            return generateProductJsonExport(products);
-        } else if ("csv".equalsIgnoreCase(format)) {
-            return generateProductCsvExport(products);
+    private void evictProduct(Product product) {
+        Cache products = cacheManager.getCache("products");
+        if (products != null) {
+            products.evict(product.getId());
+            products.evict(product.getSlug());
         }
-        return generateProductJsonExport(products);
     }
 
     /**
-     * Generate JSON export
+     * Mark the ranked listings stale; they are recomputed on next access
      */
-    private String generateProductJsonExport(List<Product> products) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < products.size(); i++) {
-            Product product = products.get(i);
-            json.append(createProductDataJson(product));
-            if (i < products.size() - 1) {
-                json.append(",");
-            }
-        }
-        json.append("]");
-        return json.toString();
-    }
-
-    /**
-     * Generate CSV export
-     */
-    private String generateProductCsvExport(List<Product> products) {
-        StringBuilder csv = new StringBuilder("id,name,sku,slug,status,price,createdAt\n");
-        for (Product product : products) {
-            csv.append(String.format("%s,%s,%s,%s,%s,%s,%s\n",
-                product.getId(),
-                product.getName(),
-                product.getSku(),
-                product.getSlug(),
-                product.getStatus(),
-                product.getPrice(),
-                product.getCreatedAt()
-            ));
-        }
-        return csv.toString();
+    private void invalidateRankedListings() {
+        listingCacheService.invalidate("top-selling-products");
+        listingCacheService.invalidate("most-viewed-products");
+        listingCacheService.invalidate("highest-rated-products");
+        listingCacheService.invalidate("newest-products");
     }
 }
@@ -0,0 +1,198 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.config.CartStoreConfig;
+import com.shopcuathuy.dto.CartLine;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+/**
+ * Redis storage for active carts.
+ *
+ * A cart is one hash: each line is a field holding its quantity, its notes
+ * sit under the same field prefixed with {@code #}, and a {@code _} marker
+ * records that a user's cart has been loaded from the carts table. Every
+ * change is a single script call, so quantities are updated atomically and
+ * the expiry is refreshed in the same round trip.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class RedisCartStore {
+
+    private static final String NOTES_PREFIX = "#";
+    private static final String LOADED_MARKER = "_";
+
+    private static final RedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>(
+            "if ARGV[5] == '1' and redis.call('EXISTS', KEYS[1]) == 0 then return false end "
+                    + "local quantity = redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "if quantity <= 0 then "
+                    + "  redis.call('HDEL', KEYS[1], ARGV[1], '#' .. ARGV[1]) "
+                    + "elseif ARGV[3] ~= '' then "
+                    + "  redis.call('HSET', KEYS[1], '#' .. ARGV[1], ARGV[3]) "
+                    + "end "
+                    + "redis.call('HSETNX', KEYS[1], '_', '1') "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[4]) "
+                    + "return quantity",
+            Long.class);
+
+    private static final RedisScript<Long> SET_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then return -1 end "
+                    + "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[3]) "
+                    + "return tonumber(ARGV[2])",
+            Long.class);
+
+    private static final RedisScript<Long> MERGE_SCRIPT = new DefaultRedisScript<>(
+            "local entries = redis.call('HGETALL', KEYS[1]) "
+                    + "local merged = 0 "
+                    + "for i = 1, #entries, 2 do "
+                    + "  local field = entries[i] "
+                    + "  if string.sub(field, 1, 1) == '#' then "
+                    + "    redis.call('HSETNX', KEYS[2], field, entries[i + 1]) "
+                    + "  elseif field ~= '_' then "
+                    + "    redis.call('HINCRBY', KEYS[2], field, entries[i + 1]) "
+                    + "    merged = merged + 1 "
+                    + "  end "
+                    + "end "
+                    + "redis.call('DEL', KEYS[1]) "
+                    + "if merged > 0 then redis.call('PEXPIRE', KEYS[2], ARGV[1]) end "
+                    + "return merged",
+            Long.class);
+
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #ARGV, 2 do redis.call('HSETNX', KEYS[1], ARGV[i], ARGV[i + 1]) end "
+                    + "redis.call('HSETNX', KEYS[1], '_', '1') "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[1]) "
+                    + "return 1",
+            Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final CartStoreConfig config;
+
+    public RedisCartStore(@Qualifier("customStringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                          CartStoreConfig config) {
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+    }
+
+    public String userCartKey(String userId) {
+        return config.getKeyPrefix() + "user:" + userId;
+    }
+
+    public String guestCartKey(String guestId) {
+        return config.getKeyPrefix() + "guest:" + guestId;
+    }
+
+    /**
+     * Add to a line's quantity, removing the line when it drops to zero
+     *
+     * @return the new quantity, or null when the cart must be loaded first
+     */
+    public Long increment(String cartKey, CartLine line, boolean requireLoaded, long ttlMillis) {
+        return redisTemplate.execute(ADD_SCRIPT, List.of(cartKey),
+                line.key(), String.valueOf(line.quantity()), line.notes() != null ? line.notes() : "",
+                String.valueOf(ttlMillis), requireLoaded ? "1" : "0");
+    }
+
+    /**
+     * Set the quantity of an existing line
+     *
+     * @return false when the line is not in the cart
+     */
+    public boolean setQuantity(String cartKey, String lineKey, int quantity, long ttlMillis) {
+        Long result = redisTemplate.execute(SET_SCRIPT, List.of(cartKey),
+                lineKey, String.valueOf(quantity), String.valueOf(ttlMillis));
+        return result != null && result >= 0;
+    }
+
+    /**
+     * Remove a line and its notes
+     */
+    public boolean remove(String cartKey, String lineKey) {
+        Long removed = redisTemplate.opsForHash().delete(cartKey, lineKey, NOTES_PREFIX + lineKey);
+        return removed != null && removed > 0;
+    }
+
+    public void clear(String cartKey) {
+        redisTemplate.delete(cartKey);
+    }
+
+    /**
+     * Read all lines of a cart in one round trip
+     *
+     * @return the lines, or null when the cart is not in Redis
+     */
+    public List<CartLine> lines(String cartKey) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(cartKey);
+        if (entries.isEmpty()) {
+            return null;
+        }
+        List<CartLine> lines = new ArrayList<>();
+        entries.forEach((field, value) -> {
+            String key = field.toString();
+            if (!key.startsWith(NOTES_PREFIX) && !LOADED_MARKER.equals(key)) {
+                Object notes = entries.get(NOTES_PREFIX + key);
+                lines.add(CartLine.of(key, Integer.parseInt(value.toString()), notes != null ? notes.toString() : null));
+            }
+        });
+        return lines;
+    }
+
+    /**
+     * Seed a cart with persisted lines without overwriting newer changes
+     */
+    public void load(String cartKey, Collection<CartLine> lines, long ttlMillis) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (CartLine line : lines) {
+            fields.put(line.key(), String.valueOf(line.quantity()));
+            if (line.notes() != null) {
+                fields.put(NOTES_PREFIX + line.key(), line.notes());
+            }
+        }
+        List<String> args = new ArrayList<>(fields.size() * 2 + 1);
+        args.add(String.valueOf(ttlMillis));
+        fields.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        redisTemplate.execute(LOAD_SCRIPT, List.of(cartKey), args.toArray());
+    }
+
+    /**
+     * Move every line of one cart into another, adding up quantities
+     *
+     * @return the number of lines merged
+     */
+    public long merge(String fromCartKey, String toCartKey, long ttlMillis) {
+        Long merged = redisTemplate.execute(MERGE_SCRIPT, List.of(fromCartKey, toCartKey), String.valueOf(ttlMillis));
+        return merged != null ? merged : 0;
+    }
+
+    /**
+     * Queue a user's cart for write-behind persistence
+     */
+    public void markDirty(String userId) {
+        redisTemplate.opsForSet().add(dirtyKey(), userId);
+    }
+
+    /**
+     * Take up to {@code count} users whose carts need persisting
+     */
+    public List<String> popDirty(int count) {
+        List<String> userIds = redisTemplate.opsForSet().pop(dirtyKey(), count);
+        return userIds != null ? userIds : List.of();
+    }
+
+    private String dirtyKey() {
+        return config.getKeyPrefix() + "dirty";
+    }
+}
@@ -0,0 +1,207 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.config.AnalyticsRollupConfig;
+import com.shopcuathuy.entity.SalesAnalytics;
+import com.shopcuathuy.repository.SalesAnalyticsRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service maintaining the daily per-seller rollups in sales_analytics.
+ *
+ * Each run recomputes the last few days from orders, order items and the
+ * product view rollups with one grouped query per source, so the seller
+ * dashboard reads one row per day instead of scanning orders.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class SalesAnalyticsRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesAnalyticsRollupService.class);
+
+    static final String DAILY_TYPE = "daily";
+    static final String DAY_PERIOD = "day";
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private static final String ORDERS_SQL =
+            "SELECT o.seller_id, COUNT(*) AS total_orders, "
+                    + "SUM(CASE WHEN o.status NOT IN ('CANCELLED', 'REFUNDED') THEN o.total_amount ELSE 0 END) AS revenue, "
+                    + "SUM(CASE WHEN o.status = 'CANCELLED' THEN 1 ELSE 0 END) AS cancellations, "
+                    + "SUM(CASE WHEN o.status = 'REFUNDED' THEN 1 ELSE 0 END) AS refunds, "
+                    + "SUM(CASE WHEN o.status = 'REFUNDED' THEN o.total_amount ELSE 0 END) AS refund_amount, "
+                    + "COUNT(DISTINCT o.user_id) AS customers, "
+                    + "COUNT(DISTINCT CASE WHEN NOT EXISTS (SELECT 1 FROM orders p WHERE p.seller_id = o.seller_id "
+                    + "AND p.user_id = o.user_id AND p.created_at < :start) THEN o.user_id END) AS new_customers "
+                    + "FROM orders o WHERE o.created_at >= :start AND o.created_at < :end GROUP BY o.seller_id";
+
+    private static final String ITEMS_SQL =
+            "SELECT o.seller_id, SUM(oi.quantity) AS quantity FROM order_items oi JOIN orders o ON o.id = oi.order_id "
+                    + "WHERE o.created_at >= :start AND o.created_at < :end "
+                    + "AND o.status NOT IN ('CANCELLED', 'REFUNDED') GROUP BY o.seller_id";
+
+    private static final String VIEWS_SQL =
+            "SELECT p.seller_id, SUM(r.event_count) AS views FROM analytics_rollups r "
+                    + "JOIN products p ON p.id = r.dimension_key "
+                    + "WHERE r.granularity = 'DAY' AND r.dimension = 'PRODUCT' AND r.event_type = 'PRODUCT_VIEW' "
+                    + "AND r.bucket_start = :start GROUP BY p.seller_id";
+
+    private static final String PRODUCTS_SQL =
+            "SELECT seller_id, COUNT(*) AS total_products, "
+                    + "SUM(CASE WHEN status = 'ACTIVE' THEN 1 ELSE 0 END) AS active_products, "
+                    + "SUM(CASE WHEN stock_quantity <= 0 THEN 1 ELSE 0 END) AS out_of_stock_products, "
+                    + "SUM(CASE WHEN created_at >= :start AND created_at < :end THEN 1 ELSE 0 END) AS new_products "
+                    + "FROM products GROUP BY seller_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SalesAnalyticsRepository salesAnalyticsRepository;
+    private final AnalyticsRollupConfig config;
+
+    public SalesAnalyticsRollupService(NamedParameterJdbcTemplate jdbcTemplate,
+                                       SalesAnalyticsRepository salesAnalyticsRepository,
+                                       AnalyticsRollupConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.salesAnalyticsRepository = salesAnalyticsRepository;
+        this.config = config;
+    }
+
+    /**
+     * Refresh the daily seller rollups of the most recent days
+     */
+    @Scheduled(cron = "${app.analytics.rollup.seller-rollup-cron:0 5 * * * *}")
+    public void refreshRecentDays() {
+        LocalDate today = LocalDate.now();
+        for (int i = config.getSellerRollupDays() - 1; i >= 0; i--) {
+            LocalDate day = today.minusDays(i);
+            try {
+                refreshDay(day);
+            } catch (Exception e) {
+                logger.error("Failed to refresh seller analytics for {}: {}", day, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Recompute the daily rollups of every seller for one day
+     */
+    @Transactional
+    public void refreshDay(LocalDate day) {
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = start.plusDays(1);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", start)
+                .addValue("end", end);
+
+        Map<String, OrderTotals> orders = jdbcTemplate.query(ORDERS_SQL, params, (rs, rowNum) -> new OrderTotals(
+                        rs.getString("seller_id"),
+                        rs.getInt("total_orders"),
+                        rs.getBigDecimal("revenue"),
+                        rs.getInt("cancellations"),
+                        rs.getInt("refunds"),
+                        rs.getBigDecimal("refund_amount"),
+                        rs.getInt("customers"),
+                        rs.getInt("new_customers")))
+                .stream().collect(Collectors.toMap(OrderTotals::sellerId, Function.identity()));
+        Map<String, Integer> itemsSold = sumBySeller(ITEMS_SQL, params, "quantity");
+        Map<String, Integer> views = sumBySeller(VIEWS_SQL, params, "views");
+
+        // Catalog figures are a snapshot of now, so they only describe today
+        Map<String, ProductTotals> products = day.equals(LocalDate.now())
+                ? jdbcTemplate.query(PRODUCTS_SQL, params, (rs, rowNum) -> new ProductTotals(
+                                rs.getString("seller_id"),
+                                rs.getInt("total_products"),
+                                rs.getInt("active_products"),
+                                rs.getInt("out_of_stock_products"),
+                                rs.getInt("new_products")))
+                        .stream().collect(Collectors.toMap(ProductTotals::sellerId, Function.identity()))
+                : Map.of();
+
+        Set<String> sellerIds = new HashSet<>(orders.keySet());
+        sellerIds.addAll(views.keySet());
+        sellerIds.addAll(products.keySet());
+
+        Map<String, SalesAnalytics> existing = new HashMap<>();
+        for (SalesAnalytics analytics : salesAnalyticsRepository.findByTypeAndDate(DAILY_TYPE, start)) {
+            existing.put(analytics.getSellerId(), analytics);
+        }
+
+        for (String sellerId : sellerIds) {
+            SalesAnalytics analytics = existing.computeIfAbsent(sellerId, id -> SalesAnalytics.builder()
+                    .sellerId(id)
+                    .date(start)
+                    .type(DAILY_TYPE)
+                    .period(DAY_PERIOD)
+                    .build());
+            applyOrders(analytics, orders.get(sellerId), itemsSold.getOrDefault(sellerId, 0));
+            analytics.setTotalViews(views.getOrDefault(sellerId, 0));
+            analytics.setConversionRate(percentage(analytics.getTotalOrders(), analytics.getTotalViews()));
+            ProductTotals productTotals = products.get(sellerId);
+            if (productTotals != null) {
+                analytics.setTotalProducts(productTotals.totalProducts());
+                analytics.setActiveProducts(productTotals.activeProducts());
+                analytics.setOutOfStockProducts(productTotals.outOfStockProducts());
+                analytics.setNewProducts(productTotals.newProducts());
+            }
+        }
+        salesAnalyticsRepository.saveAll(existing.values());
+    }
+
+    private void applyOrders(SalesAnalytics analytics, OrderTotals totals, int itemsSold) {
+        if (totals == null) {
+            totals = new OrderTotals(analytics.getSellerId(), 0, BigDecimal.ZERO, 0, 0, BigDecimal.ZERO, 0, 0);
+        }
+        analytics.setTotalOrders(totals.totalOrders());
+        analytics.setTotalRevenue(totals.revenue());
+        analytics.setTotalProductsSold(itemsSold);
+        analytics.setTotalCancellations(totals.cancellations());
+        analytics.setTotalRefunds(totals.refunds());
+        analytics.setRefundAmount(totals.refundAmount());
+        analytics.setTotalCustomers(totals.customers());
+        analytics.setNewCustomers(totals.newCustomers());
+        analytics.setReturningCustomers(totals.customers() - totals.newCustomers());
+        analytics.setAverageOrderValue(analytics.calculateAverageOrderValue());
+        analytics.setCancellationRate(percentage(totals.cancellations(), totals.totalOrders()));
+    }
+
+    private Map<String, Integer> sumBySeller(String sql, MapSqlParameterSource params, String column) {
+        Map<String, Integer> sums = new HashMap<>();
+        jdbcTemplate.query(sql, params, rs -> {
+            sums.put(rs.getString("seller_id"), rs.getInt(column));
+        });
+        return sums;
+    }
+
+    private BigDecimal percentage(int part, int total) {
+        if (total == 0) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal rate = BigDecimal.valueOf(part).multiply(HUNDRED)
+                .divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP);
+        return rate.min(HUNDRED);
+    }
+
+    private record OrderTotals(String sellerId, int totalOrders, BigDecimal revenue, int cancellations,
+                               int refunds, BigDecimal refundAmount, int customers, int newCustomers) {
+    }
+
+    private record ProductTotals(String sellerId, int totalProducts, int activeProducts,
+                                 int outOfStockProducts, int newProducts) {
+    }
+}
@@ -3,6 +3,7 @@ import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
 
 import com.shopcuathuy.dto.CreateShippingDTO;
+import com.shopcuathuy.dto.ExportJobDTO;
 import com.shopcuathuy.dto.ShippingDTO;
 import com.shopcuathuy.entity.*;
 import com.shopcuathuy.mapper.ShippingMapper;
@@ -28,22 +29,33 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class ShippingService {
 
+    private static final List<ExportColumn<Shipping>> EXPORT_COLUMNS = List.of(
+            ExportColumn.of("id", Shipping::getId),
+            ExportColumn.of("orderId", shipping -> shipping.getOrder() != null ? shipping.getOrder().getId() : null),
+            ExportColumn.of("trackingNumber", Shipping::getTrackingNumber),
+            ExportColumn.of("carrier", Shipping::getCarrier),
+            ExportColumn.of("status", Shipping::getStatus),
+            ExportColumn.of("createdAt", Shipping::getCreatedAt));
+
     private final ShippingRepository shippingRepository;
     private final OrderRepository orderRepository;
     private final ShippingMethodRepository shippingMethodRepository;
     private final ShippingMapper shippingMapper;
     private final MessageProducerService messageProducerService;
     private final FileStorageService fileStorageService;
+    private final StreamingExportService streamingExportService;
 
     public ShippingService(ShippingRepository shippingRepository, OrderRepository orderRepository,
                           ShippingMethodRepository shippingMethodRepository, ShippingMapper shippingMapper,
-                          MessageProducerService messageProducerService, FileStorageService fileStorageService) {
+                          MessageProducerService messageProducerService, FileStorageService fileStorageService,
+                          StreamingExportService streamingExportService) {
         this.shippingRepository = shippingRepository;
         this.orderRepository = orderRepository;
         this.shippingMethodRepository = shippingMethodRepository;
         this.shippingMapper = shippingMapper;
         this.messageProducerService = messageProducerService;
         this.fileStorageService = fileStorageService;
+        this.streamingExportService = streamingExportService;
     }
 
     /**
@@ -246,17 +258,9 @@ public class ShippingService {
     /**
      * Export shipping data
      */
-    public String exportShippingData(LocalDateTime startDate, LocalDateTime endDate, String format) {
-        List<Shipping> shippings = shippingRepository.findByCreatedAtBetween(startDate, endDate);
-        
-        // Generate export data
-        String exportData = generateShippingExportData(shippings, format);
-        
-        // Store to MinIO
-        String fileName = "shipping-export-" + System.currentTimeMillis() + "." + format;
-        String fileUrl = fileStorageService.uploadShippingExport(fileName, exportData);
-        
-        return fileUrl;
+    public ExportJobDTO exportShippingData(LocalDateTime startDate, LocalDateTime endDate, String format) {
+        return streamingExportService.submit("shipping-export", "shipping/exports", format, EXPORT_COLUMNS,
+                () -> shippingRepository.streamByCreatedAtBetween(startDate, endDate));
     }
 
     /**
@@ -356,52 +360,6 @@ public class ShippingService {
         );
     }
 
-    /**
-     * Generate shipping export data
-     */
-    private String generateShippingExportData(List<Shipping> shippings, String format) {
-        if ("json".equalsIgnoreCase(format)) {
-            return generateShippingJsonExport(shippings);
-        } else if ("csv".equalsIgnoreCase(format)) {
-            return generateShippingCsvExport(shippings);
-        }
-        return generateShippingJsonExport(shippings);
-    }
-
-    /**
-     * Generate JSON export
-     */
-    private String generateShippingJsonExport(List<Shipping> shippings) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < shippings.size(); i++) {
-            Shipping shipping = shippings.get(i);
-            json.append(createShippingDataJson(shipping));
-            if (i < shippings.size() - 1) {
-                json.append(",");
-            }
-        }
-        json.append("]");
-        return json.toString();
-    }
-
-    /**
-     * Generate CSV export
-     */
-    private String generateShippingCsvExport(List<Shipping> shippings) {
-        StringBuilder csv = new StringBuilder("id,orderId,trackingNumber,carrier,status,createdAt\n");
-        for (Shipping shipping : shippings) {
-            csv.append(String.format("%d,%d,%s,%s,%s,%s\n",
-                shipping.getId(),
-                shipping.getOrder().getId(),
-                shipping.getTrackingNumber(),
-                shipping.getCarrier(),
-                shipping.getStatus(),
-                shipping.getCreatedAt()
-            ));
-        }
-        return csv.toString();
-    }
-
     /**
      * Shipping Dashboard DTO
      */
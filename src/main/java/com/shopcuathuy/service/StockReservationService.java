@@ -0,0 +1,347 @@
+package com.shopcuathuy.service;
+
+import com.shopcuathuy.dto.CreateOrderItemDTO;
+import com.shopcuathuy.entity.StockReservation;
+import com.shopcuathuy.exception.InsufficientStockException;
+import com.shopcuathuy.repository.ProductRepository;
+import com.shopcuathuy.repository.ProductVariantRepository;
+import com.shopcuathuy.repository.StockReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service for holding product and variant stock while an order awaits payment.
+ *
+ * Stock is taken with a conditional {@code UPDATE ... WHERE stock_quantity >= ?}
+ * on the product row and, for variant lines, on the variant row as well, so
+ * the product total stays in step with its variants. Reservations join the
+ * order transaction and are rolled back with it.
+ *
+ * Reservations are confirmed on payment success and returned on failure,
+ * cancellation or expiry. Every status change is a compare-and-set, so a
+ * reservation is confirmed or returned exactly once. A payment that lands
+ * after its reservation was returned takes the stock again. If that stock
+ * has been sold in the meantime the confirmation reports failure instead of
+ * throwing, so the caller can keep the captured payment and flag the order.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    private static final int SWEEP_BATCH_SIZE = 200;
+
+    private final StockReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final ProductCounterService productCounterService;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate confirmTransaction;
+
+    private final Counter reservedCounter;
+    private final Counter rejectedCounter;
+    private final Counter confirmedCounter;
+    private final Counter releasedCounter;
+    private final Counter expiredCounter;
+    private final Counter unfulfillableCounter;
+
+    @Value("${app.inventory.reservation-ttl-minutes:30}")
+    private long reservationTtlMinutes;
+
+    public StockReservationService(StockReservationRepository reservationRepository,
+                                   ProductRepository productRepository,
+                                   ProductVariantRepository productVariantRepository,
+                                   ProductCounterService productCounterService,
+                                   CacheManager cacheManager,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.reservationRepository = reservationRepository;
+        this.productRepository = productRepository;
+        this.productVariantRepository = productVariantRepository;
+        this.productCounterService = productCounterService;
+        this.cacheManager = cacheManager;
+        this.confirmTransaction = new TransactionTemplate(transactionManager);
+        this.confirmTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.reservedCounter = Counter.builder("inventory.reservations").tag("outcome", "reserved").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("inventory.reservations").tag("outcome", "rejected").register(meterRegistry);
+        this.confirmedCounter = Counter.builder("inventory.reservations").tag("outcome", "confirmed").register(meterRegistry);
+        this.releasedCounter = Counter.builder("inventory.reservations").tag("outcome", "released").register(meterRegistry);
+        this.expiredCounter = Counter.builder("inventory.reservations").tag("outcome", "expired").register(meterRegistry);
+        this.unfulfillableCounter = Counter.builder("inventory.reservations").tag("outcome", "unfulfillable").register(meterRegistry);
+    }
+
+    /**
+     * Reserve stock for all items of an order, or none of them
+     *
+     * Runs in the caller's transaction, so the order and its reservations
+     * commit or roll back together on one connection.
+     */
+    @Transactional
+    public List<StockReservation> reserve(String orderId, List<CreateOrderItemDTO> items) {
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(reservationTtlMinutes);
+        List<StockKey> keys = mergeItems(items);
+        try {
+            takeStock(keys);
+        } catch (InsufficientStockException e) {
+            rejectedCounter.increment();
+            throw e;
+        }
+
+        List<StockReservation> reservations = new ArrayList<>();
+        for (StockKey key : keys) {
+            reservations.add(StockReservation.builder()
+                    .orderId(orderId)
+                    .productId(key.productId())
+                    .variantId(key.variantId())
+                    .quantity(key.quantity())
+                    .expiresAt(expiresAt)
+                    .build());
+        }
+
+        List<StockReservation> saved = reservationRepository.saveAll(reservations);
+        reservedCounter.increment(saved.size());
+        evictProductsAfterCommit(saved);
+        return saved;
+    }
+
+    /**
+     * Confirm the reservations of a paid order
+     *
+     * A reservation already returned by expiry or cancellation takes its
+     * stock again, so a late payment cannot sell stock that was handed back.
+     *
+     * Commits on its own, like {@link #release}: a failed retake rolls back
+     * only the confirmation, never the caller's record of the payment.
+     *
+     * @return false if returned stock has been sold since; nothing is
+     *         confirmed in that case and the order needs a refund or restock
+     */
+    public boolean confirm(String orderId) {
+        List<StockReservation> confirmed;
+        try {
+            confirmed = confirmTransaction.execute(status -> confirmReservations(orderId));
+        } catch (InsufficientStockException e) {
+            unfulfillableCounter.increment();
+            logger.error("Order {} was paid but its returned stock has been sold: {}", orderId, e.getMessage());
+            return false;
+        }
+
+        for (StockReservation reservation : confirmed) {
+            productCounterService.recordSold(reservation.getProductId(), reservation.getQuantity());
+            confirmedCounter.increment();
+        }
+        return true;
+    }
+
+    private List<StockReservation> confirmReservations(String orderId) {
+        List<StockReservation> reservations = reservationRepository.findByOrderId(orderId);
+        if (reservations.isEmpty()) {
+            logger.debug("No stock reservations to confirm for order: {}", orderId);
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<StockReservation> confirmed = new ArrayList<>();
+        List<StockReservation> retaken = new ArrayList<>();
+        for (StockReservation reservation : reservations) {
+            if (reservation.getStatus() == StockReservation.ReservationStatus.CONFIRMED) {
+                continue;
+            }
+            if (reservationRepository.transitionFromReserved(
+                    reservation.getId(), StockReservation.ReservationStatus.CONFIRMED, now) == 1) {
+                confirmed.add(reservation);
+            } else if (reservationRepository.transition(reservation.getId(),
+                    StockReservation.ReservationStatus.RELEASED, StockReservation.ReservationStatus.CONFIRMED, now) == 1) {
+                retaken.add(reservation);
+            }
+        }
+
+        if (!retaken.isEmpty()) {
+            logger.warn("Order {} was paid after {} of its reservations were returned, taking the stock again",
+                    orderId, retaken.size());
+            takeStock(mergeReservations(retaken));
+            evictProductsAfterCommit(retaken);
+            confirmed.addAll(retaken);
+        }
+        return confirmed;
+    }
+
+    /**
+     * Return the reserved stock of an unpaid, failed or cancelled order
+     *
+     * Commits on its own: callers such as an expired payment record the
+     * outcome and then throw, which must not roll the release back.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(String orderId) {
+        List<StockReservation> reservations = reservationRepository.findByOrderIdAndStatus(
+                orderId, StockReservation.ReservationStatus.RESERVED);
+        LocalDateTime now = LocalDateTime.now();
+        List<StockReservation> released = new ArrayList<>();
+        for (StockReservation reservation : reservations) {
+            // The status guard makes release idempotent across nodes and retries
+            if (reservationRepository.transitionFromReserved(
+                    reservation.getId(), StockReservation.ReservationStatus.RELEASED, now) == 1) {
+                released.add(reservation);
+            }
+        }
+        returnStock(released);
+        releasedCounter.increment(released.size());
+        evictProductsAfterCommit(released);
+    }
+
+    /**
+     * Release reservations whose TTL has passed
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.reservation-sweep-interval-ms:60000}")
+    @Transactional
+    public void releaseExpired() {
+        List<StockReservation> expired = reservationRepository.findByStatusAndExpiresAtBefore(
+                StockReservation.ReservationStatus.RESERVED, LocalDateTime.now(), PageRequest.of(0, SWEEP_BATCH_SIZE));
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<StockReservation> released = new ArrayList<>();
+        for (StockReservation reservation : expired) {
+            // Re-checks the status and expiry under the row lock, so a payment
+            // confirmed since the read keeps its stock
+            if (reservationRepository.releaseIfExpired(reservation.getId(), now) == 1) {
+                released.add(reservation);
+            }
+        }
+        returnStock(released);
+        expiredCounter.increment(released.size());
+        evictProductsAfterCommit(released);
+        logger.info("Released {} expired stock reservations", released.size());
+    }
+
+    /**
+     * Take stock for the given lines, or throw and leave the rollback to the caller
+     *
+     * Product rows are locked before variant rows, each in id order, so two
+     * multi-item orders always lock in the same order and cannot deadlock.
+     */
+    private void takeStock(List<StockKey> keys) {
+        for (Map.Entry<String, Integer> product : productTotals(keys).entrySet()) {
+            if (productRepository.decrementStock(product.getKey(), product.getValue()) == 0) {
+                throw new InsufficientStockException("Insufficient stock for product: " + product.getKey());
+            }
+        }
+        for (StockKey key : keys) {
+            if (key.variantId() != null
+                    && productVariantRepository.decrementStock(key.variantId(), key.productId(), key.quantity()) == 0) {
+                throw new InsufficientStockException("Insufficient stock for product: " + key.productId()
+                        + " variant: " + key.variantId());
+            }
+        }
+    }
+
+    /**
+     * Return the stock of released reservations, locking rows in the same order as {@link #takeStock}
+     */
+    private void returnStock(List<StockReservation> released) {
+        if (released.isEmpty()) {
+            return;
+        }
+        List<StockKey> keys = mergeReservations(released);
+        for (Map.Entry<String, Integer> product : productTotals(keys).entrySet()) {
+            productRepository.incrementStock(product.getKey(), product.getValue());
+        }
+        for (StockKey key : keys) {
+            if (key.variantId() != null) {
+                productVariantRepository.incrementStock(key.variantId(), key.quantity());
+            }
+        }
+    }
+
+    private Map<String, Integer> productTotals(List<StockKey> keys) {
+        Map<String, Integer> totals = new TreeMap<>();
+        for (StockKey key : keys) {
+            totals.merge(key.productId(), key.quantity(), Integer::sum);
+        }
+        return totals;
+    }
+
+    private List<StockKey> mergeItems(List<CreateOrderItemDTO> items) {
+        List<StockKey> keys = new ArrayList<>();
+        for (CreateOrderItemDTO item : items) {
+            keys.add(new StockKey(item.getProductId(), item.getProductVariantId(), item.getQuantity()));
+        }
+        return merge(keys);
+    }
+
+    private List<StockKey> mergeReservations(List<StockReservation> reservations) {
+        List<StockKey> keys = new ArrayList<>();
+        for (StockReservation reservation : reservations) {
+            keys.add(new StockKey(reservation.getProductId(), reservation.getVariantId(), reservation.getQuantity()));
+        }
+        return merge(keys);
+    }
+
+    private List<StockKey> merge(List<StockKey> keys) {
+        Map<String, StockKey> merged = new LinkedHashMap<>();
+        for (StockKey key : keys) {
+            merged.merge(key.lockKey(), key,
+                    (a, b) -> new StockKey(a.productId(), a.variantId(), a.quantity() + b.quantity()));
+        }
+        List<StockKey> sorted = new ArrayList<>(merged.values());
+        sorted.sort(Comparator.comparing(StockKey::lockKey));
+        return sorted;
+    }
+
+    private void evictProductsAfterCommit(List<StockReservation> reservations) {
+        if (reservations.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // evictIfPresent is applied immediately: a plain evict would be
+                // deferred to a synchronization that never runs at this point
+                Cache products = cacheManager.getCache("products");
+                if (products != null) {
+                    reservations.stream()
+                            .map(StockReservation::getProductId)
+                            .distinct()
+                            .forEach(products::evictIfPresent);
+                }
+            }
+        });
+    }
+
+    private record StockKey(String productId, String variantId, int quantity) {
+
+        String lockKey() {
+            return productId + ":" + Objects.toString(variantId, "");
+        }
+    }
+}
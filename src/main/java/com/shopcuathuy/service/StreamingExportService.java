@@ -0,0 +1,269 @@
+package com.shopcuathuy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopcuathuy.config.ExportConfig;
+import com.shopcuathuy.dto.ExportJobDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Engine running data exports as background jobs with bounded memory.
+ *
+ * A job streams its rows from a database cursor, encodes them one at a time
+ * (optionally gzipped) into a pipe, and a second thread feeds the pipe into a
+ * MinIO multipart upload. Memory per job is the pipe buffer plus one upload
+ * part, whatever the size of the export. Each row is detached once written
+ * so the persistence context does not grow with the result.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Service
+public class StreamingExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingExportService.class);
+
+    private static final int PIPE_BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    private final FileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExportConfig config;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ThreadPoolExecutor jobExecutor;
+    private final ThreadPoolExecutor uploadExecutor;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    private final Counter exportedRows;
+    private final Counter failedJobs;
+
+    public StreamingExportService(FileStorageService fileStorageService,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  ExportConfig config,
+                                  MeterRegistry meterRegistry) {
+        this.fileStorageService = fileStorageService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.config = config;
+
+        this.jobExecutor = executor("export-job-", config.getMaxConcurrentJobs(), config.getQueueCapacity());
+        // Every running job holds exactly one upload, so uploads never queue
+        this.uploadExecutor = executor("export-upload-", config.getMaxConcurrentJobs(), config.getQueueCapacity());
+
+        meterRegistry.gauge("export.jobs.active", jobExecutor, ThreadPoolExecutor::getActiveCount);
+        this.exportedRows = Counter.builder("export.rows").register(meterRegistry);
+        this.failedJobs = Counter.builder("export.jobs.failed").register(meterRegistry);
+    }
+
+    /**
+     * Queue an export job
+     *
+     * @param name   export name, used in the object name
+     * @param folder MinIO folder the export is stored under
+     * @param query  opens the row stream; called inside a read-only transaction
+     */
+    public <T> ExportJobDTO submit(String name, String folder, String format,
+                                   List<ExportColumn<T>> columns, Supplier<Stream<T>> query) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        String fileName = name + "-" + System.currentTimeMillis() + "." + exportFormat.getExtension()
+                + (config.isGzip() ? ".gz" : "");
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), name, exportFormat);
+        jobs.put(job.id, job);
+
+        try {
+            jobExecutor.execute(() -> run(job, folder, fileName, columns, query));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new IllegalStateException("Too many exports in progress, please retry later", e);
+        }
+        return job.toDTO();
+    }
+
+    /**
+     * Get the status of an export job
+     */
+    public ExportJobDTO getJob(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        return job != null ? job.toDTO() : null;
+    }
+
+    /**
+     * Forget finished jobs past retention
+     */
+    @Scheduled(fixedDelay = 600000)
+    public void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(config.getJobRetention());
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        uploadExecutor.shutdownNow();
+    }
+
+    private <T> void run(ExportJob job, String folder, String fileName,
+                         List<ExportColumn<T>> columns, Supplier<Stream<T>> query) {
+        job.status = ExportJobDTO.Status.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        String contentType = config.isGzip() ? "application/gzip" : job.format.getContentType();
+
+        try (PipedInputStream pipeIn = new PipedInputStream(PIPE_BUFFER_SIZE)) {
+            PipedOutputStream pipeOut = new PipedOutputStream(pipeIn);
+            Future<String> upload = uploadExecutor.submit(() -> {
+                try {
+                    return fileStorageService.uploadStream(pipeIn, folder, fileName, contentType, config.getPartSize());
+                } finally {
+                    // Unblocks the writer if the upload failed half way
+                    pipeIn.close();
+                }
+            });
+
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> writeRows(job, pipeOut, columns, query));
+            } catch (RuntimeException e) {
+                // Fail the upload instead of letting it complete a truncated object
+                upload.cancel(true);
+                throw e;
+            }
+
+            job.objectName = upload.get();
+            job.fileUrl = fileStorageService.getFileUrl(job.objectName);
+            job.status = ExportJobDTO.Status.COMPLETED;
+            logger.info("Export {} ({}) completed: {} rows, {} bytes", job.name, job.id, job.rows.get(), job.bytes.get());
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            job.error = cause.getMessage();
+            job.status = ExportJobDTO.Status.FAILED;
+            failedJobs.increment();
+            logger.error("Export {} ({}) failed after {} rows: {}", job.name, job.id, job.rows.get(), cause.getMessage(), cause);
+        } finally {
+            job.completedAt = LocalDateTime.now();
+        }
+    }
+
+    private <T> void writeRows(ExportJob job, OutputStream pipeOut,
+                               List<ExportColumn<T>> columns, Supplier<Stream<T>> query) {
+        OutputStream counted = new FilterOutputStream(pipeOut) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                job.bytes.addAndGet(len);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                job.bytes.incrementAndGet();
+            }
+        };
+
+        try {
+            OutputStream out = config.isGzip() ? new GZIPOutputStream(counted, PIPE_BUFFER_SIZE) : counted;
+            ExportRowWriter<T> writer = new ExportRowWriter<>(out, job.format, columns, objectMapper);
+            long written = 0;
+            try (Stream<T> rows = query.get()) {
+                for (T row : (Iterable<T>) rows::iterator) {
+                    writer.write(row);
+                    entityManager.detach(row);
+                    if (++written % PROGRESS_INTERVAL == 0) {
+                        job.rows.set(written);
+                        exportedRows.increment(PROGRESS_INTERVAL);
+                    }
+                }
+            }
+            // Closed only on success: end of stream is what tells the upload to complete
+            writer.close();
+            job.rows.set(written);
+            exportedRows.increment(written % PROGRESS_INTERVAL);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write export: " + e.getMessage(), e);
+        }
+    }
+
+    private ThreadPoolExecutor executor(String threadPrefix, int threads, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, threadPrefix + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static final class ExportJob {
+        private final String id;
+        private final String name;
+        private final ExportFormat format;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile ExportJobDTO.Status status = ExportJobDTO.Status.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime completedAt;
+        private volatile String objectName;
+        private volatile String fileUrl;
+        private volatile String error;
+
+        private ExportJob(String id, String name, ExportFormat format) {
+            this.id = id;
+            this.name = name;
+            this.format = format;
+        }
+
+        private ExportJobDTO toDTO() {
+            return ExportJobDTO.builder()
+                    .id(id)
+                    .name(name)
+                    .format(format.getExtension())
+                    .status(status)
+                    .rowsWritten(rows.get())
+                    .bytesWritten(bytes.get())
+                    .objectName(objectName)
+                    .fileUrl(fileUrl)
+                    .error(error)
+                    .createdAt(createdAt)
+                    .startedAt(startedAt)
+                    .completedAt(completedAt)
+                    .build();
+        }
+    }
+}
@@ -34,17 +34,25 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
+        return buildUserDetails(user.getEmail(), user.getPasswordHash(), user.getRole(), user.getStatus());
+    }
+
+    /**
+     * Build the security principal for a user's role and status
+     */
+    public UserDetails buildUserDetails(String email, String passwordHash,
+                                        User.UserRole role, User.UserStatus status) {
         List<GrantedAuthority> authorities = new ArrayList<>();
-        authorities.add(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
+        authorities.add(new SimpleGrantedAuthority("ROLE_" + role.name()));
 
         return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPasswordHash())
+                .username(email)
+                .password(passwordHash)
                 .authorities(authorities)
                 .accountExpired(false)
-                .accountLocked(user.getStatus() == User.UserStatus.BANNED)
+                .accountLocked(status == User.UserStatus.BANNED)
                 .credentialsExpired(false)
-                .disabled(user.getStatus() != User.UserStatus.ACTIVE)
+                .disabled(status != User.UserStatus.ACTIVE)
                 .build();
     }
 }
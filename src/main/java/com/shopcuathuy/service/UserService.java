@@ -10,6 +10,7 @@ import com.shopcuathuy.exception.DuplicateResourceException;
 import com.shopcuathuy.exception.ResourceNotFoundException;
 import com.shopcuathuy.mapper.UserMapper;
 import com.shopcuathuy.repository.UserRepository;
+import com.shopcuathuy.security.JwtAuthenticationCache;
 import java.time.LocalDateTime;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +19,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 
@@ -46,6 +49,9 @@ public class UserService {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private JwtAuthenticationCache jwtAuthenticationCache;
+
     /**
      * Create a new user
      */
@@ -211,12 +217,22 @@ public class UserService {
             throw new DuplicateResourceException("Phone already exists: " + updateUserDTO.getPhone());
         }
 
+        String previousEmail = user.getEmail();
+        User.UserRole previousRole = user.getRole();
+        User.UserStatus previousStatus = user.getStatus();
+
         // Update user fields
         userMapper.updateEntity(updateUserDTO, user);
         user.setUpdatedAt(LocalDateTime.now());
 
         // Save updated user
         User updatedUser = userRepository.save(user);
+
+        // Issued tokens carry the email, role and status as claims
+        if (!previousEmail.equals(updatedUser.getEmail()) || previousRole != updatedUser.getRole()
+                || previousStatus != updatedUser.getStatus()) {
+            revokeTokensAfterCommit(previousEmail);
+        }
         return userMapper.toDTO(updatedUser);
     }
 
@@ -227,6 +243,7 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
         userRepository.delete(user);
+        revokeTokensAfterCommit(user.getEmail());
     }
 
     /**
@@ -254,6 +271,7 @@ public class UserService {
         user.setUpdatedAt(LocalDateTime.now());
         
         User updatedUser = userRepository.save(user);
+        revokeTokensAfterCommit(updatedUser.getEmail());
         return userMapper.toDTO(updatedUser);
     }
 
@@ -268,6 +286,7 @@ public class UserService {
         user.setUpdatedAt(LocalDateTime.now());
         
         User updatedUser = userRepository.save(user);
+        revokeTokensAfterCommit(updatedUser.getEmail());
         return userMapper.toDTO(updatedUser);
     }
 
@@ -296,6 +315,7 @@ public class UserService {
         user.setUpdatedAt(LocalDateTime.now());
         
         User updatedUser = userRepository.save(user);
+        revokeTokensAfterCommit(updatedUser.getEmail());
         return userMapper.toDTO(updatedUser);
     }
 
@@ -678,4 +698,20 @@ public class UserService {
         }
         return csv.toString();
     }
+
+    /**
+     * Revoke the user's issued tokens once the change is committed
+     */
+    private void revokeTokensAfterCommit(String email) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            jwtAuthenticationCache.revoke(email);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                jwtAuthenticationCache.revoke(email);
+            }
+        });
+    }
 }
@@ -3,6 +3,7 @@ import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
 
 import com.shopcuathuy.dto.AddToWishlistDTO;
+import com.shopcuathuy.dto.ExportJobDTO;
 import com.shopcuathuy.dto.WishlistDTO;
 import com.shopcuathuy.entity.*;
 import com.shopcuathuy.mapper.WishlistMapper;
@@ -26,22 +27,31 @@ import org.springframework.stereotype.Service;
 @Service
 public class WishlistService {
 
+    private static final List<ExportColumn<Wishlist>> EXPORT_COLUMNS = List.of(
+            ExportColumn.of("id", Wishlist::getId),
+            ExportColumn.of("userId", wishlist -> wishlist.getUser() != null ? wishlist.getUser().getId() : null),
+            ExportColumn.of("productId", wishlist -> wishlist.getProduct() != null ? wishlist.getProduct().getId() : null),
+            ExportColumn.of("createdAt", Wishlist::getCreatedAt));
+
     private final WishlistRepository wishlistRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final WishlistMapper wishlistMapper;
     private final MessageProducerService messageProducerService;
     private final FileStorageService fileStorageService;
+    private final StreamingExportService streamingExportService;
 
     public WishlistService(WishlistRepository wishlistRepository, UserRepository userRepository,
                           ProductRepository productRepository, WishlistMapper wishlistMapper,
-                          MessageProducerService messageProducerService, FileStorageService fileStorageService) {
+                          MessageProducerService messageProducerService, FileStorageService fileStorageService,
+                          StreamingExportService streamingExportService) {
         this.wishlistRepository = wishlistRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.wishlistMapper = wishlistMapper;
         this.messageProducerService = messageProducerService;
         this.fileStorageService = fileStorageService;
+        this.streamingExportService = streamingExportService;
     }
 
     /**
@@ -200,17 +210,10 @@ public class WishlistService {
     /**
      * Export wishlist data
      */
-    public String exportWishlistData(Long userId, String format) {
-        List<Wishlist> wishlistItems = wishlistRepository.findByUserIdAndIsActiveTrue(userId);
-        
-        // Generate export data
-        String exportData = generateWishlistExportData(wishlistItems, format);
-        
-        // Store to MinIO
-        String fileName = "wishlist-export-" + userId + "-" + System.currentTimeMillis() + "." + format;
-        String fileUrl = fileStorageService.uploadWishlistExport(fileName, exportData);
-        
-        return fileUrl;
+    public ExportJobDTO exportWishlistData(Long userId, String format) {
+        String ownerId = String.valueOf(userId);
+        return streamingExportService.submit("wishlist-export-" + userId, "wishlists/exports", format, EXPORT_COLUMNS,
+                () -> wishlistRepository.streamActiveByUserId(ownerId));
     }
 
     /**
@@ -242,47 +245,4 @@ public class WishlistService {
         );
     }
 
-    /**
-     * Generate wishlist export data
-     */
-    private String generateWishlistExportData(List<Wishlist> wishlistItems, String format) {
-        if ("json".equalsIgnoreCase(format)) {
-            return generateWishlistJsonExport(wishlistItems);
-        } else if ("csv".equalsIgnoreCase(format)) {
-            return generateWishlistCsvExport(wishlistItems);
-        }
-        return generateWishlistJsonExport(wishlistItems);
-    }
-
-    /**
-     * Generate JSON export
-     */
-    private String generateWishlistJsonExport(List<Wishlist> wishlistItems) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < wishlistItems.size(); i++) {
-            Wishlist wishlist = wishlistItems.get(i);
-            json.append(createWishlistDataJson(wishlist));
-            if (i < wishlistItems.size() - 1) {
-                json.append(",");
-            }
-        }
-        json.append("]");
-        return json.toString();
-    }
-
-    /**
-     * Generate CSV export
-     */
-    private String generateWishlistCsvExport(List<Wishlist> wishlistItems) {
-        StringBuilder csv = new StringBuilder("id,userId,productId,createdAt\n");
-        for (Wishlist wishlist : wishlistItems) {
-            csv.append(String.format("%d,%d,%d,%s\n",
-                wishlist.getId(),
-                wishlist.getUser().getId(),
-                wishlist.getProduct().getId(),
-                wishlist.getCreatedAt()
-            ));
-        }
-        return csv.toString();
-    }
 }
@@ -0,0 +1,36 @@
+package com.shopcuathuy;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Base class for tests that need InnoDB row locking rather than an in-memory database
+ *
+ * Each test class runs against its own MySQL container. Tests are skipped
+ * when Docker is not available.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class AbstractMySqlIntegrationTest {
+
+    @Container
+    protected static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0")
+            .withDatabaseName("shopcuathuy")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void mysqlProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        // Fixtures insert single rows without their parent users and categories
+        registry.add("spring.datasource.hikari.connection-init-sql", () -> "SET FOREIGN_KEY_CHECKS = 0");
+    }
+}
@@ -0,0 +1,122 @@
+package com.shopcuathuy.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+/**
+ * Tests for {@link MessageDeduplicationInterceptor}
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+class MessageDeduplicationInterceptorTest {
+
+    private static final String KEY = "messaging:handled:order.queue:outbox-1";
+
+    private RedisTemplate<String, String> redisTemplate;
+    private ValueOperations<String, String> values;
+    private MessageDeduplicationInterceptor interceptor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        interceptor = new MessageDeduplicationInterceptor(redisTemplate, new MessageListenerConfig(),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void handledMessageIsRecorded() throws Throwable {
+        when(values.setIfAbsent(eq(KEY), eq("processing"), any(Duration.class))).thenReturn(true);
+        MethodInvocation invocation = invocation(message("outbox-1"));
+
+        interceptor.invoke(invocation);
+
+        verify(invocation).proceed();
+        verify(values).set(eq(KEY), eq("done"), any(Duration.class));
+    }
+
+    @Test
+    void duplicateIsDroppedWithoutCallingTheListener() throws Throwable {
+        when(values.setIfAbsent(eq(KEY), eq("processing"), any(Duration.class))).thenReturn(false);
+        MethodInvocation invocation = invocation(message("outbox-1"));
+
+        interceptor.invoke(invocation);
+
+        verify(invocation, never()).proceed();
+    }
+
+    @Test
+    void failedMessageGivesUpItsClaimForTheRetry() throws Throwable {
+        when(values.setIfAbsent(eq(KEY), eq("processing"), any(Duration.class))).thenReturn(true);
+        MethodInvocation invocation = invocation(message("outbox-1"));
+        when(invocation.proceed()).thenThrow(new IllegalStateException("boom"));
+
+        assertThatThrownBy(() -> interceptor.invoke(invocation)).isInstanceOf(IllegalStateException.class);
+
+        verify(redisTemplate).delete(List.of(KEY));
+        verify(values, never()).set(anyString(), eq("done"), any(Duration.class));
+    }
+
+    @Test
+    void batchListenerReceivesOnlyFreshMessages() throws Throwable {
+        when(values.setIfAbsent(eq(KEY), eq("processing"), any(Duration.class))).thenReturn(false);
+        when(values.setIfAbsent(eq("messaging:handled:order.queue:outbox-2"), eq("processing"), any(Duration.class)))
+                .thenReturn(true);
+        Message fresh = message("outbox-2");
+        Object[] arguments = {null, List.of(message("outbox-1"), fresh)};
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getArguments()).thenReturn(arguments);
+
+        interceptor.invoke(invocation);
+
+        assertThat(arguments[1]).isEqualTo(List.of(fresh));
+        verify(invocation).proceed();
+    }
+
+    @Test
+    void messageIsHandledWhenRedisIsDown() throws Throwable {
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenThrow(new IllegalStateException("redis down"));
+        MethodInvocation invocation = invocation(message("outbox-1"));
+
+        interceptor.invoke(invocation);
+
+        verify(invocation).proceed();
+        verify(redisTemplate, never()).delete(anyList());
+    }
+
+    private MethodInvocation invocation(Message message) {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getArguments()).thenReturn(new Object[] {null, message});
+        return invocation;
+    }
+
+    private Message message(String messageId) {
+        MessageProperties properties = new MessageProperties();
+        properties.setMessageId(messageId);
+        properties.setConsumerQueue("order.queue");
+        return new Message(new byte[0], properties);
+    }
+}
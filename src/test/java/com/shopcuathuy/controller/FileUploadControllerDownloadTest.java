@@ -0,0 +1,145 @@
+package com.shopcuathuy.controller;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.shopcuathuy.config.FileDownloadConfig;
+import com.shopcuathuy.service.FileStorageService;
+import com.shopcuathuy.service.FileStorageService.FileInfo;
+import java.io.ByteArrayInputStream;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Tests for the byte range handling of {@link FileUploadController#downloadFile}
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+class FileUploadControllerDownloadTest {
+
+    private static final String OBJECT_NAME = "products/manual.pdf";
+    private static final String URL = "/api/files/download/" + OBJECT_NAME;
+    private static final String ETAG = "\"abc123\"";
+    private static final byte[] CONTENT = new byte[100];
+
+    static {
+        for (int i = 0; i < CONTENT.length; i++) {
+            CONTENT[i] = (byte) i;
+        }
+    }
+
+    private FileStorageService fileStorageService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = mock(FileStorageService.class);
+        when(fileStorageService.findFileInfo(OBJECT_NAME)).thenReturn(Optional.of(FileInfo.builder()
+                .objectName(OBJECT_NAME)
+                .size(CONTENT.length)
+                .contentType("application/pdf")
+                .lastModified(ZonedDateTime.of(2024, 1, 10, 8, 0, 0, 0, ZoneOffset.UTC))
+                .etag("abc123")
+                .build()));
+        when(fileStorageService.downloadFile(anyString(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            long offset = invocation.getArgument(1);
+            long length = invocation.getArgument(2);
+            return new ByteArrayInputStream(CONTENT, (int) offset, (int) length);
+        });
+
+        FileUploadController controller = new FileUploadController();
+        ReflectionTestUtils.setField(controller, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(controller, "downloadConfig", new FileDownloadConfig());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void singleRangeIsServedAsPartialContent() throws Exception {
+        MvcResult result = mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/100"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, 10, 20)));
+    }
+
+    @Test
+    void rangeBeyondTheEndIsNotSatisfiable() throws Exception {
+        mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=200-300"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100"));
+
+        verify(fileStorageService, never()).downloadFile(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void rangeIsServedWhenIfRangeMatchesTheEtag() throws Exception {
+        MvcResult result = mockMvc.perform(get(URL)
+                        .header(HttpHeaders.RANGE, "bytes=90-")
+                        .header(HttpHeaders.IF_RANGE, ETAG))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 90-99/100"))
+                .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, 90, 100)));
+    }
+
+    @Test
+    void wholeFileIsServedWhenIfRangeNoLongerMatches() throws Exception {
+        MvcResult result = mockMvc.perform(get(URL)
+                        .header(HttpHeaders.RANGE, "bytes=10-19")
+                        .header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void wholeFileIsServedWhenIfRangeDateIsOlderThanTheFile() throws Exception {
+        MvcResult result = mockMvc.perform(get(URL)
+                        .header(HttpHeaders.RANGE, "bytes=10-19")
+                        .header(HttpHeaders.IF_RANGE, "Tue, 09 Jan 2024 08:00:00 GMT"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void severalRangesAreAnsweredWithTheWholeFile() throws Exception {
+        MvcResult result = mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=0-9,20-29"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length));
+    }
+}
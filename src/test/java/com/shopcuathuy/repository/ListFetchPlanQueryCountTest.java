@@ -0,0 +1,277 @@
+package com.shopcuathuy.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.shopcuathuy.AbstractMySqlIntegrationTest;
+import com.shopcuathuy.dto.CartDTO;
+import com.shopcuathuy.entity.Cart;
+import com.shopcuathuy.entity.Coupon;
+import com.shopcuathuy.entity.Order;
+import com.shopcuathuy.entity.Payment;
+import com.shopcuathuy.entity.PaymentMethod;
+import com.shopcuathuy.entity.Product;
+import com.shopcuathuy.entity.ProductReview;
+import com.shopcuathuy.entity.Shipping;
+import com.shopcuathuy.entity.ShippingMethod;
+import com.shopcuathuy.entity.User;
+import com.shopcuathuy.mapper.CartMapper;
+import com.shopcuathuy.mapper.CartMapperImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Query-count harness for list and page queries whose mappers read lazy relations
+ *
+ * Each case seeds more rows than a page holds, each row with its own
+ * parents, then loads a page and maps it to DTOs in one transaction, as the
+ * services do. Hibernate statistics count the statements issued. A page
+ * must cost one select plus its count query no matter how many rows it
+ * holds; a fetch plan that goes missing shows up as extra selects and fails
+ * the build.
+ *
+ * Review, coupon, payment and shipping DTOs carry numeric ids for parents
+ * whose ids are UUID strings, so those cases read the relation fields their
+ * mappers read instead of running the mappers.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(CartMapperImpl.class)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Fixtures only fill the columns the mappers read
+        "spring.jpa.properties.jakarta.persistence.validation.mode=none"
+})
+class ListFetchPlanQueryCountTest extends AbstractMySqlIntegrationTest {
+
+    private static final int ROWS = 30;
+    private static final PageRequest PAGE = PageRequest.of(0, 20);
+
+    /** One select for the content and one for the total */
+    private static final long PAGE_QUERIES = 2;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductReviewRepository productReviewRepository;
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ShippingRepository shippingRepository;
+
+    @Autowired
+    private CartMapper cartMapper;
+
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void cartItemsLoadInOneQuery() {
+        User owner = inTransaction(() -> persist(user()));
+        inTransaction(() -> {
+            for (int i = 0; i < ROWS; i++) {
+                persist(Cart.builder().user(owner).product(persist(product())).quantity(1).build());
+            }
+            return null;
+        });
+
+        List<CartDTO> items = countQueries("cart", 1,
+                () -> cartRepository.findActiveCartItemsByUserId(owner.getId()), cartMapper::toDTO);
+
+        assertThat(items).hasSize(ROWS).allSatisfy(item -> assertThat(item.getProductName()).isNotNull());
+    }
+
+    @Test
+    void reviewPageLoadsInBoundedQueries() {
+        inTransaction(() -> {
+            for (int i = 0; i < ROWS; i++) {
+                persist(ProductReview.builder()
+                        .product(persist(product()))
+                        .user(persist(user()))
+                        .rating(5)
+                        .status(ProductReview.ReviewStatus.APPROVED)
+                        .build());
+            }
+            return null;
+        });
+
+        List<String> reviews = countQueries("reviews", PAGE_QUERIES,
+                () -> productReviewRepository.findByStatus(ProductReview.ReviewStatus.APPROVED, PAGE).getContent(),
+                review -> review.getProduct().getName() + review.getUser().getName() + review.getUser().getAvatar());
+
+        assertThat(reviews).hasSize(PAGE.getPageSize());
+    }
+
+    @Test
+    void couponPageLoadsInBoundedQueries() {
+        LocalDateTime now = LocalDateTime.now();
+        inTransaction(() -> {
+            for (int i = 0; i < ROWS; i++) {
+                persist(Coupon.builder()
+                        .code("CODE-" + UUID.randomUUID())
+                        .name("Coupon " + i)
+                        .type(Coupon.CouponType.PERCENTAGE)
+                        .value(BigDecimal.TEN)
+                        .usageLimit(100)
+                        .usageLimitPerUser(1)
+                        .startDate(now.minusDays(1))
+                        .endDate(now.plusDays(1))
+                        .createdBy(persist(user()))
+                        .build());
+            }
+            return null;
+        });
+
+        List<String> coupons = countQueries("coupons", PAGE_QUERIES,
+                () -> couponRepository.findValidCoupons(now, PAGE).getContent(),
+                coupon -> coupon.getCreatedBy().getName());
+
+        assertThat(coupons).hasSize(PAGE.getPageSize()).doesNotContainNull();
+    }
+
+    @Test
+    void paymentPageLoadsInBoundedQueries() {
+        inTransaction(() -> {
+            for (int i = 0; i < ROWS; i++) {
+                persist(Payment.builder()
+                        .order(persist(order()))
+                        .paymentMethod(persist(PaymentMethod.builder()
+                                .name("Method " + i)
+                                .code("METHOD-" + UUID.randomUUID())
+                                .build()))
+                        .amount(BigDecimal.TEN)
+                        .currency("VND")
+                        .status(Payment.PaymentStatus.SUCCESS)
+                        .build());
+            }
+            return null;
+        });
+
+        List<String> payments = countQueries("payments", PAGE_QUERIES,
+                () -> paymentRepository.findByStatus(Payment.PaymentStatus.SUCCESS, PAGE).getContent(),
+                payment -> payment.getPaymentMethod().getName());
+
+        assertThat(payments).hasSize(PAGE.getPageSize()).doesNotContainNull();
+    }
+
+    @Test
+    void shippingPageLoadsInBoundedQueries() {
+        inTransaction(() -> {
+            for (int i = 0; i < ROWS; i++) {
+                persist(Shipping.builder()
+                        .order(persist(order()))
+                        .shippingMethod(persist(ShippingMethod.builder()
+                                .sellerId("seller")
+                                .name("Method " + i)
+                                .type("STANDARD")
+                                .baseCost(BigDecimal.ONE)
+                                .estimatedDeliveryDaysMin(1)
+                                .estimatedDeliveryDaysMax(3)
+                                .build()))
+                        .trackingNumber("TRACK-" + UUID.randomUUID())
+                        .carrier("carrier")
+                        .status(Shipping.ShippingStatus.IN_TRANSIT)
+                        .build());
+            }
+            return null;
+        });
+
+        List<String> shipments = countQueries("shipping", PAGE_QUERIES,
+                () -> shippingRepository.findByStatus(Shipping.ShippingStatus.IN_TRANSIT, PAGE).getContent(),
+                shipping -> shipping.getOrder().getOrderNumber() + shipping.getShippingMethod().getName());
+
+        assertThat(shipments).hasSize(PAGE.getPageSize());
+    }
+
+    /**
+     * Load and map in one transaction and assert the number of statements it took
+     */
+    private <E, T> List<T> countQueries(String name, long expected, Supplier<List<E>> load, Function<E, T> map) {
+        statistics.clear();
+        List<T> result = inTransaction(() -> load.get().stream().map(map).toList());
+        long queries = statistics.getPrepareStatementCount();
+        assertThat(queries).as("statements for %s", name).isEqualTo(expected);
+        return result;
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private User user() {
+        return User.builder()
+                .email(UUID.randomUUID() + "@shopcuathuy.com")
+                .passwordHash("")
+                .name("Reviewer")
+                .build();
+    }
+
+    private Product product() {
+        return Product.builder()
+                .sellerId("seller")
+                .categoryId("category")
+                .name("Product")
+                .slug("product-" + UUID.randomUUID())
+                .price(BigDecimal.TEN)
+                .build();
+    }
+
+    private Order order() {
+        return Order.builder()
+                .orderNumber("ORD-" + UUID.randomUUID().toString().substring(0, 8))
+                .userId("user")
+                .sellerId("seller")
+                .subtotal(BigDecimal.TEN)
+                .totalAmount(BigDecimal.TEN)
+                .build();
+    }
+}
@@ -0,0 +1,161 @@
+package com.shopcuathuy.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.shopcuathuy.config.JwtAuthCacheConfig;
+import com.shopcuathuy.config.NotificationConfig;
+import com.shopcuathuy.entity.User;
+import com.shopcuathuy.repository.UserRepository;
+import com.shopcuathuy.service.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Before/after latency benchmark for {@link JwtAuthenticationFilter}
+ *
+ * "Before" is the filter with the authentication cache disabled: every
+ * request verifies the token and loads the user. "After" is the cached
+ * path. The user repository is a mock, so the measured saving leaves out
+ * the database round trip and is a lower bound; the repository call counts
+ * show what the cache removes. The timings are logged.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+class JwtAuthenticationFilterBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilterBenchmarkTest.class);
+
+    private static final String EMAIL = "bench@shopcuathuy.com";
+    private static final String SECRET =
+            "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+    private static final int WARMUP = 2_000;
+    private static final int REQUESTS = 20_000;
+
+    private JwtTokenProvider tokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3_600_000);
+        ReflectionTestUtils.setField(tokenProvider, "jwtRefreshExpirationInMs", 86_400_000);
+        tokenProvider.init();
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void cachedFilterSkipsVerificationAndUserLookup() throws Exception {
+        String token = tokenProvider.generateTokenFromUsername(EMAIL, User.UserRole.CUSTOMER, User.UserStatus.ACTIVE);
+
+        UserRepository uncachedRepository = userRepository();
+        double before = measure(filter(cache(false, uncachedRepository)), token);
+
+        UserRepository cachedRepository = userRepository();
+        double after = measure(filter(cache(true, cachedRepository)), token);
+
+        logger.info(String.format("jwt filter: before %.1f us/request, after %.1f us/request, %.1fx",
+                before / 1e3, after / 1e3, before / after));
+        verify(uncachedRepository, atLeast(WARMUP + REQUESTS)).findByEmail(EMAIL);
+        verify(cachedRepository, never()).findByEmail(anyString());
+    }
+
+    @Test
+    void tokenIssuedBeforeRevocationIsRejected() throws Exception {
+        JwtAuthenticationCache cache = cache(true, userRepository());
+        String token = tokenProvider.generateTokenFromUsername(EMAIL, User.UserRole.CUSTOMER, User.UserStatus.ACTIVE);
+        assertThat(cache.authenticate(token)).isNotNull();
+
+        Thread.sleep(2);
+        cache.revoke(EMAIL);
+
+        assertThat(cache.authenticate(token)).isNull();
+    }
+
+    @Test
+    void tokenIssuedAfterRevocationInTheSameSecondIsAccepted() throws Exception {
+        JwtAuthenticationCache cache = cache(true, userRepository());
+        cache.revoke(EMAIL);
+        Thread.sleep(2);
+
+        String token = tokenProvider.generateTokenFromUsername(EMAIL, User.UserRole.CUSTOMER, User.UserStatus.ACTIVE);
+
+        assertThat(cache.authenticate(token)).isNotNull();
+    }
+
+    private double measure(JwtAuthenticationFilter filter, String token) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            authenticate(filter, token);
+        }
+        long began = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            authenticate(filter, token);
+        }
+        return (System.nanoTime() - began) / (double) REQUESTS;
+    }
+
+    private void authenticate(JwtAuthenticationFilter filter, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        SecurityContextHolder.clearContext();
+    }
+
+    private JwtAuthenticationFilter filter(JwtAuthenticationCache cache) {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "authenticationCache", cache);
+        ReflectionTestUtils.setField(filter, "notificationConfig", new NotificationConfig());
+        return filter;
+    }
+
+    private UserRepository userRepository() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(User.builder()
+                .email(EMAIL)
+                .passwordHash("")
+                .role(User.UserRole.CUSTOMER)
+                .status(User.UserStatus.ACTIVE)
+                .build()));
+        return userRepository;
+    }
+
+    @SuppressWarnings("unchecked")
+    private JwtAuthenticationCache cache(boolean enabled, UserRepository userRepository) {
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl();
+        ReflectionTestUtils.setField(userDetailsService, "userRepository", userRepository);
+
+        JwtAuthCacheConfig config = new JwtAuthCacheConfig();
+        config.setEnabled(enabled);
+
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+
+        return new JwtAuthenticationCache(tokenProvider, userDetailsService, config, redisTemplate,
+                mock(ObjectProvider.class), new SimpleMeterRegistry());
+    }
+}
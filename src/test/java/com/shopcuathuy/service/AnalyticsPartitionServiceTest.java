@@ -0,0 +1,176 @@
+package com.shopcuathuy.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.shopcuathuy.AbstractMySqlIntegrationTest;
+import com.shopcuathuy.config.AnalyticsPartitionConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Tests for the conversion, premaking and retirement of monthly partitions
+ * in {@link AnalyticsPartitionService}, against a real MySQL
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+class AnalyticsPartitionServiceTest extends AbstractMySqlIntegrationTest {
+
+    private static final String TABLE = "analytics_events";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private JdbcTemplate jdbcTemplate;
+    private PartitionArchiveWriter archiveWriter;
+    private AnalyticsPartitionConfig config;
+    private AnalyticsPartitionService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword()));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS users");
+        jdbcTemplate.execute("CREATE TABLE users (id VARCHAR(36) PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "event_name VARCHAR(255) NOT NULL, user_id VARCHAR(36), created_at DATETIME(6) NOT NULL, "
+                + "CONSTRAINT fk_analytics_events_user FOREIGN KEY (user_id) REFERENCES users (id))");
+
+        archiveWriter = mock(PartitionArchiveWriter.class);
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        config = new AnalyticsPartitionConfig();
+        config.setTables(List.of(TABLE));
+        config.setPremakeMonths(2);
+        config.setRetentionMonths(3);
+        service = new AnalyticsPartitionService(jdbcTemplate, archiveWriter, redisTemplate, config,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void startupLeavesAPlainTableAlone() {
+        insertEvent(YearMonth.now());
+
+        service.initialize();
+
+        assertThat(partitions()).isEmpty();
+    }
+
+    @Test
+    void conversionPartitionsEveryMonthFromTheOldestRowAndKeepsTheRows() {
+        YearMonth now = YearMonth.now();
+        insertEvent(now.minusMonths(2));
+        insertEvent(now);
+
+        service.convertExisting();
+
+        assertThat(partitions()).containsExactlyElementsOf(expectedPartitions(now.minusMonths(2), now.plusMonths(2)));
+        assertThat(rowCount()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS "
+                + "WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = ?", String.class, TABLE)).isEmpty();
+        assertThat(jdbcTemplate.queryForList("SELECT COLUMN_NAME FROM information_schema.KEY_COLUMN_USAGE "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND CONSTRAINT_NAME = 'PRIMARY' "
+                + "ORDER BY ORDINAL_POSITION", String.class, TABLE)).containsExactly("id", "created_at");
+    }
+
+    @Test
+    void maintenanceSplitsUpcomingMonthsOffTheCatchAll() {
+        YearMonth now = YearMonth.now();
+        insertEvent(now);
+        service.convertExisting();
+
+        config.setPremakeMonths(4);
+        service.maintain();
+
+        assertThat(partitions()).containsExactlyElementsOf(expectedPartitions(now, now.plusMonths(4)));
+    }
+
+    @Test
+    void expiredMonthsAreArchivedAndDropped() throws IOException {
+        YearMonth now = YearMonth.now();
+        YearMonth expired = now.minusMonths(3);
+        insertEvent(expired);
+        insertEvent(now);
+        when(archiveWriter.archive(eq(TABLE), anyString()))
+                .thenReturn(new PartitionArchiveWriter.ArchivedPartition("archive.json.gz", 1));
+
+        service.convertExisting();
+
+        verify(archiveWriter).archive(TABLE, expired.format(PARTITION_NAME));
+        assertThat(partitions()).containsExactlyElementsOf(expectedPartitions(now.minusMonths(2), now.plusMonths(2)));
+        assertThat(rowCount()).isEqualTo(1);
+    }
+
+    @Test
+    void monthWhoseArchiveFailsIsKept() throws IOException {
+        YearMonth now = YearMonth.now();
+        YearMonth expired = now.minusMonths(3);
+        insertEvent(expired);
+        when(archiveWriter.archive(eq(TABLE), anyString())).thenThrow(new IOException("Disk full"));
+
+        service.convertExisting();
+
+        assertThat(partitions()).contains(expired.format(PARTITION_NAME));
+        assertThat(rowCount()).isEqualTo(1);
+    }
+
+    @Test
+    void disabledArchiveDropsExpiredMonthsWithoutACopy() throws IOException {
+        YearMonth expired = YearMonth.now().minusMonths(3);
+        insertEvent(expired);
+        config.getArchive().setEnabled(false);
+
+        service.convertExisting();
+
+        verify(archiveWriter, never()).archive(anyString(), anyString());
+        assertThat(partitions()).doesNotContain(expired.format(PARTITION_NAME));
+        assertThat(rowCount()).isZero();
+    }
+
+    private void insertEvent(YearMonth month) {
+        jdbcTemplate.update("INSERT INTO " + TABLE + " (event_name, created_at) VALUES (?, ?)",
+                "page_view", Timestamp.valueOf(LocalDateTime.of(month.getYear(), month.getMonth(), 15, 12, 0)));
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL "
+                + "ORDER BY PARTITION_ORDINAL_POSITION", String.class, TABLE);
+    }
+
+    private long rowCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE, Long.class);
+    }
+
+    private static List<String> expectedPartitions(YearMonth first, YearMonth last) {
+        List<String> names = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            names.add(month.format(PARTITION_NAME));
+        }
+        names.add("pmax");
+        return names;
+    }
+}
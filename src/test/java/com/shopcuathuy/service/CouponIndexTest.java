@@ -0,0 +1,96 @@
+package com.shopcuathuy.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.shopcuathuy.dto.CouponDTO;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the cart coupon matching of {@link CouponIndex}
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+class CouponIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 15, 12, 0);
+
+    @Test
+    void cartGetsUnrestrictedCouponsAndThoseOfItsProductsAndCategories() {
+        CouponIndex index = CouponIndex.build(List.of(
+                coupon(1L, null, null, null),
+                coupon(2L, null, "p1", null),
+                coupon(3L, null, "p2", null),
+                coupon(4L, null, null, "c1"),
+                coupon(5L, null, null, "c2")));
+
+        assertThat(ids(index.candidates(new BigDecimal("100"), List.of("p1"), List.of("c1"), NOW)))
+                .containsExactly(1L, 2L, 4L);
+    }
+
+    @Test
+    void couponsAboveTheOrderAmountAreLeftOutAndTheRestAreOrderedByMinimum() {
+        CouponIndex index = CouponIndex.build(List.of(
+                coupon(1L, "300", null, null),
+                coupon(2L, "50", "p1", null),
+                coupon(3L, "100", null, null),
+                coupon(4L, "150", "p1", null)));
+
+        assertThat(ids(index.candidates(new BigDecimal("120"), List.of("p1"), null, NOW)))
+                .containsExactly(2L, 3L);
+    }
+
+    @Test
+    void couponsOutsideTheirValidityWindowAreLeftOut() {
+        CouponDTO upcoming = coupon(2L, null, null, null);
+        upcoming.setStartDate(NOW.plusDays(1));
+        CouponDTO expired = coupon(3L, null, null, null);
+        expired.setEndDate(NOW.minusDays(1));
+        CouponIndex index = CouponIndex.build(List.of(coupon(1L, null, null, null), upcoming, expired));
+
+        assertThat(ids(index.candidates(BigDecimal.TEN, List.of(), null, NOW))).containsExactly(1L);
+    }
+
+    @Test
+    void couponScopedToSeveralItemsOfTheCartIsReturnedOnce() {
+        CouponIndex index = CouponIndex.build(List.of(coupon(1L, null, "p1,p2", "c1")));
+
+        assertThat(ids(index.candidates(BigDecimal.TEN, List.of("p1", "p2"), List.of("c1"), NOW)))
+                .containsExactly(1L);
+    }
+
+    @Test
+    void withoutCartItemsEveryCouponIsACandidate() {
+        CouponIndex index = CouponIndex.build(List.of(
+                coupon(1L, null, null, null),
+                coupon(2L, null, "p1", null),
+                coupon(3L, null, null, "c1")));
+
+        assertThat(ids(index.candidates(BigDecimal.TEN, null, null, NOW))).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void applicableIdsAreParsedFromListsAndJsonArrays() {
+        assertThat(CouponIndex.parseIds("p1, p2;p3 p4")).containsExactly("p1", "p2", "p3", "p4");
+        assertThat(CouponIndex.parseIds("[\"p1\", \"p2\"]")).containsExactly("p1", "p2");
+        assertThat(CouponIndex.parseIds("  ")).isEmpty();
+    }
+
+    private static CouponDTO coupon(Long id, String minimumOrderAmount, String products, String categories) {
+        CouponDTO coupon = new CouponDTO();
+        coupon.setId(id);
+        coupon.setMinimumOrderAmount(minimumOrderAmount != null ? new BigDecimal(minimumOrderAmount) : null);
+        coupon.setApplicableProducts(products);
+        coupon.setApplicableCategories(categories);
+        coupon.setStartDate(NOW.minusDays(7));
+        coupon.setEndDate(NOW.plusDays(7));
+        return coupon;
+    }
+
+    private static List<Long> ids(List<CouponDTO> coupons) {
+        return coupons.stream().map(CouponDTO::getId).toList();
+    }
+}
@@ -0,0 +1,302 @@
+package com.shopcuathuy.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.shopcuathuy.AbstractMySqlIntegrationTest;
+import com.shopcuathuy.config.CouponRedemptionConfig;
+import com.shopcuathuy.dto.CouponRedemption;
+import com.shopcuathuy.entity.Coupon;
+import com.shopcuathuy.entity.User;
+import com.shopcuathuy.exception.ValidationException;
+import com.shopcuathuy.repository.CouponRepository;
+import com.shopcuathuy.repository.CouponUsageRepository;
+import com.shopcuathuy.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Concurrency benchmark for {@link CouponRedemptionService}
+ *
+ * Many threads redeem one campaign at once against real Redis counters and
+ * a MySQL coupon_usages table. The test checks that exactly the allowed
+ * number of uses is taken, globally and per user, that the batch writer
+ * stores one row per use, and that a batch left in the processing list is
+ * written exactly once. Throughput and latency are logged for comparison
+ * between runs.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "spring.jpa.properties.jakarta.persistence.validation.mode=none")
+class CouponRedemptionConcurrencyTest extends AbstractMySqlIntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponRedemptionConcurrencyTest.class);
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7.2-alpine"))
+            .withExposedPorts(6379);
+
+    private static final int THREADS = 32;
+    private static final int BATCH_SIZE = 50;
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private CouponUsageRepository couponUsageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CouponRedemptionConfig config;
+    private CouponRedemptionService redemptionService;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setDefaultSerializer(new StringRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        config = new CouponRedemptionConfig();
+        config.setPersistBatchSize(BATCH_SIZE);
+        redemptionService = new CouponRedemptionService(redisTemplate, jdbcTemplate, couponRepository,
+                couponUsageRepository, new ObjectMapper().registerModule(new JavaTimeModule()), config,
+                transactionManager, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void concurrentRedemptionsNeverExceedTheCampaignLimit() throws Exception {
+        Coupon coupon = coupon(100, 2);
+
+        Result result = run("campaign limit", coupon, 150, 4);
+
+        assertThat(result.failures()).isZero();
+        assertThat(result.redeemed()).isEqualTo(100);
+        assertThat(result.perUser().values()).allSatisfy(count -> assertThat(count.get()).isLessThanOrEqualTo(2));
+        drain();
+        assertThat(storedUsages(coupon)).isEqualTo(100);
+        assertThat(maxStoredPerUser(coupon)).isLessThanOrEqualTo(2);
+
+        redemptionService.reconcile();
+        assertThat(couponRepository.findById(coupon.getId()).orElseThrow().getUsedCount()).isEqualTo(100);
+    }
+
+    @Test
+    void concurrentRedemptionsNeverExceedThePerUserLimit() throws Exception {
+        Coupon coupon = coupon(10_000, 3);
+
+        Result result = run("per-user limit", coupon, 20, 30);
+
+        assertThat(result.failures()).isZero();
+        assertThat(result.redeemed()).isEqualTo(60);
+        assertThat(result.perUser().values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(3));
+        drain();
+        assertThat(storedUsages(coupon)).isEqualTo(60);
+        assertThat(maxStoredPerUser(coupon)).isEqualTo(3);
+    }
+
+    @Test
+    void batchLeftInProcessingIsWrittenOnce() {
+        Coupon coupon = coupon(100, 100);
+        for (int i = 0; i < 5; i++) {
+            redemptionService.redeem(coupon, redemption(coupon, "user-1", BigDecimal.ONE));
+        }
+        List<String> written = redisTemplate.opsForList().range(pendingKey(), 0, -1);
+        redemptionService.persistPending();
+        assertThat(storedUsages(coupon)).isEqualTo(5);
+
+        // Died after the commit, before the ack
+        redisTemplate.opsForList().rightPushAll(processingKey(), written);
+        // Died after the claim, before the commit
+        for (int i = 0; i < 3; i++) {
+            redemptionService.redeem(coupon, redemption(coupon, "user-1", BigDecimal.ONE));
+        }
+        redisTemplate.opsForList().rightPushAll(processingKey(), redisTemplate.opsForList().range(pendingKey(), 0, -1));
+        redisTemplate.delete(pendingKey());
+
+        redemptionService.persistPending();
+
+        assertThat(storedUsages(coupon)).isEqualTo(8);
+        assertThat(redisTemplate.opsForList().size(processingKey())).isZero();
+    }
+
+    @Test
+    void refusedRowIsParkedAndKeepsItsUse() {
+        Coupon coupon = coupon(100, 100);
+        redemptionService.redeem(coupon, redemption(coupon, "user-1", BigDecimal.ONE));
+        redemptionService.redeem(coupon, redemption(coupon, "user-1", null));
+        redemptionService.redeem(coupon, redemption(coupon, "user-1", BigDecimal.ONE));
+
+        redemptionService.persistPending();
+
+        assertThat(storedUsages(coupon)).isEqualTo(2);
+        assertThat(redisTemplate.opsForList().size(config.getKeyPrefix() + "redemptions:failed")).isEqualTo(1);
+        assertThat(redemptionService.usedCount(coupon)).isEqualTo(3);
+        assertThat(redisTemplate.opsForList().size(processingKey())).isZero();
+    }
+
+    private Result run(String name, Coupon coupon, int users, int attemptsPerUser) throws Exception {
+        int attempts = users * attemptsPerUser;
+        AtomicInteger redeemed = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        Map<String, AtomicInteger> perUser = new ConcurrentHashMap<>();
+        Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int i = 0; i < attempts; i++) {
+                String userId = "user-" + (i % users);
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        long began = System.nanoTime();
+                        try {
+                            redemptionService.redeem(coupon, redemption(coupon, userId, BigDecimal.ONE));
+                            redeemed.incrementAndGet();
+                            perUser.computeIfAbsent(userId, id -> new AtomicInteger()).incrementAndGet();
+                        } catch (ValidationException e) {
+                            // Limit reached
+                        } finally {
+                            latencies.add(System.nanoTime() - began);
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                });
+            }
+
+            long began = System.nanoTime();
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+            long elapsed = System.nanoTime() - began;
+
+            List<Long> sorted = new ArrayList<>(latencies);
+            sorted.sort(Long::compare);
+            logger.info(String.format("coupon redemption [%s]: %d attempts on %d threads, %d redeemed, %.0f ops/s, p50 %.2f ms, p99 %.2f ms",
+                    name, attempts, THREADS, redeemed.get(), attempts / (elapsed / 1e9),
+                    sorted.get(sorted.size() / 2) / 1e6, sorted.get((int) (sorted.size() * 0.99)) / 1e6));
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Result(redeemed.get(), failures.get(), perUser);
+    }
+
+    private void drain() {
+        while (redisTemplate.opsForList().size(pendingKey()) > 0) {
+            redemptionService.persistPending();
+        }
+        assertThat(redisTemplate.opsForList().size(processingKey())).isZero();
+    }
+
+    private long storedUsages(Coupon coupon) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM coupon_usages WHERE coupon_id = ?",
+                Long.class, coupon.getId());
+    }
+
+    private long maxStoredPerUser(Coupon coupon) {
+        return jdbcTemplate.queryForObject(
+                "SELECT MAX(uses) FROM (SELECT COUNT(*) AS uses FROM coupon_usages WHERE coupon_id = ? GROUP BY user_id) u",
+                Long.class, coupon.getId());
+    }
+
+    private CouponRedemption redemption(Coupon coupon, String userId, BigDecimal discount) {
+        return new CouponRedemption(UUID.randomUUID().toString(), coupon.getId(), userId,
+                "order-" + UUID.randomUUID(), discount, BigDecimal.TEN, LocalDateTime.now());
+    }
+
+    private Coupon coupon(int usageLimit, int usageLimitPerUser) {
+        LocalDateTime now = LocalDateTime.now();
+        User creator = userRepository.save(User.builder()
+                .email(UUID.randomUUID() + "@shopcuathuy.com")
+                .passwordHash("")
+                .name("Creator")
+                .build());
+        return couponRepository.save(Coupon.builder()
+                .code("FLASH-" + UUID.randomUUID())
+                .name("Flash sale")
+                .type(Coupon.CouponType.PERCENTAGE)
+                .value(BigDecimal.TEN)
+                .usageLimit(usageLimit)
+                .usageLimitPerUser(usageLimitPerUser)
+                .startDate(now.minusDays(1))
+                .endDate(now.plusDays(1))
+                .createdBy(creator)
+                .build());
+    }
+
+    private String pendingKey() {
+        return config.getKeyPrefix() + "redemptions:pending";
+    }
+
+    private String processingKey() {
+        return config.getKeyPrefix() + "redemptions:processing";
+    }
+
+    private record Result(int redeemed, int failures, Map<String, AtomicInteger> perUser) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.shopcuathuy.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.shopcuathuy.config.DelayedRetryMessageRecoverer;
+import com.shopcuathuy.dto.AnalyticsEventRecord;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Tests for the failure handling of the batch listeners in {@link MessageConsumerService}
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+class MessageConsumerServiceBatchTest {
+
+    private static final int BATCH = 100;
+
+    private final Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+    private final List<String> written = new ArrayList<>();
+    private int writes;
+
+    private AnalyticsIngestionService analyticsIngestionService;
+    private DelayedRetryMessageRecoverer recoverer;
+    private MessageConsumerService consumer;
+
+    @BeforeEach
+    void setUp() {
+        analyticsIngestionService = mock(AnalyticsIngestionService.class);
+        recoverer = mock(DelayedRetryMessageRecoverer.class);
+        consumer = new MessageConsumerService();
+        ReflectionTestUtils.setField(consumer, "analyticsIngestionService", analyticsIngestionService);
+        ReflectionTestUtils.setField(consumer, "messageConverter", converter);
+        ReflectionTestUtils.setField(consumer, "messageRecoverer", recoverer);
+    }
+
+    @Test
+    void badRecordIsRecoveredAloneAndTheRestIsWritten() {
+        doAnswer(invocation -> {
+            List<AnalyticsEventRecord> records = invocation.getArgument(0);
+            writes++;
+            if (records.stream().anyMatch(record -> record.eventName().equals("bad"))) {
+                throw new DataIntegrityViolationException("Data too long for column 'event_name'");
+            }
+            records.forEach(record -> written.add(record.eventName()));
+            return null;
+        }).when(analyticsIngestionService).write(anyList());
+
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < BATCH; i++) {
+            messages.add(message(i == 37 ? "bad" : "event-" + i));
+        }
+
+        consumer.handleAnalyticsMessages(messages);
+
+        verify(recoverer).recover(eq(List.of(messages.get(37))), any(DataIntegrityViolationException.class));
+        assertThat(written).hasSize(BATCH - 1).doesNotContain("bad");
+        // Halving finds one bad record in about two writes per level
+        assertThat(writes).isLessThanOrEqualTo(2 * (int) Math.ceil(Math.log(BATCH) / Math.log(2)) + 1);
+    }
+
+    @Test
+    void failureOfTheDatabaseRetriesTheWholeBatch() {
+        doAnswer(invocation -> {
+            writes++;
+            throw new QueryTimeoutException("Lock wait timeout exceeded");
+        }).when(analyticsIngestionService).write(anyList());
+
+        List<Message> messages = List.of(message("a"), message("b"), message("c"));
+
+        consumer.handleAnalyticsMessages(messages);
+
+        verify(recoverer).recover(eq(messages), any(QueryTimeoutException.class));
+        assertThat(writes).isEqualTo(1);
+    }
+
+    private Message message(String event) {
+        return converter.toMessage(Map.of("eventType", "ANALYTICS_TRACK", "event", event), new MessageProperties());
+    }
+}
@@ -0,0 +1,253 @@
+package com.shopcuathuy.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.shopcuathuy.AbstractMySqlIntegrationTest;
+import com.shopcuathuy.dto.CreateOrderItemDTO;
+import com.shopcuathuy.entity.Product;
+import com.shopcuathuy.entity.ProductVariant;
+import com.shopcuathuy.entity.StockReservation;
+import com.shopcuathuy.exception.InsufficientStockException;
+import com.shopcuathuy.repository.ProductRepository;
+import com.shopcuathuy.repository.ProductVariantRepository;
+import com.shopcuathuy.repository.StockReservationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Contention benchmark for {@link StockReservationService}
+ *
+ * Many threads reserve the last units of one product at once. The test
+ * checks that exactly the available stock is sold, that the product and
+ * variant rows stay in step, and that no attempt deadlocks. Throughput and
+ * latency are logged for comparison between runs.
+ *
+ * @author ShopCuaThuy Team
+ * @version 1.0.0
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({StockReservationService.class, StockReservationContentionTest.Beans.class})
+@TestPropertySource(properties = "app.inventory.reservation-sweep-interval-ms=3600000")
+class StockReservationContentionTest extends AbstractMySqlIntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationContentionTest.class);
+
+    private static final int STOCK = 50;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS = 400;
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductVariantRepository productVariantRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @MockBean
+    private ProductCounterService productCounterService;
+
+    @TestConfiguration
+    static class Beans {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("products");
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Test
+    void concurrentVariantReservationsSellExactlyTheStock() throws Exception {
+        Product product = product(STOCK);
+        ProductVariant variant = variant(product, STOCK);
+
+        Result result = run("variant", i -> List.of(new CreateOrderItemDTO(product.getId(), variant.getId(), 1)));
+
+        assertThat(result.failures()).isZero();
+        assertThat(result.reserved()).isEqualTo(STOCK);
+        assertThat(result.rejected()).isEqualTo(ATTEMPTS - STOCK);
+        assertThat(stockOf(product)).isZero();
+        assertThat(stockOf(variant)).isZero();
+    }
+
+    @Test
+    void multiItemOrdersInOppositeOrderDoNotDeadlock() throws Exception {
+        Product first = product(STOCK);
+        Product second = product(STOCK);
+
+        Result result = run("multi-item", i -> i % 2 == 0
+                ? List.of(new CreateOrderItemDTO(first.getId(), null, 1), new CreateOrderItemDTO(second.getId(), null, 1))
+                : List.of(new CreateOrderItemDTO(second.getId(), null, 1), new CreateOrderItemDTO(first.getId(), null, 1)));
+
+        assertThat(result.failures()).isZero();
+        assertThat(result.reserved()).isEqualTo(STOCK);
+        assertThat(stockOf(first)).isZero();
+        assertThat(stockOf(second)).isZero();
+    }
+
+    @Test
+    void paymentAfterExpiryTakesTheStockAgain() {
+        Product product = product(5);
+        ProductVariant variant = variant(product, 5);
+        String orderId = "order-" + UUID.randomUUID();
+        reservationService.reserve(orderId, List.of(new CreateOrderItemDTO(product.getId(), variant.getId(), 2)));
+
+        expire(orderId);
+        reservationService.releaseExpired();
+        assertThat(stockOf(product)).isEqualTo(5);
+        assertThat(stockOf(variant)).isEqualTo(5);
+
+        assertThat(reservationService.confirm(orderId)).isTrue();
+
+        assertThat(stockOf(product)).isEqualTo(3);
+        assertThat(stockOf(variant)).isEqualTo(3);
+        assertThat(reservationRepository.findByOrderId(orderId))
+                .extracting(StockReservation::getStatus)
+                .containsOnly(StockReservation.ReservationStatus.CONFIRMED);
+    }
+
+    @Test
+    void paymentAfterExpiryIsNotConfirmedWhenTheStockWasSold() {
+        Product product = product(2);
+        String orderId = "order-" + UUID.randomUUID();
+        reservationService.reserve(orderId, List.of(new CreateOrderItemDTO(product.getId(), null, 2)));
+
+        expire(orderId);
+        reservationService.releaseExpired();
+        reservationService.reserve("order-" + UUID.randomUUID(), List.of(new CreateOrderItemDTO(product.getId(), null, 2)));
+
+        assertThat(reservationService.confirm(orderId)).isFalse();
+        assertThat(stockOf(product)).isZero();
+        assertThat(reservationRepository.findByOrderId(orderId))
+                .extracting(StockReservation::getStatus)
+                .containsOnly(StockReservation.ReservationStatus.RELEASED);
+    }
+
+    private Result run(String name, IntFunction<List<CreateOrderItemDTO>> items) throws Exception {
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int i = 0; i < ATTEMPTS; i++) {
+                int attempt = i;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        long began = System.nanoTime();
+                        try {
+                            reservationService.reserve("order-" + UUID.randomUUID(), items.apply(attempt));
+                            reserved.incrementAndGet();
+                        } catch (InsufficientStockException e) {
+                            rejected.incrementAndGet();
+                        } finally {
+                            latencies.add(System.nanoTime() - began);
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                });
+            }
+
+            long began = System.nanoTime();
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+            long elapsed = System.nanoTime() - began;
+
+            List<Long> sorted = new ArrayList<>(latencies);
+            sorted.sort(Long::compare);
+            logger.info(String.format("stock reservation [%s]: %d attempts on %d threads, %.0f ops/s, p50 %.2f ms, p99 %.2f ms",
+                    name, ATTEMPTS, THREADS, ATTEMPTS / (elapsed / 1e9),
+                    percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6));
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Result(reserved.get(), rejected.get(), failures.get());
+    }
+
+    private Product product(int stock) {
+        return productRepository.save(Product.builder()
+                .sellerId("seller")
+                .categoryId("category")
+                .name("Contention product")
+                .slug("contention-" + UUID.randomUUID())
+                .price(BigDecimal.TEN)
+                .stockQuantity(stock)
+                .build());
+    }
+
+    private ProductVariant variant(Product product, int stock) {
+        return productVariantRepository.save(ProductVariant.builder()
+                .productId(product.getId())
+                .sku("SKU-" + UUID.randomUUID())
+                .variantName("Default")
+                .price(BigDecimal.TEN)
+                .stockQuantity(stock)
+                .build());
+    }
+
+    private void expire(String orderId) {
+        for (StockReservation reservation : reservationRepository.findByOrderId(orderId)) {
+            reservation.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+            reservationRepository.save(reservation);
+        }
+    }
+
+    private int stockOf(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStockQuantity();
+    }
+
+    private int stockOf(ProductVariant variant) {
+        return productVariantRepository.findById(variant.getId()).orElseThrow().getStockQuantity();
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        return sorted.isEmpty() ? 0 : sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(percentile * sorted.size()) - 1));
+    }
+
+    private record Result(int reserved, int rejected, int failures) {
+    }
+}